@@ -0,0 +1,121 @@
+package org.uslhcnet.opendaylight.cli;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+import jline.console.completer.Completer;
+
+/**
+ * A console stub for benchmarks. It discards everything written to it and
+ * never cancels a command.
+ */
+public class StubCliConsole implements ICliConsole {
+    /** The cancellation token that is never cancelled. */
+    private static final ICancellationToken NOT_CANCELLED = new ICancellationToken() {
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
+
+    /** The prompt string. */
+    private String prompt = "> ";
+    /** The output format. */
+    private OutputFormat outputFormat = OutputFormat.TEXT;
+    /** The number of characters written. */
+    private long written;
+
+    @Override
+    public void setPrompt(String prompt) {
+        this.prompt = prompt;
+    }
+
+    @Override
+    public String getPrompt() {
+        return this.prompt;
+    }
+
+    @Override
+    public Collection<Completer> getCompleters() {
+        return new ArrayList<Completer>();
+    }
+
+    @Override
+    public void write(String string) {
+        this.written += string.length();
+    }
+
+    @Override
+    public String getUser() {
+        return null;
+    }
+
+    @Override
+    public ICancellationToken getCancellationToken() {
+        return NOT_CANCELLED;
+    }
+
+    @Override
+    public OutputFormat getOutputFormat() {
+        return this.outputFormat;
+    }
+
+    @Override
+    public void setOutputFormat(OutputFormat format) {
+        this.outputFormat = format;
+    }
+
+    @Override
+    public int getTerminalWidth() {
+        return 0;
+    }
+
+    @Override
+    public int getTerminalHeight() {
+        return 0;
+    }
+
+    @Override
+    public void stop() {
+        // Nothing to do here.
+    }
+
+    /**
+     * Getter for the number of characters written to this console.
+     *
+     * @return The number of characters written.
+     */
+    public long getWritten() {
+        return this.written;
+    }
+
+}
@@ -0,0 +1,90 @@
+package org.uslhcnet.opendaylight.cli;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+/**
+ * A command output stub for benchmarks that collects the output in a string
+ * builder.
+ */
+public class StubCliOutput implements ICliOutput {
+    /** The collected output. */
+    private final StringBuilder builder = new StringBuilder();
+
+    @Override
+    public StubCliOutput append(CharSequence csq) {
+        this.builder.append(csq);
+        return this;
+    }
+
+    @Override
+    public StubCliOutput append(CharSequence csq, int start, int end) {
+        this.builder.append(csq, start, end);
+        return this;
+    }
+
+    @Override
+    public StubCliOutput append(char c) {
+        this.builder.append(c);
+        return this;
+    }
+
+    @Override
+    public StubCliOutput println(CharSequence line) {
+        this.builder.append(line).append('\n');
+        return this;
+    }
+
+    @Override
+    public void flush() {
+        // Nothing to do here.
+    }
+
+    @Override
+    public boolean isClosed() {
+        return false;
+    }
+
+    /**
+     * Getter for the number of characters written to this output.
+     *
+     * @return The number of characters written.
+     */
+    public int length() {
+        return this.builder.length();
+    }
+
+    /**
+     * Discards the collected output.
+     */
+    public void reset() {
+        this.builder.setLength(0);
+    }
+
+}
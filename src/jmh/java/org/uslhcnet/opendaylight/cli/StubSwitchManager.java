@@ -0,0 +1,104 @@
+package org.uslhcnet.opendaylight.cli;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.opendaylight.controller.sal.core.Description;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.Property;
+import org.opendaylight.controller.sal.core.TimeStamp;
+import org.opendaylight.controller.switchmanager.ISwitchManager;
+
+/**
+ * A switch manager stub for benchmarks. It knows a given number of OpenFlow
+ * nodes with a description and a connect time. Only getNodes(),
+ * getNodeProps(), and getNodeProp() are implemented; any other method of the
+ * switch manager returns null.
+ */
+public class StubSwitchManager implements InvocationHandler {
+    /** The properties of the nodes. */
+    private final Map<Node, Map<String, Property>> nodes = new HashMap<Node, Map<String, Property>>();
+
+    /**
+     * Constructor.
+     *
+     * @param count
+     *            The number of nodes.
+     * @throws ConstructionException
+     */
+    private StubSwitchManager(int count) throws ConstructionException {
+        for (int i = 0; i < count; i++) {
+            /* The properties of the node. */
+            Map<String, Property> props = new HashMap<String, Property>();
+            props.put(Description.propertyName, new Description("switch-" + (i % 16)));
+            props.put(TimeStamp.TimeStampPropName, new TimeStamp(1388534400000L + i * 1000L,
+                    "connectedSince"));
+            this.nodes.put(new Node(Node.NodeIDType.OPENFLOW, Long.valueOf(i + 1)), props);
+        }
+    }
+
+    /**
+     * Creates a switch manager stub.
+     *
+     * @param count
+     *            The number of nodes the switch manager knows.
+     * @return The switch manager stub.
+     * @throws ConstructionException
+     */
+    public static ISwitchManager create(int count) throws ConstructionException {
+        return (ISwitchManager) Proxy.newProxyInstance(ISwitchManager.class.getClassLoader(),
+                new Class<?>[] { ISwitchManager.class }, new StubSwitchManager(count));
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        if (method.getDeclaringClass() == Object.class) {
+            return method.invoke(this, args);
+        }
+        switch (method.getName()) {
+        case "getNodes":
+            return new HashSet<Node>(this.nodes.keySet());
+        case "getNodeProps":
+            return this.nodes.get(args[0]);
+        case "getNodeProp":
+            return (this.nodes.containsKey(args[0])) ? this.nodes.get(args[0]).get(args[1]) : null;
+        default:
+            return null;
+        }
+    }
+
+}
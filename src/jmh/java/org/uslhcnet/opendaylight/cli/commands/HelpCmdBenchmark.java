@@ -0,0 +1,144 @@
+package org.uslhcnet.opendaylight.cli.commands;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.uslhcnet.opendaylight.cli.ICliCommand;
+import org.uslhcnet.opendaylight.cli.ICliConsole;
+import org.uslhcnet.opendaylight.cli.StubCliConsole;
+import org.uslhcnet.opendaylight.cli.StubCliOutput;
+import org.uslhcnet.opendaylight.cli.internal.CommandHandler;
+
+/**
+ * Measures how fast the help command renders the list of commands, depending
+ * on the number of registered commands.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HelpCmdBenchmark {
+    /** The number of registered commands. */
+    @Param({ "10", "100", "1000" })
+    public int commands;
+
+    /** The commands registered by this benchmark. */
+    private List<ICliCommand> registered;
+    /** The help command. */
+    private HelpCmd helpCmd;
+    /** The console stub. */
+    private StubCliConsole console;
+    /** The output stub. */
+    private StubCliOutput output;
+
+    @Setup
+    public void setup() {
+        this.registered = new ArrayList<ICliCommand>();
+        for (int i = 0; i < this.commands; i++) {
+            this.registered.add(new BenchmarkCommand("show object" + i));
+        }
+        for (ICliCommand command : this.registered) {
+            CommandHandler.getInstance().addCommand(command);
+        }
+        this.helpCmd = new HelpCmd();
+        this.console = new StubCliConsole();
+        this.output = new StubCliOutput();
+    }
+
+    @TearDown
+    public void tearDown() {
+        for (ICliCommand command : this.registered) {
+            CommandHandler.getInstance().removeCommand(command);
+        }
+    }
+
+    @Benchmark
+    public String render() {
+        return this.helpCmd.execute(this.console, null);
+    }
+
+    @Benchmark
+    public int stream() throws IOException {
+        this.output.reset();
+        this.helpCmd.execute(this.console, null, this.output);
+        return this.output.length();
+    }
+
+    /**
+     * A command that does nothing.
+     */
+    private static class BenchmarkCommand implements ICliCommand {
+        /** The command string. */
+        private final String commandString;
+
+        public BenchmarkCommand(String commandString) {
+            this.commandString = commandString;
+        }
+
+        @Override
+        public String getCommandString() {
+            return this.commandString;
+        }
+
+        @Override
+        public String getArguments() {
+            return null;
+        }
+
+        @Override
+        public String getHelpText() {
+            return "Shows the object " + this.commandString.substring(11) + ".";
+        }
+
+        @Override
+        public String execute(ICliConsole console, String arguments) {
+            return "";
+        }
+    }
+
+}
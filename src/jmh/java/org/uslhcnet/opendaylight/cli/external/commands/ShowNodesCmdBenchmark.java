@@ -0,0 +1,107 @@
+package org.uslhcnet.opendaylight.cli.external.commands;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.opendaylight.controller.sal.core.ConstructionException;
+import org.uslhcnet.opendaylight.cli.StubCliConsole;
+import org.uslhcnet.opendaylight.cli.StubCliOutput;
+import org.uslhcnet.opendaylight.cli.StubSwitchManager;
+import org.uslhcnet.opendaylight.cli.external.NodeInventory;
+
+/**
+ * Measures how fast the nodes are shown, depending on the number of nodes.
+ * The inventory is loaded from a switch manager stub.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ShowNodesCmdBenchmark {
+    /** The number of nodes. */
+    @Param({ "10", "1000", "10000" })
+    public int nodes;
+
+    /** The show nodes command. */
+    private ShowNodesCmd showNodesCmd;
+    /** The console stub. */
+    private StubCliConsole console;
+    /** The output stub. */
+    private StubCliOutput output;
+
+    @Setup
+    public void setup() throws ConstructionException {
+        /* The node inventory. */
+        NodeInventory inventory = new NodeInventory();
+
+        inventory.load(StubSwitchManager.create(this.nodes));
+        this.showNodesCmd = new ShowNodesCmd(inventory);
+        this.console = new StubCliConsole();
+        this.output = new StubCliOutput();
+    }
+
+    @Benchmark
+    public int stream() throws IOException {
+        this.output.reset();
+        this.showNodesCmd.execute(this.console, null, this.output);
+        return this.output.length();
+    }
+
+    @Benchmark
+    public int streamSorted() throws IOException {
+        this.output.reset();
+        this.showNodesCmd.execute(this.console, "--sort connected --desc", this.output);
+        return this.output.length();
+    }
+
+    @Benchmark
+    public int streamTop20() throws IOException {
+        this.output.reset();
+        this.showNodesCmd.execute(this.console, "--sort connected --desc --limit 20",
+                this.output);
+        return this.output.length();
+    }
+
+}
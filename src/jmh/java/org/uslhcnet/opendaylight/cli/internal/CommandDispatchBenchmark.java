@@ -0,0 +1,211 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.util.AbstractMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.uslhcnet.opendaylight.cli.ICliCommand;
+import org.uslhcnet.opendaylight.cli.ICliConsole;
+import org.uslhcnet.opendaylight.cli.internal.CommandMetrics.Phase;
+
+/**
+ * Measures how fast a command line is matched to a command, depending on the
+ * number of registered commands. The former dispatch, i.e. splitting the line
+ * and looking up every prefix in the command map, serves as baseline. The
+ * difference between {@link #match()} and {@link #matchAndRecord()} is the cost
+ * of recording the command metrics on the dispatch path.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommandDispatchBenchmark {
+    /** The verbs the benchmark commands start with. */
+    private static final String[] VERBS = { "show", "set", "clear", "debug" };
+    /** The number of command lines the benchmark cycles through. */
+    private static final int LINES = 64;
+
+    /** The number of registered commands. */
+    @Param({ "10", "100", "1000" })
+    public int commands;
+
+    /** The registered commands. */
+    private Map<String, ICliCommand> commandMap;
+    /** The command tree of the registered commands. */
+    private CommandTree tree;
+    /** Command lines with arguments. */
+    private String[] lines;
+    /** The index of the next command line. */
+    private int next;
+    /** The metrics the dispatch is recorded in. */
+    private CommandMetrics metrics;
+
+    @Setup
+    public void setup() {
+        this.commandMap = new HashMap<String, ICliCommand>();
+        for (int i = 0; i < this.commands; i++) {
+            /* The command string. */
+            String commandString = VERBS[i % VERBS.length] + " object" + i
+                    + ((i % 3 == 0) ? " detail" : "");
+            this.commandMap.put(commandString, new BenchmarkCommand(commandString));
+        }
+        this.tree = CommandTree.build(this.commandMap, 1);
+        this.metrics = new CommandMetrics("benchmark");
+
+        this.lines = new String[LINES];
+        /* The registered command strings. */
+        String[] commandStrings = this.commandMap.keySet().toArray(new String[0]);
+        for (int i = 0; i < LINES; i++) {
+            this.lines[i] = commandStrings[(i * 7919) % commandStrings.length] + " arg" + i;
+        }
+    }
+
+    @Benchmark
+    public CommandMatch match() {
+        /* The command match. */
+        CommandMatch match = this.tree.match(this.nextLine());
+
+        match.getArguments();
+        return match;
+    }
+
+    @Benchmark
+    public CommandMatch matchAndRecord() {
+        /* The time the parsing started. */
+        long start = System.nanoTime();
+        /* The command match. */
+        CommandMatch match = this.tree.match(this.nextLine());
+
+        match.getArguments();
+        this.metrics.record(Phase.PARSE, System.nanoTime() - start);
+        this.metrics.called();
+        return match;
+    }
+
+    @Benchmark
+    public CommandMatch matchUnknown() {
+        return this.tree.match("unknown command line");
+    }
+
+    @Benchmark
+    public Map.Entry<String, String> splitLookup() {
+        return this.parseCommand(this.nextLine());
+    }
+
+    @Benchmark
+    public CommandTree build() {
+        return CommandTree.build(this.commandMap, 1);
+    }
+
+    /**
+     * Returns the next command line.
+     *
+     * @return The next command line.
+     */
+    private String nextLine() {
+        this.next = (this.next + 1) % LINES;
+        return this.lines[this.next];
+    }
+
+    /**
+     * The former dispatch that looks up every word of the command line.
+     *
+     * @param commandString
+     *            The command line.
+     * @return The command string and the arguments.
+     */
+    private Map.Entry<String, String> parseCommand(String commandString) {
+        /* All (sub) string elements in a string command. */
+        String[] commandElements = commandString.split(" ");
+        /* New command string (without arguments). */
+        String command = "";
+        /* New argument string. */
+        String arguments = "";
+
+        for (int i = 0; i < commandElements.length; i++) {
+            if (this.commandMap.get((command + " " + commandElements[i].trim()).trim()) != null) {
+                command = (command + " " + commandElements[i].trim()).trim();
+            } else {
+                arguments = (arguments + " " + commandElements[i].trim()).trim();
+            }
+        }
+
+        return new AbstractMap.SimpleEntry<String, String>(command, arguments);
+    }
+
+    /**
+     * A command that does nothing.
+     */
+    private static class BenchmarkCommand implements ICliCommand {
+        /** The command string. */
+        private final String commandString;
+
+        public BenchmarkCommand(String commandString) {
+            this.commandString = commandString;
+        }
+
+        @Override
+        public String getCommandString() {
+            return this.commandString;
+        }
+
+        @Override
+        public String getArguments() {
+            return null;
+        }
+
+        @Override
+        public String getHelpText() {
+            return "Help of " + this.commandString + ".";
+        }
+
+        @Override
+        public String execute(ICliConsole console, String arguments) {
+            return "";
+        }
+    }
+
+}
@@ -0,0 +1,245 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.sshd.ClientChannel;
+import org.apache.sshd.ClientSession;
+import org.apache.sshd.SshClient;
+import org.apache.sshd.SshServer;
+import org.apache.sshd.common.io.IoSession;
+import org.apache.sshd.common.session.AbstractSession;
+import org.apache.sshd.server.PasswordAuthenticator;
+import org.apache.sshd.server.ServerFactoryManager;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.server.session.ServerSession;
+import org.apache.sshd.server.session.SessionFactory;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.uslhcnet.opendaylight.cli.StubSwitchManager;
+import org.uslhcnet.opendaylight.cli.external.NodeInventory;
+import org.uslhcnet.opendaylight.cli.external.commands.ShowNodesCmd;
+
+/**
+ * Pushes a large table, i.e. "show nodes" with a switch manager stub, through
+ * an SSH exec channel over the loopback interface, once for each transport
+ * profile. The client uses the same profile as the server. The time is the
+ * CPU-bound cost on a fast network; the auxiliary counters give the bytes the
+ * server sent over the wire and the bytes of the table, i.e. what the profile
+ * costs on a bandwidth-bound link.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SshTransportBenchmark {
+    /** The maximum time in milliseconds to wait for the server. */
+    private static final long TIMEOUT = 30000;
+
+    /** The name of the transport profile. */
+    @Param({ "default", "lan-fast", "wan-compressed" })
+    public String profile;
+
+    /** The number of nodes in the table. */
+    @Param({ "10000" })
+    public int nodes;
+
+    /** The SSH server. */
+    private SshServer sshd;
+    /** The SSH client. */
+    private SshClient client;
+    /** The session of the client. */
+    private ClientSession session;
+    /** The file of the host key. */
+    private File hostKey;
+
+    /**
+     * The bytes sent per iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Bytes {
+        /** The bytes the server sent over the wire. */
+        public long wireBytes;
+        /** The bytes of the table. */
+        public long tableBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        /* The transport profile. */
+        SshTransportProfile transport = SshTransportProfile.fromString(this.profile);
+        /* The node inventory. */
+        NodeInventory inventory = new NodeInventory();
+
+        inventory.load(StubSwitchManager.create(this.nodes));
+        CommandHandler.getInstance().addCommand(new ShowNodesCmd(inventory));
+
+        this.hostKey = File.createTempFile("ssh_host_rsa_key", ".pem");
+        this.hostKey.delete();
+        this.sshd = SshServer.setUpDefaultServer();
+        this.sshd.setPort(0);
+        this.sshd.setKeyPairProvider(new SimpleGeneratorHostKeyProvider(
+                this.hostKey.getPath(), "RSA", 2048));
+        this.sshd.setPasswordAuthenticator(new PasswordAuthenticator() {
+            @Override
+            public boolean authenticate(String username, String password, ServerSession session) {
+                return true;
+            }
+        });
+        this.sshd.setCommandFactory(new CliCommandFactory(new SessionAdmissionControl()));
+        this.sshd.setSessionFactory(new CountingSessionFactory());
+        transport.apply(this.sshd);
+        this.sshd.start();
+
+        this.client = SshClient.setUpDefaultClient();
+        transport.apply(this.client);
+        this.client.start();
+        this.session = this.client.connect("admin", "localhost", this.sshd.getPort()).await()
+                .getSession();
+        this.session.addPasswordIdentity("admin");
+        this.session.auth().verify();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        this.session.close(true);
+        this.client.stop();
+        this.sshd.stop(true);
+        this.hostKey.delete();
+    }
+
+    @Benchmark
+    public long showNodes(Bytes bytes) throws IOException, InterruptedException {
+        /* The channel of the command. */
+        ClientChannel channel = this.session.createExecChannel("show nodes");
+        /* The output of the command. */
+        CountingOutputStream out = new CountingOutputStream();
+        /* The bytes the server has sent before the command. */
+        long sent = this.getWireBytes();
+
+        channel.setOut(out);
+        channel.setErr(out);
+        channel.open().await();
+        channel.waitFor(ClientChannel.CLOSED, TIMEOUT);
+        bytes.wireBytes += this.getWireBytes() - sent;
+        bytes.tableBytes += out.count;
+        return out.count;
+    }
+
+    /**
+     * Gets the bytes the server has sent over the wire so far.
+     *
+     * @return The number of bytes.
+     */
+    private long getWireBytes() {
+        /* The number of bytes. */
+        long sent = 0;
+
+        for (AbstractSession serverSession : this.sshd.getActiveSessions()) {
+            sent += ((CountingSession) serverSession).getOutBytes();
+        }
+        return sent;
+    }
+
+    /**
+     * Creates server sessions that tell the bytes they have sent.
+     */
+    private static class CountingSessionFactory extends SessionFactory {
+        @Override
+        protected AbstractSession doCreateSession(IoSession ioSession) throws Exception {
+            return new CountingSession(this.server, ioSession);
+        }
+    }
+
+    /**
+     * A server session that tells the bytes it has sent, after compression
+     * and encryption.
+     */
+    private static class CountingSession extends ServerSession {
+        /**
+         * Constructor.
+         *
+         * @param server
+         *            The SSH server.
+         * @param ioSession
+         *            The IO session.
+         * @throws Exception
+         */
+        CountingSession(ServerFactoryManager server, IoSession ioSession) throws Exception {
+            super(server, ioSession);
+        }
+
+        /**
+         * Gets the bytes this session has sent.
+         *
+         * @return The number of bytes.
+         */
+        long getOutBytes() {
+            return this.outBytes;
+        }
+    }
+
+    /**
+     * An output stream that only counts the bytes written to it.
+     */
+    private static class CountingOutputStream extends OutputStream {
+        /** The number of bytes. */
+        long count;
+
+        @Override
+        public void write(int b) {
+            this.count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            this.count += len;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package org.uslhcnet.opendaylight.cli.utils;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the console output path: a command result is encoded by the
+ * console reader's writer, converted from lf to crlf, and written to the SSH
+ * channel. Compares the former path, i.e. a byte by byte filter behind an
+ * auto-flushing print stream, to the buffered bulk conversion.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LfToCrLfBenchmark {
+    /** The size of the command result in bytes. */
+    @Param({ "2048", "2097152" })
+    public int size;
+
+    /** The command result. */
+    private String result;
+
+    @Setup
+    public void setup() {
+        /* The string builder that holds the result. */
+        StringBuilder builder = new StringBuilder(this.size);
+        /* A table row. */
+        String row = "  00:00:00:00:00:00:00:01   OF   switch-1   2014-01-01 00:00:00 UTC\n";
+
+        while (builder.length() < this.size) {
+            builder.append(row);
+        }
+        builder.setLength(this.size);
+        this.result = builder.toString();
+    }
+
+    @Benchmark
+    public long bytewise(Blackhole blackhole) throws IOException {
+        /* The channel the output is written to. */
+        ChannelStream channel = new ChannelStream(blackhole);
+        /* The output path. */
+        Writer writer = new OutputStreamWriter(new PrintStream(new BytewiseFilterOutputStream(
+                channel), true), "UTF-8");
+
+        writer.write(this.result);
+        writer.flush();
+        return channel.writes;
+    }
+
+    @Benchmark
+    public long bulk(Blackhole blackhole) throws IOException {
+        /* The channel the output is written to. */
+        ChannelStream channel = new ChannelStream(blackhole);
+        /* The output stream. */
+        LfToCrLfFilterOutputStream stream = new LfToCrLfFilterOutputStream(channel);
+        /* The output path. */
+        Writer writer = new OutputStreamWriter(stream, "UTF-8");
+
+        writer.write(this.result);
+        writer.flush();
+        stream.release();
+        return channel.writes;
+    }
+
+    /**
+     * The former lf to crlf filter that converts the output byte by byte.
+     */
+    private static class BytewiseFilterOutputStream extends FilterOutputStream {
+        /** States whether the last character was Cr or not. */
+        private boolean lastWasCr;
+
+        public BytewiseFilterOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!lastWasCr && b == '\n') {
+                out.write('\r');
+                out.write('\n');
+            } else {
+                out.write(b);
+            }
+            lastWasCr = b == '\r';
+        }
+    }
+
+    /**
+     * A stand-in for the SSH channel. Like the channel stream of SSHD, it
+     * synchronizes every write and copies the bytes into a packet buffer, and
+     * counts the writes, each of which might end up in a packet of its own.
+     */
+    private static class ChannelStream extends OutputStream {
+        /** The black hole that consumes the packets. */
+        private final Blackhole blackhole;
+        /** The packet buffer. */
+        private final byte[] packet = new byte[32768];
+        /** The number of bytes in the packet buffer. */
+        private int count;
+        /** The number of writes. */
+        private long writes;
+
+        public ChannelStream(Blackhole blackhole) {
+            this.blackhole = blackhole;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            this.writes++;
+            if (this.count == this.packet.length) {
+                this.send();
+            }
+            this.packet[this.count++] = (byte) b;
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            this.writes++;
+            while (len > 0) {
+                if (this.count == this.packet.length) {
+                    this.send();
+                }
+                /* The number of bytes that fit into the packet. */
+                int chunk = Math.min(len, this.packet.length - this.count);
+                System.arraycopy(b, off, this.packet, this.count, chunk);
+                this.count += chunk;
+                off += chunk;
+                len -= chunk;
+            }
+        }
+
+        @Override
+        public synchronized void flush() {
+            this.send();
+        }
+
+        /**
+         * Sends the packet buffer.
+         */
+        private void send() {
+            this.blackhole.consume(this.packet);
+            this.count = 0;
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package org.uslhcnet.opendaylight.cli.utils;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how fast a string table is filled and rendered, depending on the
+ * number of rows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StringTableBenchmark {
+    /** The number of rows. */
+    @Param({ "10", "1000", "100000" })
+    public int rows;
+
+    /** The cells of the table, row by row. */
+    private String[][] cells;
+    /** A filled table. */
+    private StringTable table;
+
+    @Setup
+    public void setup() {
+        this.cells = new String[this.rows][];
+        for (int i = 0; i < this.rows; i++) {
+            this.cells[i] = new String[] { String.format("00:00:00:00:00:%02x:%02x:%02x",
+                    (i >> 16) & 0xff, (i >> 8) & 0xff, i & 0xff), "switch-" + (i % 16), "OF",
+                    "2014-01-01 00:00:00 UTC" };
+        }
+        this.table = this.fill();
+    }
+
+    @Benchmark
+    public StringTable fill() {
+        /* The string table. */
+        StringTable stringTable = new StringTable().setOffset(StringTable.DEFAULT_OFFSET);
+
+        stringTable.setHeader(Arrays.asList("SwitchID", "Description", "Type",
+                "Connected Since"));
+        for (String[] row : this.cells) {
+            stringTable.addRow(row);
+        }
+        return stringTable;
+    }
+
+    @Benchmark
+    public String render() {
+        return this.table.toString();
+    }
+
+    @Benchmark
+    public String fillAndRender() {
+        return this.fill().toString();
+    }
+
+}
@@ -0,0 +1,107 @@
+package org.uslhcnet.opendaylight.cli.utils;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the formatting helpers of {@link Utils}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilsBenchmark {
+    /** Capacities in Mbps, including half duplex and uncommon ones. */
+    private static final int[] CAPACITIES = { 10, 100, 1000, 10000, 40000, 100000, -100, 2500 };
+    /** Bit rates in bps. */
+    private static final long[] BIT_RATES = { 12L, 12345L, 12345678L, 12345678901L };
+
+    /** A time stamp. */
+    private long timestamp = 1388534400000L;
+    /** The index of the next value. */
+    private int next;
+    /** The string builder the append benchmarks reuse. */
+    private final StringBuilder builder = new StringBuilder(64);
+
+    @Benchmark
+    public String parseDate() {
+        this.timestamp += 1000;
+        return Utils.parseDate(this.timestamp);
+    }
+
+    @Benchmark
+    public String parseCapacity() {
+        this.next++;
+        return Utils.parseCapacity(CAPACITIES[this.next & 7]);
+    }
+
+    @Benchmark
+    public String parseBitRate() {
+        this.next++;
+        return Utils.parseBitRate(BIT_RATES[this.next & 3]);
+    }
+
+    @Benchmark
+    public StringBuilder appendDate() {
+        this.timestamp += 1000;
+        this.builder.setLength(0);
+        return Utils.appendDate(this.timestamp, this.builder);
+    }
+
+    @Benchmark
+    public StringBuilder appendCapacity() {
+        this.next++;
+        this.builder.setLength(0);
+        return Utils.appendCapacity(CAPACITIES[this.next & 7], this.builder);
+    }
+
+    @Benchmark
+    public StringBuilder appendBitRate() {
+        this.next++;
+        this.builder.setLength(0);
+        return Utils.appendBitRate(BIT_RATES[this.next & 3], this.builder);
+    }
+
+}
@@ -29,7 +29,9 @@ public interface ICliConsole {
     public abstract Collection<Completer> getCompleters();
 
     /**
-     * Writes a string to the console prompt.
+     * Writes a string to the console prompt. Called by a command, the string
+     * is written to the command's output, i.e. it is rejected once the
+     * command has been cancelled.
      *
      * @param string
      *            String to write to the console prompt.
@@ -37,6 +39,55 @@ public interface ICliConsole {
      */
     public abstract void write(String string) throws IOException;
 
+    /**
+     * Gets the user that opened the console.
+     *
+     * @return The user name, or null if the user is not known.
+     */
+    public abstract String getUser();
+
+    /**
+     * Gets the cancellation token of the command that is currently executed
+     * by this console.
+     *
+     * @return The cancellation token of the current command. Never null.
+     */
+    public abstract ICancellationToken getCancellationToken();
+
+    /**
+     * Gets the format the current command should write tables in, i.e. the
+     * format given by the command's --format option or the format of the
+     * console.
+     *
+     * @return The output format. Never null.
+     */
+    public abstract OutputFormat getOutputFormat();
+
+    /**
+     * Sets the format of the console, i.e. the format commands write tables in
+     * unless a command line says otherwise.
+     *
+     * @param format
+     *            The output format.
+     */
+    public abstract void setOutputFormat(OutputFormat format);
+
+    /**
+     * Gets the width of the operator's terminal.
+     *
+     * @return The number of columns, or 0 if the console is not an interactive
+     *         terminal.
+     */
+    public abstract int getTerminalWidth();
+
+    /**
+     * Gets the height of the operator's terminal.
+     *
+     * @return The number of lines, or 0 if the console is not an interactive
+     *         terminal.
+     */
+    public abstract int getTerminalHeight();
+
     /**
      * Stops and exits the console.
      */
@@ -0,0 +1,74 @@
+package org.uslhcnet.opendaylight.cli;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+/**
+ * An output filter the operator can append to a command line with '|', e.g.
+ * "show nodes | grep switch-1". Filters are registered through the
+ * {@link ICliService}. For each command line, the filter creates a new stage
+ * that gets the output of the command, or of the previous filter, line by
+ * line.
+ */
+public interface ICliFilter {
+
+    /**
+     * Gets the filter string, i.e. the word that follows the '|'.
+     *
+     * @return The filter as a string.
+     */
+    public String getFilterString();
+
+    /**
+     * Gets the filter argument string.
+     *
+     * @return The filter's argument as a string.
+     */
+    public String getArguments();
+
+    /**
+     * Gets the filter help string.
+     *
+     * @return The filter's help text as a string.
+     */
+    public String getHelpText();
+
+    /**
+     * Creates a stage of this filter for a command line.
+     *
+     * @param arguments
+     *            The filter's arguments. Never null.
+     * @return A new stage.
+     * @throws IllegalArgumentException
+     *             If the arguments are invalid. The message is shown to the
+     *             operator.
+     */
+    public ICliFilterStage createStage(String arguments) throws IllegalArgumentException;
+
+}
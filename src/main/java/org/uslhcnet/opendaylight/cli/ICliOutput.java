@@ -0,0 +1,80 @@
+package org.uslhcnet.opendaylight.cli;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * The output a streaming command writes its result to. The console hands it to
+ * the command, which can then write its result piece by piece, e.g. row by
+ * row, while it is still producing it.
+ */
+public interface ICliOutput extends Appendable, Flushable {
+
+    @Override
+    public ICliOutput append(CharSequence csq) throws IOException;
+
+    @Override
+    public ICliOutput append(CharSequence csq, int start, int end) throws IOException;
+
+    @Override
+    public ICliOutput append(char c) throws IOException;
+
+    /**
+     * Writes a line, i.e. a string that is followed by a line break, to the
+     * output.
+     *
+     * @param line
+     *            The line to write.
+     * @return This output.
+     * @throws IOException
+     */
+    public ICliOutput println(CharSequence line) throws IOException;
+
+    /**
+     * Flushes the output, i.e. sends everything written so far to the
+     * console. The console flushes the output by itself when the command
+     * returns.
+     *
+     * @throws IOException
+     */
+    @Override
+    public void flush() throws IOException;
+
+    /**
+     * States whether the output is closed, i.e. nobody is interested in any
+     * further output. A command should stop producing output in this case.
+     *
+     * @return True if the output is closed.
+     */
+    public boolean isClosed();
+
+}
@@ -30,11 +30,26 @@ package org.uslhcnet.opendaylight.cli;
  */
 
 /**
- * Add and remove commands to and from the command line interface.
+ * Add and remove commands and output filters to and from the command line
+ * interface.
+ *
+ * Instead of calling {@link #registerCommand(ICliCommand)}, bundles may
+ * publish their commands as {@link ICliCommand} services with the service
+ * property {@value #COMMAND_PROPERTY}. The CLI picks them up and drops them
+ * with the services, and gets the service object only when the command is
+ * used first. If the optional properties {@value #ARGUMENTS_PROPERTY} and
+ * {@value #HELP_PROPERTY} are set, listing the commands does not count as a
+ * use.
  *
  * @author Michael Bredel <michael.bredel@cern.ch>
  */
 public interface ICliService {
+    /** The service property of a command service: the command string. */
+    public static final String COMMAND_PROPERTY = "command";
+    /** The optional service property of a command service: the arguments. */
+    public static final String ARGUMENTS_PROPERTY = "arguments";
+    /** The optional service property of a command service: the help text. */
+    public static final String HELP_PROPERTY = "help";
 
     /**
      * Adds a CLI command to the CLI.
@@ -45,11 +60,31 @@ public interface ICliService {
     public void registerCommand(ICliCommand command);
 
     /**
-     * removes a CLI command from the CLI.
+     * removes a CLI command from the CLI. The command is identified by its
+     * command string, i.e. the command registered with the same command
+     * string is removed, even if it is another instance. A command published
+     * as an {@link ICliCommand} service with the same command string is kept;
+     * it is removed when its service is unregistered.
      *
      * @param command
      *            The command to be removed.
      */
     public void unregisterCommand(ICliCommand command);
 
+    /**
+     * Adds an output filter to the CLI.
+     *
+     * @param filter
+     *            The filter to be added.
+     */
+    public void registerFilter(ICliFilter filter);
+
+    /**
+     * Removes an output filter from the CLI.
+     *
+     * @param filter
+     *            The filter to be removed.
+     */
+    public void unregisterFilter(ICliFilter filter);
+
 }
@@ -0,0 +1,104 @@
+package org.uslhcnet.opendaylight.cli.commands;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import org.uslhcnet.opendaylight.cli.ICliCommand;
+import org.uslhcnet.opendaylight.cli.ICliConsole;
+import org.uslhcnet.opendaylight.cli.internal.CliSession;
+import org.uslhcnet.opendaylight.cli.internal.SessionRegistry;
+
+/**
+ * Terminates a CLI shell session, e.g. one that runs a heavy command. The
+ * session identifiers are shown by "show sessions". Users may only terminate
+ * their own sessions, unless they are administrators.
+ */
+public class ClearSessionCmd implements ICliCommand {
+    /** The command string. */
+    private final String commandString = "clear session";
+    /** The command's arguments. */
+    private final String arguments = "<id>";
+    /** The command's help text. */
+    private final String help = "Terminates a CLI session.";
+    /** The registry of the live shell sessions. */
+    private SessionRegistry sessionRegistry;
+
+    /**
+     * Constructor.
+     *
+     * @param sessionRegistry
+     *            The registry of the live shell sessions.
+     */
+    public ClearSessionCmd(SessionRegistry sessionRegistry) {
+        this.sessionRegistry = sessionRegistry;
+    }
+
+    @Override
+    public String getCommandString() {
+        return commandString;
+    }
+
+    @Override
+    public String getArguments() {
+        return arguments;
+    }
+
+    @Override
+    public String getHelpText() {
+        return help;
+    }
+
+    @Override
+    public String execute(ICliConsole console, String arguments) {
+        /* The session identifier. */
+        int id;
+        /* The session to terminate. */
+        CliSession session;
+
+        try {
+            id = Integer.parseInt((arguments != null) ? arguments.trim() : "");
+        } catch (NumberFormatException e) {
+            return "Use: clear session <id>. The identifiers are shown by show sessions.";
+        }
+
+        session = this.sessionRegistry.getSession(id);
+        if (session == null) {
+            return "Unknown session: " + id;
+        }
+        if (!this.sessionRegistry.mayAccess(console.getUser(), session)) {
+            return "Permission denied: session " + id + " belongs to another user.";
+        }
+        if (!this.sessionRegistry.terminate(id)) {
+            return "Unknown session: " + id;
+        }
+
+        // Return.
+        return "Terminated session " + id + ".";
+    }
+}
@@ -29,20 +29,26 @@ package org.uslhcnet.opendaylight.cli.commands;
  * written permission.
  */
 
+import java.io.IOException;
 import java.util.Collection;
-import java.util.LinkedList;
-import java.util.List;
 
 import org.uslhcnet.opendaylight.cli.ICliCommand;
 import org.uslhcnet.opendaylight.cli.ICliConsole;
+import org.uslhcnet.opendaylight.cli.ICliFilter;
+import org.uslhcnet.opendaylight.cli.ICliOutput;
+import org.uslhcnet.opendaylight.cli.ICliStreamingCommand;
+import org.uslhcnet.opendaylight.cli.OutputFormat;
 import org.uslhcnet.opendaylight.cli.internal.CommandHandler;
+import org.uslhcnet.opendaylight.cli.internal.FilterRegistry;
+import org.uslhcnet.opendaylight.cli.internal.Pipeline;
 import org.uslhcnet.opendaylight.cli.utils.StringTable;
+import org.uslhcnet.opendaylight.cli.utils.TableWriter;
 
 /**
  *
  * @author Michael Bredel <michael.bredel@cern.ch>
  */
-public class HelpCmd implements ICliCommand {
+public class HelpCmd implements ICliStreamingCommand {
     /** States whether the table should have a separator or not. */
     public static final boolean TABLE_SEPARATOR = false;
 
@@ -54,12 +60,15 @@ public class HelpCmd implements ICliCommand {
     private final String help = "Prints this help.";
     /** The command hander that handles all console commands. */
     private CommandHandler commander;
+    /** The output filters of the command lines. */
+    private FilterRegistry filters;
 
     /**
      * Default constructor.
      */
     public HelpCmd() {
         this.commander = CommandHandler.getInstance();
+        this.filters = FilterRegistry.getInstance();
     }
 
     @Override
@@ -82,42 +91,68 @@ public class HelpCmd implements ICliCommand {
         /* The String builder that hold the resulting string. */
         StringBuilder result = new StringBuilder();
 
-        result.append("\n");
-        result.append(this.commandsToTable(this.commander.getCommands().values(), arguments));
+        try {
+            this.writeCommands(console.getOutputFormat(), result, this.commander.getCommands()
+                    .values(), arguments);
+        } catch (IOException e) {
+            // A string builder does not throw.
+        }
 
         // Return.
         return result.toString();
     }
 
+    @Override
+    public void execute(ICliConsole console, String arguments, ICliOutput output)
+            throws IOException {
+        this.writeCommands(console.getOutputFormat(), output, this.commander.getCommands()
+                .values(), arguments);
+    }
+
     /**
-     * Creates a table of commands and their help text.
+     * Writes a table of commands and their help text.
      *
+     * @param format
+     *            The output format.
+     * @param out
+     *            The appendable the table is written to.
      * @param commands
      *            The commands to print.
-     * @return <b>String</b> A string representing the table.
+     * @param arguments
+     *            The command to print, or null to print all commands.
+     * @throws IOException
      */
-    private String commandsToTable(Collection<ICliCommand> commands, String arguments) {
-        /* The string table that contains all the device information as strings. */
-        StringTable stringTable = new StringTable(TABLE_SEPARATOR)
-                .setOffset(StringTable.DEFAULT_OFFSET);
+    private void writeCommands(OutputFormat format, Appendable out,
+            Collection<ICliCommand> commands, String arguments) throws IOException {
+        /* The table writer. */
+        TableWriter table = TableWriter.create(format, out,
+                new StringTable(TABLE_SEPARATOR).setOffset(StringTable.DEFAULT_OFFSET));
+        /* The space between the command and the help text of the text format. */
+        String space = (format == OutputFormat.TEXT) ? " " : "";
 
+        table.setColumnNames("Command", "Description");
         for (ICliCommand command : commands) {
             if (arguments != null && !arguments.equals("")
                     && !command.getCommandString().equalsIgnoreCase(arguments)) {
                 continue;
             }
             if (command.getHelpText() != null && !command.getHelpText().equals("")) {
-                // Create a StringTable row.
-                List<String> row = new LinkedList<String>();
-                // Add columns to row.
-                row.add(command.getCommandString() + " ");
-                row.add(command.getHelpText());
                 // Add row to table.
-                stringTable.addRow(row);
+                table.addRow(command.getCommandString() + space, command.getHelpText());
+            }
+        }
+        for (ICliFilter filter : this.filters.getFilters()) {
+            if (arguments != null && !arguments.equals("")
+                    && !filter.getFilterString().equalsIgnoreCase(arguments)) {
+                continue;
+            }
+            if (filter.getHelpText() != null && !filter.getHelpText().equals("")) {
+                // Filters are shown as they are used.
+                table.addRow(Pipeline.PIPE + " " + filter.getFilterString() + space,
+                        filter.getHelpText());
             }
         }
 
-        // Return string table as a string.
-        return stringTable.toString();
+        table.finish();
     }
 }
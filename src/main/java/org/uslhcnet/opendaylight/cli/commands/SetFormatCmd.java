@@ -0,0 +1,78 @@
+package org.uslhcnet.opendaylight.cli.commands;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import org.uslhcnet.opendaylight.cli.ICliCommand;
+import org.uslhcnet.opendaylight.cli.ICliConsole;
+import org.uslhcnet.opendaylight.cli.OutputFormat;
+
+/**
+ * Sets the format commands of the session write tables in. A single command
+ * can override it with the --format option.
+ */
+public class SetFormatCmd implements ICliCommand {
+    /** The command string. */
+    private final String commandString = "set format";
+    /** The command's arguments. */
+    private final String arguments = "<format>";
+    /** The command's help text. */
+    private final String help = "Sets the output format of the session: text, json, csv, or ndjson.";
+
+    @Override
+    public String getCommandString() {
+        return commandString;
+    }
+
+    @Override
+    public String getArguments() {
+        return arguments;
+    }
+
+    @Override
+    public String getHelpText() {
+        return help;
+    }
+
+    @Override
+    public String execute(ICliConsole console, String arguments) {
+        /* The requested output format. */
+        OutputFormat format = (arguments != null) ? OutputFormat.fromString(arguments.trim())
+                : null;
+
+        if (format == null) {
+            return "Output format is " + console.getOutputFormat()
+                    + ". Use: text, json, csv, or ndjson.";
+        }
+        console.setOutputFormat(format);
+
+        // Return.
+        return "Output format is " + format + ".";
+    }
+}
@@ -0,0 +1,143 @@
+package org.uslhcnet.opendaylight.cli.commands;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+
+import org.uslhcnet.opendaylight.cli.ICliConsole;
+import org.uslhcnet.opendaylight.cli.ICliOutput;
+import org.uslhcnet.opendaylight.cli.ICliStreamingCommand;
+import org.uslhcnet.opendaylight.cli.internal.CommandMetrics;
+import org.uslhcnet.opendaylight.cli.internal.CommandMetrics.Phase;
+import org.uslhcnet.opendaylight.cli.internal.CommandMetricsRegistry;
+import org.uslhcnet.opendaylight.cli.utils.StringTable;
+import org.uslhcnet.opendaylight.cli.utils.TableWriter;
+
+/**
+ * Shows how often each command has been executed, how often it failed or was
+ * cancelled, how many characters it wrote, and how long its executions took.
+ * Times are the means in microseconds, except for the 99th percentile of the
+ * execution time.
+ */
+public class ShowCliStatsCmd implements ICliStreamingCommand {
+    /** The command string. */
+    private final String commandString = "show cli stats";
+    /** The command's arguments. */
+    private final String arguments = null;
+    /** The command's help text. */
+    private final String help = "Shows the execution statistics of the CLI commands.";
+    /** The registry of the command metrics. */
+    private CommandMetricsRegistry metrics;
+
+    /**
+     * Default constructor.
+     */
+    public ShowCliStatsCmd() {
+        this.metrics = CommandMetricsRegistry.getInstance();
+    }
+
+    @Override
+    public String getCommandString() {
+        return commandString;
+    }
+
+    @Override
+    public String getArguments() {
+        return arguments;
+    }
+
+    @Override
+    public String getHelpText() {
+        return help;
+    }
+
+    @Override
+    public String execute(ICliConsole console, String arguments) {
+        /* The String builder that hold the resulting string. */
+        StringBuilder result = new StringBuilder();
+
+        try {
+            this.writeStats(this.createTable(console, result));
+        } catch (IOException e) {
+            // A string builder does not throw.
+        }
+
+        // Return.
+        return result.toString();
+    }
+
+    @Override
+    public void execute(ICliConsole console, String arguments, ICliOutput output)
+            throws IOException {
+        this.writeStats(this.createTable(console, output));
+    }
+
+    /**
+     * Creates the table writer for the output format of the console.
+     *
+     * @param console
+     *            The console that executes the command.
+     * @param out
+     *            The appendable the table is written to.
+     * @return <b>TableWriter</b> The table writer.
+     */
+    private TableWriter createTable(ICliConsole console, Appendable out) {
+        return TableWriter.create(console.getOutputFormat(), out,
+                new StringTable().setOffset(StringTable.DEFAULT_OFFSET));
+    }
+
+    /**
+     * Writes a table of the metrics of all commands that have been executed.
+     *
+     * @param table
+     *            The table writer.
+     * @throws IOException
+     */
+    private void writeStats(TableWriter table) throws IOException {
+        table.setHeader("Command", "Calls", "Errors", "Cancelled", "Output", "Parse us",
+                "Execute us", "Execute p99 us", "Render us", "Write us");
+
+        for (CommandMetrics commandMetrics : this.metrics.getAll()) {
+            // Add a table row.
+            table.addRow(commandMetrics.getCommand(),
+                    Long.toString(commandMetrics.getCalls()),
+                    Long.toString(commandMetrics.getErrors()),
+                    Long.toString(commandMetrics.getCancellations()),
+                    Long.toString(commandMetrics.getOutputCharacters()),
+                    Long.toString(commandMetrics.getMeanMicros(Phase.PARSE)),
+                    Long.toString(commandMetrics.getMeanMicros(Phase.EXECUTE)),
+                    Long.toString(commandMetrics.getPercentileMicros(Phase.EXECUTE, 99)),
+                    Long.toString(commandMetrics.getMeanMicros(Phase.RENDER)),
+                    Long.toString(commandMetrics.getMeanMicros(Phase.WRITE)));
+        }
+
+        table.finish();
+    }
+}
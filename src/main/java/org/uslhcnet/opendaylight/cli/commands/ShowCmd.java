@@ -29,17 +29,12 @@ package org.uslhcnet.opendaylight.cli.commands;
  * written permission.
  */
 
-import java.util.ArrayList;
-import java.util.HashSet;
-import java.util.List;
-
-import jline.console.completer.Completer;
-
 import org.uslhcnet.opendaylight.cli.ICliCommand;
 import org.uslhcnet.opendaylight.cli.ICliConsole;
+import org.uslhcnet.opendaylight.cli.internal.CommandHandler;
 
 /**
- * The show command is used to present the completer of "show", i.e. all
+ * The show command is used to present all sub-commands of "show", i.e. all
  * commands that start with a "show" string.
  *
  * @author Michael Bredel <michael.bredel@cern.ch>
@@ -51,6 +46,15 @@ public class ShowCmd implements ICliCommand {
     private final String arguments = null;
     /** The command's help text. */
     private final String help = null;
+    /** The command hander that handles all console commands. */
+    private CommandHandler commander;
+
+    /**
+     * Default constructor.
+     */
+    public ShowCmd() {
+        this.commander = CommandHandler.getInstance();
+    }
 
     @Override
     public String getCommandString() {
@@ -71,28 +75,13 @@ public class ShowCmd implements ICliCommand {
     public String execute(ICliConsole console, String arguments) {
         /* The String builder that hold the resulting string. */
         StringBuilder result = new StringBuilder();
-        /* A list of command completion candidates. */
-        List<CharSequence> candidates = new ArrayList<CharSequence>();
-        /*
-         * Since Completer.complete needs a blank at the end of the command, we
-         * need to add one.
-         */
-        String line = this.commandString + " ";
-
-        // Find possible command completions.
-        for (Completer comp : console.getCompleters()) {
-            if (comp.complete(line, line.length(), candidates) == -1) {
-                break;
-            }
-        }
-
-        // Make sure the list is unique.
-        candidates = new ArrayList<CharSequence>(new HashSet<CharSequence>(candidates));
 
         // Create the result string.
         result.append("Command not found. Use:");
-        for (CharSequence candidate : candidates) {
-            result.append("\n  show " + candidate);
+        for (ICliCommand command : this.commander.getCommandTree().getCommands(this.commandString)) {
+            if (command != this) {
+                result.append("\n  " + command.getCommandString());
+            }
         }
 
         // Return.
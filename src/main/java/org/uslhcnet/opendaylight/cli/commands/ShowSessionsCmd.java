@@ -0,0 +1,148 @@
+package org.uslhcnet.opendaylight.cli.commands;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+
+import org.uslhcnet.opendaylight.cli.ICliConsole;
+import org.uslhcnet.opendaylight.cli.ICliOutput;
+import org.uslhcnet.opendaylight.cli.ICliStreamingCommand;
+import org.uslhcnet.opendaylight.cli.internal.CliSession;
+import org.uslhcnet.opendaylight.cli.internal.SessionRegistry;
+import org.uslhcnet.opendaylight.cli.utils.StringTable;
+import org.uslhcnet.opendaylight.cli.utils.TableWriter;
+import org.uslhcnet.opendaylight.cli.utils.Utils;
+
+/**
+ * Shows the live CLI shell sessions: who opened them from where and when, how
+ * long they have been idle, what they are running, and how many bytes they
+ * have read and written. The commands of other users' sessions are only shown
+ * to administrators.
+ */
+public class ShowSessionsCmd implements ICliStreamingCommand {
+    /** The command shown for the sessions of other users. */
+    private static final String HIDDEN = "-";
+
+    /** The command string. */
+    private final String commandString = "show sessions";
+    /** The command's arguments. */
+    private final String arguments = null;
+    /** The command's help text. */
+    private final String help = "Shows the CLI sessions.";
+    /** The registry of the live shell sessions. */
+    private SessionRegistry sessionRegistry;
+
+    /**
+     * Constructor.
+     *
+     * @param sessionRegistry
+     *            The registry of the live shell sessions.
+     */
+    public ShowSessionsCmd(SessionRegistry sessionRegistry) {
+        this.sessionRegistry = sessionRegistry;
+    }
+
+    @Override
+    public String getCommandString() {
+        return commandString;
+    }
+
+    @Override
+    public String getArguments() {
+        return arguments;
+    }
+
+    @Override
+    public String getHelpText() {
+        return help;
+    }
+
+    @Override
+    public String execute(ICliConsole console, String arguments) {
+        /* The String builder that hold the resulting string. */
+        StringBuilder result = new StringBuilder();
+
+        try {
+            this.writeSessions(console, this.createTable(console, result));
+        } catch (IOException e) {
+            // A string builder does not throw.
+        }
+
+        // Return.
+        return result.toString();
+    }
+
+    @Override
+    public void execute(ICliConsole console, String arguments, ICliOutput output)
+            throws IOException {
+        this.writeSessions(console, this.createTable(console, output));
+    }
+
+    /**
+     * Creates the table writer for the output format of the console.
+     *
+     * @param console
+     *            The console that executes the command.
+     * @param out
+     *            The appendable the table is written to.
+     * @return <b>TableWriter</b> The table writer.
+     */
+    private TableWriter createTable(ICliConsole console, Appendable out) {
+        return TableWriter.create(console.getOutputFormat(), out,
+                new StringTable().setOffset(StringTable.DEFAULT_OFFSET));
+    }
+
+    /**
+     * Writes a table of the live sessions.
+     *
+     * @param console
+     *            The console that executes the command.
+     * @param table
+     *            The table writer.
+     * @throws IOException
+     */
+    private void writeSessions(ICliConsole console, TableWriter table) throws IOException {
+        table.setHeader("ID", "User", "Remote Address", "Since", "Idle s", "Command", "Bytes In",
+                "Bytes Out");
+
+        for (CliSession session : this.sessionRegistry.getSessions()) {
+            /* The running command, if the user may see it. */
+            String command = this.sessionRegistry.mayAccess(console.getUser(), session) ? session
+                    .getCommand() : HIDDEN;
+            // Add a table row.
+            table.addRow(Integer.toString(session.getId()), session.getUser(),
+                    session.getRemoteAddress(), Utils.parseDate(session.getStartTime()),
+                    Long.toString(session.getIdleTime() / 1000), (command != null) ? command : "",
+                    Long.toString(session.getBytesIn()), Long.toString(session.getBytesOut()));
+        }
+
+        table.finish();
+    }
+}
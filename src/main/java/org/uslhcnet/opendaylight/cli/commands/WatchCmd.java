@@ -0,0 +1,222 @@
+package org.uslhcnet.opendaylight.cli.commands;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+import org.uslhcnet.opendaylight.cli.ICancellationToken;
+import org.uslhcnet.opendaylight.cli.ICliCommand;
+import org.uslhcnet.opendaylight.cli.ICliConsole;
+import org.uslhcnet.opendaylight.cli.ICliOutput;
+import org.uslhcnet.opendaylight.cli.ICliScreenCommand;
+import org.uslhcnet.opendaylight.cli.ICliStreamingCommand;
+import org.uslhcnet.opendaylight.cli.OutputClosedException;
+import org.uslhcnet.opendaylight.cli.internal.CommandHandler;
+import org.uslhcnet.opendaylight.cli.internal.CommandMatch;
+import org.uslhcnet.opendaylight.cli.internal.ConsoleOutput;
+import org.uslhcnet.opendaylight.cli.internal.Pipeline;
+import org.uslhcnet.opendaylight.cli.internal.StreamingCommandAdapter;
+import org.uslhcnet.opendaylight.cli.utils.ScreenUpdater;
+import org.uslhcnet.opendaylight.cli.utils.Utils;
+
+/**
+ * Runs a command on an interval and shows its result on the terminal screen,
+ * like watch(1), until the operator presses Ctrl-C. Each frame is compared to
+ * the previous one and only the lines that have changed are sent.
+ */
+public class WatchCmd implements ICliScreenCommand {
+    /** The default interval in seconds. */
+    public static final double DEFAULT_INTERVAL = 2;
+    /** The minimum interval in seconds. */
+    public static final double MIN_INTERVAL = 0.1;
+    /** The time in milliseconds between two checks for cancellation while waiting. */
+    private static final long POLL_INTERVAL = 50;
+
+    /** The command string. */
+    private final String commandString = "watch";
+    /** The command's arguments. */
+    private final String arguments = "[-n <seconds>] <command>";
+    /** The command's help text. */
+    private final String help = "Runs a command every 2 (or n) seconds and shows what changes.";
+    /** The command hander that handles all console commands. */
+    private CommandHandler commander;
+
+    /**
+     * Default constructor.
+     */
+    public WatchCmd() {
+        this.commander = CommandHandler.getInstance();
+    }
+
+    @Override
+    public String getCommandString() {
+        return commandString;
+    }
+
+    @Override
+    public String getArguments() {
+        return arguments;
+    }
+
+    @Override
+    public String getHelpText() {
+        return help;
+    }
+
+    @Override
+    public String execute(ICliConsole console, String arguments) {
+        return "Watch needs an interactive terminal.";
+    }
+
+    @Override
+    public void execute(ICliConsole console, String arguments, ICliOutput output)
+            throws IOException {
+        /* The arguments, without the interval option. */
+        String commandLine = (arguments != null) ? arguments.trim() : "";
+        /* The interval in seconds. */
+        double interval = DEFAULT_INTERVAL;
+        /* The match of the watched command line. */
+        CommandMatch match;
+
+        if (commandLine.startsWith("-n")) {
+            /* The interval and the command line. */
+            String[] parts = commandLine.substring(2).trim().split("\\s+", 2);
+            try {
+                interval = Math.max(Double.parseDouble(parts[0]), MIN_INTERVAL);
+            } catch (NumberFormatException e) {
+                output.println("Use: watch " + this.arguments);
+                return;
+            }
+            commandLine = (parts.length > 1) ? parts[1] : "";
+        }
+        if (console.getTerminalHeight() <= 0) {
+            output.println(this.execute(console, arguments));
+            return;
+        }
+
+        try {
+            match = this.commander.match(Pipeline.parse(commandLine).getCommandLine());
+        } catch (IllegalArgumentException e) {
+            output.println(e.getMessage());
+            return;
+        }
+        if (match.getCommand() == null) {
+            output.println(commandLine.equals("") ? "Use: watch " + this.arguments
+                    : (match.isAmbiguous() ? "Ambiguous command: " : "Unknown command: ")
+                            + commandLine);
+            return;
+        }
+        if (match.getCommand() instanceof ICliScreenCommand) {
+            output.println("Cannot watch " + match.getCommand().getCommandString() + ".");
+            return;
+        }
+
+        this.watch(console, output, match.getCommand(), match.getArguments(), commandLine,
+                (long) (interval * 1000));
+    }
+
+    /**
+     * Runs a command on an interval and updates the screen with its result,
+     * until the watch is cancelled.
+     *
+     * @param console
+     *            The console that executes the watch.
+     * @param output
+     *            The output of the watch, i.e. the terminal.
+     * @param command
+     *            The watched command.
+     * @param commandArguments
+     *            The arguments of the watched command.
+     * @param commandLine
+     *            The watched command line, including its filters.
+     * @param interval
+     *            The interval in milliseconds.
+     * @throws IOException
+     */
+    private void watch(ICliConsole console, ICliOutput output, ICliCommand command,
+            String commandArguments, String commandLine, long interval) throws IOException {
+        /* The cancellation token of the watch. */
+        ICancellationToken cancellationToken = console.getCancellationToken();
+        /* The watched command. */
+        ICliStreamingCommand streamingCommand = StreamingCommandAdapter.adapt(command, null);
+        /* The frame the command writes to. */
+        StringWriter frame = new StringWriter();
+        /* The output of the command. */
+        ConsoleOutput frameOutput = new ConsoleOutput(frame);
+        /* The screen. */
+        ScreenUpdater screen = new ScreenUpdater(console.getTerminalWidth(),
+                console.getTerminalHeight());
+        /* The header of each frame. */
+        String header = "Every " + (interval / 1000.0) + "s: " + commandLine;
+        /* The time of the next frame. */
+        long next = System.currentTimeMillis();
+
+        frameOutput.setCancellationToken(cancellationToken);
+        while (!cancellationToken.isCancelled()) {
+            /* The current time. */
+            String now = Utils.parseDate(System.currentTimeMillis());
+            // Render the frame.
+            frame.getBuffer().setLength(0);
+            frame.append(header);
+            for (int i = header.length() + now.length(); i < console.getTerminalWidth() - 2; i++) {
+                frame.append(' ');
+            }
+            frame.append(' ').append(now).append('\n');
+            try {
+                // The filters keep state, so they are created for each frame.
+                Pipeline.parse(commandLine).apply(streamingCommand)
+                        .execute(console, commandArguments, frameOutput);
+            } catch (OutputClosedException e) {
+                break;
+            } catch (RuntimeException e) {
+                frame.append("\nCommand failed: ").append(String.valueOf(e.getMessage()));
+            }
+
+            // Send the changes.
+            screen.setSize(console.getTerminalWidth(), console.getTerminalHeight());
+            screen.update(frame.getBuffer(), output);
+            output.flush();
+
+            // Wait for the next frame.
+            next += interval;
+            for (long wait = next - System.currentTimeMillis(); wait > 0
+                    && !cancellationToken.isCancelled(); wait = next - System.currentTimeMillis()) {
+                try {
+                    Thread.sleep(Math.min(wait, POLL_INTERVAL));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            next = Math.max(next, System.currentTimeMillis());
+        }
+    }
+}
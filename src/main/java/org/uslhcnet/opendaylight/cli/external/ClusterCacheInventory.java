@@ -0,0 +1,323 @@
+package org.uslhcnet.opendaylight.cli.external;
+
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.opendaylight.controller.clustering.services.CacheConfigException;
+import org.opendaylight.controller.clustering.services.CacheExistException;
+import org.opendaylight.controller.clustering.services.IClusterGlobalServices;
+import org.opendaylight.controller.clustering.services.IClusterServices;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The node inventories of the cluster members, shared through a clustered
+ * cache. Every member publishes the snapshot of its own {@link NodeInventory}
+ * under its address, at most once per publish interval, set by the system
+ * property {@value #PUBLISH_INTERVAL_PROPERTY} in seconds, and only if the
+ * snapshot has changed. The entries hold the columns of the snapshot as plain
+ * arrays, so that the other members need none of our classes to read them.
+ *
+ * Without the cluster services, the cluster consists of this controller only.
+ */
+public class ClusterCacheInventory implements IClusterInventory {
+    /** The logger. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterCacheInventory.class);
+    /** The name of the clustered cache of the inventories. */
+    public static final String CACHE_NAME = "cli.nodeinventory";
+    /** System property: the publish interval in seconds. */
+    public static final String PUBLISH_INTERVAL_PROPERTY = "cli.cluster.publishInterval";
+    /** The default publish interval in seconds. */
+    public static final long DEFAULT_PUBLISH_INTERVAL = 5;
+    /** The name of the publisher thread. */
+    public static final String PUBLISHER_THREAD_NAME = "OpenDaylightCliInventoryPublisher";
+
+    /** The node inventory of this controller. */
+    private final NodeInventory inventory;
+    /** The publish interval in milliseconds. */
+    private final long publishInterval;
+    /** The cluster services. Null if not clustered. */
+    private volatile IClusterGlobalServices clusterServices;
+    /** The snapshot published last. Null if none. */
+    private volatile NodeInventory.Snapshot published;
+    /** The scheduler that publishes the inventory. Guarded by this. */
+    private ScheduledExecutorService publisher;
+
+    /**
+     * Constructor. Reads the publish interval from the system properties.
+     *
+     * @param inventory
+     *            The node inventory of this controller.
+     */
+    public ClusterCacheInventory(NodeInventory inventory) {
+        this(inventory, TimeUnit.SECONDS.toMillis(Long.getLong(PUBLISH_INTERVAL_PROPERTY,
+                DEFAULT_PUBLISH_INTERVAL)));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param inventory
+     *            The node inventory of this controller.
+     * @param publishInterval
+     *            The publish interval in milliseconds.
+     */
+    public ClusterCacheInventory(NodeInventory inventory, long publishInterval) {
+        this.inventory = inventory;
+        this.publishInterval = Math.max(publishInterval, 100);
+    }
+
+    /**
+     * Sets the cluster services.
+     *
+     * @param clusterServices
+     *            The cluster services. Null if not clustered.
+     */
+    public void setClusterServices(IClusterGlobalServices clusterServices) {
+        this.clusterServices = clusterServices;
+        this.published = null;
+    }
+
+    /**
+     * Starts publishing the inventory of this controller.
+     */
+    public synchronized void start() {
+        if (this.publisher != null) {
+            return;
+        }
+        this.publisher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, PUBLISHER_THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        this.publisher.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                publish();
+            }
+        }, 0, this.publishInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops publishing and withdraws the inventory of this controller.
+     */
+    public synchronized void stop() {
+        /* The cluster services. */
+        IClusterGlobalServices cluster = this.clusterServices;
+        /* The clustered cache. */
+        ConcurrentMap<String, Object> cache;
+
+        if (this.publisher == null) {
+            return;
+        }
+        this.publisher.shutdownNow();
+        this.publisher = null;
+        this.published = null;
+        if (cluster != null && cluster.getMyAddress() != null) {
+            cache = getCache(cluster);
+            if (cache != null) {
+                cache.remove(cluster.getMyAddress().getHostAddress());
+            }
+        }
+    }
+
+    @Override
+    public InetAddress getLocalMember() {
+        /* The cluster services. */
+        IClusterGlobalServices cluster = this.clusterServices;
+        /* The address of this controller. */
+        InetAddress address = (cluster != null) ? cluster.getMyAddress() : null;
+
+        return (address != null) ? address : InetAddress.getLoopbackAddress();
+    }
+
+    @Override
+    public List<InetAddress> getMembers() {
+        /* The cluster services. */
+        IClusterGlobalServices cluster = this.clusterServices;
+        /* The addresses of the members. */
+        List<InetAddress> members = (cluster != null) ? cluster.getClusteredControllers() : null;
+
+        if (members == null || members.isEmpty()) {
+            return Collections.singletonList(this.getLocalMember());
+        }
+        return members;
+    }
+
+    @Override
+    public NodeInventory.Snapshot getNodes(InetAddress member) throws IOException {
+        /* The cluster services. */
+        IClusterGlobalServices cluster = this.clusterServices;
+        /* The clustered cache. */
+        ConcurrentMap<String, Object> cache;
+        /* The published inventory of the member. */
+        Object entry;
+
+        // Always show the current inventory of this controller.
+        if (member.equals(this.getLocalMember())) {
+            return this.inventory.getSnapshot();
+        }
+        cache = (cluster != null) ? getCache(cluster) : null;
+        if (cache == null) {
+            throw new IOException("Cluster inventory not available");
+        }
+        entry = cache.get(member.getHostAddress());
+        if (entry == null) {
+            throw new IOException("No inventory published by " + member.getHostAddress());
+        }
+
+        // Return.
+        return decode(entry);
+    }
+
+    /**
+     * Publishes the inventory of this controller if it has changed since it
+     * was published last.
+     */
+    private void publish() {
+        /* The cluster services. */
+        IClusterGlobalServices cluster = this.clusterServices;
+        /* The current inventory. */
+        NodeInventory.Snapshot snapshot = this.inventory.getSnapshot();
+        /* The clustered cache. */
+        ConcurrentMap<String, Object> cache;
+
+        if (cluster == null || cluster.getMyAddress() == null || snapshot == this.published) {
+            return;
+        }
+        // Keep publishing, even if the cache fails once.
+        try {
+            cache = getCache(cluster);
+            if (cache != null) {
+                cache.put(cluster.getMyAddress().getHostAddress(), encode(snapshot));
+                this.published = snapshot;
+            }
+        } catch (RuntimeException e) {
+            LOGGER.warn("Publishing the node inventory failed: {}", e.toString());
+        }
+    }
+
+    /**
+     * Gets the clustered cache of the inventories, and creates it if it does
+     * not exist yet.
+     *
+     * @param cluster
+     *            The cluster services.
+     * @return The cache, or null if it cannot be created.
+     */
+    @SuppressWarnings("unchecked")
+    private static ConcurrentMap<String, Object> getCache(IClusterGlobalServices cluster) {
+        /* The cache. */
+        ConcurrentMap<?, ?> cache = cluster.getCache(CACHE_NAME);
+
+        if (cache == null) {
+            try {
+                cache = cluster.createCache(CACHE_NAME, EnumSet.of(
+                        IClusterServices.cacheMode.NON_TRANSACTIONAL,
+                        IClusterServices.cacheMode.ASYNC));
+            } catch (CacheExistException e) {
+                // Created by another thread in the meantime.
+                cache = cluster.getCache(CACHE_NAME);
+            } catch (CacheConfigException e) {
+                LOGGER.error("Creating the cache {} failed.", CACHE_NAME);
+            }
+        }
+        return (ConcurrentMap<String, Object>) cache;
+    }
+
+    /**
+     * Encodes a snapshot as a cache entry.
+     *
+     * @param snapshot
+     *            The snapshot.
+     * @return The cache entry: the ID, type, description and connect time
+     *         columns.
+     */
+    static Object encode(NodeInventory.Snapshot snapshot) {
+        /* The number of nodes. */
+        int size = snapshot.size();
+        /* The columns. */
+        String[] ids = new String[size];
+        String[] types = new String[size];
+        String[] descriptions = new String[size];
+        long[] connectedSince = new long[size];
+
+        for (int row = 0; row < size; row++) {
+            ids[row] = snapshot.getId(row);
+            types[row] = snapshot.getType(row);
+            descriptions[row] = snapshot.getDescription(row);
+            connectedSince[row] = snapshot.getConnectedSince(row);
+        }
+
+        // Return.
+        return new Object[] { ids, types, descriptions, connectedSince };
+    }
+
+    /**
+     * Decodes a cache entry.
+     *
+     * @param entry
+     *            The cache entry.
+     * @return The snapshot.
+     * @throws IOException
+     *             If the entry is not an encoded snapshot.
+     */
+    static NodeInventory.Snapshot decode(Object entry) throws IOException {
+        /* The columns. */
+        Object[] columns = (entry instanceof Object[]) ? (Object[]) entry : null;
+
+        if (columns == null || columns.length != 4 || !(columns[0] instanceof String[])
+                || !(columns[1] instanceof String[]) || !(columns[2] instanceof String[])
+                || !(columns[3] instanceof long[])) {
+            throw new IOException("Unreadable inventory entry");
+        }
+        try {
+            return NodeInventory.Snapshot.of((String[]) columns[0], (String[]) columns[1],
+                    (String[]) columns[2], (long[]) columns[3]);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Unreadable inventory entry", e);
+        }
+    }
+
+}
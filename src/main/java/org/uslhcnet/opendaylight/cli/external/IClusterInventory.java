@@ -0,0 +1,73 @@
+package org.uslhcnet.opendaylight.cli.external;
+
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.List;
+
+/**
+ * The node inventories of the members of a controller cluster. Querying the
+ * inventory of another member may block, e.g. on the network, so callers
+ * query the members in parallel and give up on the slow ones.
+ */
+public interface IClusterInventory {
+
+    /**
+     * Gets the address of this controller.
+     *
+     * @return The address of the local member.
+     */
+    public InetAddress getLocalMember();
+
+    /**
+     * Gets the addresses of all members of the cluster, including this
+     * controller.
+     *
+     * @return The addresses of the members.
+     */
+    public List<InetAddress> getMembers();
+
+    /**
+     * Gets the nodes connected to a member. Might block.
+     *
+     * @param member
+     *            The address of the member.
+     * @return The snapshot of the member's node inventory.
+     * @throws IOException
+     *             If the member's inventory is not available.
+     * @throws InterruptedException
+     *             If the calling thread is interrupted while waiting.
+     */
+    public NodeInventory.Snapshot getNodes(InetAddress member) throws IOException,
+            InterruptedException;
+
+}
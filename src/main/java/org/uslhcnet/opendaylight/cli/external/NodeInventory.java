@@ -0,0 +1,425 @@
+package org.uslhcnet.opendaylight.cli.external;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import org.opendaylight.controller.sal.core.Description;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.opendaylight.controller.sal.core.Property;
+import org.opendaylight.controller.sal.core.TimeStamp;
+import org.opendaylight.controller.sal.core.UpdateType;
+import org.opendaylight.controller.switchmanager.IInventoryListener;
+import org.opendaylight.controller.switchmanager.ISwitchManager;
+
+/**
+ * A mirror of the node inventory of the switch manager, kept up to date by
+ * inventory notifications. Commands read the mirror instead of querying the
+ * switch manager, so showing the nodes costs the controller nothing.
+ *
+ * The inventory is stored column by column in an immutable {@link Snapshot}.
+ * Every update copies the columns, applies the change, and publishes the new
+ * snapshot through a volatile reference, i.e. readers never lock and always
+ * see a consistent table. Thus, each notification costs a copy of all columns,
+ * i.e. time linear in the number of nodes. This pays off as long as
+ * notifications are rare compared to reads; the initial load, which adds all
+ * nodes at once, builds a single snapshot instead of one per node.
+ */
+public class NodeInventory implements IInventoryListener {
+    /** The current snapshot of the inventory. */
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    /** The row of each node in the current snapshot. Guarded by this. */
+    private final Map<Node, Integer> rows = new HashMap<Node, Integer>();
+    /** The nodes removed while the inventory is loaded; null if not loading. Guarded by this. */
+    private Set<Node> removedWhileLoading;
+
+    /**
+     * Returns the current snapshot of the inventory. Does not block.
+     *
+     * @return The current snapshot.
+     */
+    public Snapshot getSnapshot() {
+        return this.snapshot;
+    }
+
+    /**
+     * Adds the nodes the switch manager knows of to the inventory. Nodes that
+     * are already in the inventory, i.e. have been notified in the meantime,
+     * are left untouched, and nodes that have been removed in the meantime are
+     * not added. Called once when the switch manager is available.
+     *
+     * @param switchManager
+     *            The switch manager.
+     */
+    public void load(ISwitchManager switchManager) {
+        /* The nodes and their properties, in the order of the switch manager. */
+        Map<Node, Map<String, Property>> nodes = new LinkedHashMap<Node, Map<String, Property>>();
+
+        synchronized (this) {
+            this.removedWhileLoading = new HashSet<Node>();
+        }
+        try {
+            // Query the switch manager without holding the lock, since it notifies under its own.
+            for (Node node : switchManager.getNodes()) {
+                nodes.put(node, switchManager.getNodeProps(node));
+            }
+            synchronized (this) {
+                nodes.keySet().removeAll(this.removedWhileLoading);
+                nodes.keySet().removeAll(this.rows.keySet());
+                if (!nodes.isEmpty()) {
+                    this.add(nodes);
+                }
+            }
+        } finally {
+            synchronized (this) {
+                this.removedWhileLoading = null;
+            }
+        }
+    }
+
+    /**
+     * Removes all nodes from the inventory.
+     */
+    public synchronized void clear() {
+        this.rows.clear();
+        this.snapshot = Snapshot.EMPTY;
+    }
+
+    @Override
+    public void notifyNode(Node node, UpdateType type, Map<String, Property> propMap) {
+        switch (type) {
+        case ADDED:
+        case CHANGED:
+            this.update(node, propMap);
+            break;
+        case REMOVED:
+            this.remove(node);
+            break;
+        default:
+            // Nothing to do here.
+        }
+    }
+
+    @Override
+    public void notifyNodeConnector(NodeConnector nodeConnector, UpdateType type,
+            Map<String, Property> propMap) {
+        // Node connectors are not mirrored.
+    }
+
+    /**
+     * Adds nodes that are not in the inventory yet, building one new snapshot
+     * for all of them. Must be called with the lock held.
+     *
+     * @param nodes
+     *            The nodes and their properties. The properties might be null.
+     */
+    private void add(Map<Node, Map<String, Property>> nodes) {
+        /* The current snapshot. */
+        Snapshot current = this.snapshot;
+        /* The size of the new snapshot. */
+        int size = current.size + nodes.size();
+        /* The columns of the new snapshot. */
+        Node[] newNodes = Arrays.copyOf(current.nodes, size);
+        String[] ids = Arrays.copyOf(current.ids, size);
+        String[] types = Arrays.copyOf(current.types, size);
+        String[] descriptions = Arrays.copyOf(current.descriptions, size);
+        long[] connectedSince = Arrays.copyOf(current.connectedSince, size);
+        /* The row of the next node. */
+        int row = current.size;
+
+        for (Map.Entry<Node, Map<String, Property>> entry : nodes.entrySet()) {
+            this.rows.put(entry.getKey(), row);
+            newNodes[row] = entry.getKey();
+            ids[row] = entry.getKey().getNodeIDString();
+            types[row] = intern(entry.getKey().getType());
+            descriptions[row] = "";
+            setProperties(row, entry.getValue(), descriptions, connectedSince);
+            row++;
+        }
+
+        this.snapshot = new Snapshot(newNodes, ids, types, descriptions, connectedSince, size);
+    }
+
+    /**
+     * Adds a node to the inventory or updates its row. Properties that are
+     * missing in the property map keep their current value.
+     *
+     * @param node
+     *            The node.
+     * @param props
+     *            The properties of the node. Might be null.
+     */
+    private synchronized void update(Node node, Map<String, Property> props) {
+        /* The current snapshot. */
+        Snapshot current = this.snapshot;
+        /* The row of the node. */
+        Integer row = this.rows.get(node);
+        /* The size of the new snapshot. */
+        int size = (row != null) ? current.size : current.size + 1;
+        /* The columns of the new snapshot. */
+        Node[] nodes = Arrays.copyOf(current.nodes, size);
+        String[] ids = Arrays.copyOf(current.ids, size);
+        String[] types = Arrays.copyOf(current.types, size);
+        String[] descriptions = Arrays.copyOf(current.descriptions, size);
+        long[] connectedSince = Arrays.copyOf(current.connectedSince, size);
+
+        if (row == null) {
+            row = current.size;
+            this.rows.put(node, row);
+            nodes[row] = node;
+            ids[row] = node.getNodeIDString();
+            types[row] = intern(node.getType());
+            descriptions[row] = "";
+        }
+        setProperties(row, props, descriptions, connectedSince);
+
+        this.snapshot = new Snapshot(nodes, ids, types, descriptions, connectedSince, size);
+    }
+
+    /**
+     * Removes a node from the inventory. The last row takes the place of the
+     * removed row.
+     *
+     * @param node
+     *            The node.
+     */
+    private synchronized void remove(Node node) {
+        /* The current snapshot. */
+        Snapshot current = this.snapshot;
+        /* The row of the node. */
+        Integer row = this.rows.remove(node);
+        /* The last row of the current snapshot. */
+        int last = current.size - 1;
+
+        if (this.removedWhileLoading != null) {
+            this.removedWhileLoading.add(node);
+        }
+        if (row == null) {
+            return;
+        }
+
+        /* The columns of the new snapshot. */
+        Node[] nodes = Arrays.copyOf(current.nodes, last);
+        String[] ids = Arrays.copyOf(current.ids, last);
+        String[] types = Arrays.copyOf(current.types, last);
+        String[] descriptions = Arrays.copyOf(current.descriptions, last);
+        long[] connectedSince = Arrays.copyOf(current.connectedSince, last);
+
+        if (row != last) {
+            nodes[row] = current.nodes[last];
+            ids[row] = current.ids[last];
+            types[row] = current.types[last];
+            descriptions[row] = current.descriptions[last];
+            connectedSince[row] = current.connectedSince[last];
+            this.rows.put(nodes[row], row);
+        }
+
+        this.snapshot = new Snapshot(nodes, ids, types, descriptions, connectedSince, last);
+    }
+
+    /**
+     * Copies the properties of a node to its row. Properties that are missing
+     * in the property map keep their current value.
+     *
+     * @param row
+     *            The row of the node.
+     * @param props
+     *            The properties of the node. Might be null.
+     * @param descriptions
+     *            The description column.
+     * @param connectedSince
+     *            The connect time column.
+     */
+    private static void setProperties(int row, Map<String, Property> props,
+            String[] descriptions, long[] connectedSince) {
+        if (props == null) {
+            return;
+        }
+        /* The description property. */
+        Property description = props.get(Description.propertyName);
+        /* The time stamp property. */
+        Property timeStamp = props.get(TimeStamp.TimeStampPropName);
+
+        if (description != null) {
+            descriptions[row] = intern(description.getStringValue());
+        }
+        if (timeStamp instanceof TimeStamp) {
+            connectedSince[row] = ((TimeStamp) timeStamp).getValue();
+        }
+    }
+
+    /**
+     * Interns a string, since types and descriptions repeat across nodes.
+     *
+     * @param string
+     *            The string. Might be null.
+     * @return The interned string, or an empty string if the string is null.
+     */
+    private static String intern(String string) {
+        return (string != null) ? string.intern() : "";
+    }
+
+    /**
+     * An immutable snapshot of the node inventory. The nodes are stored column
+     * by column; a row index addresses one node.
+     */
+    public static class Snapshot {
+        /** The empty snapshot. */
+        public static final Snapshot EMPTY = new Snapshot(new Node[0], new String[0],
+                new String[0], new String[0], new long[0], 0);
+
+        /** The nodes. */
+        private final Node[] nodes;
+        /** The node IDs. */
+        private final String[] ids;
+        /** The node types. */
+        private final String[] types;
+        /** The node descriptions. */
+        private final String[] descriptions;
+        /** The connect times in milliseconds since the epoch; 0 if unknown. */
+        private final long[] connectedSince;
+        /** The number of nodes. */
+        private final int size;
+
+        /**
+         * Constructor.
+         */
+        private Snapshot(Node[] nodes, String[] ids, String[] types, String[] descriptions,
+                long[] connectedSince, int size) {
+            this.nodes = nodes;
+            this.ids = ids;
+            this.types = types;
+            this.descriptions = descriptions;
+            this.connectedSince = connectedSince;
+            this.size = size;
+        }
+
+        /**
+         * Creates a snapshot from its columns, e.g. of the inventory of another
+         * controller. The arrays are not copied and must not be changed.
+         *
+         * @param ids
+         *            The node IDs.
+         * @param types
+         *            The node types.
+         * @param descriptions
+         *            The node descriptions.
+         * @param connectedSince
+         *            The connect times in milliseconds since the epoch; 0 if
+         *            unknown.
+         * @return The snapshot. Its nodes are null, since only the columns are
+         *         known.
+         */
+        public static Snapshot of(String[] ids, String[] types, String[] descriptions,
+                long[] connectedSince) {
+            /* The number of nodes. */
+            int size = ids.length;
+
+            if (types.length != size || descriptions.length != size
+                    || connectedSince.length != size) {
+                throw new IllegalArgumentException("The columns differ in length.");
+            }
+            return new Snapshot(new Node[size], ids, types, descriptions, connectedSince, size);
+        }
+
+        /**
+         * Getter for the number of nodes.
+         *
+         * @return The number of nodes.
+         */
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * Getter for a node.
+         *
+         * @param row
+         *            The row of the node.
+         * @return The node, or null if the snapshot has been created from its
+         *         columns.
+         */
+        public Node getNode(int row) {
+            return this.nodes[row];
+        }
+
+        /**
+         * Getter for the ID of a node.
+         *
+         * @param row
+         *            The row of the node.
+         * @return The node ID string.
+         */
+        public String getId(int row) {
+            return this.ids[row];
+        }
+
+        /**
+         * Getter for the type of a node.
+         *
+         * @param row
+         *            The row of the node.
+         * @return The node type.
+         */
+        public String getType(int row) {
+            return this.types[row];
+        }
+
+        /**
+         * Getter for the description of a node.
+         *
+         * @param row
+         *            The row of the node.
+         * @return The node description, or an empty string if unknown.
+         */
+        public String getDescription(int row) {
+            return this.descriptions[row];
+        }
+
+        /**
+         * Getter for the connect time of a node.
+         *
+         * @param row
+         *            The row of the node.
+         * @return The connect time in milliseconds since the epoch, or 0 if
+         *         unknown.
+         */
+        public long getConnectedSince(int row) {
+            return this.connectedSince[row];
+        }
+    }
+
+}
@@ -0,0 +1,277 @@
+package org.uslhcnet.opendaylight.cli.external.commands;
+
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.uslhcnet.opendaylight.cli.ICliConsole;
+import org.uslhcnet.opendaylight.cli.ICliOutput;
+import org.uslhcnet.opendaylight.cli.ICliStreamingCommand;
+import org.uslhcnet.opendaylight.cli.external.IClusterInventory;
+import org.uslhcnet.opendaylight.cli.external.NodeInventory;
+import org.uslhcnet.opendaylight.cli.utils.StringTable;
+import org.uslhcnet.opendaylight.cli.utils.TableWriter;
+import org.uslhcnet.opendaylight.cli.utils.Utils;
+
+/**
+ * Shows the nodes connected to all members of the controller cluster, with
+ * the member that owns each node. The members are queried in parallel; the
+ * members that do not answer within the timeout, set by the system property
+ * {@value #TIMEOUT_PROPERTY} in milliseconds or by the "-t" option in
+ * seconds, are marked in the owner column instead of delaying the table.
+ *
+ * The command owns the threads that query the members; whoever creates the
+ * command shuts them down with {@link #shutdown()}.
+ */
+public class ShowClusterNodesCmd implements ICliStreamingCommand {
+    /** System property: the default timeout in milliseconds. */
+    public static final String TIMEOUT_PROPERTY = "cli.cluster.timeout";
+    /** The default timeout in milliseconds. */
+    public static final long DEFAULT_TIMEOUT = 2000;
+    /** The name of the query threads. */
+    public static final String THREAD_NAME = "OpenDaylightCliClusterQuery";
+
+    /** The command string. */
+    private final String commandString = "show nodes cluster";
+    /** The command's arguments. */
+    private final String arguments = "[-t <seconds>]";
+    /** The command's help text. */
+    private final String help = "Shows the network nodes connected to all cluster members.";
+
+    /** The node inventories of the cluster members. */
+    private final IClusterInventory cluster;
+    /** The threads that query the members. */
+    private final ExecutorService executor;
+
+    /**
+     * Default Constructor.
+     *
+     * @param cluster
+     *            The node inventories of the cluster members.
+     */
+    public ShowClusterNodesCmd(IClusterInventory cluster) {
+        this.cluster = cluster;
+        this.executor = Executors.newCachedThreadPool(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /**
+     * Stops the threads that query the members. The command cannot be
+     * executed any more afterwards.
+     */
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    @Override
+    public String getCommandString() {
+        return commandString;
+    }
+
+    @Override
+    public String getArguments() {
+        return arguments;
+    }
+
+    @Override
+    public String getHelpText() {
+        return help;
+    }
+
+    @Override
+    public String execute(ICliConsole console, String arguments) {
+        /* The String builder that hold the resulting string. */
+        StringBuilder result = new StringBuilder();
+
+        try {
+            this.writeNodes(console, arguments, result);
+        } catch (IOException e) {
+            // A string builder does not throw.
+        }
+
+        // Return.
+        return result.toString();
+    }
+
+    @Override
+    public void execute(ICliConsole console, String arguments, ICliOutput output)
+            throws IOException {
+        this.writeNodes(console, arguments, output);
+    }
+
+    /**
+     * Queries all members and writes a table of their nodes.
+     *
+     * @param console
+     *            The console that executes the command.
+     * @param arguments
+     *            The arguments of the command.
+     * @param out
+     *            The appendable the table is written to.
+     * @throws IOException
+     */
+    private void writeNodes(ICliConsole console, String arguments, Appendable out)
+            throws IOException {
+        /* The timeout in milliseconds. */
+        long timeout = Long.getLong(TIMEOUT_PROPERTY, DEFAULT_TIMEOUT);
+        /* The members of the cluster. */
+        List<InetAddress> members = this.cluster.getMembers();
+        /* The queries of the members. */
+        List<Callable<NodeInventory.Snapshot>> queries =
+                new ArrayList<Callable<NodeInventory.Snapshot>>(members.size());
+        /* The answers of the members. */
+        List<Future<NodeInventory.Snapshot>> answers;
+
+        if (arguments != null && !arguments.trim().isEmpty()) {
+            /* The options. */
+            String[] options = arguments.trim().split("\\s+");
+            try {
+                if (options.length != 2 || !options[0].equals("-t")) {
+                    throw new NumberFormatException();
+                }
+                timeout = (long) (Double.parseDouble(options[1]) * 1000);
+            } catch (NumberFormatException e) {
+                out.append("Use: ").append(this.commandString).append(' ')
+                        .append(this.arguments).append('\n');
+                return;
+            }
+        }
+
+        for (final InetAddress member : members) {
+            queries.add(new Callable<NodeInventory.Snapshot>() {
+                @Override
+                public NodeInventory.Snapshot call() throws Exception {
+                    return cluster.getNodes(member);
+                }
+            });
+        }
+        // Wait for all members, but no longer than the timeout.
+        try {
+            answers = this.executor.invokeAll(queries, Math.max(timeout, 0),
+                    TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (RejectedExecutionException e) {
+            out.append("The cluster cannot be queried, since the CLI is shutting down.\n");
+            return;
+        }
+
+        this.writeTable(console, out, members, answers);
+    }
+
+    /**
+     * Writes a table of the nodes of all members. Members that did not answer
+     * get a row of their own.
+     *
+     * @param console
+     *            The console that executes the command.
+     * @param out
+     *            The appendable the table is written to.
+     * @param members
+     *            The members of the cluster.
+     * @param answers
+     *            The answers of the members, in the same order.
+     * @throws IOException
+     */
+    private void writeTable(ICliConsole console, Appendable out, List<InetAddress> members,
+            List<Future<NodeInventory.Snapshot>> answers) throws IOException {
+        /* The table writer. */
+        TableWriter table = TableWriter.create(console.getOutputFormat(), out,
+                new StringTable().setOffset(StringTable.DEFAULT_OFFSET));
+        /* The string builder of the connect times, reused for each row. */
+        StringBuilder date = new StringBuilder(32);
+        /* The members that did not answer and why. */
+        List<String> missing = new ArrayList<String>();
+
+        table.setHeader("SwitchID", "Description", "Type", "Connected Since", "Owner");
+
+        for (int i = 0; i < members.size(); i++) {
+            if (console.getCancellationToken().isCancelled()) {
+                break;
+            }
+            /* The address of the member. */
+            String owner = members.get(i).getHostAddress();
+            /* The nodes of the member. */
+            NodeInventory.Snapshot nodes;
+
+            try {
+                nodes = answers.get(i).get();
+            } catch (CancellationException e) {
+                missing.add(owner + " (no answer)");
+                continue;
+            } catch (ExecutionException e) {
+                missing.add(owner + " (unavailable)");
+                continue;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            for (int row = 0; row < nodes.size(); row++) {
+                if (console.getCancellationToken().isCancelled()) {
+                    break;
+                }
+                /* The connect time of the node. */
+                long connectedSince = nodes.getConnectedSince(row);
+                date.setLength(0);
+                if (connectedSince > 0) {
+                    Utils.appendDate(connectedSince, date);
+                }
+                // Add a table row.
+                table.addRow(nodes.getId(row), nodes.getDescription(row), nodes.getType(row),
+                        date.toString(), owner);
+            }
+        }
+        for (String member : missing) {
+            table.addRow("-", "", "", "", member);
+        }
+
+        table.finish();
+    }
+}
@@ -29,43 +29,54 @@ package org.uslhcnet.opendaylight.cli.external.commands;
  * written permission.
  */
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-
-import org.opendaylight.controller.sal.core.Description;
-import org.opendaylight.controller.sal.core.Node;
-import org.opendaylight.controller.sal.core.Property;
-import org.opendaylight.controller.sal.core.TimeStamp;
-import org.opendaylight.controller.switchmanager.ISwitchManager;
-import org.uslhcnet.opendaylight.cli.ICliCommand;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.PriorityQueue;
+
+import org.uslhcnet.opendaylight.cli.ICancellationToken;
 import org.uslhcnet.opendaylight.cli.ICliConsole;
+import org.uslhcnet.opendaylight.cli.ICliOutput;
+import org.uslhcnet.opendaylight.cli.ICliStreamingCommand;
+import org.uslhcnet.opendaylight.cli.external.NodeInventory;
 import org.uslhcnet.opendaylight.cli.utils.StringTable;
+import org.uslhcnet.opendaylight.cli.utils.TableWriter;
+import org.uslhcnet.opendaylight.cli.utils.Utils;
 
 /**
+ * Shows the network nodes connected to the controller. The nodes can be
+ * sorted by a column, and limited to the first N of that order:
+ *
+ * <pre>
+ * show nodes --sort connected --desc --limit 20
+ * </pre>
+ *
+ * With a limit, only the best N rows are kept in a bounded heap, so that only
+ * N rows are formatted, whatever the number of nodes.
  *
  * @author Michael Bredel <michael.bredel@cern.ch>
  */
-public class ShowNodesCmd implements ICliCommand {
+public class ShowNodesCmd implements ICliStreamingCommand {
     /** The command string. */
     private final String commandString = "show nodes";
     /** The command's arguments. */
-    private final String arguments = null;
+    private final String arguments = "[--sort <id|description|type|connected> [--desc]] "
+            + "[--limit <n>]";
     /** The command's help text. */
     private final String help = "Shows the network nodes connected to the controller.";
 
-    /** Required ODL bundle: SwitchManager (only for the show command). */
-    private ISwitchManager switchManager;
+    /** The mirror of the switch manager's node inventory. */
+    private NodeInventory inventory;
 
     /**
      * Default Constructor.
      *
-     * @param sm
-     *            The switch manager.
+     * @param inventory
+     *            The mirror of the switch manager's node inventory.
      */
-    public ShowNodesCmd(ISwitchManager sm) {
-        this.switchManager = sm;
+    public ShowNodesCmd(NodeInventory inventory) {
+        this.inventory = inventory;
     }
 
     @Override
@@ -88,51 +99,278 @@ public class ShowNodesCmd implements ICliCommand {
         /* The String builder that hold the resulting string. */
         StringBuilder result = new StringBuilder();
 
-        result.append("\n");
-        result.append(this.nodesToTable(this.switchManager.getNodes()));
+        try {
+            this.showNodes(console, arguments, result);
+        } catch (IOException e) {
+            // A string builder does not throw.
+        }
 
         // Return.
         return result.toString();
     }
 
+    @Override
+    public void execute(ICliConsole console, String arguments, ICliOutput output)
+            throws IOException {
+        this.showNodes(console, arguments, output);
+    }
+
     /**
+     * Parses the arguments and writes the table of nodes.
+     *
+     * @param console
+     *            The console that executes the command.
+     * @param arguments
+     *            The arguments of the command.
+     * @param out
+     *            The appendable the table is written to.
+     * @throws IOException
+     */
+    private void showNodes(ICliConsole console, String arguments, Appendable out)
+            throws IOException {
+        /* The current snapshot of the nodes. */
+        NodeInventory.Snapshot nodes = this.inventory.getSnapshot();
+        /* The column to sort by. Null to keep the inventory order. */
+        Column column = null;
+        /* States whether to sort in descending order. */
+        boolean descending = false;
+        /* The maximum number of rows. */
+        int limit = Integer.MAX_VALUE;
+        /* The options. */
+        String[] options = (arguments != null) ? arguments.trim().split("\\s+") : new String[0];
+
+        try {
+            for (int i = 0; i < options.length; i++) {
+                if (options[i].equals("")) {
+                    continue;
+                } else if (options[i].equals("--sort") && i + 1 < options.length) {
+                    column = Column.valueOf(options[++i].toUpperCase(Locale.ROOT));
+                } else if (options[i].equals("--desc")) {
+                    descending = true;
+                } else if (options[i].equals("--limit") && i + 1 < options.length) {
+                    limit = Integer.parseInt(options[++i]);
+                    if (limit < 0) {
+                        throw new IllegalArgumentException();
+                    }
+                } else {
+                    throw new IllegalArgumentException();
+                }
+            }
+            if (descending && column == null) {
+                throw new IllegalArgumentException();
+            }
+        } catch (IllegalArgumentException e) {
+            // Also catches the NumberFormatException.
+            out.append("Use: ").append(this.commandString).append(' ').append(this.arguments)
+                    .append('\n');
+            return;
+        }
+
+        this.writeNodes(this.createTable(console, out), nodes,
+                selectRows(nodes, column, descending, limit), console.getCancellationToken());
+    }
+
+    /**
+     * Selects the rows to show, in the order to show them.
      *
      * @param nodes
-     * @return
+     *            The snapshot of the nodes.
+     * @param column
+     *            The column to sort by. Null to keep the inventory order.
+     * @param descending
+     *            States whether to sort in descending order.
+     * @param limit
+     *            The maximum number of rows.
+     * @return The rows of the snapshot to show, or null for all rows in the
+     *         inventory order.
      */
-    private String nodesToTable(Set<Node> nodes) {
-        /* The string table that contains all the device information as strings. */
-        StringTable stringTable = new StringTable().setOffset(StringTable.DEFAULT_OFFSET);
-
-        // Generate header data.
-        List<String> header = new LinkedList<String>();
-        header.add("SwitchID");
-        header.add("Description");
-        header.add("Type");
-        header.add("Connected Since");
-        stringTable.setHeader(header);
-
-        for (Node node : nodes) {
-            Map<String, Property> nodeProps = this.switchManager.getNodeProps(node);
-            // Create a StringTable row.
-            List<String> row = new LinkedList<String>();
-            // Add columns to row.
-            row.add(node.getNodeIDString());
-            if (nodeProps.containsKey(Description.propertyName)) {
-                row.add(nodeProps.get(Description.propertyName).getStringValue());
-            } else {
-                row.add("");
+    private static int[] selectRows(NodeInventory.Snapshot nodes, Column column, boolean descending,
+            int limit) {
+        /* The number of rows to show. */
+        int size = Math.min(nodes.size(), limit);
+        /* The order of the rows. */
+        RowComparator order;
+        /* The best rows so far, the worst of them first. */
+        PriorityQueue<Integer> heap;
+        /* The selected rows. */
+        int[] rows;
+
+        if (column == null) {
+            if (size == nodes.size()) {
+                return null;
+            }
+            rows = new int[size];
+            for (int row = 0; row < size; row++) {
+                rows[row] = row;
             }
-            row.add(node.getType());
-            if (nodeProps.containsKey(TimeStamp.TimeStampPropName)) {
-                row.add(nodeProps.get(TimeStamp.TimeStampPropName).getStringValue().substring(16));
-            } else {
-                row.add("");
+            return rows;
+        }
+
+        order = new RowComparator(nodes, column, descending);
+        rows = new int[size];
+        if (size == 0) {
+            return rows;
+        }
+        // Keep the best rows in a heap of at most "size" rows.
+        heap = new PriorityQueue<Integer>(size, Collections.reverseOrder(order));
+        for (int row = 0; row < nodes.size(); row++) {
+            if (heap.size() < size) {
+                heap.add(row);
+            } else if (order.compareRows(row, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(row);
             }
-            stringTable.addRow(row);
         }
+        // Take them from the worst to the best.
+        for (int i = size - 1; i >= 0; i--) {
+            rows[i] = heap.poll();
+        }
+        return rows;
+    }
+
+    /**
+     * Creates the table writer for the output format of the console.
+     *
+     * @param console
+     *            The console that executes the command.
+     * @param out
+     *            The appendable the table is written to.
+     * @return <b>TableWriter</b> The table writer.
+     */
+    private TableWriter createTable(ICliConsole console, Appendable out) {
+        return TableWriter.create(console.getOutputFormat(), out,
+                new StringTable().setOffset(StringTable.DEFAULT_OFFSET));
+    }
 
-        // Return string table as a string.
-        return stringTable.toString();
+    /**
+     * Writes a table of nodes and their properties.
+     *
+     * @param table
+     *            The table writer.
+     * @param nodes
+     *            The snapshot of the nodes to put into the table.
+     * @param rows
+     *            The rows of the snapshot to put into the table, in order.
+     *            Null for all rows.
+     * @param cancellationToken
+     *            The cancellation token of the command.
+     * @throws IOException
+     */
+    private void writeNodes(TableWriter table, NodeInventory.Snapshot nodes, int[] rows,
+            ICancellationToken cancellationToken) throws IOException {
+        /* The string builder of the connect times, reused for each row. */
+        StringBuilder date = new StringBuilder(32);
+
+        table.setHeader("SwitchID", "Description", "Type", "Connected Since");
+
+        for (int i = 0; i < ((rows != null) ? rows.length : nodes.size()); i++) {
+            if (cancellationToken.isCancelled()) {
+                break;
+            }
+            /* The row of the node. */
+            int row = (rows != null) ? rows[i] : i;
+            /* The connect time of the node. */
+            long connectedSince = nodes.getConnectedSince(row);
+            date.setLength(0);
+            if (connectedSince > 0) {
+                Utils.appendDate(connectedSince, date);
+            }
+            // Add a table row.
+            table.addRow(nodes.getId(row), nodes.getDescription(row), nodes.getType(row),
+                    date.toString());
+        }
+
+        table.finish();
+    }
+
+    /**
+     * The columns the nodes can be sorted by.
+     */
+    private static enum Column {
+        /** The node ID. */
+        ID,
+        /** The node description. */
+        DESCRIPTION,
+        /** The node type. */
+        TYPE,
+        /** The connect time. */
+        CONNECTED;
+    }
+
+    /**
+     * Orders the rows of a snapshot by a column. Nodes whose connect time is
+     * unknown come last in either direction. Equal rows keep the inventory
+     * order.
+     */
+    private static class RowComparator implements Comparator<Integer> {
+        /** The snapshot of the nodes. */
+        private final NodeInventory.Snapshot nodes;
+        /** The column to sort by. */
+        private final Column column;
+        /** States whether to sort in descending order. */
+        private final boolean descending;
+
+        /**
+         * Constructor.
+         *
+         * @param nodes
+         *            The snapshot of the nodes.
+         * @param column
+         *            The column to sort by.
+         * @param descending
+         *            States whether to sort in descending order.
+         */
+        public RowComparator(NodeInventory.Snapshot nodes, Column column, boolean descending) {
+            this.nodes = nodes;
+            this.column = column;
+            this.descending = descending;
+        }
+
+        @Override
+        public int compare(Integer row1, Integer row2) {
+            return this.compareRows(row1, row2);
+        }
+
+        /**
+         * Compares two rows without boxing them.
+         *
+         * @param row1
+         *            The first row.
+         * @param row2
+         *            The second row.
+         * @return A negative number, zero, or a positive number if the first
+         *         row comes before, with, or after the second row.
+         */
+        public int compareRows(int row1, int row2) {
+            /* The comparison of the column values. */
+            int result;
+
+            switch (this.column) {
+            case ID:
+                result = this.nodes.getId(row1).compareTo(this.nodes.getId(row2));
+                break;
+            case DESCRIPTION:
+                result = this.nodes.getDescription(row1).compareTo(
+                        this.nodes.getDescription(row2));
+                break;
+            case TYPE:
+                result = this.nodes.getType(row1).compareTo(this.nodes.getType(row2));
+                break;
+            default:
+                /* The connect times. */
+                long time1 = this.nodes.getConnectedSince(row1);
+                long time2 = this.nodes.getConnectedSince(row2);
+                if ((time1 > 0) != (time2 > 0)) {
+                    return (time1 > 0) ? -1 : 1;
+                }
+                result = (time1 < time2) ? -1 : ((time1 == time2) ? 0 : 1);
+            }
+            if (this.descending) {
+                result = -result;
+            }
+
+            // Return.
+            return (result != 0) ? result : ((row1 < row2) ? -1 : ((row1 == row2) ? 0 : 1));
+        }
     }
 }
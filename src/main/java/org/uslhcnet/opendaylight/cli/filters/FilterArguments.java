@@ -0,0 +1,74 @@
+package org.uslhcnet.opendaylight.cli.filters;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+/**
+ * Parses the arguments of the built-in filters.
+ */
+final class FilterArguments {
+
+    /**
+     * Parses the optional number of lines of a filter.
+     *
+     * @param filterString
+     *            The filter string, for the error message.
+     * @param arguments
+     *            The filter's arguments.
+     * @param defaultCount
+     *            The number of lines if none is given.
+     * @return The number of lines.
+     * @throws IllegalArgumentException
+     *             If the arguments are not a non-negative number.
+     */
+    static int parseCount(String filterString, String arguments, int defaultCount)
+            throws IllegalArgumentException {
+        /* The trimmed arguments. */
+        String count = arguments.trim();
+
+        if (count.equals("")) {
+            return defaultCount;
+        }
+        try {
+            if (Integer.parseInt(count) >= 0) {
+                return Integer.parseInt(count);
+            }
+        } catch (NumberFormatException e) {
+            // Fall through to the error below.
+        }
+        throw new IllegalArgumentException("Use: " + filterString + " [<lines>]");
+    }
+
+    /**
+     * Private constructor of the utility class.
+     */
+    private FilterArguments() {
+        // Do nothing.
+    }
+}
@@ -0,0 +1,146 @@
+package org.uslhcnet.opendaylight.cli.filters;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.uslhcnet.opendaylight.cli.ICliFilter;
+import org.uslhcnet.opendaylight.cli.ICliFilterStage;
+import org.uslhcnet.opendaylight.cli.ICliOutput;
+import org.uslhcnet.opendaylight.cli.utils.Utils;
+
+/**
+ * Passes the lines that contain a regular expression, or with "exclude" the
+ * lines that do not contain it. The option -i ignores the case.
+ */
+public class GrepFilter implements ICliFilter {
+    /** The option that ignores the case. */
+    public static final String IGNORE_CASE_OPTION = "-i";
+
+    /** The filter string. */
+    private final String filterString;
+    /** The filter's arguments. */
+    private final String arguments = "[-i] <pattern>";
+    /** The filter's help text. */
+    private final String help;
+    /** States whether the filter passes the lines that do not match. */
+    private final boolean exclude;
+
+    /**
+     * Constructor.
+     *
+     * @param filterString
+     *            The filter string, e.g. "grep" or "include".
+     * @param exclude
+     *            True to pass the lines that do not match.
+     */
+    public GrepFilter(String filterString, boolean exclude) {
+        this.filterString = filterString;
+        this.exclude = exclude;
+        this.help = exclude ? "Shows the lines that do not match a pattern."
+                : "Shows the lines that match a pattern.";
+    }
+
+    @Override
+    public String getFilterString() {
+        return filterString;
+    }
+
+    @Override
+    public String getArguments() {
+        return arguments;
+    }
+
+    @Override
+    public String getHelpText() {
+        return help;
+    }
+
+    @Override
+    public ICliFilterStage createStage(String arguments) throws IllegalArgumentException {
+        /* The pattern. */
+        String regex = arguments.trim();
+        /* The flags of the pattern. */
+        int flags = 0;
+
+        if (regex.startsWith(IGNORE_CASE_OPTION + " ")) {
+            regex = regex.substring(IGNORE_CASE_OPTION.length());
+            flags = Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE;
+        }
+        regex = Utils.unquote(regex);
+        if (regex.equals("")) {
+            throw new IllegalArgumentException("Use: " + this.filterString + " " + this.arguments);
+        }
+        try {
+            return new Stage(Pattern.compile(regex, flags).matcher(""), this.exclude);
+        } catch (PatternSyntaxException e) {
+            throw new IllegalArgumentException("Invalid pattern: " + e.getDescription());
+        }
+    }
+
+    /**
+     * The stage of a grep filter.
+     */
+    private static class Stage implements ICliFilterStage {
+        /** The matcher of the pattern, reset for each line. */
+        private final Matcher matcher;
+        /** States whether the stage passes the lines that do not match. */
+        private final boolean exclude;
+
+        /**
+         * Constructor.
+         *
+         * @param matcher
+         *            The matcher of the pattern.
+         * @param exclude
+         *            True to pass the lines that do not match.
+         */
+        Stage(Matcher matcher, boolean exclude) {
+            this.matcher = matcher;
+            this.exclude = exclude;
+        }
+
+        @Override
+        public boolean processLine(String line, ICliOutput output) throws IOException {
+            if (this.matcher.reset(line).find() != this.exclude) {
+                output.println(line);
+            }
+            return true;
+        }
+
+        @Override
+        public void finish(ICliOutput output) {
+            // Nothing kept back.
+        }
+    }
+}
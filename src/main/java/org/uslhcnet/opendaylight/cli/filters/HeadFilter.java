@@ -0,0 +1,92 @@
+package org.uslhcnet.opendaylight.cli.filters;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+
+import org.uslhcnet.opendaylight.cli.ICliFilter;
+import org.uslhcnet.opendaylight.cli.ICliFilterStage;
+import org.uslhcnet.opendaylight.cli.ICliOutput;
+
+/**
+ * Passes the first lines and then stops the command, so the rest of its
+ * output is not even produced.
+ */
+public class HeadFilter implements ICliFilter {
+    /** The default number of lines. */
+    public static final int DEFAULT_LINES = 10;
+
+    /** The filter string. */
+    private final String filterString = "head";
+    /** The filter's arguments. */
+    private final String arguments = "[<lines>]";
+    /** The filter's help text. */
+    private final String help = "Shows the first 10 (or n) lines.";
+
+    @Override
+    public String getFilterString() {
+        return filterString;
+    }
+
+    @Override
+    public String getArguments() {
+        return arguments;
+    }
+
+    @Override
+    public String getHelpText() {
+        return help;
+    }
+
+    @Override
+    public ICliFilterStage createStage(String arguments) throws IllegalArgumentException {
+        /* The number of lines to pass. */
+        final int lines = FilterArguments.parseCount(this.filterString, arguments, DEFAULT_LINES);
+
+        return new ICliFilterStage() {
+            /** The number of lines passed so far. */
+            private int passed;
+
+            @Override
+            public boolean processLine(String line, ICliOutput output) throws IOException {
+                if (this.passed < lines) {
+                    output.println(line);
+                    this.passed++;
+                }
+                return this.passed < lines;
+            }
+
+            @Override
+            public void finish(ICliOutput output) {
+                // Nothing kept back.
+            }
+        };
+    }
+}
@@ -0,0 +1,231 @@
+package org.uslhcnet.opendaylight.cli.filters;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import org.uslhcnet.opendaylight.cli.ICliFilter;
+import org.uslhcnet.opendaylight.cli.ICliFilterStage;
+import org.uslhcnet.opendaylight.cli.ICliOutput;
+
+/**
+ * Sorts the lines, once the command has returned. With -k the lines are sorted
+ * by a whitespace-separated column, starting at 1, with -n numerically, and
+ * with -r in reverse order. Lines that compare equal keep their order.
+ */
+public class SortFilter implements ICliFilter {
+    /** The filter string. */
+    private final String filterString = "sort";
+    /** The filter's arguments. */
+    private final String arguments = "[-k <column>] [-n] [-r]";
+    /** The filter's help text. */
+    private final String help = "Sorts the lines, optionally by a column.";
+
+    @Override
+    public String getFilterString() {
+        return filterString;
+    }
+
+    @Override
+    public String getArguments() {
+        return arguments;
+    }
+
+    @Override
+    public String getHelpText() {
+        return help;
+    }
+
+    @Override
+    public ICliFilterStage createStage(String arguments) throws IllegalArgumentException {
+        /* The options. */
+        String[] options = arguments.trim().split("\\s+");
+        /* The column to sort by, starting at 1, or 0 for the whole line. */
+        int column = 0;
+        /* States whether to compare numerically. */
+        boolean numeric = false;
+        /* States whether to sort in reverse order. */
+        boolean reverse = false;
+
+        for (int i = 0; i < options.length; i++) {
+            if (options[i].equals("")) {
+                continue;
+            } else if (options[i].equals("-n")) {
+                numeric = true;
+            } else if (options[i].equals("-r")) {
+                reverse = true;
+            } else if (options[i].equals("-k") && i + 1 < options.length) {
+                try {
+                    column = Integer.parseInt(options[++i]);
+                } catch (NumberFormatException e) {
+                    column = -1;
+                }
+                if (column < 1) {
+                    throw new IllegalArgumentException("Invalid column: " + options[i]);
+                }
+            } else {
+                throw new IllegalArgumentException("Use: " + this.filterString + " "
+                        + this.arguments);
+            }
+        }
+        return new Stage(column, numeric, reverse);
+    }
+
+    /**
+     * The stage of a sort filter. It keeps the sort key of each line, so each
+     * line is split only once.
+     */
+    private static class Stage implements ICliFilterStage {
+        /** The column to sort by, starting at 1, or 0 for the whole line. */
+        private final int column;
+        /** States whether to compare numerically. */
+        private final boolean numeric;
+        /** The order of the lines. */
+        private final Comparator<Line> order;
+        /** The lines. */
+        private final List<Line> lines = new ArrayList<Line>();
+
+        /**
+         * Constructor.
+         *
+         * @param column
+         *            The column to sort by, starting at 1, or 0 for the whole
+         *            line.
+         * @param numeric
+         *            True to compare numerically.
+         * @param reverse
+         *            True to sort in reverse order.
+         */
+        Stage(int column, boolean numeric, boolean reverse) {
+            this.column = column;
+            this.numeric = numeric;
+            this.order = reverse ? Collections.reverseOrder(Line.ORDER) : Line.ORDER;
+        }
+
+        @Override
+        public boolean processLine(String line, ICliOutput output) {
+            /* The sort key. */
+            String key = (this.column > 0) ? this.field(line) : line;
+            /* The numeric sort key. */
+            double number = Double.NaN;
+
+            if (this.numeric) {
+                try {
+                    number = Double.parseDouble(key);
+                } catch (NumberFormatException e) {
+                    // Lines without a number are sorted last.
+                }
+            }
+            this.lines.add(new Line(line, key, number));
+            return true;
+        }
+
+        @Override
+        public void finish(ICliOutput output) throws IOException {
+            Collections.sort(this.lines, this.order);
+            for (Line line : this.lines) {
+                output.println(line.text);
+            }
+        }
+
+        /**
+         * Gets the sort column of a line.
+         *
+         * @param line
+         *            The line.
+         * @return The column, or an empty string if the line is shorter.
+         */
+        private String field(String line) {
+            /* The current column. */
+            int current = 0;
+            /* The end of the current column. */
+            int end = 0;
+
+            while (end < line.length()) {
+                /* The start of the current column. */
+                int start = end;
+                while (start < line.length() && Character.isWhitespace(line.charAt(start))) {
+                    start++;
+                }
+                end = start;
+                while (end < line.length() && !Character.isWhitespace(line.charAt(end))) {
+                    end++;
+                }
+                if (start < end && ++current == this.column) {
+                    return line.substring(start, end);
+                }
+            }
+            return "";
+        }
+    }
+
+    /**
+     * A line and its sort key.
+     */
+    private static class Line {
+        /** Orders lines by their numeric key first, then by their key. */
+        static final Comparator<Line> ORDER = new Comparator<Line>() {
+            @Override
+            public int compare(Line a, Line b) {
+                /* The comparison of the numeric keys. NaN is greater than any number. */
+                int result = Double.compare(a.number, b.number);
+
+                return (result != 0) ? result : a.key.compareTo(b.key);
+            }
+        };
+
+        /** The line. */
+        final String text;
+        /** The sort key. */
+        final String key;
+        /** The numeric sort key, or NaN. */
+        final double number;
+
+        /**
+         * Constructor.
+         *
+         * @param text
+         *            The line.
+         * @param key
+         *            The sort key.
+         * @param number
+         *            The numeric sort key, or NaN.
+         */
+        Line(String text, String key, double number) {
+            this.text = text;
+            this.key = key;
+            this.number = number;
+        }
+    }
+}
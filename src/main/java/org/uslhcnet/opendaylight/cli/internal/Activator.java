@@ -29,16 +29,24 @@ package org.uslhcnet.opendaylight.cli.internal;
  * written permission.
  */
 
+import java.util.Arrays;
 import java.util.Dictionary;
 import java.util.HashSet;
 import java.util.Hashtable;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.felix.dm.Component;
+import org.opendaylight.controller.clustering.services.ICacheUpdateAware;
+import org.opendaylight.controller.clustering.services.IClusterGlobalServices;
 import org.opendaylight.controller.sal.core.ComponentActivatorAbstractBase;
+import org.opendaylight.controller.sal.utils.GlobalConstants;
+import org.opendaylight.controller.switchmanager.IInventoryListener;
 import org.opendaylight.controller.switchmanager.ISwitchManager;
 import org.opendaylight.controller.usermanager.IUserManager;
 import org.osgi.framework.BundleContext;
+import org.osgi.framework.Constants;
+import org.osgi.service.cm.ManagedService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -53,12 +61,19 @@ public class Activator extends ComponentActivatorAbstractBase {
 
     @Override
     public void start(BundleContext context) {
+        /* The activation start time. */
+        long startTime = System.nanoTime();
+
         super.start(context);
-        LOGGER.info("startCliImpl() passing");
+        // Pick up the commands other bundles publish as services.
+        CommandHandler.getInstance().open(context);
+        LOGGER.info("startCliImpl() passing in {} ms",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
     }
 
     @Override
     public void stop(BundleContext context) {
+        CommandHandler.getInstance().close();
         super.stop(context);
         LOGGER.info("stopCliImpl() passing");
     }
@@ -70,10 +85,18 @@ public class Activator extends ComponentActivatorAbstractBase {
             Dictionary<String, Object> props = new Hashtable<String, Object>();
             props.put("salListenerName", "cliasdf");
             Set<String> propSet = new HashSet<String>();
+            // Be notified of user changes to invalidate cached logins.
+            propSet.addAll(Arrays.asList(CliImpl.USER_CACHES));
             props.put("cachenames", propSet);
+            // Receive the inventory notifications of the default container.
+            props.put("containerName", GlobalConstants.DEFAULT.toString());
+            // Receive the SSH server configuration from the configuration admin.
+            props.put(Constants.SERVICE_PID, SshServerConfig.PID);
 
             // Set the interface implemented by this class.
-            c.setInterface(new String[] { CliImpl.class.getName(), }, props);
+            c.setInterface(new String[] { CliImpl.class.getName(),
+                    IInventoryListener.class.getName(), ICacheUpdateAware.class.getName(),
+                    ManagedService.class.getName() }, props);
 
             // Add the plugin dependencies.
             c.add(createServiceDependency().setService(IUserManager.class)
@@ -81,6 +104,11 @@ public class Activator extends ComponentActivatorAbstractBase {
 
             c.add(createServiceDependency().setService(ISwitchManager.class)
                     .setCallbacks("setSwitchManager", "unsetSwitchManager").setRequired(true));
+
+            // Share the node inventory with the other cluster members, if clustered.
+            c.add(createServiceDependency().setService(IClusterGlobalServices.class)
+                    .setCallbacks("setClusterServices", "unsetClusterServices")
+                    .setRequired(false));
         }
     }
 
@@ -0,0 +1,258 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches successful logins for a short time, so repeated logins of the same
+ * user, e.g. a service account that opens many short sessions, do not pay the
+ * full cost of the user manager each time.
+ *
+ * The cache holds at most one credential per user: a SHA-256 hash of the
+ * password, salted with a random salt that is created for each cache and
+ * never leaves the memory. A login is a hit if the user's entry has not
+ * expired and the hash of the given password equals the cached hash. Failed
+ * logins are never cached. The least recently used entry is dropped if the
+ * cache is full.
+ *
+ * A login that is checked by the user manager while the user is changed must
+ * not be cached with the old password. Thus, the caller takes the
+ * {@link #getGeneration() generation} before it asks the user manager, and
+ * {@link #put(String, String, long)} drops the login if the cache has been
+ * invalidated in the meantime.
+ *
+ * The cache is disabled unless {@link #TTL_PROPERTY} is set to a positive
+ * number of seconds.
+ */
+public class AuthenticationCache {
+    /** The property that sets the time in seconds a login is cached for. */
+    public static final String TTL_PROPERTY = "cli.auth.cache.ttl";
+    /** The property that sets the maximum number of cached users. */
+    public static final String SIZE_PROPERTY = "cli.auth.cache.size";
+    /** The default maximum number of cached users. */
+    public static final int DEFAULT_SIZE = 64;
+    /** The length of the salt in bytes. */
+    private static final int SALT_LENGTH = 16;
+    /** The charset of the passwords. */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** The cached logins by user name, in access order. Guarded by this. */
+    private final Map<String, CachedLogin> entries;
+    /** The number of invalidations so far. Guarded by this. */
+    private long generation;
+    /** The time in nanoseconds a login is cached for. */
+    private final long ttl;
+    /** The salt of the password hashes. */
+    private final byte[] salt = new byte[SALT_LENGTH];
+    /** The number of logins found in the cache. */
+    private final AtomicLong hits = new AtomicLong();
+    /** The number of logins not found in the cache. */
+    private final AtomicLong misses = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param ttl
+     *            The time in seconds a login is cached for.
+     * @param size
+     *            The maximum number of cached users.
+     */
+    public AuthenticationCache(long ttl, final int size) {
+        this.ttl = TimeUnit.SECONDS.toNanos(ttl);
+        this.entries = new LinkedHashMap<String, CachedLogin>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedLogin> eldest) {
+                return this.size() > size;
+            }
+        };
+        new SecureRandom().nextBytes(this.salt);
+    }
+
+    /**
+     * Creates an authentication cache as configured by the system properties.
+     *
+     * @return The authentication cache, or null if caching is disabled.
+     */
+    public static AuthenticationCache create() {
+        /* The time in seconds a login is cached for. */
+        long ttl = Long.getLong(TTL_PROPERTY, 0);
+
+        if (ttl <= 0) {
+            return null;
+        }
+        return new AuthenticationCache(ttl, Math.max(Integer.getInteger(SIZE_PROPERTY,
+                DEFAULT_SIZE), 1));
+    }
+
+    /**
+     * Checks whether a login has succeeded recently.
+     *
+     * @param username
+     *            The user name.
+     * @param password
+     *            The password.
+     * @return True if the same user has logged in with the same password
+     *         within the time to live.
+     */
+    public boolean contains(String username, String password) {
+        /* The cached login of the user. */
+        CachedLogin entry;
+
+        synchronized (this) {
+            entry = this.entries.get(username);
+            if (entry != null && System.nanoTime() - entry.created > this.ttl) {
+                this.entries.remove(username);
+                entry = null;
+            }
+        }
+
+        if (entry != null && MessageDigest.isEqual(entry.hash, this.hash(password))) {
+            this.hits.incrementAndGet();
+            return true;
+        }
+        this.misses.incrementAndGet();
+        return false;
+    }
+
+    /**
+     * Gets the generation of the cache, which changes whenever logins are
+     * invalidated.
+     *
+     * @return The current generation.
+     */
+    public synchronized long getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Caches a successful login, unless logins have been invalidated since
+     * the login was checked.
+     *
+     * @param username
+     *            The user name.
+     * @param password
+     *            The password.
+     * @param generation
+     *            The generation of the cache taken before the login was
+     *            checked.
+     */
+    public void put(String username, String password, long generation) {
+        /* The cached login. */
+        CachedLogin entry = new CachedLogin(this.hash(password), System.nanoTime());
+
+        synchronized (this) {
+            if (generation == this.generation) {
+                this.entries.put(username, entry);
+            }
+        }
+    }
+
+    /**
+     * Removes the cached login of a user, e.g. because the user has changed.
+     *
+     * @param username
+     *            The user name.
+     */
+    public synchronized void invalidate(String username) {
+        this.generation++;
+        this.entries.remove(username);
+    }
+
+    /**
+     * Removes all cached logins.
+     */
+    public synchronized void invalidateAll() {
+        this.generation++;
+        this.entries.clear();
+    }
+
+    /**
+     * Getter for the number of logins found in the cache.
+     *
+     * @return The number of cache hits.
+     */
+    public long getHits() {
+        return this.hits.get();
+    }
+
+    /**
+     * Getter for the number of logins not found in the cache.
+     *
+     * @return The number of cache misses.
+     */
+    public long getMisses() {
+        return this.misses.get();
+    }
+
+    /**
+     * Hashes a salted password.
+     *
+     * @param password
+     *            The password.
+     * @return The SHA-256 hash of the salt and the password.
+     */
+    private byte[] hash(String password) {
+        try {
+            /* The message digest. */
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(this.salt);
+            return digest.digest((password != null) ? password.getBytes(UTF8) : new byte[0]);
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform supports SHA-256.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A cached login.
+     */
+    private static class CachedLogin {
+        /** The hash of the salted password. */
+        private final byte[] hash;
+        /** The time the login was cached, in nanoseconds. */
+        private final long created;
+
+        public CachedLogin(byte[] hash, long created) {
+            this.hash = hash;
+            this.created = created;
+        }
+    }
+
+}
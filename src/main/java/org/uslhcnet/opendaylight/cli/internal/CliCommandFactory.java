@@ -0,0 +1,213 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import org.apache.sshd.server.Command;
+import org.apache.sshd.server.CommandFactory;
+import org.apache.sshd.server.Environment;
+import org.apache.sshd.server.ExitCallback;
+import org.apache.sshd.server.SessionAware;
+import org.apache.sshd.server.session.ServerSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uslhcnet.opendaylight.cli.internal.SessionAdmissionControl.Admission;
+
+/**
+ * A {@link CommandFactory} for SSH exec channels. It creates a command that
+ * executes the ';'-separated CLI commands requested by the client on an
+ * {@link ExecConsole} and exits with the status of the last command.
+ */
+public class CliCommandFactory implements CommandFactory {
+    /** The admission control that runs the commands. */
+    private final SessionAdmissionControl admissionControl;
+
+    /**
+     * Constructor.
+     *
+     * @param admissionControl
+     *            The admission control that runs the commands.
+     */
+    public CliCommandFactory(SessionAdmissionControl admissionControl) {
+        this.admissionControl = admissionControl;
+    }
+
+    @Override
+    public Command createCommand(String command) {
+        return new CliExec(this.admissionControl, command);
+    }
+
+    /**
+     * The command that is created whenever a client requests an exec channel.
+     * Like a shell, it runs on a thread of the session admission control.
+     */
+    public static class CliExec implements Command, SessionAware, Runnable {
+        /** The logger. */
+        private static final Logger LOGGER = LoggerFactory.getLogger(CliExec.class);
+        /** The default character encoding. */
+        public static final String DEFAULT_ENCODING = "UTF-8";
+
+        /** The admission control that runs this command. */
+        private final SessionAdmissionControl admissionControl;
+        /** The command line requested by the client. */
+        private final String commandLine;
+        /** The output stream of the channel. */
+        private OutputStream outStream;
+        /** The error stream of the channel. */
+        private OutputStream errStream;
+        /** Environment to get some user data, like the encoding, from. */
+        private Environment environment;
+        /** The callback function that is executed when the command is terminated. */
+        private ExitCallback callback;
+        /** The SSH session this command belongs to. */
+        private ServerSession session;
+        /** The user that opened the session. */
+        private String username;
+        /** The thread that runs this command. */
+        private Thread thread;
+        /** The console that executes the commands. */
+        private ExecConsole console;
+        /** States whether the command has been destroyed. */
+        private boolean destroyed;
+
+        /**
+         * Constructor.
+         *
+         * @param admissionControl
+         *            The admission control that runs this command.
+         * @param commandLine
+         *            The command line requested by the client.
+         */
+        public CliExec(SessionAdmissionControl admissionControl, String commandLine) {
+            this.admissionControl = admissionControl;
+            this.commandLine = (commandLine != null) ? commandLine : "";
+        }
+
+        @Override
+        public synchronized void destroy() {
+            this.destroyed = true;
+            if (this.console != null)
+                this.console.stop();
+            if (this.thread != null) {
+                this.thread.interrupt();
+            } else {
+                // Free the place in the queue if the command is still waiting for a slot.
+                this.admissionControl.withdraw(this);
+            }
+        }
+
+        @Override
+        public void setSession(ServerSession session) {
+            this.session = session;
+        }
+
+        @Override
+        public void setExitCallback(ExitCallback callback) {
+            this.callback = callback;
+        }
+
+        @Override
+        public void setInputStream(InputStream inStream) {
+            // Commands do not read any input.
+        }
+
+        @Override
+        public void setOutputStream(OutputStream outStream) {
+            this.outStream = outStream;
+        }
+
+        @Override
+        public void setErrorStream(OutputStream errStream) {
+            this.errStream = errStream;
+        }
+
+        @Override
+        public void start(Environment environment) throws IOException {
+            this.environment = environment;
+            /* The user that opened the session. */
+            String username = (this.session != null) ? this.session.getUsername() : environment
+                    .getEnv().get(Environment.ENV_USER);
+            this.username = username;
+            /* The result of the admission. */
+            Admission admission = this.admissionControl.admit(username, this);
+
+            if (admission.isRejected()) {
+                this.errStream.write((admission.getMessage() + "\n").getBytes());
+                this.errStream.flush();
+                if (this.callback != null) {
+                    this.callback.onExit(ExecConsole.EXIT_FAILED, admission.getMessage());
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            /* The exit status. */
+            int status = ExecConsole.EXIT_FAILED;
+
+            synchronized (this) {
+                if (this.destroyed)
+                    return;
+                this.thread = Thread.currentThread();
+            }
+
+            String encoding = this.environment.getEnv().get("LC_CTYPE");
+            if (encoding != null && encoding.indexOf('.') > 0) {
+                encoding = encoding.substring(encoding.indexOf('.') + 1);
+            } else {
+                encoding = DEFAULT_ENCODING;
+            }
+
+            try {
+                ExecConsole console = new ExecConsole(this.outStream, this.errStream, encoding,
+                        this.username);
+                synchronized (this) {
+                    this.console = console;
+                }
+                status = console.execute(this.commandLine);
+            } catch (IOException e) {
+                LOGGER.debug("Could not execute '{}': {}", this.commandLine, e.getMessage());
+            } finally {
+                synchronized (this) {
+                    this.thread = null;
+                }
+                // Clear the interrupt flag, since the thread is reused.
+                Thread.interrupted();
+                // End this command.
+                if (this.callback != null)
+                    this.callback.onExit(status);
+            }
+        }
+    }
+
+}
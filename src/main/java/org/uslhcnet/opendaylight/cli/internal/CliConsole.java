@@ -31,28 +31,30 @@ package org.uslhcnet.opendaylight.cli.internal;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
-import java.io.PrintStream;
-import java.util.AbstractMap;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
-import jline.Terminal;
 import jline.console.ConsoleReader;
-import jline.console.completer.AggregateCompleter;
-import jline.console.completer.ArgumentCompleter;
 import jline.console.completer.Completer;
-import jline.console.completer.NullCompleter;
-import jline.console.completer.StringsCompleter;
 
 import org.apache.sshd.server.Environment;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.uslhcnet.opendaylight.cli.ICancellationToken;
 import org.uslhcnet.opendaylight.cli.ICliCommand;
 import org.uslhcnet.opendaylight.cli.ICliConsole;
+import org.uslhcnet.opendaylight.cli.ICliScreenCommand;
+import org.uslhcnet.opendaylight.cli.OutputClosedException;
+import org.uslhcnet.opendaylight.cli.OutputFormat;
+import org.uslhcnet.opendaylight.cli.internal.CommandMetrics.Phase;
 import org.uslhcnet.opendaylight.cli.utils.LfToCrLfFilterOutputStream;
 
 /**
@@ -72,49 +74,94 @@ public class CliConsole implements ICliConsole {
     public static final boolean HISTORY_ENABLED = true;
     /** The default console prompt string. */
     public static final String DEFAULT_PROMPT_STRING = "> ";
+    /** States whether the output of commands is paged on interactive terminals. */
+    public static final boolean PAGER_ENABLED = true;
+    /** The interval in milliseconds to check for keys while a command is running. */
+    public static final long KEY_POLL_INTERVAL = 50;
+    /** The time in milliseconds a cancelled command is given to return. */
+    public static final long CANCEL_GRACE_PERIOD = 1000;
+    /** The Ctrl-C character. */
+    private static final int CTRL_C = 3;
+    /** The cancellation token used while no command is running. */
+    static final ICancellationToken NOT_CANCELLED = new ICancellationToken() {
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+    };
 
-    /** The input stream as read from the command line prompt. */
-    private InputStream inStream;
+    /** The input stream as read from the command line prompt, which keeps the type-ahead. */
+    private TypeAheadInputStream inStream;
     /** The output stream to write to the command line prompt. */
-    private PrintStream outStream;
+    private LfToCrLfFilterOutputStream outStream;
     /** The error stream from the command line. */
-    @SuppressWarnings("unused")
-    private PrintStream errStream;
+    private LfToCrLfFilterOutputStream errStream;
     /** An SSH terminal representation. */
-    private Terminal terminal;
+    private SshTerminal terminal;
     /** The Jline console reader. */
     private ConsoleReader reader;
-    /** List of command completer. */
-    private List<Completer> completors = new LinkedList<Completer>();
+    /** The output streaming commands write their result to. */
+    private ConsoleOutput output;
     /** Boolean that states if the console is running. */
     private volatile boolean running;
     /** The prompt string of the command line. */
     private String prompt;
     /** The command hander that executes all console commands. */
     private CommandHandler commander;
+    /** The command executor that executes all console commands. */
+    private CommandExecutor executor;
+    /** The registry of the command metrics. */
+    private CommandMetricsRegistry metrics;
+    /** The execution of the currently running command. Might be null. */
+    private volatile CommandExecution execution;
+    /** The execution of the last command. Might be null. Only used by the console thread. */
+    private CommandExecution lastExecution;
+    /** The format commands write tables in. */
+    private volatile OutputFormat outputFormat = OutputFormat.TEXT;
+    /** The format given by the --format option of the current command. Might be null. */
+    private volatile OutputFormat commandFormat;
+    /** The registered session of this console. Might be null. */
+    private final CliSession session;
 
     /**
      * Constructor.
      */
     public CliConsole(InputStream inStream, OutputStream outStream, OutputStream errStream,
             String encoding, Environment env) throws Exception {
+        this(inStream, outStream, errStream, encoding, env, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param session
+     *            The registered session, which is told the running command.
+     *            Might be null.
+     */
+    public CliConsole(InputStream inStream, OutputStream outStream, OutputStream errStream,
+            String encoding, Environment env, CliSession session) throws Exception {
+        this.session = session;
         this.commander = CommandHandler.getInstance();
-        this.inStream = inStream;
-        this.outStream = new PrintStream(new LfToCrLfFilterOutputStream(outStream), true);
-        this.errStream = new PrintStream(new LfToCrLfFilterOutputStream(errStream), true);
+        this.executor = CommandExecutor.getInstance();
+        this.metrics = CommandMetricsRegistry.getInstance();
+        this.inStream = new TypeAheadInputStream(inStream);
+        // The streams buffer the output, which is flushed by the console reader.
+        this.outStream = new LfToCrLfFilterOutputStream(outStream);
+        this.errStream = new LfToCrLfFilterOutputStream(errStream);
         this.terminal = new SshTerminal(env);
 
         // Create and configure a console reader.
-        this.reader = new ConsoleReader(APP_NAME, this.inStream, this.outStream, this.terminal,
-                encoding);
+        this.reader = new CliConsoleReader(APP_NAME, this.inStream, this.outStream,
+                this.terminal, encoding);
         this.reader.setBellEnabled(false);
-        this.reader.setHistoryEnabled(true);
-
-        // Generate completer
-        this.generateCompleters();
-        this.reader.addCompleter(new AggregateCompleter(completors));
-
-        // TODO: Handle command line history in file.
+        // The history of the user is loaded in the background.
+        this.reader.setHistory(HistoryStore.getInstance().open(
+                (session != null) ? session.getUser() : null));
+        this.reader.setHistoryEnabled(HISTORY_ENABLED);
+        this.output = new ConsoleOutput(this.reader.getOutput());
+
+        // Add the completer that is shared by all consoles.
+        this.reader.addCompleter(this.commander.getCompleter());
     }
 
     @Override
@@ -137,7 +184,15 @@ public class CliConsole implements ICliConsole {
 
     @Override
     public void write(String string) throws IOException {
-        this.reader.getOutput().write(string + "\n");
+        /* The command execution of the calling command, if any. */
+        CommandExecution current = CommandExecution.current();
+
+        if (current != null) {
+            // A command writes to its own output, which rejects writes once it is cancelled.
+            current.getOutput().println(string);
+        } else {
+            this.reader.getOutput().write(string + "\n");
+        }
     }
 
     /**
@@ -145,10 +200,18 @@ public class CliConsole implements ICliConsole {
      * handler to execute the commands.
      */
     public void run() {
-        /* A local command entry object that is reused. */
-        Map.Entry<String, String> commandEntry;
+        /* A local command match object that is reused. */
+        CommandMatch match;
         /* A local command object that is reused. */
         ICliCommand command;
+        /* A local format option object that is reused. */
+        FormatOption option;
+        /* A local pipeline object that is reused. */
+        Pipeline pipeline;
+        /* The metrics of the matched command. */
+        CommandMetrics commandMetrics;
+        /* The time the parsing of the command line started. */
+        long parseStart;
         /* Set the running boolean to true. */
         this.running = true;
         /* The command line string. */
@@ -161,15 +224,47 @@ public class CliConsole implements ICliConsole {
             try {
                 // Read command line. Blocking.
                 line = this.readCommandLine();
+                if (line == null) {
+                    // End of stream, i.e. the client has gone.
+                    this.running = false;
+                    break;
+                }
 
-                // Parse line to get the command and its arguments.
-                commandEntry = this.parseCommand(line);
-                command = this.commander.getCommand(commandEntry.getKey());
+                // Match line to get the command and its arguments.
+                parseStart = System.nanoTime();
+                try {
+                    pipeline = Pipeline.parse(line);
+                } catch (IllegalArgumentException e) {
+                    this.write(e.getMessage());
+                    continue;
+                }
+                match = this.commander.match(pipeline.getCommandLine());
+                command = match.getCommand();
+                if (command instanceof ICliScreenCommand && pipeline.hasFilters()) {
+                    // Screen commands apply the filters to the commands they run.
+                    pipeline = Pipeline.unfiltered(line);
+                    match = this.commander.match(line);
+                    command = match.getCommand();
+                }
                 // Execute command.
                 if (command != null) {
-                    String result = command.execute(this, commandEntry.getValue());
-                    if (result != null && !result.trim().equals(""))
-                        this.write(result);
+                    option = FormatOption.parse(match.getArguments());
+                    commandMetrics = this.metrics.get(command);
+                    commandMetrics.record(Phase.PARSE, System.nanoTime() - parseStart);
+                    if (option.isGiven() && option.getFormat() == null) {
+                        commandMetrics.failed();
+                        this.write(option.getErrorMessage());
+                    } else {
+                        this.setCommand(line.trim());
+                        try {
+                            this.execute(command, pipeline, commandMetrics,
+                                    option.getArguments(), option.getFormat());
+                        } finally {
+                            this.setCommand(null);
+                        }
+                    }
+                } else if (match.isAmbiguous()) {
+                    this.write("Ambiguous command: " + line + this.candidatesToString(match));
                 } else if (!line.trim().equals("")) {
                     this.write("Unknown command: " + line);
                 }
@@ -179,131 +274,307 @@ public class CliConsole implements ICliConsole {
                 this.running = false;
             }
         }
+
+        // Send the remaining output and return the buffers.
+        this.release();
     }
 
     /**
-     * Stops the execution of this console.
+     * Executes a command on the command executor and streams its result to the
+     * console. On interactive terminals, text results are paged. While the
+     * command is running, this method watches for Ctrl-C and the command's
+     * deadline, and passes any other key to the command.
+     *
+     * @param command
+     *            The command to execute.
+     * @param pipeline
+     *            The filters of the command line.
+     * @param metrics
+     *            The metrics of the command.
+     * @param arguments
+     *            The command's arguments.
+     * @param format
+     *            The format given by the command's --format option, or null.
+     * @throws IOException
+     *             If the console cannot be written to.
      */
-    public synchronized void stop() {
-        this.running = false;
+    private void execute(ICliCommand command, Pipeline pipeline, CommandMetrics metrics,
+            String arguments, OutputFormat format) throws IOException {
+        /* The execution of the command. */
+        CommandExecution execution = new CommandExecution(this,
+                pipeline.apply(StreamingCommandAdapter.adapt(command, metrics)), arguments,
+                this.executor.getTimeout(command), metrics);
+        /* The output of this execution, which is closed for good once it is over. */
+        ExecutionOutput output = new ExecutionOutput(this.output, execution);
+        /* The pager, if the terminal is interactive and the result is text. */
+        Pager pager = null;
+        /* The future of the command execution. */
+        Future<Void> future;
+        /* The number of characters written before the command. */
+        long written = this.output.getWritten();
+        /* The time the final write started. */
+        long writeStart;
+
+        this.commandFormat = format;
+        if (PAGER_ENABLED && this.terminal.isInteractive()
+                && this.getOutputFormat() == OutputFormat.TEXT
+                && !(command instanceof ICliScreenCommand)) {
+            pager = new Pager(output, execution, this.terminal.getHeight() - 1);
+        }
+        execution.setOutput((pager != null) ? pager : output);
+        this.execution = execution;
+        this.lastExecution = execution;
+        if (this.session != null) {
+            this.session.setExecution(execution);
+        }
+        metrics.called();
+        try {
+            future = this.executor.submit(execution);
+            this.await(execution, future);
+        } catch (RejectedExecutionException e) {
+            execution.abandon();
+            LOGGER.warn("Rejected command {}: too many commands.", command.getCommandString());
+            metrics.failed();
+            this.write("Too many commands are running. Please try again later.");
+        } finally {
+            this.execution = null;
+            this.commandFormat = null;
+            if (this.session != null) {
+                this.session.setExecution(null);
+            }
+            if (execution.isCancelled()) {
+                // The command might still be running: it must not write any more.
+                output.close();
+            } else {
+                // Keys typed ahead while the pager was waiting belong to the next command line.
+                this.returnKeys(execution);
+            }
+        }
+
+        writeStart = System.nanoTime();
+        if (execution.isCancelled()) {
+            metrics.cancelled();
+            this.write(execution.getCancellation());
+        } else if (pager != null) {
+            pager.finish();
+        }
+        output.close();
+        this.output.flush();
+        metrics.record(Phase.WRITE, System.nanoTime() - writeStart);
+        metrics.addOutput(this.output.getWritten() - written);
     }
 
     /**
-     * Prints a welcome message to the console.
+     * Tells the registered session which command is running.
+     *
+     * @param line
+     *            The command line, or null if the command has returned.
      */
-    private void welcome() {
-        try {
-            this.write("\n   Welcome to the OpenDaylight OpenFlow Controller CLI\n");
-        } catch (IOException e) {
-            e.printStackTrace();
+    private void setCommand(String line) {
+        if (this.session != null) {
+            this.session.setCommand(line);
         }
     }
 
     /**
-     * Reads the current command line and generates a list of possible command
-     * completions.
+     * Waits for a command execution to finish. Cancels the command if the
+     * operator presses Ctrl-C or the command runs into its timeout.
      *
-     * @return The current command line string.
+     * @param execution
+     *            The command execution.
+     * @param future
+     *            The future of the command execution.
      * @throws IOException
+     *             If the console cannot be read from.
      */
-    private String readCommandLine() throws IOException {
-        /* Line read from the CLI by the console reader. */
-        String line = this.reader.readLine(getPrompt());
-        /* A list of completion candidates. */
-        List<CharSequence> candidates = new LinkedList<CharSequence>();
-
-        if (line == null)
-            return null;
-
-        for (Completer comp : reader.getCompleters()) {
-            if (comp.complete(line, line.length(), candidates) == -1) {
-                break;
-            }
-            candidates = new LinkedList<CharSequence>(new HashSet<CharSequence>(candidates));
-
-            // Completers.complete() automatically adds a space at the end
-            // of a command. Thus, we have to handle this case specially.
-            if (candidates.contains(line + " ")) {
-                if (comp.complete(line + " ", line.length() + 1, candidates) == -1) {
-                    break;
+    private void await(CommandExecution execution, Future<Void> future) throws IOException {
+        try {
+            while (!execution.isCancelled()) {
+                try {
+                    future.get(Math.min(execution.getRemainingTime(), KEY_POLL_INTERVAL),
+                            TimeUnit.MILLISECONDS);
+                    return;
+                } catch (TimeoutException e) {
+                    this.pollKeys(execution);
+                    if (execution.getRemainingTime() <= 0) {
+                        execution.cancel("Command timed out.");
+                    }
                 }
-                candidates = new LinkedList<CharSequence>(new HashSet<CharSequence>(candidates));
-                candidates.remove(line + " ");
             }
+            // The command has been cancelled: interrupt it and give it some time to return.
+            future.cancel(true);
+            execution.awaitTermination(CANCEL_GRACE_PERIOD);
+        } catch (ExecutionException e) {
+            if (!(e.getCause() instanceof OutputClosedException)) {
+                execution.getMetrics().failed();
+                LOGGER.warn("Command failed.", e.getCause());
+                this.write("Command failed: " + e.getCause().getMessage());
+            }
+        } catch (InterruptedException e) {
+            // The console is destroyed.
+            execution.cancel(null);
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
         }
-
-        // Return.
-        return line;
     }
 
     /**
-     * Generates the completer list by getting all available commands from the
-     * command Hander, creates completer and adds them to this consoles
-     * completer list.
+     * Reads the keys the operator has typed while a command is running,
+     * without blocking. Ctrl-C cancels the command and discards the
+     * type-ahead. Any other key is passed to the command if it is waiting for
+     * one, e.g. in the pager, and is otherwise left for the console reader.
+     *
+     * @param execution
+     *            The command execution.
+     * @throws IOException
+     *             If the console cannot be read from.
      */
-    private void generateCompleters() {
-        for (ICliCommand cmd : this.commander.getCommands().values()) {
-            this.addCommand(cmd);
+    private void pollKeys(CommandExecution execution) throws IOException {
+        /* The key read. */
+        int key;
+
+        while ((key = this.inStream.poll()) >= 0) {
+            if (key == CTRL_C) {
+                execution.cancel("^C");
+                this.inStream.discard();
+            } else if (execution.isWaitingForKey()) {
+                execution.offerKey(key);
+            } else {
+                this.returnKeys(execution);
+                this.inStream.pushBack(key);
+            }
         }
     }
 
     /**
-     * Creates a (Jline) completer and adds a command and its arguments to it.
+     * Leaves the keys the command has not read for the console reader, in the
+     * order they were typed.
      *
-     * @param cmd
-     *            Command that is offered by the command handler.
+     * @param execution
+     *            The command execution.
      */
-    private void addCommand(ICliCommand cmd) {
-        /* List of StringCompleters for commands and arguments. */
-        List<Completer> argCompletorList = new LinkedList<Completer>();
-        /* Array of command strings. */
-        String[] commands = (cmd.getCommandString()).split(" ");
-
-        // Decompose command string and add strings to StringsCompleter.
-        for (String command : commands) {
-            argCompletorList.add(new StringsCompleter(command.trim().toLowerCase()));
+    private void returnKeys(CommandExecution execution) {
+        /* The keys the command has not read. */
+        List<Integer> keys = new ArrayList<Integer>();
+
+        execution.drainKeys(keys);
+        for (int key : keys) {
+            this.inStream.pushBack(key);
+        }
+    }
+
+    @Override
+    public String getUser() {
+        return (this.session != null) ? this.session.getUser() : null;
+    }
+
+    @Override
+    public ICancellationToken getCancellationToken() {
+        /* The command execution of the calling command, or the current one. */
+        CommandExecution current = CommandExecution.current();
+
+        if (current == null) {
+            current = this.execution;
         }
+        return (current != null) ? current : NOT_CANCELLED;
+    }
+
+    @Override
+    public OutputFormat getOutputFormat() {
+        /* The format of the current command. */
+        OutputFormat format = this.commandFormat;
+
+        return (format != null) ? format : this.outputFormat;
+    }
+
+    @Override
+    public void setOutputFormat(OutputFormat format) {
+        this.outputFormat = (format != null) ? format : OutputFormat.TEXT;
+    }
+
+    @Override
+    public int getTerminalWidth() {
+        return this.terminal.isInteractive() ? this.terminal.getWidth() : 0;
+    }
+
+    @Override
+    public int getTerminalHeight() {
+        return this.terminal.isInteractive() ? this.terminal.getHeight() : 0;
+    }
+
+    /**
+     * Stops the execution of this console.
+     */
+    public synchronized void stop() {
+        this.running = false;
+    }
 
-        // Add argument strings to StringsCompleter.
-        if (cmd.getArguments() != null) {
-            argCompletorList.add(new StringsCompleter(cmd.getArguments().trim().toUpperCase()));
+    /**
+     * Flushes the output and error streams of this console and returns their
+     * buffers to the pool. If the last command is still running, e.g. since it
+     * ignores its cancellation, the buffers are left to the garbage collector
+     * instead, so they are never shared with another session while the
+     * command might still hold on to them.
+     */
+    private void release() {
+        try {
+            this.reader.flush();
+        } catch (IOException e) {
+            LOGGER.debug("Could not flush the console output.");
+        }
+        if (this.lastExecution != null && !this.lastExecution.isTerminated()) {
+            LOGGER.debug("Command is still running. Not returning the console buffers.");
+            return;
+        }
+        try {
+            this.outStream.release();
+            this.errStream.release();
+        } catch (IOException e) {
+            LOGGER.debug("Could not release the console streams.");
         }
+    }
 
-        // Add NullCompleter to terminate the completer.
-        argCompletorList.add(new NullCompleter());
+    /**
+     * Prints a welcome message to the console.
+     */
+    private void welcome() {
+        try {
+            this.write("\n   Welcome to the OpenDaylight OpenFlow Controller CLI\n");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
 
-        // Add new ArgumentCompleter to global completer list.
-        this.completors.add(new ArgumentCompleter(argCompletorList));
+    /**
+     * Reads the current command line.
+     *
+     * @return The current command line string or null if the end of the input
+     *         stream has been reached.
+     * @throws IOException
+     */
+    private String readCommandLine() throws IOException {
+        return this.reader.readLine(getPrompt());
     }
 
     /**
-     * Parses a command string tries to find a corresponding command. To this
-     * end, it decomposes the command and it arguments.
+     * Creates a list of commands an ambiguous command line might stand for.
      *
-     * @param commandString
-     *            String that was read from the command line.
-     * @return Map.Entry with the command (key) and its arguments (value).
+     * @param match
+     *            The ambiguous match.
+     * @return A string that lists the candidate commands.
      */
-    private Map.Entry<String, String> parseCommand(String commandString) {
-        /* All (sub) string elements in a string command. */
-        String[] commandElements = commandString.split(" ");
-        /* New command string (without arguments). */
-        String command = "";
-        /* New argument string. */
-        String arguments = "";
-
-        for (int i = 0; i < commandElements.length; i++) {
-            if (this.commander.getCommands()
-                    .get((command + " " + commandElements[i].trim()).trim()) != null) {
-                command = (command + " " + commandElements[i].trim()).trim();
-            } else {
-                arguments = (arguments + " " + commandElements[i].trim()).trim();
-            }
+    private String candidatesToString(CommandMatch match) {
+        /* The String builder that hold the resulting string. */
+        StringBuilder result = new StringBuilder();
 
+        result.append(". Use:");
+        for (String candidate : match.getCandidates()) {
+            result.append("\n  ").append(candidate);
         }
 
-        // Return an entry with whatever we found (might be null).
-        return new AbstractMap.SimpleEntry<String, String>(command, arguments);
+        // Return.
+        return result.toString();
     }
 
 }
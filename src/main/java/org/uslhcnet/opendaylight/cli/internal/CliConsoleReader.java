@@ -0,0 +1,76 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import jline.Terminal;
+import jline.console.ConsoleReader;
+import jline.console.history.History;
+
+/**
+ * The console reader of the CLI. Reverse searches (Ctrl-R) use the trigram
+ * index of a {@link CliHistory} instead of scanning every line.
+ */
+public class CliConsoleReader extends ConsoleReader {
+
+    /**
+     * Constructor.
+     *
+     * @param appName
+     *            The application name.
+     * @param in
+     *            The input stream.
+     * @param out
+     *            The output stream.
+     * @param term
+     *            The terminal.
+     * @param encoding
+     *            The character encoding. Might be null.
+     * @throws IOException
+     */
+    public CliConsoleReader(String appName, InputStream in, OutputStream out, Terminal term,
+            String encoding) throws IOException {
+        super(appName, in, out, term, encoding);
+    }
+
+    @Override
+    public int searchBackwards(String searchTerm, int startIndex, boolean startsWith) {
+        /* The history. */
+        History history = this.getHistory();
+
+        if (history instanceof CliHistory) {
+            return ((CliHistory) history).searchBackwards(searchTerm, startIndex, startsWith);
+        }
+        return super.searchBackwards(searchTerm, startIndex, startsWith);
+    }
+}
@@ -0,0 +1,609 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+import jline.console.history.History;
+
+/**
+ * The command history of a console. Like jline's memory history it keeps the
+ * last {@link #getMaxSize()} lines, ignores a line that repeats the previous
+ * one, and numbers the lines from the start of the session, but it keeps them
+ * in an array and indexes the trigrams of all lines, so a reverse search
+ * (Ctrl-R) only looks at the lines that contain all trigrams of the search
+ * term instead of scanning the whole history.
+ *
+ * New lines are passed to a {@link HistoryStore.Appender}, if any, to be
+ * persisted. Older lines, e.g. loaded from disk, can be inserted before the
+ * current lines at any time. The history is synchronized, since the lines are
+ * loaded on another thread.
+ */
+public class CliHistory implements History {
+    /** The default maximum number of lines. */
+    public static final int DEFAULT_MAX_SIZE = 10000;
+
+    /** The maximum number of lines. */
+    private final int maxSize;
+    /** The appender that persists new lines. Might be null. */
+    private final HistoryStore.Appender appender;
+    /** The lines, oldest first. */
+    private final ArrayList<String> items = new ArrayList<String>();
+    /** The line numbers that contain a trigram, ascending, keyed by trigram. */
+    private final Map<Long, Postings> trigrams = new HashMap<Long, Postings>();
+    /** The number of the first line. */
+    private int offset;
+    /** The cursor, relative to the first line. */
+    private int index;
+
+    /**
+     * Constructor.
+     *
+     * @param maxSize
+     *            The maximum number of lines.
+     * @param appender
+     *            The appender that persists new lines. Might be null.
+     */
+    public CliHistory(int maxSize, HistoryStore.Appender appender) {
+        this.maxSize = Math.max(maxSize, 1);
+        this.appender = appender;
+    }
+
+    /**
+     * Getter for the maximum number of lines.
+     *
+     * @return The maximum number of lines.
+     */
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    /**
+     * Inserts older lines, e.g. loaded from disk, before the current lines.
+     * The lines are not persisted again.
+     *
+     * @param lines
+     *            The older lines, oldest first.
+     */
+    public synchronized void insertOlder(List<String> lines) {
+        /* States whether the cursor is at the end. */
+        boolean atEnd = this.index >= this.items.size();
+        /* The first line to insert. */
+        int from = Math.max(0, lines.size() - this.maxSize);
+
+        this.items.addAll(0, lines.subList(from, lines.size()));
+        this.index = atEnd ? this.items.size() : this.index + lines.size() - from;
+        this.trim();
+        this.rebuildIndex();
+    }
+
+    @Override
+    public synchronized int size() {
+        return this.items.size();
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return this.items.isEmpty();
+    }
+
+    @Override
+    public synchronized int index() {
+        return this.offset + this.index;
+    }
+
+    @Override
+    public synchronized void clear() {
+        this.items.clear();
+        this.trigrams.clear();
+        this.offset = 0;
+        this.index = 0;
+    }
+
+    @Override
+    public synchronized CharSequence get(int index) {
+        return this.items.get(index - this.offset);
+    }
+
+    @Override
+    public synchronized void add(CharSequence item) {
+        /* The line. */
+        String line = String.valueOf(item);
+
+        if (!this.items.isEmpty() && line.equals(this.items.get(this.items.size() - 1))) {
+            this.index = this.items.size();
+            return;
+        }
+        this.items.add(line);
+        this.indexLine(this.offset + this.items.size() - 1, line);
+        if (this.items.size() > this.maxSize + this.maxSize / 4) {
+            this.trim();
+            this.rebuildIndex();
+        }
+        this.index = this.items.size();
+        if (this.appender != null) {
+            this.appender.append(line);
+        }
+    }
+
+    @Override
+    public synchronized void set(int index, CharSequence item) {
+        this.items.set(index - this.offset, String.valueOf(item));
+        this.rebuildIndex();
+    }
+
+    @Override
+    public synchronized CharSequence remove(int i) {
+        /* The removed line. */
+        String line = this.items.remove(i - this.offset);
+
+        this.rebuildIndex();
+        return line;
+    }
+
+    @Override
+    public synchronized CharSequence removeFirst() {
+        return this.remove(this.offset);
+    }
+
+    @Override
+    public synchronized CharSequence removeLast() {
+        return this.remove(this.offset + this.items.size() - 1);
+    }
+
+    @Override
+    public synchronized void replace(CharSequence item) {
+        this.items.remove(this.items.size() - 1);
+        this.rebuildIndex();
+        this.add(item);
+    }
+
+    @Override
+    public synchronized ListIterator<Entry> entries(int index) {
+        return new EntriesIterator(new ArrayList<String>(this.items), this.offset, index
+                - this.offset);
+    }
+
+    @Override
+    public ListIterator<Entry> entries() {
+        return this.entries(this.offset);
+    }
+
+    @Override
+    public Iterator<Entry> iterator() {
+        return this.entries();
+    }
+
+    @Override
+    public synchronized CharSequence current() {
+        if (this.index >= this.items.size()) {
+            return "";
+        }
+        return this.items.get(this.index);
+    }
+
+    @Override
+    public synchronized boolean previous() {
+        if (this.index <= 0) {
+            return false;
+        }
+        this.index--;
+        return true;
+    }
+
+    @Override
+    public synchronized boolean next() {
+        if (this.index >= this.items.size()) {
+            return false;
+        }
+        this.index++;
+        return true;
+    }
+
+    @Override
+    public synchronized boolean moveToFirst() {
+        if (this.items.size() > 0 && this.index != 0) {
+            this.index = 0;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized boolean moveToLast() {
+        /* The last line. */
+        int last = this.items.size() - 1;
+
+        if (last >= 0 && last != this.index) {
+            this.index = last;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized boolean moveTo(int index) {
+        /* The index relative to the first line. */
+        int i = index - this.offset;
+
+        if (i >= 0 && i < this.items.size()) {
+            this.index = i;
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public synchronized void moveToEnd() {
+        this.index = this.items.size();
+    }
+
+    /**
+     * Searches the history backwards, like jline's reverse search, for the
+     * latest line before a line number that contains, or starts with, a
+     * search term. Search terms of three or more characters are looked up in
+     * the trigram index.
+     *
+     * @param term
+     *            The search term.
+     * @param startIndex
+     *            The line number to search before.
+     * @param startsWith
+     *            States whether the line has to start with the term.
+     * @return The number of the line found, or -1.
+     */
+    public synchronized int searchBackwards(String term, int startIndex, boolean startsWith) {
+        /* The last line number to look at. */
+        int last = Math.min(startIndex, this.offset + this.items.size()) - 1;
+        /* The candidate line numbers, or null to look at all lines. */
+        Postings candidates = this.getCandidates(term);
+
+        if (candidates == null) {
+            for (int i = last; i >= this.offset; i--) {
+                if (this.matches(i, term, startsWith)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+        for (int p = candidates.floor(last); p >= 0; p--) {
+            /* The candidate line number. */
+            int i = candidates.get(p);
+            if (i < this.offset) {
+                break;
+            }
+            if (this.matches(i, term, startsWith)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether a line matches a search term.
+     *
+     * @param i
+     *            The line number.
+     * @param term
+     *            The search term.
+     * @param startsWith
+     *            States whether the line has to start with the term.
+     * @return True if the line matches.
+     */
+    private boolean matches(int i, String term, boolean startsWith) {
+        /* The line. */
+        String line = this.items.get(i - this.offset);
+
+        return startsWith ? line.startsWith(term) : line.contains(term);
+    }
+
+    /**
+     * Gets the lines that contain all trigrams of a search term, i.e. the
+     * shortest posting list of its trigrams.
+     *
+     * @param term
+     *            The search term.
+     * @return The candidate line numbers, or null if the term is too short to
+     *         be looked up.
+     */
+    private Postings getCandidates(String term) {
+        /* The shortest posting list. */
+        Postings shortest = null;
+
+        if (term.length() < 3) {
+            return null;
+        }
+        for (int i = 0; i + 3 <= term.length(); i++) {
+            Postings postings = this.trigrams.get(trigram(term, i));
+            if (postings == null) {
+                return Postings.EMPTY;
+            }
+            if (shortest == null || postings.size() < shortest.size()) {
+                shortest = postings;
+            }
+        }
+        return shortest;
+    }
+
+    /**
+     * Removes the oldest lines beyond the maximum number of lines.
+     */
+    private void trim() {
+        /* The number of lines to remove. */
+        int excess = this.items.size() - this.maxSize;
+
+        if (excess > 0) {
+            this.items.subList(0, excess).clear();
+            this.offset += excess;
+            this.index = Math.max(0, this.index - excess);
+        }
+    }
+
+    /**
+     * Rebuilds the trigram index of all lines.
+     */
+    private void rebuildIndex() {
+        this.trigrams.clear();
+        for (int i = 0; i < this.items.size(); i++) {
+            this.indexLine(this.offset + i, this.items.get(i));
+        }
+    }
+
+    /**
+     * Adds the trigrams of a line to the index.
+     *
+     * @param lineNumber
+     *            The line number.
+     * @param line
+     *            The line.
+     */
+    private void indexLine(int lineNumber, String line) {
+        for (int i = 0; i + 3 <= line.length(); i++) {
+            /* The trigram. */
+            Long key = trigram(line, i);
+            /* The lines that contain the trigram. */
+            Postings postings = this.trigrams.get(key);
+            if (postings == null) {
+                postings = new Postings();
+                this.trigrams.put(key, postings);
+            }
+            postings.add(lineNumber);
+        }
+    }
+
+    /**
+     * Gets the trigram at a position of a string.
+     *
+     * @param s
+     *            The string.
+     * @param i
+     *            The position.
+     * @return The three characters packed into a long.
+     */
+    private static Long trigram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    /**
+     * An ascending list of line numbers.
+     */
+    private static class Postings {
+        /** The empty posting list. */
+        private static final Postings EMPTY = new Postings();
+
+        /** The line numbers. */
+        private int[] lines = new int[2];
+        /** The number of line numbers. */
+        private int size;
+
+        /**
+         * Adds a line number that is not smaller than the last one.
+         *
+         * @param line
+         *            The line number.
+         */
+        public void add(int line) {
+            if (this.size > 0 && this.lines[this.size - 1] == line) {
+                return;
+            }
+            if (this.size == this.lines.length) {
+                int[] newLines = new int[this.size * 2];
+                System.arraycopy(this.lines, 0, newLines, 0, this.size);
+                this.lines = newLines;
+            }
+            this.lines[this.size++] = line;
+        }
+
+        /**
+         * Gets the line number at a position.
+         *
+         * @param position
+         *            The position.
+         * @return The line number.
+         */
+        public int get(int position) {
+            return this.lines[position];
+        }
+
+        /**
+         * Getter for the number of line numbers.
+         *
+         * @return The number of line numbers.
+         */
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * Finds the last line number that is not greater than a line number.
+         *
+         * @param line
+         *            The line number.
+         * @return The position of that line number, or -1 if there is none.
+         */
+        public int floor(int line) {
+            /* The lowest possible position. */
+            int low = 0;
+            /* The highest possible position. */
+            int high = this.size - 1;
+
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (this.lines[mid] <= line) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return high;
+        }
+    }
+
+    /**
+     * A line of the history and its number.
+     */
+    private static class HistoryEntry implements Entry {
+        /** The line number. */
+        private final int index;
+        /** The line. */
+        private final CharSequence value;
+
+        /**
+         * Constructor.
+         *
+         * @param index
+         *            The line number.
+         * @param value
+         *            The line.
+         */
+        public HistoryEntry(int index, CharSequence value) {
+            this.index = index;
+            this.value = value;
+        }
+
+        @Override
+        public int index() {
+            return this.index;
+        }
+
+        @Override
+        public CharSequence value() {
+            return this.value;
+        }
+
+        @Override
+        public String toString() {
+            return this.index + ": " + this.value;
+        }
+    }
+
+    /**
+     * Iterates over a copy of the lines, so the history can change meanwhile.
+     */
+    private static class EntriesIterator implements ListIterator<Entry> {
+        /** The iterator over the copied lines. */
+        private final ListIterator<String> source;
+        /** The number of the first line. */
+        private final int offset;
+
+        /**
+         * Constructor.
+         *
+         * @param lines
+         *            The copied lines.
+         * @param offset
+         *            The number of the first line.
+         * @param index
+         *            The position to start at.
+         */
+        public EntriesIterator(List<String> lines, int offset, int index) {
+            this.source = lines.listIterator(index);
+            this.offset = offset;
+        }
+
+        @Override
+        public Entry next() {
+            if (!this.source.hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return new HistoryEntry(this.offset + this.source.nextIndex(), this.source.next());
+        }
+
+        @Override
+        public Entry previous() {
+            if (!this.source.hasPrevious()) {
+                throw new NoSuchElementException();
+            }
+            return new HistoryEntry(this.offset + this.source.previousIndex(),
+                    this.source.previous());
+        }
+
+        @Override
+        public int nextIndex() {
+            return this.offset + this.source.nextIndex();
+        }
+
+        @Override
+        public int previousIndex() {
+            return this.offset + this.source.previousIndex();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.source.hasNext();
+        }
+
+        @Override
+        public boolean hasPrevious() {
+            return this.source.hasPrevious();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void set(Entry entry) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void add(Entry entry) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
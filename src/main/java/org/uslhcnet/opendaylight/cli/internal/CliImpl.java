@@ -30,20 +30,51 @@ package org.uslhcnet.opendaylight.cli.internal;
  */
 
 import java.io.IOException;
+import java.util.Dictionary;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
+import org.apache.felix.dm.Component;
 import org.apache.sshd.ClientSession;
 import org.apache.sshd.SshServer;
 import org.apache.sshd.common.session.AbstractSession;
-import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.apache.sshd.common.KeyPairProvider;
+import org.opendaylight.controller.clustering.services.ICacheUpdateAware;
+import org.opendaylight.controller.clustering.services.IClusterGlobalServices;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.NodeConnector;
+import org.opendaylight.controller.sal.core.Property;
+import org.opendaylight.controller.sal.core.UpdateType;
+import org.opendaylight.controller.switchmanager.IInventoryListener;
 import org.opendaylight.controller.switchmanager.ISwitchManager;
 import org.opendaylight.controller.usermanager.IUserManager;
+import org.osgi.service.cm.ConfigurationException;
+import org.osgi.service.cm.ManagedService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uslhcnet.opendaylight.cli.ICliCommand;
+import org.uslhcnet.opendaylight.cli.ICliFilter;
 import org.uslhcnet.opendaylight.cli.ICliService;
+import org.uslhcnet.opendaylight.cli.commands.ClearSessionCmd;
 import org.uslhcnet.opendaylight.cli.commands.ExitCmd;
 import org.uslhcnet.opendaylight.cli.commands.HelpCmd;
+import org.uslhcnet.opendaylight.cli.commands.SetFormatCmd;
+import org.uslhcnet.opendaylight.cli.commands.ShowCliStatsCmd;
 import org.uslhcnet.opendaylight.cli.commands.ShowCmd;
+import org.uslhcnet.opendaylight.cli.commands.ShowSessionsCmd;
+import org.uslhcnet.opendaylight.cli.commands.WatchCmd;
+import org.uslhcnet.opendaylight.cli.external.ClusterCacheInventory;
+import org.uslhcnet.opendaylight.cli.external.NodeInventory;
+import org.uslhcnet.opendaylight.cli.filters.CountFilter;
+import org.uslhcnet.opendaylight.cli.filters.GrepFilter;
+import org.uslhcnet.opendaylight.cli.filters.HeadFilter;
+import org.uslhcnet.opendaylight.cli.filters.SortFilter;
+import org.uslhcnet.opendaylight.cli.filters.TailFilter;
+import org.uslhcnet.opendaylight.cli.external.commands.ShowClusterNodesCmd;
 import org.uslhcnet.opendaylight.cli.external.commands.ShowNodesCmd;
 
 /**
@@ -51,63 +82,154 @@ import org.uslhcnet.opendaylight.cli.external.commands.ShowNodesCmd;
  *
  * @author Michael Bredel <michael.bredel@cern.ch>
  */
-public class CliImpl implements ICliService {
+public class CliImpl implements ICliService, IInventoryListener,
+        ICacheUpdateAware<Object, Object>, ManagedService {
     /** The logger. */
     private static final Logger LOGGER = LoggerFactory.getLogger(CliImpl.class);
-    /** Default SSH host key location. */
-    public static final String DEFAULT_HOSTKEY = "./configuration/ssh_host_dsa_key.pub";
-    /** Default SSH host key algorithm */
-    public static final String DEFAULT_ALGORITHM = "DSA";
+    /** The maximum time to wait for the SSH server startup on stop [ms]. */
+    public static final long STARTUP_TIMEOUT = 30000;
+    /** The maximum time to wait for the first configuration before binding the defaults [ms]. */
+    public static final long CONFIGURATION_TIMEOUT = 10000;
+    /** The name of the thread that starts, restarts, and stops the SSH server. */
+    public static final String CONTROL_THREAD_NAME = "OpenDaylightSshControl";
+    /** The user manager's cache of local users, keyed by user name. */
+    public static final String LOCAL_USER_CACHE = "usermanager.localUserConfigList";
+    /** The user manager's caches whose changes invalidate cached logins. */
+    public static final String[] USER_CACHES = { LOCAL_USER_CACHE,
+            "usermanager.remoteServerConfigList", "usermanager.authorizationConfList" };
 
     /** Required ODL bundle: UserManager. */
     private IUserManager userManager;
     /** Required ODL bundle: SwitchManager (only for the show command). */
     private ISwitchManager switchManager;
+    /** Optional ODL bundle: the cluster services. Null if not clustered. */
+    private volatile IClusterGlobalServices clusterServices;
 
-    /** The SSH-Server instance. */
+    /** The SSH-Server instance. Null if not started. Guarded by this. */
     private SshServer sshd;
+    /** The configuration the running SSH server has been started with. Guarded by this. */
+    private SshServerConfig sshdConfig;
+    /** States whether the component is started, i.e. wants the SSH server. Guarded by this. */
+    private boolean started;
+    /** States whether the first configuration has been received. Guarded by this. */
+    private boolean configured;
+    /** Starts, restarts, and stops the SSH server one after the other. */
+    private ScheduledExecutorService sshControl;
     /** The command hander that handles all console commands. */
     private CommandHandler commander;
+    /** The output filters of the command lines. */
+    private FilterRegistry filters;
+    /** The admission control that runs the shell sessions. */
+    private SessionAdmissionControl admissionControl;
+    /** The registry of the live shell sessions. */
+    private SessionRegistry sessionRegistry;
+    /** The mirror of the switch manager's node inventory. */
+    private NodeInventory inventory;
+    /** The node inventories of all cluster members. */
+    private ClusterCacheInventory clusterInventory;
+    /** The command that queries the cluster members, which owns the query threads. */
+    private ShowClusterNodesCmd clusterNodesCmd;
+    /** The cache of recent successful logins. Null if disabled. */
+    private AuthenticationCache authenticationCache;
+    /** The dependency manager component of this service. */
+    private Component component;
+    /** The startup of the SSH server. Guarded by this. */
+    private SshServerStartup sshStartup;
+    /** The provider of the host key. */
+    private KeyPairProvider keyPairProvider;
+    /** The configuration of the SSH server. Guarded by this. */
+    private SshServerConfig sshConfig = SshServerConfig.defaults();
 
     /**
      * Function called by the dependency manager when all the required
      * dependencies are satisfied
+     *
+     * @param c
+     *            The dependency manager component of this service.
      */
-    void init() {
+    void init(Component c) {
         LOGGER.trace(this.getClass().getName() + ".init()");
+        this.component = c;
+        this.sshControl = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, CONTROL_THREAD_NAME);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
         this.commander = CommandHandler.getInstance();
-        this.sshd = SshServer.setUpDefaultServer();
+        this.filters = FilterRegistry.getInstance();
+        this.admissionControl = new SessionAdmissionControl();
+        this.sessionRegistry = new SessionRegistry();
+        this.sessionRegistry.setUserManager(this.userManager);
+        this.inventory = new NodeInventory();
+        this.clusterInventory = new ClusterCacheInventory(this.inventory);
+        this.clusterInventory.setClusterServices(this.clusterServices);
+        this.authenticationCache = AuthenticationCache.create();
 
         // Register some standard commands.
         this.commander.addCommand(new ExitCmd());
         this.commander.addCommand(new HelpCmd());
         this.commander.addCommand(new ShowCmd());
+        this.commander.addCommand(new SetFormatCmd());
+        this.commander.addCommand(new ShowCliStatsCmd());
+        this.commander.addCommand(new ShowSessionsCmd(this.sessionRegistry));
+        this.commander.addCommand(new ClearSessionCmd(this.sessionRegistry));
+        this.commander.addCommand(new WatchCmd());
+
+        // Register the standard output filters.
+        this.filters.addFilter(new GrepFilter("grep", false));
+        this.filters.addFilter(new GrepFilter("include", false));
+        this.filters.addFilter(new GrepFilter("exclude", true));
+        this.filters.addFilter(new HeadFilter());
+        this.filters.addFilter(new TailFilter());
+        this.filters.addFilter(new CountFilter());
+        this.filters.addFilter(new SortFilter());
 
         // Register some external commands (just for testing).
-        this.commander.addCommand(new ShowNodesCmd(this.switchManager));
+        this.commander.addCommand(new ShowNodesCmd(this.inventory));
+        this.clusterNodesCmd = new ShowClusterNodesCmd(this.clusterInventory);
+        this.commander.addCommand(this.clusterNodesCmd);
     }
 
     /**
      * Function called by dependency manager after "init()" is called and after
-     * the services provided by the class are registered in the service registry
+     * the services provided by the class are registered in the service registry.
+     * The SSH server is bound once the first configuration has been received,
+     * so it never listens on the default address by mistake. If the
+     * configuration admin does not call in within
+     * {@link #CONFIGURATION_TIMEOUT}, the server is bound with the defaults.
      */
     void start() {
         LOGGER.trace(this.getClass().getName() + ".start()");
 
-        this.sshd.setPort(55220);
-        sshd.setKeyPairProvider(new SimpleGeneratorHostKeyProvider(DEFAULT_HOSTKEY,
-                DEFAULT_ALGORITHM));
-        sshd.setPasswordAuthenticator(new UserManagerPasswordAuthenticator(this.userManager));
-        // sshd.setPasswordAuthenticator(new SimplePasswordAuthenticator("root",
-        // "password"));
-        sshd.setShellFactory(new CliShellFactory());
-        try {
-            sshd.start();
-            LOGGER.debug("Starting application-internal SSH server on port {}", sshd.getPort());
-        } catch (IOException e) {
-            LOGGER.error("Starting application-internal SSH server on port {} failed",
-                    sshd.getPort());
+        synchronized (this) {
+            // Load the nodes that have been added before we were notified.
+            this.inventory.load(this.switchManager);
+            // Share the nodes with the other cluster members.
+            this.clusterInventory.start();
+
+            this.keyPairProvider = SshServerStartup.createKeyPairProvider();
+            this.started = true;
         }
+        this.updateServer();
+        this.sshControl.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (CliImpl.this) {
+                    if (configured) {
+                        return;
+                    }
+                    LOGGER.warn("No configuration of {} received. Using the defaults.",
+                            SshServerConfig.PID);
+                    configured = true;
+                }
+                reconcileServer();
+            }
+        }, CONFIGURATION_TIMEOUT, TimeUnit.MILLISECONDS);
+        // Export the command metrics via JMX.
+        CommandMetricsRegistry.getInstance().export();
     }
 
     /**
@@ -118,17 +240,147 @@ public class CliImpl implements ICliService {
     void stop() {
         LOGGER.trace(this.getClass().getName() + ".stop()");
 
+        synchronized (this) {
+            this.started = false;
+        }
+        // Stop the server after a pending restart, and wait for it.
+        try {
+            this.sshControl.submit(new Runnable() {
+                @Override
+                public void run() {
+                    reconcileServer();
+                }
+            }).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOGGER.error("Stopping the SSH-Server failed.", e.getCause());
+        }
+
+        synchronized (this) {
+            // Stop the session threads and the idle session reaper.
+            this.admissionControl.shutdown();
+            this.sessionRegistry.shutdown();
+            // Write the pending command history.
+            HistoryStore.getInstance().shutdown();
+            // Withdraw the nodes from the cluster and forget them, since we will not be
+            // notified anymore.
+            this.clusterInventory.stop();
+            this.inventory.clear();
+            CommandMetricsRegistry.getInstance().unexport();
+            if (this.authenticationCache != null) {
+                LOGGER.debug("Authentication cache: {} hits, {} misses.",
+                        this.authenticationCache.getHits(), this.authenticationCache.getMisses());
+                this.authenticationCache.invalidateAll();
+            }
+        }
+    }
+
+    /**
+     * Brings the SSH server in line with the component state and the
+     * configuration on the control thread, i.e. off the calling thread.
+     */
+    private void updateServer() {
+        this.sshControl.execute(new Runnable() {
+            @Override
+            public void run() {
+                reconcileServer();
+            }
+        });
+    }
+
+    /**
+     * Brings the SSH server in line with the component state and the
+     * configuration: stops the running server if the component is stopped or
+     * the configuration has changed, and starts a server if the component is
+     * started and configured but no server is running. Only called on the
+     * control thread. The server is stopped without holding the lock, since
+     * stopping waits for the startup and the sessions.
+     */
+    private void reconcileServer() {
+        /* The server to stop. */
+        SshServer oldServer = null;
+        /* The startup of the server to stop. */
+        SshServerStartup oldStartup = null;
+        /* States whether the server is restarted. */
+        boolean restart;
+
+        synchronized (this) {
+            restart = this.started;
+            if (this.sshd != null && (!this.started || !this.sshConfig.equals(this.sshdConfig))) {
+                oldServer = this.sshd;
+                oldStartup = this.sshStartup;
+                this.sshd = null;
+                this.sshdConfig = null;
+            }
+        }
+        if (oldServer != null) {
+            if (restart) {
+                LOGGER.info("Restarting application-internal SSH server.");
+                oldStartup.setServiceProperties(false);
+            }
+            this.stopServer(oldServer, oldStartup, restart ? "SSH-Server is restarting."
+                    : "SSH-Server is shutting down.");
+        }
+        synchronized (this) {
+            if (this.started && this.configured && this.sshd == null) {
+                this.startServer();
+            }
+        }
+    }
+
+    /**
+     * Creates, configures and starts a new SSH server with the current
+     * configuration. The server is bound on the startup thread. Must be called
+     * with the lock held.
+     */
+    private void startServer() {
+        this.sshd = SshServer.setUpDefaultServer();
+        this.sshdConfig = this.sshConfig;
+        sshd.setKeyPairProvider(this.keyPairProvider);
+        sshd.setPasswordAuthenticator(new UserManagerPasswordAuthenticator(this.userManager,
+                this.authenticationCache));
+        // sshd.setPasswordAuthenticator(new SimplePasswordAuthenticator("root",
+        // "password"));
+        sshd.setShellFactory(new CliShellFactory(this.admissionControl,
+                this.sessionRegistry));
+        sshd.setCommandFactory(new CliCommandFactory(this.admissionControl));
+        // Set the address, the I/O layer and the transport profile.
+        this.sshdConfig.apply(this.sshd);
+        // Load the host key and bind the server off the activation thread.
+        this.sshStartup = new SshServerStartup(this.sshd, this.keyPairProvider, this.component);
+        this.sshStartup.start();
+        LOGGER.debug("Starting application-internal SSH server on {}", this.sshdConfig);
+    }
+
+    /**
+     * Disconnects all sessions and stops an SSH server.
+     *
+     * @param server
+     *            The SSH server.
+     * @param startup
+     *            The startup of the SSH server.
+     * @param reason
+     *            The reason sent to the clients.
+     */
+    private void stopServer(SshServer server, SshServerStartup startup, String reason) {
+        // Let a pending startup finish, so that the server is not started after it is stopped.
+        try {
+            startup.await(STARTUP_TIMEOUT);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
         // Stop all sessions.
-        for (AbstractSession session : sshd.getActiveSessions()) {
+        for (AbstractSession session : server.getActiveSessions()) {
             try {
-                session.disconnect(ClientSession.CLOSED, "SSH-Server is shutting down.");
+                session.disconnect(ClientSession.CLOSED, reason);
             } catch (IOException e) {
                 LOGGER.error("Disconnecting Session {} failed.", session);
             }
         }
         // Stop SSH-Server
         try {
-            sshd.stop(true);
+            server.stop(true);
         } catch (InterruptedException e) {
             LOGGER.error("Stopping the SSH-Server failed.");
         }
@@ -141,6 +393,15 @@ public class CliImpl implements ICliService {
      */
     void destroy() {
         LOGGER.trace(this.getClass().getName() + ".destroy()");
+        if (this.sshControl != null) {
+            this.sshControl.shutdownNow();
+        }
+        // Stop the cluster query threads; the next init() creates a new command.
+        if (this.clusterNodesCmd != null) {
+            this.commander.removeCommand(this.clusterNodesCmd);
+            this.clusterNodesCmd.shutdown();
+            this.clusterNodesCmd = null;
+        }
     }
 
     /**
@@ -152,6 +413,9 @@ public class CliImpl implements ICliService {
     void setUserManager(IUserManager userManager) {
         LOGGER.debug("Setting UserManager.");
         this.userManager = userManager;
+        if (this.sessionRegistry != null) {
+            this.sessionRegistry.setUserManager(userManager);
+        }
     }
 
     /**
@@ -164,6 +428,9 @@ public class CliImpl implements ICliService {
         if (this.userManager == userManager) {
             LOGGER.debug("UNSetting UserManager.");
             this.userManager = null;
+            if (this.sessionRegistry != null) {
+                this.sessionRegistry.setUserManager(null);
+            }
         }
     }
 
@@ -191,6 +458,114 @@ public class CliImpl implements ICliService {
         }
     }
 
+    /**
+     * Set the cluster services.
+     *
+     * @param clusterServices
+     *            The cluster services.
+     */
+    void setClusterServices(IClusterGlobalServices clusterServices) {
+        LOGGER.debug("Setting ClusterGlobalServices.");
+        this.clusterServices = clusterServices;
+        if (this.clusterInventory != null) {
+            this.clusterInventory.setClusterServices(clusterServices);
+        }
+    }
+
+    /**
+     * Remove the cluster services.
+     *
+     * @param clusterServices
+     *            The cluster services.
+     */
+    void unsetClusterServices(IClusterGlobalServices clusterServices) {
+        if (this.clusterServices == clusterServices) {
+            LOGGER.debug("UNSetting ClusterGlobalServices.");
+            this.clusterServices = null;
+            if (this.clusterInventory != null) {
+                this.clusterInventory.setClusterServices(null);
+            }
+        }
+    }
+
+    //
+    // ManagedService
+    //
+
+    /**
+     * Receives the configuration of the SSH server, or null if there is none.
+     * The server is (re)started on the control thread, so the configuration
+     * admin is not blocked while the running server is stopped.
+     */
+    @Override
+    public void updated(Dictionary<String, ?> properties) throws ConfigurationException {
+        /* The new configuration. */
+        SshServerConfig config = SshServerConfig.fromProperties(properties);
+
+        synchronized (this) {
+            if (this.configured && config.equals(this.sshConfig)) {
+                return;
+            }
+            this.sshConfig = config;
+            this.configured = true;
+        }
+        LOGGER.debug("Received the configuration of the SSH server: {}", config);
+        this.updateServer();
+    }
+
+    //
+    // IInventoryListener
+    //
+
+    @Override
+    public void notifyNode(Node node, UpdateType type, Map<String, Property> propMap) {
+        this.inventory.notifyNode(node, type, propMap);
+    }
+
+    @Override
+    public void notifyNodeConnector(NodeConnector nodeConnector, UpdateType type,
+            Map<String, Property> propMap) {
+        this.inventory.notifyNodeConnector(nodeConnector, type, propMap);
+    }
+
+    //
+    // ICacheUpdateAware
+    //
+
+    @Override
+    public void entryCreated(Object key, String cacheName, boolean originLocal) {
+        this.invalidateLogins(key, cacheName);
+    }
+
+    @Override
+    public void entryUpdated(Object key, Object newValue, String cacheName, boolean originLocal) {
+        this.invalidateLogins(key, cacheName);
+    }
+
+    @Override
+    public void entryDeleted(Object key, String cacheName, boolean originLocal) {
+        this.invalidateLogins(key, cacheName);
+    }
+
+    /**
+     * Invalidates the cached logins affected by a change of the user manager.
+     *
+     * @param key
+     *            The key of the changed cache entry.
+     * @param cacheName
+     *            The name of the changed cache.
+     */
+    private void invalidateLogins(Object key, String cacheName) {
+        if (this.authenticationCache == null) {
+            return;
+        }
+        if (LOCAL_USER_CACHE.equals(cacheName) && key instanceof String) {
+            this.authenticationCache.invalidate((String) key);
+        } else {
+            this.authenticationCache.invalidateAll();
+        }
+    }
+
     //
     // ICliService
     //
@@ -205,4 +580,14 @@ public class CliImpl implements ICliService {
         this.commander.removeCommand(command);
     }
 
+    @Override
+    public void registerFilter(ICliFilter filter) {
+        this.filters.addFilter(filter);
+    }
+
+    @Override
+    public void unregisterFilter(ICliFilter filter) {
+        this.filters.removeFilter(filter);
+    }
+
 }
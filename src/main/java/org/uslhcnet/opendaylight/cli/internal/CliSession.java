@@ -0,0 +1,264 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A live CLI shell session as kept by the {@link SessionRegistry}: who opened
+ * it from where and when, what it is running, and how many bytes it has read
+ * and written. The session's streams are wrapped to count the bytes, and any
+ * input counts as activity.
+ */
+public class CliSession {
+    /** The session identifier. */
+    private final int id;
+    /** The user that opened the session. */
+    private final String user;
+    /** The remote address of the client. */
+    private final String remoteAddress;
+    /** The time the session started in milliseconds. */
+    private final long startTime = System.currentTimeMillis();
+    /** Terminates the session when run. */
+    private final Runnable terminator;
+    /** The number of bytes read from the client. */
+    private final AtomicLong bytesIn = new AtomicLong();
+    /** The number of bytes written to the client. */
+    private final AtomicLong bytesOut = new AtomicLong();
+    /** The time of the last input or command in nanoseconds. */
+    private volatile long lastActivity = System.nanoTime();
+    /** The command line of the running command. Null if no command is running. */
+    private volatile String command;
+    /** The execution of the running command. Might be null. */
+    private volatile CommandExecution execution;
+
+    /**
+     * Constructor.
+     *
+     * @param id
+     *            The session identifier.
+     * @param user
+     *            The user that opened the session.
+     * @param remoteAddress
+     *            The remote address of the client.
+     * @param terminator
+     *            Terminates the session when run.
+     */
+    CliSession(int id, String user, String remoteAddress, Runnable terminator) {
+        this.id = id;
+        this.user = (user != null) ? user : "";
+        this.remoteAddress = (remoteAddress != null) ? remoteAddress : "";
+        this.terminator = terminator;
+    }
+
+    /**
+     * Getter for the session identifier.
+     *
+     * @return The session identifier.
+     */
+    public int getId() {
+        return this.id;
+    }
+
+    /**
+     * Getter for the user that opened the session.
+     *
+     * @return The user name.
+     */
+    public String getUser() {
+        return this.user;
+    }
+
+    /**
+     * Getter for the remote address of the client.
+     *
+     * @return The remote address.
+     */
+    public String getRemoteAddress() {
+        return this.remoteAddress;
+    }
+
+    /**
+     * Getter for the time the session started.
+     *
+     * @return The start time in milliseconds since the epoch.
+     */
+    public long getStartTime() {
+        return this.startTime;
+    }
+
+    /**
+     * Getter for the number of bytes read from the client.
+     *
+     * @return The number of bytes.
+     */
+    public long getBytesIn() {
+        return this.bytesIn.get();
+    }
+
+    /**
+     * Getter for the number of bytes written to the client.
+     *
+     * @return The number of bytes.
+     */
+    public long getBytesOut() {
+        return this.bytesOut.get();
+    }
+
+    /**
+     * Getter for the command line of the running command.
+     *
+     * @return The command line, or null if no command is running.
+     */
+    public String getCommand() {
+        return this.command;
+    }
+
+    /**
+     * Sets the command line of the running command. Starting and finishing a
+     * command counts as activity.
+     *
+     * @param command
+     *            The command line, or null when the command has returned.
+     */
+    public void setCommand(String command) {
+        this.command = command;
+        this.lastActivity = System.nanoTime();
+    }
+
+    /**
+     * Sets the execution of the running command, which tells whether the
+     * command is waiting for the operator.
+     *
+     * @param execution
+     *            The command execution, or null when the command has returned.
+     */
+    void setExecution(CommandExecution execution) {
+        this.execution = execution;
+    }
+
+    /**
+     * Gets the time since the last input or command. A command that waits for
+     * the operator, e.g. at the prompt of the pager, does not count as
+     * activity.
+     *
+     * @return The idle time in milliseconds, or 0 while a command is running
+     *         and not waiting for the operator.
+     */
+    public long getIdleTime() {
+        /* The execution of the running command. */
+        CommandExecution current = this.execution;
+
+        if (this.command != null && (current == null || !current.isWaitingForKey())) {
+            return 0;
+        }
+        return (System.nanoTime() - this.lastActivity) / 1000000;
+    }
+
+    /**
+     * Terminates the session.
+     */
+    public void terminate() {
+        this.terminator.run();
+    }
+
+    /**
+     * Wraps the input stream of the session to count the bytes read from it.
+     *
+     * @param in
+     *            The input stream of the session.
+     * @return The counting input stream.
+     */
+    public InputStream countInput(InputStream in) {
+        return new FilterInputStream(in) {
+            @Override
+            public int read() throws IOException {
+                /* The byte read. */
+                int b = super.read();
+
+                if (b >= 0) {
+                    received(1);
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                /* The number of bytes read. */
+                int n = super.read(b, off, len);
+
+                if (n > 0) {
+                    received(n);
+                }
+                return n;
+            }
+        };
+    }
+
+    /**
+     * Wraps the output stream of the session to count the bytes written to
+     * it.
+     *
+     * @param out
+     *            The output stream of the session.
+     * @return The counting output stream.
+     */
+    public OutputStream countOutput(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(int b) throws IOException {
+                this.out.write(b);
+                bytesOut.incrementAndGet();
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                this.out.write(b, off, len);
+                bytesOut.addAndGet(len);
+            }
+        };
+    }
+
+    /**
+     * Counts bytes read from the client as activity.
+     *
+     * @param n
+     *            The number of bytes.
+     */
+    private void received(int n) {
+        this.bytesIn.addAndGet(n);
+        this.lastActivity = System.nanoTime();
+    }
+}
@@ -37,6 +37,9 @@ import org.apache.sshd.common.Factory;
 import org.apache.sshd.server.Command;
 import org.apache.sshd.server.Environment;
 import org.apache.sshd.server.ExitCallback;
+import org.apache.sshd.server.SessionAware;
+import org.apache.sshd.server.session.ServerSession;
+import org.uslhcnet.opendaylight.cli.internal.SessionAdmissionControl.Admission;
 
 /**
  * A {@link Factory} of {@link Command} that will create a new shell process and
@@ -45,22 +48,42 @@ import org.apache.sshd.server.ExitCallback;
  * @author Michael Bredel <michael.bredel@cern.ch>
  */
 public class CliShellFactory implements Factory<Command> {
+    /** The admission control that runs the shells. */
+    private final SessionAdmissionControl admissionControl;
+    /** The registry of the live shell sessions. */
+    private final SessionRegistry sessionRegistry;
+
+    /**
+     * Constructor.
+     *
+     * @param admissionControl
+     *            The admission control that runs the shells.
+     * @param sessionRegistry
+     *            The registry of the live shell sessions.
+     */
+    public CliShellFactory(SessionAdmissionControl admissionControl,
+            SessionRegistry sessionRegistry) {
+        this.admissionControl = admissionControl;
+        this.sessionRegistry = sessionRegistry;
+    }
 
     @Override
     public Command create() {
-        return new CliShell();
+        return new CliShell(this.admissionControl, this.sessionRegistry);
     }
 
     /**
-     * The OpenDaylight shell that is created (as a thread) whenever a new
-     * connection to the SSH-Server is established.
+     * The OpenDaylight shell that is created whenever a new connection to the
+     * SSH-Server is established. It runs on a thread of the session admission
+     * control and is registered with the session registry while it runs.
      *
      * @author Michael Bredel <michael.bredel@cern.ch>
      */
-    public static class CliShell implements Command, Runnable {
-        /** The name of the shell thread. */
-        public static final String SHELL_THREAD_NAME = "OpenDaylightShell";
-
+    public static class CliShell implements Command, SessionAware, Runnable {
+        /** The admission control that runs this shell. */
+        private final SessionAdmissionControl admissionControl;
+        /** The registry of the live shell sessions. */
+        private final SessionRegistry sessionRegistry;
         /** The input stream as read from the shell's command line prompt. */
         private InputStream inStream;
         /** The output stream to write to the shell's command line prompt. */
@@ -71,15 +94,45 @@ public class CliShellFactory implements Factory<Command> {
         private Environment environment;
         /** The callback function that is executed when the shell is terminated. */
         private ExitCallback callback;
+        /** The SSH session this shell belongs to. */
+        private ServerSession session;
         /** The thread that runs this shell. */
         private Thread thread;
         /** The console that handles inputs, outputs, and command execution. */
         private CliConsole console;
+        /** States whether the shell has been destroyed. */
+        private boolean destroyed;
+
+        /**
+         * Constructor.
+         *
+         * @param admissionControl
+         *            The admission control that runs this shell.
+         * @param sessionRegistry
+         *            The registry of the live shell sessions.
+         */
+        public CliShell(SessionAdmissionControl admissionControl,
+                SessionRegistry sessionRegistry) {
+            this.admissionControl = admissionControl;
+            this.sessionRegistry = sessionRegistry;
+        }
 
         @Override
         public synchronized void destroy() {
-            this.console.stop();
-            thread.interrupt();
+            this.destroyed = true;
+            if (this.console != null)
+                this.console.stop();
+            if (this.thread != null) {
+                this.thread.interrupt();
+            } else {
+                // Free the place in the queue if the shell is still waiting for a slot.
+                this.admissionControl.withdraw(this);
+            }
+        }
+
+        @Override
+        public void setSession(ServerSession session) {
+            this.session = session;
         }
 
         @Override
@@ -105,26 +158,71 @@ public class CliShellFactory implements Factory<Command> {
         @Override
         public void start(Environment environment) throws IOException {
             this.environment = environment;
-            this.thread = new Thread(this, SHELL_THREAD_NAME);
-            this.thread.start();
+            /* The result of the admission. */
+            Admission admission = this.admissionControl.admit(this.getUsername(), this);
+
+            if (admission.getMessage() != null) {
+                this.outStream.write((admission.getMessage() + "\r\n").getBytes());
+                this.outStream.flush();
+            }
+            if (admission.isRejected() && this.callback != null) {
+                this.callback.onExit(1, admission.getMessage());
+            }
+        }
+
+        /**
+         * Gets the user that opened the session.
+         *
+         * @return The user name. Might be null.
+         */
+        private String getUsername() {
+            return (this.session != null) ? this.session.getUsername() : this.environment
+                    .getEnv().get(Environment.ENV_USER);
         }
 
         @Override
         public void run() {
+            synchronized (this) {
+                if (this.destroyed)
+                    return;
+                this.thread = Thread.currentThread();
+            }
+
             String encoding = this.environment.getEnv().get("LC_CTYPE");
             if (encoding != null && encoding.indexOf('.') > 0) {
                 encoding = encoding.substring(encoding.indexOf('.') + 1);
             }
+            /* The registered session. */
+            CliSession cliSession = this.sessionRegistry.register(this.getUsername(),
+                    (this.session != null) ? String.valueOf(this.session.getIoSession()
+                            .getRemoteAddress()) : null, new Runnable() {
+                        @Override
+                        public void run() {
+                            destroy();
+                        }
+                    });
 
             try {
                 // Create a new console that actually handles the user inputs.
-                this.console = new CliConsole(inStream, outStream, errStream, encoding, environment);
-                // Because the shell runs as a thread, this is a blocking call.
-                this.console.run();
+                CliConsole console = new CliConsole(cliSession.countInput(inStream),
+                        cliSession.countOutput(outStream), cliSession.countOutput(errStream),
+                        encoding, environment, cliSession);
+                synchronized (this) {
+                    this.console = console;
+                }
+                // Because the shell runs on its own thread, this is a blocking call.
+                console.run();
             } catch (Exception e) {
-                this.console.stop();
+                if (this.console != null)
+                    this.console.stop();
             } finally {
-                // End this thread.
+                this.sessionRegistry.unregister(cliSession);
+                synchronized (this) {
+                    this.thread = null;
+                }
+                // Clear the interrupt flag, since the thread is reused.
+                Thread.interrupted();
+                // End this shell.
                 if (this.callback != null)
                     this.callback.onExit(0);
             }
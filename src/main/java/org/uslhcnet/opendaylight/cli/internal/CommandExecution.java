@@ -0,0 +1,316 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.uslhcnet.opendaylight.cli.ICancellationToken;
+import org.uslhcnet.opendaylight.cli.ICliConsole;
+import org.uslhcnet.opendaylight.cli.ICliOutput;
+import org.uslhcnet.opendaylight.cli.ICliStreamingCommand;
+import org.uslhcnet.opendaylight.cli.OutputClosedException;
+import org.uslhcnet.opendaylight.cli.internal.CommandMetrics.Phase;
+
+/**
+ * A single execution of a command on the command executor. It serves as the
+ * command's cancellation token and keeps track of the command's deadline.
+ * Keys the operator types while the command is running are passed to it by the
+ * console, e.g. for the pager.
+ */
+public class CommandExecution implements Callable<Void>, ICancellationToken {
+    /** The interval in milliseconds to check for cancellation while waiting for keys. */
+    private static final long POLL_INTERVAL = 50;
+    /** The command execution that runs on the current thread. */
+    private static final ThreadLocal<CommandExecution> CURRENT =
+            new ThreadLocal<CommandExecution>();
+
+    /** The console that executes the command. */
+    private final ICliConsole console;
+    /** The command to execute. */
+    private final ICliStreamingCommand command;
+    /** The command's arguments. */
+    private final String arguments;
+    /** The metrics of the command. */
+    private final CommandMetrics metrics;
+    /** The command's timeout in nanoseconds. Zero or less if there is no timeout. */
+    private final long timeout;
+    /** The time the command execution was created. */
+    private final long startTime = System.nanoTime();
+    /** The time the command has spent waiting for keys, e.g. in the pager. */
+    private final AtomicLong waitTime = new AtomicLong();
+    /** The keys typed by the operator that have not been read yet. */
+    private final BlockingQueue<Integer> keys = new LinkedBlockingQueue<Integer>();
+    /** Signals the end of the command execution. */
+    private final CountDownLatch done = new CountDownLatch(1);
+    /** States whether the command has started or will never start. */
+    private final AtomicBoolean started = new AtomicBoolean();
+    /** The output the command writes its result to. */
+    private volatile ICliOutput output;
+    /** The reason of the cancellation, or null if the command is not cancelled. */
+    private volatile String cancellation;
+    /** States whether the command is waiting for the operator to type a key. */
+    private volatile boolean waitingForKey;
+
+    /**
+     * Constructor.
+     *
+     * @param console
+     *            The console that executes the command.
+     * @param command
+     *            The command to execute.
+     * @param arguments
+     *            The command's arguments.
+     * @param timeout
+     *            The command's timeout in milliseconds. Zero or less if there
+     *            is no timeout.
+     * @param metrics
+     *            The metrics of the command.
+     */
+    public CommandExecution(ICliConsole console, ICliStreamingCommand command, String arguments,
+            long timeout, CommandMetrics metrics) {
+        this.console = console;
+        this.command = command;
+        this.arguments = arguments;
+        this.metrics = metrics;
+        this.timeout = TimeUnit.MILLISECONDS.toNanos(timeout);
+    }
+
+    /**
+     * Setter for the output the command writes its result to.
+     *
+     * @param output
+     *            The output of the command.
+     */
+    public void setOutput(ICliOutput output) {
+        this.output = output;
+    }
+
+    /**
+     * Getter for the output the command writes its result to.
+     *
+     * @return The output of the command. Closed once the execution is over.
+     */
+    public ICliOutput getOutput() {
+        return this.output;
+    }
+
+    /**
+     * Getter for the metrics of the command.
+     *
+     * @return The metrics of the command.
+     */
+    public CommandMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    @Override
+    public Void call() throws IOException {
+        /* The time the command started. */
+        long start = System.nanoTime();
+        /* The time the command has waited for keys before it started. */
+        long waited = this.waitTime.get();
+
+        if (!this.started.compareAndSet(false, true)) {
+            // Cancelled or rejected before it started.
+            return null;
+        }
+        CURRENT.set(this);
+        try {
+            if (!this.isCancelled()) {
+                this.command.execute(this.console, this.arguments, this.output);
+            }
+            return null;
+        } finally {
+            CURRENT.remove();
+            // The time spent waiting for the operator does not count.
+            this.metrics.record(Phase.EXECUTE, System.nanoTime() - start
+                    - (this.waitTime.get() - waited));
+            this.done.countDown();
+        }
+    }
+
+    /**
+     * Gets the command execution that runs on the current thread. Thus, a
+     * command keeps its own cancellation token even if the console has
+     * already moved on to the next command.
+     *
+     * @return The command execution of the current thread, or null if the
+     *         current thread does not execute a command.
+     */
+    public static CommandExecution current() {
+        return CURRENT.get();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return this.cancellation != null;
+    }
+
+    /**
+     * Cancels the command. The command stops at its next write to the output
+     * or when it checks its cancellation token.
+     *
+     * @param reason
+     *            The reason of the cancellation, shown to the operator.
+     */
+    public void cancel(String reason) {
+        this.cancellation = (reason != null) ? reason : "";
+        // A command that has not started yet never will.
+        this.abandon();
+    }
+
+    /**
+     * Marks an execution that has not started as terminated, e.g. since the
+     * executor has rejected it or it is cancelled while it is still queued.
+     * The command is not executed anymore afterwards. An execution that has
+     * already started is not affected.
+     */
+    public void abandon() {
+        if (this.started.compareAndSet(false, true)) {
+            this.done.countDown();
+        }
+    }
+
+    /**
+     * Getter for the reason of the cancellation.
+     *
+     * @return The reason of the cancellation, or null if the command is not
+     *         cancelled.
+     */
+    public String getCancellation() {
+        return this.cancellation;
+    }
+
+    /**
+     * Gets the time that is left until the command's deadline. Time the
+     * command spends waiting for the operator does not count.
+     *
+     * @return The remaining time in milliseconds, or Long.MAX_VALUE if the
+     *         command does not have a timeout.
+     */
+    public long getRemainingTime() {
+        if (this.timeout <= 0) {
+            return Long.MAX_VALUE;
+        }
+        /* The time the command has been running for. */
+        long runTime = System.nanoTime() - this.startTime - this.waitTime.get();
+
+        return TimeUnit.NANOSECONDS.toMillis(this.timeout - runTime);
+    }
+
+    /**
+     * Passes a key typed by the operator to the command.
+     *
+     * @param key
+     *            The key.
+     */
+    public void offerKey(int key) {
+        this.keys.offer(key);
+    }
+
+    /**
+     * Removes the keys the command has not read yet.
+     *
+     * @param keys
+     *            The collection the keys are added to, in the order they were
+     *            typed.
+     */
+    public void drainKeys(Collection<Integer> keys) {
+        this.keys.drainTo(keys);
+    }
+
+    /**
+     * Waits for the operator to type a key. Called by the command thread, e.g.
+     * by the pager.
+     *
+     * @return The key typed by the operator.
+     * @throws OutputClosedException
+     *             If the command is cancelled while waiting.
+     */
+    public int readKey() throws OutputClosedException {
+        /* The time the waiting started. */
+        long start = System.nanoTime();
+
+        this.waitingForKey = true;
+        try {
+            while (!this.isCancelled()) {
+                Integer key = this.keys.poll(POLL_INTERVAL, TimeUnit.MILLISECONDS);
+                if (key != null) {
+                    return key;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.waitingForKey = false;
+            this.waitTime.addAndGet(System.nanoTime() - start);
+        }
+        throw new OutputClosedException();
+    }
+
+    /**
+     * States whether the command is waiting for the operator to type a key,
+     * e.g. at the prompt of the pager.
+     *
+     * @return True if the command is waiting for a key.
+     */
+    public boolean isWaitingForKey() {
+        return this.waitingForKey;
+    }
+
+    /**
+     * States whether the command has returned, or will never run.
+     *
+     * @return True if the command has returned or will never run.
+     */
+    public boolean isTerminated() {
+        return this.done.getCount() == 0;
+    }
+
+    /**
+     * Waits for the command to return, e.g. after it has been cancelled.
+     *
+     * @param timeout
+     *            The maximum time to wait in milliseconds.
+     * @return True if the command has returned.
+     * @throws InterruptedException
+     */
+    public boolean awaitTermination(long timeout) throws InterruptedException {
+        return this.done.await(timeout, TimeUnit.MILLISECONDS);
+    }
+}
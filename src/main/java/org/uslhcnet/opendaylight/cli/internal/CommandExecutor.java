@@ -0,0 +1,154 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.uslhcnet.opendaylight.cli.ICliCommand;
+import org.uslhcnet.opendaylight.cli.ICliScreenCommand;
+
+/**
+ * Executes commands on a bounded thread pool, so the console can watch for
+ * Ctrl-C and the command's deadline while the command is running.
+ *
+ * The default timeout of a command is read from the system property
+ * {@value #TIMEOUT_PROPERTY} (in seconds). It can be overridden per command by
+ * appending the command string with dots instead of blanks, e.g.
+ * "cli.command.timeout.show.nodes". A timeout of zero disables the timeout.
+ */
+public class CommandExecutor {
+    /** System property: the default command timeout in seconds. */
+    public static final String TIMEOUT_PROPERTY = "cli.command.timeout";
+    /** System property: the maximum number of concurrently executed commands. */
+    public static final String MAX_THREADS_PROPERTY = "cli.command.maxThreads";
+    /** The default command timeout in seconds. */
+    public static final long DEFAULT_TIMEOUT = 300;
+    /** The default maximum number of concurrently executed commands. */
+    public static final int DEFAULT_MAX_THREADS = 16;
+    /** The maximum number of commands waiting for a free thread. */
+    public static final int MAX_QUEUED_COMMANDS = 64;
+    /** The name prefix of the command threads. */
+    public static final String COMMAND_THREAD_NAME = "OpenDaylightCommand";
+    /** The time in seconds an idle command thread is kept alive. */
+    public static final int THREAD_KEEP_ALIVE = 60;
+
+    /** The unique command executor. */
+    private static CommandExecutor executor;
+
+    /** The thread pool that executes the commands. */
+    private final ThreadPoolExecutor threadPool;
+
+    /**
+     * Provides access to the singleton instance of the command executor.
+     *
+     * @return instance of the command executor.
+     */
+    public static synchronized CommandExecutor getInstance() {
+        if (executor == null) {
+            executor = new CommandExecutor(Integer.getInteger(MAX_THREADS_PROPERTY,
+                    DEFAULT_MAX_THREADS));
+        }
+        return executor;
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxThreads
+     *            The maximum number of concurrently executed commands.
+     */
+    private CommandExecutor(int maxThreads) {
+        this.threadPool = new ThreadPoolExecutor(Math.max(maxThreads, 1), Math.max(maxThreads, 1),
+                THREAD_KEEP_ALIVE, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(
+                        MAX_QUEUED_COMMANDS), new CommandThreadFactory());
+        this.threadPool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Submits a command execution.
+     *
+     * @param execution
+     *            The command execution.
+     * @return <b>Future</b> The future of the command execution.
+     * @throws RejectedExecutionException
+     *             If too many commands are executed at the moment.
+     */
+    public Future<Void> submit(CommandExecution execution) throws RejectedExecutionException {
+        return this.threadPool.submit(execution);
+    }
+
+    /**
+     * Gets the timeout of a command.
+     *
+     * @param command
+     *            The command.
+     * @return The timeout in milliseconds. Zero if there is no timeout.
+     */
+    public long getTimeout(ICliCommand command) {
+        /* The default timeout in seconds. */
+        long timeout = Long.getLong(TIMEOUT_PROPERTY, DEFAULT_TIMEOUT);
+        /* The command specific property. */
+        String property = TIMEOUT_PROPERTY + "." + command.getCommandString().trim()
+                .toLowerCase(Locale.ROOT).replaceAll("\\s+", ".");
+
+        // Screen commands run until the operator cancels them, unless configured otherwise.
+        if (command instanceof ICliScreenCommand && System.getProperty(property) == null) {
+            return 0;
+        }
+
+        // Return.
+        return Math.max(Long.getLong(property, timeout), 0) * 1000;
+    }
+
+    /**
+     * Creates the command threads. They are daemon threads with a slightly
+     * lower priority than the controller threads.
+     */
+    private static class CommandThreadFactory implements ThreadFactory {
+        /** The number of threads created so far. */
+        private final AtomicInteger threads = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, COMMAND_THREAD_NAME + "-"
+                    + this.threads.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    }
+}
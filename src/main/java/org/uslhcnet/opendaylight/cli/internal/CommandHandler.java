@@ -1,16 +1,31 @@
 package org.uslhcnet.opendaylight.cli.internal;
 
+import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+import org.osgi.util.tracker.ServiceTracker;
+import org.osgi.util.tracker.ServiceTrackerCustomizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.uslhcnet.opendaylight.cli.ICliCommand;
+import org.uslhcnet.opendaylight.cli.ICliService;
 
 /**
  * The command handler stores all commands.
  *
+ * Commands are either added directly or published by other bundles as
+ * {@link ICliCommand} services with the property
+ * {@value ICliService#COMMAND_PROPERTY}, which the handler tracks once it is
+ * opened. A command service is represented by a {@link ServiceCommand} and
+ * only got from the framework when a command line matches it first.
+ *
+ * All commands are kept in an immutable {@link CommandTree}. Every change
+ * builds a new tree and replaces the old one, so readers never lock and never
+ * see a half-updated set of commands.
+ *
  * @author Michael Bredel <michael.bredel@cern.ch>
  */
 public class CommandHandler {
@@ -19,8 +34,12 @@ public class CommandHandler {
     /** The unique command hander that executes all console commands. */
     private static CommandHandler commander;
 
-    /** Map of all commands handled by the command handler. */
-    private ConcurrentMap<String, ICliCommand> commands = new ConcurrentHashMap<String, ICliCommand>();
+    /** The token tree of all commands. It is rebuilt whenever a command changes. */
+    private volatile CommandTree commandTree = CommandTree.EMPTY;
+    /** The tracker of the command services. Null if not open. Guarded by this. */
+    private ServiceTracker<ICliCommand, ServiceCommand> tracker;
+    /** The completer that is shared by all consoles. */
+    private final CommandCompleter completer = new CommandCompleter(this);
 
     /**
      * Provides access to the singleton instance of the command handler.
@@ -40,20 +59,150 @@ public class CommandHandler {
      * @param command
      *            The new command that is added.
      */
-    public void addCommand(ICliCommand command) {
+    public synchronized void addCommand(ICliCommand command) {
+        /* The new command map. */
+        Map<String, ICliCommand> commands = new HashMap<String, ICliCommand>(
+                this.commandTree.getCommandMap());
+
         LOGGER.trace("Add command {}", command.getCommandString());
-        this.commands.put(command.getCommandString().trim().toLowerCase(), command);
+        commands.put(command.getCommandString().trim().toLowerCase(Locale.ROOT), command);
+        this.replaceCommandTree(commands);
     }
 
     /**
-     * Removes a command from the command handler.
+     * Removes a command from the command handler. A command is removed by its
+     * command string, so a caller may pass another instance with the same
+     * command string. Command services are the exception: a command service
+     * only removes its own command, not one that has replaced it, and its
+     * command is only removed when the service goes away.
      *
      * @param command
      *            The command that is removed.
      */
-    public void removeCommand(ICliCommand command) {
+    public synchronized void removeCommand(ICliCommand command) {
+        /* The normalized command string. */
+        String key = command.getCommandString().trim().toLowerCase(Locale.ROOT);
+        /* The command registered with this command string. */
+        ICliCommand registered = this.commandTree.getCommandMap().get(key);
+        /* The new command map. */
+        Map<String, ICliCommand> commands;
+
         LOGGER.trace("Remove command {}", command.getCommandString());
-        this.commands.remove(command.getCommandString().trim().toLowerCase());
+        if (registered == null || (registered != command
+                && (registered instanceof ServiceCommand || command instanceof ServiceCommand))) {
+            return;
+        }
+        commands = new HashMap<String, ICliCommand>(this.commandTree.getCommandMap());
+        commands.remove(key);
+        this.replaceCommandTree(commands);
+    }
+
+    /**
+     * Starts tracking the command services, i.e. adds the commands that
+     * other bundles publish as services.
+     *
+     * @param context
+     *            The bundle context of the CLI.
+     */
+    public void open(final BundleContext context) {
+        /* The new tracker. */
+        ServiceTracker<ICliCommand, ServiceCommand> commandTracker;
+
+        commandTracker = new ServiceTracker<ICliCommand, ServiceCommand>(context,
+                ICliCommand.class, new ServiceTrackerCustomizer<ICliCommand, ServiceCommand>() {
+                    @Override
+                    public ServiceCommand addingService(ServiceReference<ICliCommand> reference) {
+                        return addService(context, reference);
+                    }
+
+                    @Override
+                    public void modifiedService(ServiceReference<ICliCommand> reference,
+                            ServiceCommand command) {
+                        modifyService(command);
+                    }
+
+                    @Override
+                    public void removedService(ServiceReference<ICliCommand> reference,
+                            ServiceCommand command) {
+                        removeService(command);
+                    }
+                });
+        synchronized (this) {
+            if (this.tracker != null) {
+                return;
+            }
+            this.tracker = commandTracker;
+        }
+        // Do not hold the lock while the tracker calls back.
+        commandTracker.open();
+    }
+
+    /**
+     * Stops tracking the command services and removes their commands.
+     */
+    public void close() {
+        /* The current tracker. */
+        ServiceTracker<ICliCommand, ServiceCommand> commandTracker;
+
+        synchronized (this) {
+            commandTracker = this.tracker;
+            this.tracker = null;
+        }
+        if (commandTracker != null) {
+            commandTracker.close();
+        }
+    }
+
+    /**
+     * Adds the command of a new command service. The service object is not
+     * got yet.
+     *
+     * @param context
+     *            The bundle context of the CLI.
+     * @param reference
+     *            The reference of the command service.
+     * @return The command, or null to ignore the service.
+     */
+    private ServiceCommand addService(BundleContext context,
+            ServiceReference<ICliCommand> reference) {
+        /* The command that stands for the service. */
+        ServiceCommand command;
+
+        if (ServiceCommand.getCommandString(reference) == null) {
+            LOGGER.warn("Ignoring command service {} without the {} property.", reference,
+                    ICliService.COMMAND_PROPERTY);
+            return null;
+        }
+        command = new ServiceCommand(context, reference);
+        this.addCommand(command);
+        return command;
+    }
+
+    /**
+     * Updates the command of a command service whose properties have changed.
+     *
+     * @param command
+     *            The command that stands for the service.
+     */
+    private synchronized void modifyService(ServiceCommand command) {
+        this.removeCommand(command);
+        if (command.refreshCommandString() != null) {
+            this.addCommand(command);
+        }
+    }
+
+    /**
+     * Removes the command of a command service that is going away, and
+     * releases the service.
+     *
+     * @param command
+     *            The command that stands for the service.
+     */
+    private void removeService(ServiceCommand command) {
+        if (command.getCommandString() != null) {
+            this.removeCommand(command);
+        }
+        command.release();
     }
 
     /**
@@ -61,18 +210,88 @@ public class CommandHandler {
      *
      * @param commandString
      *            The string that identifies the command.
-     * @return <b>ICliCommand</b> The command.
+     * @return <b>ICliCommand</b> The command, or null if there is no such
+     *         command.
      */
     public ICliCommand getCommand(String commandString) {
-        return this.commands.get(commandString.trim().toLowerCase());
+        return resolve(this.commandTree.getCommandMap().get(
+                commandString.trim().toLowerCase(Locale.ROOT)));
     }
 
     /**
      * Returns all the commands registered and handled by the command handler.
+     * Commands published as services are not resolved.
      *
-     * @return A collection of commands.
+     * @return An immutable snapshot of the commands, keyed by the normalized
+     *         command string.
      */
     public Map<String, ICliCommand> getCommands() {
-        return this.commands;
+        return this.commandTree.getCommandMap();
+    }
+
+    /**
+     * Matches a command line against all registered commands. The longest
+     * matching command wins. Command tokens may be abbreviated as long as the
+     * abbreviation is unique, e.g. "sh no" matches "show nodes".
+     *
+     * @param line
+     *            The command line as read from the console.
+     * @return <b>CommandMatch</b> The matched command and its arguments.
+     */
+    public CommandMatch match(String line) {
+        /* The match against the current tree. */
+        CommandMatch match = this.commandTree.match(line);
+
+        if (match.getCommand() instanceof ServiceCommand) {
+            return match.withCommand(resolve(match.getCommand()));
+        }
+        return match;
+    }
+
+    /**
+     * Resolves a command that stands for a command service.
+     *
+     * @param command
+     *            The command. Might be null.
+     * @return The command service if the command stands for one, or the
+     *         command itself.
+     */
+    private static ICliCommand resolve(ICliCommand command) {
+        if (command instanceof ServiceCommand) {
+            return ((ServiceCommand) command).resolve();
+        }
+        return command;
+    }
+
+    /**
+     * Gets the current token tree of all commands. The tree is immutable and
+     * replaced by a new one whenever a command is added or removed.
+     *
+     * @return The current command tree.
+     */
+    public CommandTree getCommandTree() {
+        return this.commandTree;
+    }
+
+    /**
+     * Gets the command completer that is shared by all consoles. It always
+     * completes against the current command tree.
+     *
+     * @return The command completer.
+     */
+    public CommandCompleter getCompleter() {
+        return this.completer;
+    }
+
+    /**
+     * Builds a command tree from a command map and replaces the current tree.
+     * Callers have to hold the lock of this handler.
+     *
+     * @param commands
+     *            The new map of (normalized) command strings and their
+     *            commands.
+     */
+    private void replaceCommandTree(Map<String, ICliCommand> commands) {
+        this.commandTree = CommandTree.build(commands, this.commandTree.getVersion() + 1);
     }
 }
@@ -0,0 +1,185 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.util.Collections;
+import java.util.List;
+
+import org.uslhcnet.opendaylight.cli.ICliCommand;
+
+/**
+ * The result of matching a command line against the command tree. It holds
+ * the matched command and the position of its arguments in the command line.
+ * The argument string is only cut out of the line when it is requested.
+ */
+public final class CommandMatch {
+    /** The command line that was matched. */
+    private final String line;
+    /** The matched command. Might be null. */
+    private final ICliCommand command;
+    /** The position in the line where the arguments start. */
+    private final int argumentOffset;
+    /** States whether the command was abbreviated in the command line. */
+    private final boolean abbreviated;
+    /** The command strings an ambiguous abbreviation might stand for. */
+    private final List<String> candidates;
+    /** The (lazily created) argument string. */
+    private String arguments;
+
+    /**
+     * Constructor.
+     *
+     * @param line
+     *            The command line that was matched.
+     * @param command
+     *            The matched command.
+     * @param argumentOffset
+     *            The position in the line where the arguments start.
+     * @param abbreviated
+     *            States whether the command was abbreviated.
+     */
+    CommandMatch(String line, ICliCommand command, int argumentOffset, boolean abbreviated) {
+        this(line, command, argumentOffset, abbreviated, Collections.<String> emptyList());
+    }
+
+    /**
+     * Constructor.
+     */
+    private CommandMatch(String line, ICliCommand command, int argumentOffset,
+            boolean abbreviated, List<String> candidates) {
+        this.line = line;
+        this.command = command;
+        this.argumentOffset = argumentOffset;
+        this.abbreviated = abbreviated;
+        this.candidates = candidates;
+    }
+
+    /**
+     * Creates a match result for a line that does not contain a known
+     * command.
+     */
+    static CommandMatch notFound(String line) {
+        return new CommandMatch(line, null, 0, false);
+    }
+
+    /**
+     * Creates a match result for a line that contains an ambiguous
+     * abbreviation.
+     */
+    static CommandMatch ambiguous(String line, List<String> candidates) {
+        return new CommandMatch(line, null, 0, true, candidates);
+    }
+
+    /**
+     * Creates a copy of this match with another command, e.g. the service a
+     * lazily resolved command stands for.
+     *
+     * @param command
+     *            The command. Null if it is not available anymore.
+     * @return The new match result.
+     */
+    CommandMatch withCommand(ICliCommand command) {
+        if (command == null) {
+            return notFound(this.line);
+        }
+        return new CommandMatch(this.line, command, this.argumentOffset, this.abbreviated,
+                this.candidates);
+    }
+
+    /**
+     * Getter for the matched command.
+     *
+     * @return The matched command or null if no command was found.
+     */
+    public ICliCommand getCommand() {
+        return this.command;
+    }
+
+    /**
+     * Getter for the command line.
+     *
+     * @return The command line that was matched.
+     */
+    public String getLine() {
+        return this.line;
+    }
+
+    /**
+     * Getter for the position of the arguments in the command line.
+     *
+     * @return The position in the line where the arguments start.
+     */
+    public int getArgumentOffset() {
+        return this.argumentOffset;
+    }
+
+    /**
+     * Getter for the command's arguments. Leading and trailing blanks are
+     * removed.
+     *
+     * @return The argument string. Might be empty, but never null.
+     */
+    public String getArguments() {
+        if (this.arguments == null) {
+            this.arguments = (this.command != null) ? this.line.substring(this.argumentOffset)
+                    .trim() : "";
+        }
+        return this.arguments;
+    }
+
+    /**
+     * States whether the command line contained an abbreviated command.
+     *
+     * @return True if the command was abbreviated.
+     */
+    public boolean isAbbreviated() {
+        return this.abbreviated;
+    }
+
+    /**
+     * States whether the command line contained an abbreviation that matches
+     * more than one command.
+     *
+     * @return True if the abbreviation is ambiguous.
+     */
+    public boolean isAmbiguous() {
+        return !this.candidates.isEmpty();
+    }
+
+    /**
+     * Getter for the command strings an ambiguous abbreviation might stand
+     * for.
+     *
+     * @return An unmodifiable list of command strings. Might be empty.
+     */
+    public List<String> getCandidates() {
+        return this.candidates;
+    }
+}
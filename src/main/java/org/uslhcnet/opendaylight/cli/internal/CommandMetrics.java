@@ -0,0 +1,271 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The metrics of a command: how often it is executed, how often it fails or is
+ * cancelled, how much it writes, and how long the phases of its executions
+ * take. All values are kept in a single {@link AtomicLongArray}, so recording
+ * is lock-free and does not allocate.
+ *
+ * The latency of each {@link Phase} is kept in a histogram of
+ * {@link #BUCKETS} buckets, where bucket i counts the durations from
+ * 2^(i-1) up to 2^i microseconds.
+ */
+public class CommandMetrics implements CommandMetricsMXBean {
+    /** The number of histogram buckets per phase. */
+    public static final int BUCKETS = 32;
+
+    /** The phases of a command execution. */
+    public enum Phase {
+        /** Matching the command line and parsing the options. */
+        PARSE,
+        /** Running the command, including writing its result to the output buffers. */
+        EXECUTE,
+        /** Writing the string result of a non-streaming command, a part of EXECUTE. */
+        RENDER,
+        /** Flushing the output to the client after the command has returned. */
+        WRITE
+    }
+
+    /** The index of the execution counter. */
+    private static final int CALLS = 0;
+    /** The index of the error counter. */
+    private static final int ERRORS = 1;
+    /** The index of the cancellation counter. */
+    private static final int CANCELLATIONS = 2;
+    /** The index of the output character counter. */
+    private static final int OUTPUT = 3;
+    /** The number of counters before the first phase. */
+    private static final int COUNTERS = 4;
+    /** The offset of the duration count within a phase. */
+    private static final int COUNT = 0;
+    /** The offset of the total duration within a phase. */
+    private static final int TOTAL = 1;
+    /** The offset of the first histogram bucket within a phase. */
+    private static final int HISTOGRAM = 2;
+    /** The number of values per phase. */
+    private static final int PHASE_SIZE = HISTOGRAM + BUCKETS;
+
+    /** The command string. */
+    private final String command;
+    /** The counters, followed by the durations and histograms of all phases. */
+    private final AtomicLongArray values = new AtomicLongArray(COUNTERS + Phase.values().length
+            * PHASE_SIZE);
+
+    /**
+     * Constructor.
+     *
+     * @param command
+     *            The command string.
+     */
+    public CommandMetrics(String command) {
+        this.command = command;
+    }
+
+    /**
+     * Counts an execution of the command.
+     */
+    public void called() {
+        this.values.incrementAndGet(CALLS);
+    }
+
+    /**
+     * Counts an execution that failed or was rejected.
+     */
+    public void failed() {
+        this.values.incrementAndGet(ERRORS);
+    }
+
+    /**
+     * Counts an execution that was cancelled or timed out.
+     */
+    public void cancelled() {
+        this.values.incrementAndGet(CANCELLATIONS);
+    }
+
+    /**
+     * Adds to the number of characters the command has written.
+     *
+     * @param characters
+     *            The number of characters.
+     */
+    public void addOutput(long characters) {
+        if (characters > 0) {
+            this.values.addAndGet(OUTPUT, characters);
+        }
+    }
+
+    /**
+     * Records the duration of a phase.
+     *
+     * @param phase
+     *            The phase.
+     * @param nanos
+     *            The duration in nanoseconds.
+     */
+    public void record(Phase phase, long nanos) {
+        /* The index of the phase. */
+        int index = COUNTERS + phase.ordinal() * PHASE_SIZE;
+        /* The duration in microseconds. */
+        long micros = (nanos > 0) ? nanos / 1000 : 0;
+
+        this.values.incrementAndGet(index + COUNT);
+        this.values.addAndGet(index + TOTAL, (nanos > 0) ? nanos : 0);
+        this.values.incrementAndGet(index + HISTOGRAM
+                + Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros)));
+    }
+
+    @Override
+    public String getCommand() {
+        return this.command;
+    }
+
+    @Override
+    public long getCalls() {
+        return this.values.get(CALLS);
+    }
+
+    @Override
+    public long getErrors() {
+        return this.values.get(ERRORS);
+    }
+
+    @Override
+    public long getCancellations() {
+        return this.values.get(CANCELLATIONS);
+    }
+
+    @Override
+    public long getOutputCharacters() {
+        return this.values.get(OUTPUT);
+    }
+
+    /**
+     * Gets the number of recorded durations of a phase.
+     *
+     * @param phase
+     *            The phase.
+     * @return The number of recorded durations.
+     */
+    public long getCount(Phase phase) {
+        return this.values.get(COUNTERS + phase.ordinal() * PHASE_SIZE + COUNT);
+    }
+
+    /**
+     * Gets the mean duration of a phase.
+     *
+     * @param phase
+     *            The phase.
+     * @return The mean duration in microseconds, or 0 if nothing is recorded.
+     */
+    public long getMeanMicros(Phase phase) {
+        /* The index of the phase. */
+        int index = COUNTERS + phase.ordinal() * PHASE_SIZE;
+        /* The number of recorded durations. */
+        long count = this.values.get(index + COUNT);
+
+        return (count > 0) ? TimeUnit.NANOSECONDS.toMicros(this.values.get(index + TOTAL) / count)
+                : 0;
+    }
+
+    /**
+     * Gets a percentile of the durations of a phase from its histogram.
+     *
+     * @param phase
+     *            The phase.
+     * @param percentile
+     *            The percentile, e.g. 99.
+     * @return The upper bound of the bucket the percentile falls into in
+     *         microseconds, or 0 if nothing is recorded.
+     */
+    public long getPercentileMicros(Phase phase, double percentile) {
+        /* The index of the first bucket. */
+        int index = COUNTERS + phase.ordinal() * PHASE_SIZE + HISTOGRAM;
+        /* The number of recorded durations. */
+        long count = 0;
+        /* The number of durations up to the current bucket. */
+        long seen = 0;
+
+        for (int i = 0; i < BUCKETS; i++) {
+            count += this.values.get(index + i);
+        }
+        if (count == 0) {
+            return 0;
+        }
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += this.values.get(index + i);
+            if (seen * 100 >= percentile * count) {
+                return 1L << i;
+            }
+        }
+        return 1L << (BUCKETS - 1);
+    }
+
+    @Override
+    public long getParseMeanMicros() {
+        return this.getMeanMicros(Phase.PARSE);
+    }
+
+    @Override
+    public long getExecuteMeanMicros() {
+        return this.getMeanMicros(Phase.EXECUTE);
+    }
+
+    @Override
+    public long getExecute99thPercentileMicros() {
+        return this.getPercentileMicros(Phase.EXECUTE, 99);
+    }
+
+    @Override
+    public long getRenderMeanMicros() {
+        return this.getMeanMicros(Phase.RENDER);
+    }
+
+    @Override
+    public long getWriteMeanMicros() {
+        return this.getMeanMicros(Phase.WRITE);
+    }
+
+    /**
+     * Resets all counters and histograms. Executions that are recorded at the
+     * same time might be partially lost.
+     */
+    @Override
+    public void reset() {
+        for (int i = 0; i < this.values.length(); i++) {
+            this.values.set(i, 0);
+        }
+    }
+
+}
@@ -0,0 +1,114 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+/**
+ * The management interface of the metrics of a command, as exported via JMX.
+ * All times are in microseconds. Percentiles are the upper bounds of the
+ * histogram buckets they fall into, i.e. powers of two.
+ */
+public interface CommandMetricsMXBean {
+
+    /**
+     * Getter for the command string.
+     *
+     * @return The command string.
+     */
+    public String getCommand();
+
+    /**
+     * Getter for the number of executions.
+     *
+     * @return The number of executions.
+     */
+    public long getCalls();
+
+    /**
+     * Getter for the number of executions that failed or were rejected.
+     *
+     * @return The number of errors.
+     */
+    public long getErrors();
+
+    /**
+     * Getter for the number of executions that were cancelled or timed out.
+     *
+     * @return The number of cancellations.
+     */
+    public long getCancellations();
+
+    /**
+     * Getter for the number of characters the command has written.
+     *
+     * @return The number of output characters.
+     */
+    public long getOutputCharacters();
+
+    /**
+     * Gets the mean time it takes to match the command line.
+     *
+     * @return The mean parse time.
+     */
+    public long getParseMeanMicros();
+
+    /**
+     * Gets the mean time the command runs.
+     *
+     * @return The mean execution time.
+     */
+    public long getExecuteMeanMicros();
+
+    /**
+     * Gets the 99th percentile of the time the command runs.
+     *
+     * @return The 99th percentile of the execution time.
+     */
+    public long getExecute99thPercentileMicros();
+
+    /**
+     * Gets the mean time it takes to write a string result to the output.
+     *
+     * @return The mean render time.
+     */
+    public long getRenderMeanMicros();
+
+    /**
+     * Gets the mean time it takes to flush the output to the client.
+     *
+     * @return The mean write time.
+     */
+    public long getWriteMeanMicros();
+
+    /**
+     * Resets all counters and histograms.
+     */
+    public void reset();
+
+}
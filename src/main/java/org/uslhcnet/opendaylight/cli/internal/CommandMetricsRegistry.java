@@ -0,0 +1,214 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uslhcnet.opendaylight.cli.ICliCommand;
+
+/**
+ * Keeps the {@link CommandMetrics} of all commands, next to the
+ * {@link CommandHandler}. The metrics of a command are created on its first
+ * execution and kept when the command is removed. While the registry is
+ * exported, each command's metrics are registered as an MBean named
+ * {@link #DOMAIN}:type=CommandMetrics,name=&lt;command&gt;.
+ */
+public class CommandMetricsRegistry {
+    /** The logger. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(CommandMetricsRegistry.class);
+    /** The JMX domain of the metrics. */
+    public static final String DOMAIN = "org.uslhcnet.opendaylight.cli";
+
+    /** The singleton instance of the registry. */
+    private static CommandMetricsRegistry registry;
+
+    /** The metrics of all commands, keyed by command string. */
+    private final ConcurrentMap<String, CommandMetrics> metrics =
+            new ConcurrentHashMap<String, CommandMetrics>();
+    /** The MBean server the metrics are registered with. Null if not exported. */
+    private volatile MBeanServer mBeanServer;
+
+    /**
+     * Private constructor to ensure singleton.
+     */
+    private CommandMetricsRegistry() {
+    }
+
+    /**
+     * Provides access to the singleton instance of the registry.
+     *
+     * @return instance of the registry.
+     */
+    public static synchronized CommandMetricsRegistry getInstance() {
+        if (registry == null) {
+            registry = new CommandMetricsRegistry();
+        }
+        return registry;
+    }
+
+    /**
+     * Gets the metrics of a command, and creates them if needed.
+     *
+     * @param command
+     *            The command.
+     * @return The metrics of the command.
+     */
+    public CommandMetrics get(ICliCommand command) {
+        /* The command string. */
+        String commandString = command.getCommandString().trim().toLowerCase(Locale.ROOT);
+        /* The metrics of the command. */
+        CommandMetrics commandMetrics = this.metrics.get(commandString);
+
+        if (commandMetrics == null) {
+            commandMetrics = new CommandMetrics(commandString);
+            /* The metrics another thread has created in the meantime. */
+            CommandMetrics existing = this.metrics.putIfAbsent(commandString, commandMetrics);
+            if (existing != null) {
+                return existing;
+            }
+            this.register(commandMetrics);
+        }
+        return commandMetrics;
+    }
+
+    /**
+     * Gets the metrics of all commands that have been executed.
+     *
+     * @return The metrics, sorted by command string.
+     */
+    public List<CommandMetrics> getAll() {
+        /* The metrics. */
+        List<CommandMetrics> all = new ArrayList<CommandMetrics>(this.metrics.values());
+
+        Collections.sort(all, new Comparator<CommandMetrics>() {
+            @Override
+            public int compare(CommandMetrics m1, CommandMetrics m2) {
+                return m1.getCommand().compareTo(m2.getCommand());
+            }
+        });
+        return all;
+    }
+
+    /**
+     * Resets the metrics of all commands.
+     */
+    public void reset() {
+        for (CommandMetrics commandMetrics : this.metrics.values()) {
+            commandMetrics.reset();
+        }
+    }
+
+    /**
+     * Registers the metrics of all commands, and of commands that are executed
+     * later on, with the platform MBean server.
+     */
+    public synchronized void export() {
+        this.mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (CommandMetrics commandMetrics : this.metrics.values()) {
+            this.register(commandMetrics);
+        }
+    }
+
+    /**
+     * Unregisters the metrics of all commands from the MBean server.
+     */
+    public synchronized void unexport() {
+        /* The MBean server. */
+        MBeanServer server = this.mBeanServer;
+
+        this.mBeanServer = null;
+        if (server == null) {
+            return;
+        }
+        for (CommandMetrics commandMetrics : this.metrics.values()) {
+            try {
+                /* The name of the MBean. */
+                ObjectName name = getObjectName(commandMetrics);
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            } catch (JMException e) {
+                LOGGER.debug("Unregistering the metrics of {} failed.", commandMetrics.getCommand());
+            }
+        }
+    }
+
+    /**
+     * Registers the metrics of a command with the MBean server, if the
+     * registry is exported.
+     *
+     * @param commandMetrics
+     *            The metrics of a command.
+     */
+    private synchronized void register(CommandMetrics commandMetrics) {
+        /* The MBean server. */
+        MBeanServer server = this.mBeanServer;
+
+        if (server == null) {
+            return;
+        }
+        try {
+            /* The name of the MBean. */
+            ObjectName name = getObjectName(commandMetrics);
+            if (!server.isRegistered(name)) {
+                server.registerMBean(commandMetrics, name);
+            }
+        } catch (JMException e) {
+            LOGGER.warn("Registering the metrics of {} failed.", commandMetrics.getCommand());
+        }
+    }
+
+    /**
+     * Gets the JMX name of the metrics of a command.
+     *
+     * @param commandMetrics
+     *            The metrics of a command.
+     * @return The name of the MBean.
+     * @throws JMException
+     *             If the name is malformed.
+     */
+    private static ObjectName getObjectName(CommandMetrics commandMetrics) throws JMException {
+        return new ObjectName(DOMAIN + ":type=CommandMetrics,name="
+                + ObjectName.quote(commandMetrics.getCommand()));
+    }
+}
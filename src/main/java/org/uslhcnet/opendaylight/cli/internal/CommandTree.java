@@ -0,0 +1,495 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.uslhcnet.opendaylight.cli.ICliCommand;
+
+/**
+ * An immutable token tree of all commands known to the command handler. Each
+ * level of the tree corresponds to one (lower case) token of a command string,
+ * e.g. "show nodes" is stored as "show" -> "nodes". A command line is matched
+ * in a single pass over its characters, without splitting or copying it.
+ *
+ * Tokens may be abbreviated as long as the abbreviation is a unique prefix of
+ * a token on the same level, e.g. "sh no" matches "show nodes".
+ *
+ * The tree is never modified. The command handler builds a new tree whenever a
+ * command is added or removed and replaces the old one atomically. Thus, all
+ * consoles share the same tree for command matching and command completion
+ * and see new commands without any locking. The tree also holds an immutable
+ * copy of the command map it was built from, so that the map and the tree
+ * always agree.
+ */
+public final class CommandTree {
+    /** An empty tree that does not contain any command. */
+    public static final CommandTree EMPTY = new CommandTree(new TreeNode("", null, new TreeNode[0]),
+            Collections.<String, ICliCommand> emptyMap(), 0);
+
+    /** The root node of the tree. It represents the empty token. */
+    private final TreeNode root;
+    /** The unmodifiable map of (normalized) command strings and their commands. */
+    private final Map<String, ICliCommand> commands;
+    /** The version of the tree, i.e. the number of updates of the command handler. */
+    private final long version;
+
+    /**
+     * Constructor.
+     *
+     * @param root
+     *            The root node of the tree.
+     * @param commands
+     *            The unmodifiable map of command strings and their commands.
+     * @param version
+     *            The version of the tree.
+     */
+    private CommandTree(TreeNode root, Map<String, ICliCommand> commands, long version) {
+        this.root = root;
+        this.commands = commands;
+        this.version = version;
+    }
+
+    /**
+     * Builds a new command tree.
+     *
+     * @param commands
+     *            Map of (normalized) command strings and their commands.
+     * @param version
+     *            The version of the new tree.
+     * @return <b>CommandTree</b> The new command tree.
+     */
+    public static CommandTree build(Map<String, ICliCommand> commands, long version) {
+        /* The mutable root node that is used to build the tree. */
+        Builder root = new Builder("");
+
+        for (Map.Entry<String, ICliCommand> entry : commands.entrySet()) {
+            Builder node = root;
+            for (String token : entry.getKey().split("\\s+")) {
+                if (token.isEmpty()) {
+                    continue;
+                }
+                node = node.child(token.toLowerCase(Locale.ROOT));
+            }
+            node.command = entry.getValue();
+        }
+
+        return new CommandTree(root.toTreeNode(), Collections.unmodifiableMap(
+                new TreeMap<String, ICliCommand>(commands)), version);
+    }
+
+    /**
+     * Getter for the commands of this tree.
+     *
+     * @return The unmodifiable map of (normalized) command strings and their
+     *         commands, sorted by command string.
+     */
+    public Map<String, ICliCommand> getCommandMap() {
+        return this.commands;
+    }
+
+    /**
+     * Getter for the version of this tree.
+     *
+     * @return The version of the tree.
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Matches a command line against the tree. The longest registered command
+     * wins, everything that follows it is regarded as the command's
+     * arguments. An ambiguous abbreviation is only reported as such if no
+     * shorter command matched, otherwise it is an argument of that command.
+     *
+     * @param line
+     *            The command line as read from the console.
+     * @return <b>CommandMatch</b> The result of the match. Never null.
+     */
+    public CommandMatch match(String line) {
+        /* The current node in the tree. */
+        TreeNode node = this.root;
+        /* The deepest node that holds a command. */
+        TreeNode matched = null;
+        /* The position in the line right after the matched command. */
+        int matchedEnd = 0;
+        /* States whether the matched command was abbreviated. */
+        boolean abbreviated = false;
+        /* States whether the current path contains an abbreviation. */
+        boolean pathAbbreviated = false;
+        /* The current position in the line. */
+        int pos = 0;
+        /* The length of the line. */
+        int length = line.length();
+
+        while (node.children.length > 0) {
+            // Skip blanks.
+            while (pos < length && Character.isWhitespace(line.charAt(pos))) {
+                pos++;
+            }
+            if (pos == length) {
+                break;
+            }
+            // Find the end of the token.
+            int start = pos;
+            while (pos < length && !Character.isWhitespace(line.charAt(pos))) {
+                pos++;
+            }
+
+            // Exact matches win over abbreviations.
+            int index = node.find(line, start, pos);
+            if (index < 0) {
+                int first = -(index + 1);
+                int last = node.lastWithPrefix(first, line, start, pos);
+                if (last == first + 1) {
+                    index = first;
+                    pathAbbreviated = true;
+                } else if (last > first + 1 && matched == null) {
+                    // The token is a prefix of more than one command token.
+                    return CommandMatch.ambiguous(line, node.candidates(first, last));
+                } else {
+                    // The token starts the arguments of the matched command, if any.
+                    break;
+                }
+            }
+
+            node = node.children[index];
+            if (node.command != null) {
+                matched = node;
+                matchedEnd = pos;
+                abbreviated = pathAbbreviated;
+            }
+        }
+
+        if (matched == null) {
+            return CommandMatch.notFound(line);
+        }
+        return new CommandMatch(line, matched.command, matchedEnd, abbreviated);
+    }
+
+    /**
+     * Completes a command line. This method follows the contract of the Jline
+     * completer, i.e. it adds all candidates for the token under the cursor
+     * to the candidates list and returns the position of that token. The
+     * candidates are the command tokens that follow the tokens left of the
+     * cursor and the argument string of a complete command.
+     *
+     * @param buffer
+     *            The command line to complete.
+     * @param cursor
+     *            The current position of the cursor in the command line.
+     * @param candidates
+     *            The list the completion candidates are added to.
+     * @return The position in the command line the candidates refer to, or -1
+     *         if there are no candidates.
+     */
+    public int complete(String buffer, int cursor, List<CharSequence> candidates) {
+        /* The command line. */
+        String line = (buffer != null) ? buffer : "";
+        /* The end of the command line that is taken into account. */
+        int end = Math.min(Math.max(cursor, 0), line.length());
+        /* The current node in the tree. */
+        TreeNode node = this.root;
+        /* The current position in the line. */
+        int pos = 0;
+
+        while (true) {
+            // Skip blanks.
+            while (pos < end && Character.isWhitespace(line.charAt(pos))) {
+                pos++;
+            }
+            // Find the end of the token.
+            int start = pos;
+            while (pos < end && !Character.isWhitespace(line.charAt(pos))) {
+                pos++;
+            }
+            if (pos == end) {
+                // The token under the cursor.
+                return node.complete(line, start, end, candidates);
+            }
+
+            // A complete token, thus, descend into the tree.
+            int index = node.find(line, start, pos);
+            if (index < 0) {
+                int first = -(index + 1);
+                if (node.lastWithPrefix(first, line, start, pos) != first + 1) {
+                    return -1;
+                }
+                index = first;
+            }
+            node = node.children[index];
+        }
+    }
+
+    /**
+     * Gets all commands reachable from a command prefix, e.g. "show" gives
+     * "show nodes", "show flows", etc. The prefix itself is included if it is
+     * a command.
+     *
+     * @param prefix
+     *            A complete command string, i.e. tokens that are not
+     *            abbreviated.
+     * @return A list of commands. Might be empty.
+     */
+    public List<ICliCommand> getCommands(String prefix) {
+        /* The node that represents the prefix. */
+        TreeNode node = this.root;
+        /* The list of commands found. */
+        List<ICliCommand> result = new ArrayList<ICliCommand>();
+
+        for (String token : prefix.trim().split("\\s+")) {
+            if (token.isEmpty()) {
+                continue;
+            }
+            int index = node.find(token, 0, token.length());
+            if (index < 0) {
+                return result;
+            }
+            node = node.children[index];
+        }
+
+        node.collect(result);
+        return result;
+    }
+
+    /**
+     * An immutable node of the command tree.
+     */
+    static final class TreeNode {
+        /** The (lower case) token of this node. */
+        final String token;
+        /** The command string of all tokens from the root to this node. */
+        final String path;
+        /** The command that ends at this node. Might be null. */
+        final ICliCommand command;
+        /** The (upper case) argument string of the command. Might be null. */
+        final String arguments;
+        /** The child nodes, sorted by their token. */
+        final TreeNode[] children;
+
+        /**
+         * Constructor.
+         */
+        TreeNode(String path, ICliCommand command, TreeNode[] children) {
+            this.path = path;
+            this.token = path.substring(path.lastIndexOf(' ') + 1);
+            this.command = command;
+            /* The argument string, without resolving a command service for it. */
+            String commandArguments = (command instanceof ServiceCommand)
+                    ? ((ServiceCommand) command).getDeclaredArguments()
+                    : ((command != null) ? command.getArguments() : null);
+            this.arguments = (commandArguments != null)
+                    ? commandArguments.trim().toUpperCase(Locale.ROOT) : null;
+            this.children = children;
+        }
+
+        /**
+         * Performs a binary search for a child whose token equals the given
+         * region of the line (case insensitive).
+         *
+         * @return The index of the child or (-(insertion point) - 1) if no
+         *         child has this token.
+         */
+        int find(String line, int start, int end) {
+            int low = 0;
+            int high = this.children.length - 1;
+
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int cmp = compare(this.children[mid].token, line, start, end);
+                if (cmp < 0) {
+                    low = mid + 1;
+                } else if (cmp > 0) {
+                    high = mid - 1;
+                } else {
+                    return mid;
+                }
+            }
+            return -(low + 1);
+        }
+
+        /**
+         * Finds the end of the range of children, beginning at first, whose
+         * tokens start with the given region of the line.
+         *
+         * @return The index after the last child that matches the prefix.
+         */
+        int lastWithPrefix(int first, String line, int start, int end) {
+            int index = first;
+            while (index < this.children.length
+                    && startsWith(this.children[index].token, line, start, end)) {
+                index++;
+            }
+            return index;
+        }
+
+        /**
+         * Adds all child tokens and the argument string that start with the
+         * given region of the line to the candidates list.
+         *
+         * @return The start of the region or -1 if there are no candidates.
+         */
+        int complete(String line, int start, int end, List<CharSequence> candidates) {
+            /* The number of candidates before completion. */
+            int size = candidates.size();
+            /* The index of the first child that might match. */
+            int first = this.find(line, start, end);
+            if (first < 0) {
+                first = -(first + 1);
+            }
+            /* The index after the last child that matches. */
+            int last = this.lastWithPrefix(first, line, start, end);
+
+            for (int index = first; index < last; index++) {
+                candidates.add(this.children[index].token);
+            }
+            if (this.arguments != null
+                    && this.arguments.regionMatches(true, 0, line, start, end - start)) {
+                candidates.add(this.arguments);
+            }
+
+            if (candidates.size() == size) {
+                return -1;
+            }
+            // A unique candidate is completed including the following blank.
+            if (candidates.size() == size + 1) {
+                candidates.set(size, candidates.get(size) + " ");
+            }
+            return start;
+        }
+
+        /**
+         * Gets the command paths of all children in a given range.
+         */
+        List<String> candidates(int first, int last) {
+            /* The candidate command strings. */
+            List<String> candidates = new ArrayList<String>(last - first);
+
+            for (int index = first; index < last; index++) {
+                candidates.add(this.children[index].path);
+            }
+            return Collections.unmodifiableList(candidates);
+        }
+
+        /**
+         * Collects the commands of this node and all its descendants.
+         */
+        void collect(List<ICliCommand> result) {
+            if (this.command != null) {
+                result.add(this.command);
+            }
+            for (TreeNode child : this.children) {
+                child.collect(result);
+            }
+        }
+
+        /**
+         * Compares a token with a region of a line, ignoring the case of the
+         * line.
+         */
+        private static int compare(String token, String line, int start, int end) {
+            int length = Math.min(token.length(), end - start);
+            for (int i = 0; i < length; i++) {
+                int diff = token.charAt(i) - Character.toLowerCase(line.charAt(start + i));
+                if (diff != 0) {
+                    return diff;
+                }
+            }
+            return token.length() - (end - start);
+        }
+
+        /**
+         * Checks whether a token starts with a region of a line, ignoring the
+         * case of the line.
+         */
+        private static boolean startsWith(String token, String line, int start, int end) {
+            if (token.length() < end - start) {
+                return false;
+            }
+            for (int i = start; i < end; i++) {
+                if (token.charAt(i - start) != Character.toLowerCase(line.charAt(i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /**
+     * A mutable node that is only used to build the tree.
+     */
+    private static final class Builder {
+        /** The command string of all tokens from the root to this node. */
+        private final String path;
+        /** The command that ends at this node. Might be null. */
+        private ICliCommand command;
+        /** The child nodes, sorted by their token. */
+        private final Map<String, Builder> children = new TreeMap<String, Builder>();
+
+        /**
+         * Constructor.
+         */
+        private Builder(String path) {
+            this.path = path;
+        }
+
+        /**
+         * Gets or creates a child node.
+         */
+        private Builder child(String token) {
+            Builder child = this.children.get(token);
+            if (child == null) {
+                child = new Builder(this.path.isEmpty() ? token : this.path + " " + token);
+                this.children.put(token, child);
+            }
+            return child;
+        }
+
+        /**
+         * Freezes this node and all its descendants.
+         */
+        private TreeNode toTreeNode() {
+            /* The immutable child nodes. */
+            TreeNode[] nodes = new TreeNode[this.children.size()];
+            int index = 0;
+
+            for (Builder child : this.children.values()) {
+                nodes[index++] = child.toTreeNode();
+            }
+            return new TreeNode(this.path, this.command, nodes);
+        }
+    }
+}
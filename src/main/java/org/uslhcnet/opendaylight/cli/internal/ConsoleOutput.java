@@ -0,0 +1,171 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+import org.uslhcnet.opendaylight.cli.ICancellationToken;
+import org.uslhcnet.opendaylight.cli.ICliOutput;
+import org.uslhcnet.opendaylight.cli.OutputClosedException;
+
+/**
+ * The output of a console. It writes to the console's writer, which encodes
+ * and buffers the output. The writer is flushed when the console shows its
+ * prompt, when the pager shows a page, or when its buffers are full. In
+ * addition, the output is flushed at the end of a line if the last flush is
+ * more than {@link #FLUSH_INTERVAL} milliseconds ago, so the operator sees the
+ * result of a slow streaming command while the command is still running. Once
+ * the cancellation token given to the output is cancelled, the output is
+ * closed, i.e. any further write throws an {@link OutputClosedException}. The
+ * consoles never close their own output; their commands write to it through
+ * an {@link ExecutionOutput} each. The output counts the characters written
+ * to it, for the metrics of the commands.
+ */
+public class ConsoleOutput implements ICliOutput {
+    /** The maximum time in milliseconds a complete line stays in the buffers. */
+    public static final long FLUSH_INTERVAL = 200;
+
+    /** The writer of the console. */
+    private final Writer writer;
+    /** The time of the last flush in nanoseconds. */
+    private long lastFlush = System.nanoTime();
+    /** The number of characters written. Written by one thread at a time. */
+    private long written;
+    /** The cancellation token that closes the output. Might be null. */
+    private volatile ICancellationToken cancellationToken;
+
+    /**
+     * Constructor.
+     *
+     * @param writer
+     *            The writer of the console.
+     */
+    public ConsoleOutput(Writer writer) {
+        this.writer = writer;
+    }
+
+    /**
+     * Setter for the cancellation token that closes the output.
+     *
+     * @param cancellationToken
+     *            The cancellation token, or null if the output is never
+     *            closed.
+     */
+    public void setCancellationToken(ICancellationToken cancellationToken) {
+        this.cancellationToken = cancellationToken;
+    }
+
+    @Override
+    public ConsoleOutput append(CharSequence csq) throws IOException {
+        /* The character sequence to write. */
+        CharSequence chars = (csq != null) ? csq : "null";
+
+        return this.append(chars, 0, chars.length());
+    }
+
+    @Override
+    public ConsoleOutput append(CharSequence csq, int start, int end) throws IOException {
+        /* The character sequence to write. */
+        CharSequence chars = (csq != null) ? csq : "null";
+
+        this.checkClosed();
+        this.writer.append(chars, start, end);
+        this.written += end - start;
+        if (end > start && chars.charAt(end - 1) == '\n') {
+            this.flushIfDue();
+        }
+        return this;
+    }
+
+    @Override
+    public ConsoleOutput append(char c) throws IOException {
+        this.checkClosed();
+        this.writer.append(c);
+        this.written++;
+        if (c == '\n') {
+            this.flushIfDue();
+        }
+        return this;
+    }
+
+    @Override
+    public ConsoleOutput println(CharSequence line) throws IOException {
+        return this.append(line).append('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.lastFlush = System.nanoTime();
+        this.writer.flush();
+    }
+
+    /**
+     * Gets the number of characters written to this output so far. Only
+     * accurate once the command that writes has returned.
+     *
+     * @return The number of characters written.
+     */
+    public long getWritten() {
+        return this.written;
+    }
+
+    @Override
+    public boolean isClosed() {
+        /* The cancellation token that closes the output. */
+        ICancellationToken token = this.cancellationToken;
+
+        return token != null && token.isCancelled();
+    }
+
+    /**
+     * Flushes the output if the last flush is more than
+     * {@link #FLUSH_INTERVAL} milliseconds ago.
+     *
+     * @throws IOException
+     */
+    private void flushIfDue() throws IOException {
+        if (System.nanoTime() - this.lastFlush > TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL)) {
+            this.flush();
+        }
+    }
+
+    /**
+     * Throws an exception if the output is closed.
+     *
+     * @throws OutputClosedException
+     */
+    private void checkClosed() throws OutputClosedException {
+        if (this.isClosed()) {
+            throw new OutputClosedException();
+        }
+    }
+}
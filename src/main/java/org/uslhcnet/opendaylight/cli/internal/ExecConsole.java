@@ -0,0 +1,428 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import jline.console.completer.Completer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.uslhcnet.opendaylight.cli.ICancellationToken;
+import org.uslhcnet.opendaylight.cli.ICliCommand;
+import org.uslhcnet.opendaylight.cli.ICliConsole;
+import org.uslhcnet.opendaylight.cli.ICliScreenCommand;
+import org.uslhcnet.opendaylight.cli.OutputClosedException;
+import org.uslhcnet.opendaylight.cli.OutputFormat;
+import org.uslhcnet.opendaylight.cli.internal.CommandMetrics.Phase;
+
+/**
+ * A non-interactive console for SSH exec channels, e.g.
+ * <code>ssh -p 55220 controller "show nodes"</code>. It executes one or more
+ * ';'-separated commands and writes their results to the channel, without a
+ * line editor, completers, welcome message, or prompt. The output is neither
+ * paged nor converted to crlf.
+ *
+ * Like a shell, the exit status is the status of the last command:
+ * {@link #EXIT_OK}, {@link #EXIT_FAILED} if the command failed,
+ * {@link #EXIT_TIMEOUT} if it timed out, or {@link #EXIT_UNKNOWN} if the
+ * command does not exist.
+ */
+public class ExecConsole implements ICliConsole {
+    /** The logger. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExecConsole.class);
+    /** The separator of the commands in a command line. */
+    public static final char COMMAND_SEPARATOR = ';';
+    /** The exit status of a successful command. */
+    public static final int EXIT_OK = 0;
+    /** The exit status of a failed command. */
+    public static final int EXIT_FAILED = 1;
+    /** The exit status of a command that timed out. */
+    public static final int EXIT_TIMEOUT = 124;
+    /** The exit status of an unknown or ambiguous command. */
+    public static final int EXIT_UNKNOWN = 127;
+    /** The time in milliseconds a cancelled command is given to return. */
+    public static final long CANCEL_GRACE_PERIOD = 1000;
+
+    /** The writer of the command results. */
+    private final Writer outWriter;
+    /** The writer of the error messages. */
+    private final Writer errWriter;
+    /** The output streaming commands write their result to. */
+    private final ConsoleOutput output;
+    /** The command hander that matches the commands. */
+    private final CommandHandler commander;
+    /** The command executor that executes the commands. */
+    private final CommandExecutor executor;
+    /** The registry of the command metrics. */
+    private final CommandMetricsRegistry metrics;
+    /** The execution of the currently running command. Might be null. */
+    private volatile CommandExecution execution;
+    /** Boolean that states if the console is running. */
+    private volatile boolean running;
+    /** The format commands write tables in. */
+    private volatile OutputFormat outputFormat = OutputFormat.TEXT;
+    /** The format given by the --format option of the current command. Might be null. */
+    private volatile OutputFormat commandFormat;
+    /** The user that opened the exec channel. Might be null. */
+    private final String user;
+
+    /**
+     * Constructor.
+     *
+     * @param outStream
+     *            The output stream of the exec channel.
+     * @param errStream
+     *            The error stream of the exec channel.
+     * @param encoding
+     *            The character encoding.
+     * @throws IOException
+     *             If the encoding is not supported.
+     */
+    public ExecConsole(OutputStream outStream, OutputStream errStream, String encoding)
+            throws IOException {
+        this(outStream, errStream, encoding, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param outStream
+     *            The output stream of the exec channel.
+     * @param errStream
+     *            The error stream of the exec channel.
+     * @param encoding
+     *            The character encoding.
+     * @param user
+     *            The user that opened the exec channel. Might be null.
+     * @throws IOException
+     *             If the encoding is not supported.
+     */
+    public ExecConsole(OutputStream outStream, OutputStream errStream, String encoding,
+            String user) throws IOException {
+        this.user = user;
+        this.commander = CommandHandler.getInstance();
+        this.executor = CommandExecutor.getInstance();
+        this.metrics = CommandMetricsRegistry.getInstance();
+        this.outWriter = new OutputStreamWriter(outStream, encoding);
+        this.errWriter = new OutputStreamWriter(errStream, encoding);
+        this.output = new ConsoleOutput(this.outWriter);
+    }
+
+    /**
+     * Executes the ';'-separated commands of a command line one after the
+     * other, until all are executed or the console is stopped. A ';' within
+     * quotes, e.g. in the pattern of a filter, does not separate commands.
+     *
+     * @param commandLine
+     *            The command line.
+     * @return The exit status of the last command.
+     * @throws IOException
+     *             If the channel cannot be written to.
+     */
+    public int execute(String commandLine) throws IOException {
+        /* The exit status of the last command. */
+        int status = EXIT_OK;
+        /* The commands. A ';' within quotes does not separate commands. */
+        List<String> lines = Pipeline.split(commandLine, COMMAND_SEPARATOR);
+
+        this.running = true;
+        try {
+            for (int i = 0; this.running && i < lines.size(); i++) {
+                /* The current command. */
+                String line = lines.get(i).trim();
+                if (!line.equals("")) {
+                    status = this.executeLine(line);
+                }
+            }
+        } finally {
+            this.output.flush();
+            this.errWriter.flush();
+        }
+        return status;
+    }
+
+    /**
+     * Executes a single command.
+     *
+     * @param line
+     *            The command and its arguments.
+     * @return The exit status of the command.
+     * @throws IOException
+     *             If the channel cannot be written to.
+     */
+    private int executeLine(String line) throws IOException {
+        /* The time the parsing of the line started. */
+        long parseStart = System.nanoTime();
+        /* The command and its filters. */
+        Pipeline pipeline;
+        /* The match of the line. */
+        CommandMatch match;
+        /* The command. */
+        ICliCommand command;
+        /* The --format option of the command. */
+        FormatOption option;
+        /* The metrics of the command. */
+        CommandMetrics commandMetrics;
+        /* The number of characters written before the command. */
+        long written = this.output.getWritten();
+        /* The exit status of the command. */
+        int status;
+        /* The time the final write started. */
+        long writeStart;
+
+        try {
+            pipeline = Pipeline.parse(line);
+        } catch (IllegalArgumentException e) {
+            this.error(e.getMessage());
+            return EXIT_FAILED;
+        }
+        match = this.commander.match(pipeline.getCommandLine());
+        command = match.getCommand();
+        if (command instanceof ICliScreenCommand && pipeline.hasFilters()) {
+            // Screen commands apply the filters to the commands they run.
+            pipeline = Pipeline.unfiltered(line);
+            match = this.commander.match(line);
+            command = match.getCommand();
+        }
+        option = FormatOption.parse(match.getArguments());
+        if (command == null) {
+            this.error((match.isAmbiguous() ? "Ambiguous command: " : "Unknown command: ") + line);
+            return EXIT_UNKNOWN;
+        }
+        commandMetrics = this.metrics.get(command);
+        commandMetrics.record(Phase.PARSE, System.nanoTime() - parseStart);
+        if (option.isGiven() && option.getFormat() == null) {
+            commandMetrics.failed();
+            this.error(option.getErrorMessage());
+            return EXIT_FAILED;
+        }
+
+        /* The execution of the command. */
+        CommandExecution execution = new CommandExecution(this,
+                pipeline.apply(StreamingCommandAdapter.adapt(command, commandMetrics)),
+                option.getArguments(), this.executor.getTimeout(command), commandMetrics);
+        /* The output of this execution, which is closed for good once it is over. */
+        ExecutionOutput output = new ExecutionOutput(this.output, execution);
+        execution.setOutput(output);
+        this.commandFormat = option.getFormat();
+        this.execution = execution;
+        commandMetrics.called();
+        try {
+            status = this.await(execution, this.executor.submit(execution));
+        } catch (RejectedExecutionException e) {
+            execution.abandon();
+            LOGGER.warn("Rejected command {}: too many commands.", command.getCommandString());
+            this.error("Too many commands are running. Please try again later.");
+            status = EXIT_FAILED;
+        } finally {
+            this.execution = null;
+            this.commandFormat = null;
+            // The command might still be running: it must not write any more.
+            output.close();
+        }
+
+        if (status == EXIT_TIMEOUT) {
+            commandMetrics.cancelled();
+        } else if (status != EXIT_OK) {
+            commandMetrics.failed();
+        }
+        // Send the result of each command right away.
+        writeStart = System.nanoTime();
+        this.output.flush();
+        commandMetrics.record(Phase.WRITE, System.nanoTime() - writeStart);
+        commandMetrics.addOutput(this.output.getWritten() - written);
+        return status;
+    }
+
+    /**
+     * Waits for a command execution to finish. Cancels the command if it runs
+     * into its timeout.
+     *
+     * @param execution
+     *            The command execution.
+     * @param future
+     *            The future of the command execution.
+     * @return The exit status of the command.
+     * @throws IOException
+     *             If the channel cannot be written to.
+     */
+    private int await(CommandExecution execution, Future<Void> future) throws IOException {
+        try {
+            if (execution.getRemainingTime() == Long.MAX_VALUE) {
+                future.get();
+            } else {
+                future.get(execution.getRemainingTime(), TimeUnit.MILLISECONDS);
+            }
+            return EXIT_OK;
+        } catch (TimeoutException e) {
+            // Interrupt the command and give it some time to return.
+            execution.cancel("Command timed out.");
+            future.cancel(true);
+            this.awaitTermination(execution);
+            this.error(execution.getCancellation());
+            return EXIT_TIMEOUT;
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof OutputClosedException) {
+                return EXIT_FAILED;
+            }
+            LOGGER.warn("Command failed.", e.getCause());
+            this.error("Command failed: " + e.getCause().getMessage());
+            return EXIT_FAILED;
+        } catch (InterruptedException e) {
+            // The channel is closed.
+            execution.cancel(null);
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    /**
+     * Waits at most {@link #CANCEL_GRACE_PERIOD} milliseconds for a cancelled
+     * command execution to return.
+     *
+     * @param execution
+     *            The cancelled command execution.
+     * @throws InterruptedIOException
+     *             If the channel is closed while waiting.
+     */
+    private void awaitTermination(CommandExecution execution) throws InterruptedIOException {
+        try {
+            if (!execution.awaitTermination(CANCEL_GRACE_PERIOD)) {
+                LOGGER.debug("Cancelled command has not returned yet.");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+    }
+
+    /**
+     * Writes an error message to the error stream.
+     *
+     * @param message
+     *            The error message.
+     * @throws IOException
+     */
+    private void error(String message) throws IOException {
+        this.errWriter.write(message + "\n");
+    }
+
+    @Override
+    public void setPrompt(String prompt) {
+        // There is no prompt.
+    }
+
+    @Override
+    public String getPrompt() {
+        return "";
+    }
+
+    @Override
+    public Collection<Completer> getCompleters() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void write(String string) throws IOException {
+        /* The command execution of the calling command, if any. */
+        CommandExecution current = CommandExecution.current();
+
+        if (current != null) {
+            // A command writes to its own output, which rejects writes once it has timed out.
+            current.getOutput().println(string);
+        } else {
+            this.output.println(string);
+        }
+    }
+
+    @Override
+    public String getUser() {
+        return this.user;
+    }
+
+    @Override
+    public ICancellationToken getCancellationToken() {
+        /* The command execution of the calling command, or the current one. */
+        CommandExecution current = CommandExecution.current();
+
+        if (current == null) {
+            current = this.execution;
+        }
+        return (current != null) ? current : CliConsole.NOT_CANCELLED;
+    }
+
+    @Override
+    public OutputFormat getOutputFormat() {
+        /* The format of the current command. */
+        OutputFormat format = this.commandFormat;
+
+        return (format != null) ? format : this.outputFormat;
+    }
+
+    @Override
+    public void setOutputFormat(OutputFormat format) {
+        this.outputFormat = (format != null) ? format : OutputFormat.TEXT;
+    }
+
+    @Override
+    public int getTerminalWidth() {
+        // There is no terminal.
+        return 0;
+    }
+
+    @Override
+    public int getTerminalHeight() {
+        // There is no terminal.
+        return 0;
+    }
+
+    /**
+     * Stops the console, i.e. no further command is executed.
+     */
+    @Override
+    public void stop() {
+        this.running = false;
+    }
+
+}
@@ -0,0 +1,128 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+
+import org.uslhcnet.opendaylight.cli.ICliOutput;
+import org.uslhcnet.opendaylight.cli.OutputClosedException;
+
+/**
+ * The output of a single command execution. It passes the result of the
+ * command to the console output until the execution is cancelled or the
+ * console closes it, and stays closed for good afterwards. Thus, a command
+ * that ignores its cancellation and keeps running cannot write into the
+ * prompt or the result of the next command, since each execution gets its own
+ * output and the console output itself is never closed or re-opened.
+ *
+ * The writes are serialized with {@link #close()}, i.e. once the console has
+ * closed the output, no write of the command is in progress any more.
+ */
+class ExecutionOutput implements ICliOutput {
+    /** The console output the result is written to. */
+    private final ICliOutput output;
+    /** The command execution that writes to this output. */
+    private final CommandExecution execution;
+    /** States whether the console has closed this output. Guarded by this. */
+    private boolean closed;
+
+    /**
+     * Constructor.
+     *
+     * @param output
+     *            The console output the result is written to.
+     * @param execution
+     *            The command execution that writes to this output.
+     */
+    ExecutionOutput(ICliOutput output, CommandExecution execution) {
+        this.output = output;
+        this.execution = execution;
+    }
+
+    @Override
+    public synchronized ExecutionOutput append(CharSequence csq) throws IOException {
+        this.checkClosed();
+        this.output.append(csq);
+        return this;
+    }
+
+    @Override
+    public synchronized ExecutionOutput append(CharSequence csq, int start, int end)
+            throws IOException {
+        this.checkClosed();
+        this.output.append(csq, start, end);
+        return this;
+    }
+
+    @Override
+    public synchronized ExecutionOutput append(char c) throws IOException {
+        this.checkClosed();
+        this.output.append(c);
+        return this;
+    }
+
+    @Override
+    public synchronized ExecutionOutput println(CharSequence line) throws IOException {
+        this.checkClosed();
+        this.output.println(line);
+        return this;
+    }
+
+    @Override
+    public synchronized void flush() throws IOException {
+        this.checkClosed();
+        this.output.flush();
+    }
+
+    @Override
+    public synchronized boolean isClosed() {
+        return this.closed || this.execution.isCancelled();
+    }
+
+    /**
+     * Closes the output for good. Waits for a write of the command that is in
+     * progress, so the console can write to the console output afterwards.
+     */
+    public synchronized void close() {
+        this.closed = true;
+    }
+
+    /**
+     * Throws an exception if the output is closed.
+     *
+     * @throws OutputClosedException
+     */
+    private void checkClosed() throws OutputClosedException {
+        if (this.isClosed()) {
+            throw new OutputClosedException();
+        }
+    }
+}
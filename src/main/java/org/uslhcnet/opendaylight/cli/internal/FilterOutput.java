@@ -0,0 +1,183 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+
+import org.uslhcnet.opendaylight.cli.ICliFilterStage;
+import org.uslhcnet.opendaylight.cli.ICliOutput;
+import org.uslhcnet.opendaylight.cli.OutputClosedException;
+
+/**
+ * The output a filter stage reads from. It collects what is written to it
+ * into lines, copying the characters between two line breaks at once, and
+ * hands each complete line to the stage, which writes to the
+ * next output. Once the stage does not need any further lines, or the next
+ * output is closed, this output is closed too, so the command, or the
+ * previous stage, stops producing lines.
+ */
+public class FilterOutput implements ICliOutput {
+    /** The filter stage. */
+    private final ICliFilterStage stage;
+    /** The output of the stage. */
+    private final ICliOutput next;
+    /** The current, incomplete line. */
+    private final StringBuilder line = new StringBuilder();
+    /** States whether the stage does not need any further lines. */
+    private boolean closed;
+
+    /**
+     * Constructor.
+     *
+     * @param stage
+     *            The filter stage.
+     * @param next
+     *            The output of the stage.
+     */
+    public FilterOutput(ICliFilterStage stage, ICliOutput next) {
+        this.stage = stage;
+        this.next = next;
+    }
+
+    @Override
+    public FilterOutput append(CharSequence csq) throws IOException {
+        /* The character sequence to write. */
+        CharSequence chars = (csq != null) ? csq : "null";
+
+        return this.append(chars, 0, chars.length());
+    }
+
+    @Override
+    public FilterOutput append(CharSequence csq, int start, int end) throws IOException {
+        /* The character sequence to write. */
+        CharSequence chars = (csq != null) ? csq : "null";
+        /* The start of the current run of characters without line breaks. */
+        int runStart = start;
+
+        this.checkClosed();
+        for (int i = start; i < end && !this.closed; i++) {
+            char c = chars.charAt(i);
+            if (c == '\n' || c == '\r') {
+                // Copy the run at once; carriage returns are dropped.
+                this.line.append(chars, runStart, i);
+                runStart = i + 1;
+                if (c == '\n') {
+                    this.processLine();
+                }
+            }
+        }
+        if (!this.closed) {
+            this.line.append(chars, runStart, end);
+        }
+        return this;
+    }
+
+    @Override
+    public FilterOutput append(char c) throws IOException {
+        this.checkClosed();
+        this.put(c);
+        return this;
+    }
+
+    @Override
+    public FilterOutput println(CharSequence line) throws IOException {
+        return this.append(line).append('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.next.flush();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return this.closed || this.next.isClosed();
+    }
+
+    /**
+     * Finishes the stage and all following stages, once the command has
+     * returned. An incomplete last line is processed as if it was complete.
+     *
+     * @throws IOException
+     */
+    public void finish() throws IOException {
+        if (!this.closed && this.line.length() > 0) {
+            this.processLine();
+        }
+        if (!this.next.isClosed()) {
+            this.stage.finish(this.next);
+        }
+        if (this.next instanceof FilterOutput) {
+            ((FilterOutput) this.next).finish();
+        }
+    }
+
+    /**
+     * Adds a character to the current line, and processes the line if it is
+     * complete.
+     *
+     * @param c
+     *            The character.
+     * @throws IOException
+     */
+    private void put(char c) throws IOException {
+        if (c == '\n') {
+            this.processLine();
+        } else if (c != '\r') {
+            this.line.append(c);
+        }
+    }
+
+    /**
+     * Hands the current line to the stage.
+     *
+     * @throws IOException
+     */
+    private void processLine() throws IOException {
+        /* The current line. */
+        String current = this.line.toString();
+
+        this.line.setLength(0);
+        if (!this.stage.processLine(current, this.next)) {
+            this.closed = true;
+        }
+    }
+
+    /**
+     * Throws an exception if no further lines are needed.
+     *
+     * @throws OutputClosedException
+     */
+    private void checkClosed() throws OutputClosedException {
+        if (this.isClosed()) {
+            throw new OutputClosedException();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.uslhcnet.opendaylight.cli.ICliFilter;
+
+/**
+ * The output filters of the CLI, by their filter string. Filters are looked
+ * up for every command line that contains a '|', from any console thread.
+ */
+public class FilterRegistry {
+    /** The singleton instance. */
+    private static final FilterRegistry INSTANCE = new FilterRegistry();
+
+    /** The filters, by their lower-case filter string. */
+    private final ConcurrentNavigableMap<String, ICliFilter> filters =
+            new ConcurrentSkipListMap<String, ICliFilter>();
+
+    /**
+     * Private constructor of the singleton.
+     */
+    private FilterRegistry() {
+        // Nothing to do here.
+    }
+
+    /**
+     * Gets the singleton instance of the filter registry.
+     *
+     * @return <b>FilterRegistry</b> The filter registry.
+     */
+    public static FilterRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Adds a filter. A filter with the same filter string is replaced.
+     *
+     * @param filter
+     *            The filter to add.
+     */
+    public void addFilter(ICliFilter filter) {
+        this.filters.put(this.key(filter.getFilterString()), filter);
+    }
+
+    /**
+     * Removes a filter, if it is still registered.
+     *
+     * @param filter
+     *            The filter to remove.
+     */
+    public void removeFilter(ICliFilter filter) {
+        this.filters.remove(this.key(filter.getFilterString()), filter);
+    }
+
+    /**
+     * Gets a filter by its filter string.
+     *
+     * @param filterString
+     *            The filter string, case-insensitive.
+     * @return The filter, or null if there is none.
+     */
+    public ICliFilter getFilter(String filterString) {
+        return this.filters.get(this.key(filterString));
+    }
+
+    /**
+     * Gets all filters, sorted by their filter string.
+     *
+     * @return A copy of the filters.
+     */
+    public Collection<ICliFilter> getFilters() {
+        return new ArrayList<ICliFilter>(this.filters.values());
+    }
+
+    /**
+     * Gets the key of a filter string.
+     *
+     * @param filterString
+     *            The filter string.
+     * @return The key.
+     */
+    private String key(String filterString) {
+        return filterString.trim().toLowerCase(Locale.ENGLISH);
+    }
+}
@@ -0,0 +1,142 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.uslhcnet.opendaylight.cli.OutputFormat;
+
+/**
+ * The --format option that may follow any command, e.g.
+ * <code>show nodes --format json</code> or <code>show nodes --format=csv</code>.
+ * The consoles take the option from the arguments before they execute the
+ * command, so commands never see it.
+ */
+public class FormatOption {
+    /** The option name. */
+    public static final String OPTION = "--format";
+    /** The pattern of the option and its value. */
+    private static final Pattern PATTERN = Pattern.compile("(?:^|\\s)" + OPTION
+            + "(?:=|\\s+|$)(\\S*)");
+
+    /** The arguments without the option. */
+    private final String arguments;
+    /** The value of the option, or null if the option is not given. */
+    private final String value;
+
+    /**
+     * Constructor.
+     *
+     * @param arguments
+     *            The arguments without the option.
+     * @param value
+     *            The value of the option, or null if the option is not given.
+     */
+    private FormatOption(String arguments, String value) {
+        this.arguments = arguments;
+        this.value = value;
+    }
+
+    /**
+     * Takes the --format option from the arguments of a command.
+     *
+     * @param arguments
+     *            The arguments of the command. Might be null.
+     * @return The format option.
+     */
+    public static FormatOption parse(String arguments) {
+        /* The matcher of the option. */
+        Matcher matcher;
+
+        if (arguments == null || arguments.indexOf(OPTION) < 0) {
+            return new FormatOption(arguments, null);
+        }
+        matcher = PATTERN.matcher(arguments);
+        if (!matcher.find()) {
+            return new FormatOption(arguments, null);
+        }
+
+        // Return the arguments without the option.
+        return new FormatOption((arguments.substring(0, matcher.start()) + " " + arguments
+                .substring(matcher.end())).trim(), matcher.group(1));
+    }
+
+    /**
+     * Getter for the arguments without the option.
+     *
+     * @return The arguments without the option.
+     */
+    public String getArguments() {
+        return this.arguments;
+    }
+
+    /**
+     * States whether the option is given.
+     *
+     * @return True if the option is given.
+     */
+    public boolean isGiven() {
+        return this.value != null;
+    }
+
+    /**
+     * Getter for the output format given by the option.
+     *
+     * @return The output format, or null if the option is not given or its
+     *         value is not a format.
+     */
+    public OutputFormat getFormat() {
+        return (this.value != null) ? OutputFormat.fromString(this.value) : null;
+    }
+
+    /**
+     * Creates the message shown if the value of the option is not a format.
+     *
+     * @return The error message.
+     */
+    public String getErrorMessage() {
+        /* The String builder that hold the resulting string. */
+        StringBuilder result = new StringBuilder();
+
+        if (this.value == null || this.value.equals("")) {
+            result.append("Missing format. Use:");
+        } else {
+            result.append("Unknown format: ").append(this.value).append(". Use:");
+        }
+        for (OutputFormat format : OutputFormat.values()) {
+            result.append(" ").append(format);
+        }
+
+        // Return.
+        return result.toString();
+    }
+
+}
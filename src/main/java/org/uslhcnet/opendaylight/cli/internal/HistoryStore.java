@@ -0,0 +1,425 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps the command history of each user on disk, one file per user in the
+ * directory given by the system property {@value #DIRECTORY_PROPERTY}. All
+ * file I/O happens on a single background thread, so the session threads
+ * never block on the disk: new lines are queued and written in batches, and
+ * the history of a new session is loaded while the operator types the first
+ * command.
+ *
+ * On load, only the last occurrence of a line is kept, and a file that has
+ * grown to more than twice the history size is rewritten without the
+ * collapsed lines.
+ */
+public class HistoryStore implements Runnable {
+    /** The logger. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(HistoryStore.class);
+    /** System property: the directory of the history files. */
+    public static final String DIRECTORY_PROPERTY = "cli.history.dir";
+    /** System property: the maximum number of lines per history. */
+    public static final String SIZE_PROPERTY = "cli.history.size";
+    /** The default directory of the history files. */
+    public static final String DEFAULT_DIRECTORY = "./configuration/cli-history";
+    /** The extension of the history files. */
+    public static final String FILE_EXTENSION = ".history";
+    /** The name of the writer thread. */
+    public static final String THREAD_NAME = "OpenDaylightHistoryWriter";
+    /** The character set of the history files. */
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    /** The singleton instance of the history store. */
+    private static HistoryStore store;
+
+    /** The directory of the history files. */
+    private final File directory;
+    /** The maximum number of lines per history. */
+    private final int maxSize;
+    /** The pending tasks: lines to append and histories to load. */
+    private final BlockingQueue<Task> tasks = new LinkedBlockingQueue<Task>();
+    /** The thread that works off the tasks. Null if not running. Guarded by this. */
+    private Thread thread;
+
+    /**
+     * Private constructor to ensure singleton.
+     */
+    private HistoryStore() {
+        this.directory = new File(System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY));
+        this.maxSize = Integer.getInteger(SIZE_PROPERTY, CliHistory.DEFAULT_MAX_SIZE);
+    }
+
+    /**
+     * Provides access to the singleton instance of the history store.
+     *
+     * @return instance of the history store.
+     */
+    public static synchronized HistoryStore getInstance() {
+        if (store == null) {
+            store = new HistoryStore();
+        }
+        return store;
+    }
+
+    /**
+     * Creates the history of a new session. The user's lines are loaded in
+     * the background and inserted when they are read.
+     *
+     * @param user
+     *            The user of the session, or null to keep the history in
+     *            memory only.
+     * @return The history.
+     */
+    public CliHistory open(String user) {
+        /* The history file of the user. */
+        File file = this.getFile(user);
+        /* The history. */
+        CliHistory history;
+
+        if (file == null) {
+            return new CliHistory(this.maxSize, null);
+        }
+        history = new CliHistory(this.maxSize, new Appender(file));
+        this.submit(new Task(file, null, history));
+        return history;
+    }
+
+    /**
+     * Writes all pending lines and stops the writer thread. It is started
+     * again when needed. The writer thread clears itself once the queue is
+     * empty, so lines submitted meanwhile are written by the same thread.
+     */
+    public void shutdown() {
+        /* The writer thread. */
+        Thread writer;
+
+        synchronized (this) {
+            writer = this.thread;
+        }
+        if (writer != null) {
+            writer.interrupt();
+            try {
+                writer.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public void run() {
+        /* The tasks of a batch. */
+        List<Task> batch = new ArrayList<Task>();
+
+        while (true) {
+            try {
+                batch.add(this.tasks.take());
+            } catch (InterruptedException e) {
+                // Write what is left and stop.
+                while (true) {
+                    this.tasks.drainTo(batch);
+                    this.process(batch);
+                    batch.clear();
+                    synchronized (this) {
+                        if (this.tasks.isEmpty()) {
+                            this.thread = null;
+                            return;
+                        }
+                    }
+                }
+            }
+            this.tasks.drainTo(batch);
+            this.process(batch);
+            batch.clear();
+        }
+    }
+
+    /**
+     * Queues a task and starts the writer thread if needed.
+     *
+     * @param task
+     *            The task.
+     */
+    private synchronized void submit(Task task) {
+        this.tasks.add(task);
+        if (this.thread == null) {
+            this.thread = new Thread(this, THREAD_NAME);
+            this.thread.setDaemon(true);
+            this.thread.start();
+        }
+    }
+
+    /**
+     * Works off a batch of tasks in order. Consecutive lines of the same file
+     * are written at once.
+     *
+     * @param batch
+     *            The tasks.
+     */
+    private void process(List<Task> batch) {
+        /* The position of the current task. */
+        int i = 0;
+
+        while (i < batch.size()) {
+            /* The current task. */
+            Task task = batch.get(i);
+            if (task.line == null) {
+                this.load(task.file, task.history);
+                i++;
+                continue;
+            }
+            /* The end of the run of appends to the same file. */
+            int end = i + 1;
+            while (end < batch.size() && batch.get(end).line != null
+                    && batch.get(end).file.equals(task.file)) {
+                end++;
+            }
+            this.append(batch.subList(i, end));
+            i = end;
+        }
+    }
+
+    /**
+     * Appends lines to a history file.
+     *
+     * @param appends
+     *            The append tasks, all of the same file.
+     */
+    private void append(List<Task> appends) {
+        /* The history file. */
+        File file = appends.get(0).file;
+        /* The writer of the file. */
+        Writer writer = null;
+
+        try {
+            this.directory.mkdirs();
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file, true),
+                    UTF8));
+            for (Task task : appends) {
+                writer.write(task.line);
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Writing the command history {} failed.", file);
+        } finally {
+            close(writer);
+        }
+    }
+
+    /**
+     * Loads a history file and inserts its lines into a history.
+     *
+     * @param file
+     *            The history file.
+     * @param history
+     *            The history.
+     */
+    private void load(File file, CliHistory history) {
+        /* The lines of the file. */
+        List<String> lines = new ArrayList<String>();
+        /* The reader of the file. */
+        BufferedReader reader = null;
+        /* The collapsed lines, in order of their last occurrence. */
+        List<String> collapsed;
+
+        if (!file.isFile()) {
+            return;
+        }
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), UTF8));
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (!line.equals("")) {
+                    lines.add(line);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Reading the command history {} failed.", file);
+            return;
+        } finally {
+            close(reader);
+        }
+
+        // Keep the last occurrence of each line: collapse the reversed lines.
+        Collections.reverse(lines);
+        collapsed = new ArrayList<String>(new LinkedHashSet<String>(lines));
+        Collections.reverse(collapsed);
+        if (collapsed.size() > this.maxSize) {
+            collapsed = collapsed.subList(collapsed.size() - this.maxSize, collapsed.size());
+        }
+        history.insertOlder(collapsed);
+
+        if (lines.size() > 2 * this.maxSize) {
+            this.rewrite(file, collapsed);
+        }
+    }
+
+    /**
+     * Replaces a history file by the given lines.
+     *
+     * @param file
+     *            The history file.
+     * @param lines
+     *            The lines.
+     */
+    private void rewrite(File file, List<String> lines) {
+        /* The new file. */
+        File newFile = new File(file.getPath() + ".new");
+        /* The writer of the new file. */
+        Writer writer = null;
+
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(newFile),
+                    UTF8));
+            for (String line : lines) {
+                writer.write(line);
+                writer.write('\n');
+            }
+            writer.close();
+            writer = null;
+            if (!newFile.renameTo(file) && !(file.delete() && newFile.renameTo(file))) {
+                LOGGER.warn("Replacing the command history {} failed.", file);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Rewriting the command history {} failed.", file);
+        } finally {
+            close(writer);
+        }
+    }
+
+    /**
+     * Gets the history file of a user.
+     *
+     * @param user
+     *            The user.
+     * @return The history file, or null if there is no user.
+     */
+    private File getFile(String user) {
+        if (user == null || user.trim().equals("")) {
+            return null;
+        }
+        return new File(this.directory, user.trim().replaceAll("[^A-Za-z0-9._-]", "_")
+                + FILE_EXTENSION);
+    }
+
+    /**
+     * Closes a reader or writer quietly.
+     *
+     * @param closeable
+     *            The reader or writer. Might be null.
+     */
+    private static void close(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                LOGGER.debug("Closing a command history file failed.");
+            }
+        }
+    }
+
+    /**
+     * Appends the new lines of a history to its file.
+     */
+    public class Appender {
+        /** The history file. */
+        private final File file;
+
+        /**
+         * Constructor.
+         *
+         * @param file
+         *            The history file.
+         */
+        private Appender(File file) {
+            this.file = file;
+        }
+
+        /**
+         * Queues a line to be appended to the history file.
+         *
+         * @param line
+         *            The line.
+         */
+        public void append(String line) {
+            submit(new Task(this.file, line, null));
+        }
+    }
+
+    /**
+     * A task of the writer thread: a line to append to, or a history to load
+     * from a history file.
+     */
+    private static class Task {
+        /** The history file. */
+        private final File file;
+        /** The line to append. Null for a load task. */
+        private final String line;
+        /** The history to load into. Null for an append task. */
+        private final CliHistory history;
+
+        /**
+         * Constructor.
+         *
+         * @param file
+         *            The history file.
+         * @param line
+         *            The line to append, or null.
+         * @param history
+         *            The history to load into, or null.
+         */
+        public Task(File file, String line, CliHistory history) {
+            this.file = file;
+            this.line = line;
+            this.history = history;
+        }
+    }
+}
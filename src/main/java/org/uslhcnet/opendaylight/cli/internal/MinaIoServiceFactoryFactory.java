@@ -0,0 +1,179 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.mina.core.service.IoProcessor;
+import org.apache.mina.core.service.SimpleIoProcessorPool;
+import org.apache.mina.transport.socket.nio.NioProcessor;
+import org.apache.mina.transport.socket.nio.NioSession;
+import org.apache.sshd.common.FactoryManager;
+import org.apache.sshd.common.future.CloseFuture;
+import org.apache.sshd.common.io.IoAcceptor;
+import org.apache.sshd.common.io.IoConnector;
+import org.apache.sshd.common.io.IoHandler;
+import org.apache.sshd.common.io.IoServiceFactory;
+import org.apache.sshd.common.io.IoServiceFactoryFactory;
+import org.apache.sshd.common.io.mina.MinaAcceptor;
+import org.apache.sshd.common.io.mina.MinaConnector;
+import org.apache.sshd.common.util.CloseableUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the MINA I/O layer of an SSH server, like the one of the SSH
+ * library, but with a configurable backlog of the listening socket. The
+ * number of I/O processors is taken from the
+ * {@link FactoryManager#NIO_WORKERS} property of the server.
+ */
+public class MinaIoServiceFactoryFactory implements IoServiceFactoryFactory {
+    /** The logger. */
+    private static final Logger LOGGER = LoggerFactory
+            .getLogger(MinaIoServiceFactoryFactory.class);
+    /** The maximum time to wait for the I/O threads on close [s]. */
+    private static final long CLOSE_TIMEOUT = 5;
+
+    /** The maximum number of pending connections. */
+    private final int backlog;
+
+    /**
+     * Constructor.
+     *
+     * @param backlog
+     *            The maximum number of pending connections.
+     */
+    public MinaIoServiceFactoryFactory(int backlog) {
+        this.backlog = backlog;
+    }
+
+    @Override
+    public IoServiceFactory create(FactoryManager manager) {
+        return new MinaIoServiceFactory(manager, this.backlog);
+    }
+
+    /**
+     * Gets the number of I/O processors of a server or client.
+     *
+     * @param manager
+     *            The SSH server or client.
+     * @return The number of I/O processors.
+     */
+    static int getNioWorkers(FactoryManager manager) {
+        /* The configured number of processors. */
+        String workers = manager.getProperties().get(FactoryManager.NIO_WORKERS);
+
+        if (workers != null && workers.length() > 0) {
+            return Integer.parseInt(workers);
+        }
+        return FactoryManager.DEFAULT_NIO_WORKERS;
+    }
+
+    /**
+     * The MINA I/O layer of one SSH server.
+     */
+    private static class MinaIoServiceFactory implements IoServiceFactory {
+        /** The SSH server or client. */
+        private final FactoryManager manager;
+        /** The maximum number of pending connections. */
+        private final int backlog;
+        /** The executor of the I/O processor threads. */
+        private final ExecutorService executor;
+        /** The pool of I/O processors shared by all connections. */
+        private final SimpleIoProcessorPool<NioSession> ioProcessor;
+
+        /**
+         * Constructor.
+         *
+         * @param manager
+         *            The SSH server or client.
+         * @param backlog
+         *            The maximum number of pending connections.
+         */
+        public MinaIoServiceFactory(FactoryManager manager, int backlog) {
+            this.manager = manager;
+            this.backlog = backlog;
+            this.executor = Executors.newCachedThreadPool();
+            this.ioProcessor = new SimpleIoProcessorPool<NioSession>(NioProcessor.class,
+                    this.executor, getNioWorkers(manager));
+        }
+
+        @Override
+        public IoConnector createConnector(IoHandler handler) {
+            return new MinaConnector(this.manager, handler, this.ioProcessor);
+        }
+
+        @Override
+        public IoAcceptor createAcceptor(IoHandler handler) {
+            return new BacklogMinaAcceptor(this.manager, handler, this.ioProcessor, this.backlog);
+        }
+
+        @Override
+        public CloseFuture close(boolean immediately) {
+            this.ioProcessor.dispose();
+            this.executor.shutdownNow();
+            try {
+                this.executor.awaitTermination(CLOSE_TIMEOUT, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                LOGGER.debug("Closing the MINA I/O threads was interrupted.");
+                Thread.currentThread().interrupt();
+            }
+            return CloseableUtils.closed();
+        }
+    }
+
+    /**
+     * A MINA acceptor with a given backlog.
+     */
+    private static class BacklogMinaAcceptor extends MinaAcceptor {
+
+        /**
+         * Constructor.
+         *
+         * @param manager
+         *            The SSH server.
+         * @param handler
+         *            The handler of the accepted connections.
+         * @param ioProcessor
+         *            The pool of I/O processors.
+         * @param backlog
+         *            The maximum number of pending connections.
+         */
+        public BacklogMinaAcceptor(FactoryManager manager, IoHandler handler,
+                IoProcessor<NioSession> ioProcessor, int backlog) {
+            super(manager, handler, ioProcessor);
+            this.backlog = backlog;
+        }
+    }
+
+}
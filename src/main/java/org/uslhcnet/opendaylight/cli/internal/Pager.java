@@ -0,0 +1,275 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+
+import org.uslhcnet.opendaylight.cli.ICliOutput;
+import org.uslhcnet.opendaylight.cli.OutputClosedException;
+
+/**
+ * A "more" like pager. It passes the output of a command screen by screen to
+ * the console output and waits for the operator between two screens:
+ *
+ * [space] shows the next screen, [enter] the next line, [q] quits, and
+ * [/pattern] skips forward to the next line that contains the pattern.
+ *
+ * The keys are read by the console and passed on by the command execution.
+ * While the pager waits, the command is blocked in its write call, i.e. rows
+ * are only produced when they are going to be shown. If the operator quits,
+ * the next write throws an {@link OutputClosedException} that aborts the
+ * command, so the remaining rows are neither computed nor sent.
+ */
+public class Pager implements ICliOutput {
+    /** The prompt shown between two screens. */
+    public static final String MORE_PROMPT = "--More--";
+    /** ANSI sequence that moves the cursor to the line start and clears the line. */
+    private static final String CLEAR_LINE = "\r\u001B[K";
+
+    /** The console output the pages are written to. */
+    private final ICliOutput output;
+    /** The command execution that receives the operator's keys. */
+    private final CommandExecution execution;
+    /** The number of lines per screen. */
+    private final int pageSize;
+    /** The current (incomplete) line. */
+    private final StringBuilder line = new StringBuilder();
+    /** The number of lines shown on the current screen. */
+    private int lines;
+    /** The pattern to skip forward to. Null if not searching. */
+    private String pattern;
+    /** States whether the operator has quit the pager. */
+    private boolean closed;
+
+    /**
+     * Constructor.
+     *
+     * @param output
+     *            The console output the pages are written to.
+     * @param execution
+     *            The command execution that receives the operator's keys.
+     * @param pageSize
+     *            The number of lines per screen.
+     */
+    public Pager(ICliOutput output, CommandExecution execution, int pageSize) {
+        this.output = output;
+        this.execution = execution;
+        this.pageSize = Math.max(pageSize, 1);
+    }
+
+    @Override
+    public Pager append(CharSequence csq) throws IOException {
+        /* The character sequence to write. */
+        CharSequence chars = (csq != null) ? csq : "null";
+
+        return this.append(chars, 0, chars.length());
+    }
+
+    @Override
+    public Pager append(CharSequence csq, int start, int end) throws IOException {
+        /* The character sequence to write. */
+        CharSequence chars = (csq != null) ? csq : "null";
+        /* The start of the current line in the character sequence. */
+        int lineStart = start;
+
+        this.checkClosed();
+        for (int i = start; i < end; i++) {
+            if (chars.charAt(i) == '\n') {
+                this.line.append(chars, lineStart, i);
+                this.writeLine();
+                lineStart = i + 1;
+            }
+        }
+        this.line.append(chars, lineStart, end);
+        return this;
+    }
+
+    @Override
+    public Pager append(char c) throws IOException {
+        this.checkClosed();
+        if (c == '\n') {
+            this.writeLine();
+        } else {
+            this.line.append(c);
+        }
+        return this;
+    }
+
+    @Override
+    public Pager println(CharSequence line) throws IOException {
+        return this.append(line).append('\n');
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (!this.closed) {
+            this.output.flush();
+        }
+    }
+
+    /**
+     * Writes the last (incomplete) line and flushes the console output. Called
+     * by the console when the command has returned.
+     *
+     * @throws IOException
+     */
+    public void finish() throws IOException {
+        if (!this.closed && this.line.length() > 0) {
+            this.output.append(this.line);
+            this.line.setLength(0);
+        }
+        this.output.flush();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return this.closed;
+    }
+
+    /**
+     * Writes the current line to the console output, if it is not skipped by
+     * a search. Prompts the operator whenever a screen is full.
+     *
+     * @throws IOException
+     */
+    private void writeLine() throws IOException {
+        if (this.pattern == null && this.lines >= this.pageSize) {
+            this.prompt();
+        }
+
+        if (this.pattern != null) {
+            if (this.line.indexOf(this.pattern) < 0) {
+                this.line.setLength(0);
+                return;
+            }
+            this.pattern = null;
+        }
+        this.output.append(this.line).append('\n');
+        this.line.setLength(0);
+        this.lines++;
+    }
+
+    /**
+     * Shows the more prompt and waits for the operator's decision.
+     *
+     * @throws IOException
+     */
+    private void prompt() throws IOException {
+        this.output.append(MORE_PROMPT);
+        this.output.flush();
+
+        while (true) {
+            int key = this.execution.readKey();
+            switch (key) {
+            case ' ':
+                this.output.append(CLEAR_LINE);
+                this.lines = 0;
+                return;
+            case '\r':
+            case '\n':
+                this.output.append(CLEAR_LINE);
+                this.lines = this.pageSize - 1;
+                return;
+            case '/':
+                this.output.append(CLEAR_LINE);
+                this.pattern = this.readPattern();
+                if (this.pattern != null) {
+                    this.output.append("...skipping\n");
+                    this.lines = 1;
+                    return;
+                }
+                this.output.append(MORE_PROMPT);
+                this.output.flush();
+                break;
+            case 'q':
+            case 'Q':
+            case -1:
+                this.output.append(CLEAR_LINE);
+                this.output.flush();
+                this.closed = true;
+                throw new OutputClosedException();
+            default:
+                // Ignore any other key.
+            }
+        }
+    }
+
+    /**
+     * Reads a search pattern from the console.
+     *
+     * @return The pattern, or null if the search was cancelled.
+     * @throws IOException
+     */
+    private String readPattern() throws IOException {
+        /* The pattern read so far. */
+        StringBuilder search = new StringBuilder();
+
+        this.output.append("/");
+        this.output.flush();
+        while (true) {
+            int key = this.execution.readKey();
+            switch (key) {
+            case '\r':
+            case '\n':
+                this.output.append(CLEAR_LINE);
+                return (search.length() > 0) ? search.toString() : null;
+            case 8:
+            case 127:
+                if (search.length() == 0) {
+                    this.output.append(CLEAR_LINE);
+                    return null;
+                }
+                search.setLength(search.length() - 1);
+                this.output.append("\b \b");
+                break;
+            case -1:
+            case 3:
+            case 27:
+                this.output.append(CLEAR_LINE);
+                return null;
+            default:
+                search.append((char) key);
+                this.output.append((char) key);
+            }
+            this.output.flush();
+        }
+    }
+
+    /**
+     * Throws an exception if the operator has quit the pager.
+     *
+     * @throws OutputClosedException
+     */
+    private void checkClosed() throws OutputClosedException {
+        if (this.closed) {
+            throw new OutputClosedException();
+        }
+    }
+}
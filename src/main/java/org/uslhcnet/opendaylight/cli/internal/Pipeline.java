@@ -0,0 +1,266 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.uslhcnet.opendaylight.cli.ICliConsole;
+import org.uslhcnet.opendaylight.cli.ICliFilter;
+import org.uslhcnet.opendaylight.cli.ICliFilterStage;
+import org.uslhcnet.opendaylight.cli.ICliOutput;
+import org.uslhcnet.opendaylight.cli.ICliStreamingCommand;
+import org.uslhcnet.opendaylight.cli.OutputClosedException;
+
+/**
+ * A command line split at its '|' into the command and its output filters,
+ * e.g. "show nodes | grep switch | head 5". A '|' within quotes does not split
+ * the line. The stages of the filters are created when the line is parsed,
+ * so a pipeline is used for a single execution of the command.
+ */
+public class Pipeline {
+    /** The character that separates the command and the filters. */
+    public static final char PIPE = '|';
+
+    /** The command line without the filters. */
+    private final String commandLine;
+    /** The stages of the filters, in the order of the command line. */
+    private final List<ICliFilterStage> stages;
+
+    /**
+     * Constructor.
+     *
+     * @param commandLine
+     *            The command line without the filters.
+     * @param stages
+     *            The stages of the filters.
+     */
+    private Pipeline(String commandLine, List<ICliFilterStage> stages) {
+        this.commandLine = commandLine;
+        this.stages = stages;
+    }
+
+    /**
+     * Parses a command line and creates the stages of its filters.
+     *
+     * @param line
+     *            The command line.
+     * @return The pipeline.
+     * @throws IllegalArgumentException
+     *             If a filter is unknown or its arguments are invalid. The
+     *             message is shown to the operator.
+     */
+    public static Pipeline parse(String line) throws IllegalArgumentException {
+        /* The command and the filters. */
+        List<String> segments = split(line);
+        /* The stages of the filters. */
+        List<ICliFilterStage> stages = new ArrayList<ICliFilterStage>(segments.size() - 1);
+        /* The filter registry. */
+        FilterRegistry registry = FilterRegistry.getInstance();
+
+        for (String segment : segments.subList(1, segments.size())) {
+            /* The filter and its arguments. */
+            String[] parts = segment.trim().split("\\s+", 2);
+            /* The filter. */
+            ICliFilter filter = registry.getFilter(parts[0]);
+
+            if (parts[0].equals("")) {
+                throw new IllegalArgumentException("Missing filter after '" + PIPE + "'.");
+            }
+            if (filter == null) {
+                throw new IllegalArgumentException("Unknown filter: " + parts[0]);
+            }
+            stages.add(filter.createStage((parts.length > 1) ? parts[1] : ""));
+        }
+        return new Pipeline(segments.get(0), Collections.unmodifiableList(stages));
+    }
+
+    /**
+     * Creates a pipeline without filters, e.g. for a command that takes the
+     * '|' as part of its arguments.
+     *
+     * @param line
+     *            The command line.
+     * @return The pipeline.
+     */
+    public static Pipeline unfiltered(String line) {
+        return new Pipeline(line, Collections.<ICliFilterStage> emptyList());
+    }
+
+    /**
+     * Gets the command line without the filters.
+     *
+     * @return The command line without the filters.
+     */
+    public String getCommandLine() {
+        return this.commandLine;
+    }
+
+    /**
+     * States whether the command line has any filters.
+     *
+     * @return True if the command line has filters.
+     */
+    public boolean hasFilters() {
+        return !this.stages.isEmpty();
+    }
+
+    /**
+     * Connects a command to the filters.
+     *
+     * @param command
+     *            The command.
+     * @return A command that writes the output of the command through the
+     *         filters, or the command itself if there are no filters.
+     */
+    public ICliStreamingCommand apply(ICliStreamingCommand command) {
+        if (this.stages.isEmpty()) {
+            return command;
+        }
+        return new FilteredCommand(command, this.stages);
+    }
+
+    /**
+     * Splits a command line at the pipes that are not within quotes.
+     *
+     * @param line
+     *            The command line.
+     * @return The command, followed by the filters. Contains at least one
+     *         element.
+     */
+    static List<String> split(String line) {
+        return split(line, PIPE);
+    }
+
+    /**
+     * Splits a line at the separators that are not within quotes, e.g. the
+     * ';'-separated commands of an exec request.
+     *
+     * @param line
+     *            The line.
+     * @param separator
+     *            The separator.
+     * @return The segments between the separators. Contains at least one
+     *         element.
+     */
+    static List<String> split(String line, char separator) {
+        /* The segments. */
+        List<String> segments = new ArrayList<String>(2);
+        /* The start of the current segment. */
+        int start = 0;
+        /* The current quote character, or 0 if not within quotes. */
+        char quote = 0;
+
+        for (int i = 0; i < line.length(); i++) {
+            /* The current character. */
+            char c = line.charAt(i);
+
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == separator) {
+                segments.add(line.substring(start, i));
+                start = i + 1;
+            }
+        }
+        segments.add(line.substring(start));
+        return segments;
+    }
+
+    /**
+     * A command whose output is written through the filter stages. If a stage
+     * closes the output, the command is stopped, and the remaining stages
+     * are finished as if the command had returned.
+     */
+    private static class FilteredCommand implements ICliStreamingCommand {
+        /** The command. */
+        private final ICliStreamingCommand command;
+        /** The filter stages. */
+        private final List<ICliFilterStage> stages;
+
+        /**
+         * Constructor.
+         *
+         * @param command
+         *            The command.
+         * @param stages
+         *            The filter stages.
+         */
+        FilteredCommand(ICliStreamingCommand command, List<ICliFilterStage> stages) {
+            this.command = command;
+            this.stages = stages;
+        }
+
+        @Override
+        public String getCommandString() {
+            return this.command.getCommandString();
+        }
+
+        @Override
+        public String getArguments() {
+            return this.command.getArguments();
+        }
+
+        @Override
+        public String getHelpText() {
+            return this.command.getHelpText();
+        }
+
+        @Override
+        public String execute(ICliConsole console, String arguments) {
+            return this.command.execute(console, arguments);
+        }
+
+        @Override
+        public void execute(ICliConsole console, String arguments, ICliOutput output)
+                throws IOException {
+            /* The output of the command, i.e. the first stage. */
+            ICliOutput first = output;
+
+            for (int i = this.stages.size() - 1; i >= 0; i--) {
+                first = new FilterOutput(this.stages.get(i), first);
+            }
+            try {
+                this.command.execute(console, arguments, first);
+            } catch (OutputClosedException e) {
+                if (output.isClosed()) {
+                    throw e;
+                }
+                // A stage does not need any further lines.
+            }
+            ((FilterOutput) first).finish();
+        }
+    }
+}
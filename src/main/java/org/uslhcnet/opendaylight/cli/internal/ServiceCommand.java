@@ -0,0 +1,183 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import org.osgi.framework.BundleContext;
+import org.osgi.framework.ServiceReference;
+import org.uslhcnet.opendaylight.cli.ICliCommand;
+import org.uslhcnet.opendaylight.cli.ICliConsole;
+import org.uslhcnet.opendaylight.cli.ICliService;
+
+/**
+ * Stands for a command that another bundle has published as a service. The
+ * command string, and if given the arguments and the help text, are taken
+ * from the service properties. The service object is only got from the
+ * framework when the command is resolved, i.e. used first, and released when
+ * the service goes away.
+ */
+public final class ServiceCommand implements ICliCommand {
+    /** The bundle context that gets the service. */
+    private final BundleContext context;
+    /** The reference of the command service. */
+    private final ServiceReference<ICliCommand> reference;
+    /** The command string, as given by the service properties. */
+    private volatile String commandString;
+    /** The command service. Null if not resolved yet. Guarded by this. */
+    private ICliCommand command;
+    /** States whether the service has been released. Guarded by this. */
+    private boolean released;
+
+    /**
+     * Constructor.
+     *
+     * @param context
+     *            The bundle context that gets the service.
+     * @param reference
+     *            The reference of the command service.
+     */
+    public ServiceCommand(BundleContext context, ServiceReference<ICliCommand> reference) {
+        this.context = context;
+        this.reference = reference;
+        this.commandString = getCommandString(reference);
+    }
+
+    /**
+     * Gets the command string of a command service.
+     *
+     * @param reference
+     *            The reference of the command service.
+     * @return The command string, or null if the service does not name its
+     *         command.
+     */
+    public static String getCommandString(ServiceReference<?> reference) {
+        /* The command property. */
+        Object property = reference.getProperty(ICliService.COMMAND_PROPERTY);
+
+        if (property instanceof String && !((String) property).trim().isEmpty()) {
+            return ((String) property).trim();
+        }
+        return null;
+    }
+
+    /**
+     * Updates the command string after the service properties have changed.
+     *
+     * @return The new command string, or null if the service does not name
+     *         its command anymore.
+     */
+    String refreshCommandString() {
+        this.commandString = getCommandString(this.reference);
+        return this.commandString;
+    }
+
+    /**
+     * Gets the command service, and gets it from the framework if this is the
+     * first use.
+     *
+     * @return The command service, or null if it is not available anymore.
+     */
+    public synchronized ICliCommand resolve() {
+        if (this.command == null && !this.released) {
+            this.command = this.context.getService(this.reference);
+        }
+        return this.command;
+    }
+
+    /**
+     * Releases the command service, if it has been resolved. The command
+     * cannot be resolved afterwards.
+     */
+    synchronized void release() {
+        if (this.command != null) {
+            this.context.ungetService(this.reference);
+            this.command = null;
+        }
+        this.released = true;
+    }
+
+    @Override
+    public String getCommandString() {
+        return this.commandString;
+    }
+
+    /**
+     * Gets the arguments as given by the service properties.
+     *
+     * @return The arguments, or null if the service properties do not give
+     *         them.
+     */
+    String getDeclaredArguments() {
+        /* The arguments property. */
+        Object arguments = this.reference.getProperty(ICliService.ARGUMENTS_PROPERTY);
+
+        return (arguments instanceof String) ? (String) arguments : null;
+    }
+
+    @Override
+    public String getArguments() {
+        /* The arguments as given by the service properties. */
+        String arguments = this.getDeclaredArguments();
+        /* The command service. */
+        ICliCommand resolved;
+
+        if (arguments != null) {
+            return arguments;
+        }
+        resolved = this.resolve();
+        return (resolved != null) ? resolved.getArguments() : null;
+    }
+
+    @Override
+    public String getHelpText() {
+        /* The help property. */
+        Object help = this.reference.getProperty(ICliService.HELP_PROPERTY);
+        /* The command service. */
+        ICliCommand resolved;
+
+        if (help instanceof String) {
+            return (String) help;
+        }
+        resolved = this.resolve();
+        return (resolved != null) ? resolved.getHelpText() : "";
+    }
+
+    @Override
+    public String execute(ICliConsole console, String arguments) {
+        /* The command service. */
+        ICliCommand resolved = this.resolve();
+
+        if (resolved == null) {
+            return "Command not available: " + this.commandString;
+        }
+        return resolved.execute(console, arguments);
+    }
+
+}
@@ -0,0 +1,379 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Admission control for CLI shell sessions. Sessions run on a bounded thread
+ * pool with a bounded queue, and the number of sessions per user is limited.
+ * Sessions beyond these limits are rejected, so a misbehaving client cannot
+ * exhaust the threads and memory of the controller.
+ *
+ * The limits are read from the system properties {@value #MAX_SESSIONS_PROPERTY},
+ * {@value #MAX_SESSIONS_PER_USER_PROPERTY}, and {@value #MAX_QUEUED_SESSIONS_PROPERTY}.
+ */
+public class SessionAdmissionControl {
+    /** The logger. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionAdmissionControl.class);
+    /** System property: the maximum number of concurrently running sessions. */
+    public static final String MAX_SESSIONS_PROPERTY = "cli.ssh.maxSessions";
+    /** System property: the maximum number of sessions per user. */
+    public static final String MAX_SESSIONS_PER_USER_PROPERTY = "cli.ssh.maxSessionsPerUser";
+    /** System property: the maximum number of sessions waiting for a free slot. */
+    public static final String MAX_QUEUED_SESSIONS_PROPERTY = "cli.ssh.maxQueuedSessions";
+    /** The default maximum number of concurrently running sessions. */
+    public static final int DEFAULT_MAX_SESSIONS = 16;
+    /** The default maximum number of sessions per user. */
+    public static final int DEFAULT_MAX_SESSIONS_PER_USER = 8;
+    /** The default maximum number of sessions waiting for a free slot. */
+    public static final int DEFAULT_MAX_QUEUED_SESSIONS = 16;
+    /** The name prefix of the session threads. */
+    public static final String SESSION_THREAD_NAME = "OpenDaylightShell";
+    /** The time in seconds an idle session thread is kept alive. */
+    public static final int THREAD_KEEP_ALIVE = 60;
+
+    /** The maximum number of concurrently running sessions. */
+    private final int maxSessions;
+    /** The maximum number of sessions per user. */
+    private final int maxSessionsPerUser;
+    /** The thread pool that runs the sessions. */
+    private final ThreadPoolExecutor executor;
+    /** The number of admitted (running or queued) sessions per user. Guarded by this. */
+    private final Map<String, Integer> userSessions = new HashMap<String, Integer>();
+    /** The number of currently running sessions. */
+    private final AtomicInteger running = new AtomicInteger();
+    /** The number of admitted sessions that have not finished yet. */
+    private final AtomicInteger pending = new AtomicInteger();
+    /** The number of admitted sessions. */
+    private final AtomicLong admitted = new AtomicLong();
+    /** The number of rejected sessions. */
+    private final AtomicLong rejected = new AtomicLong();
+    /** The number of sessions that had to wait for a free slot. */
+    private final AtomicLong queued = new AtomicLong();
+
+    /**
+     * Constructor. Reads the limits from the system properties.
+     */
+    public SessionAdmissionControl() {
+        this(Integer.getInteger(MAX_SESSIONS_PROPERTY, DEFAULT_MAX_SESSIONS), Integer.getInteger(
+                MAX_SESSIONS_PER_USER_PROPERTY, DEFAULT_MAX_SESSIONS_PER_USER), Integer
+                .getInteger(MAX_QUEUED_SESSIONS_PROPERTY, DEFAULT_MAX_QUEUED_SESSIONS));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxSessions
+     *            The maximum number of concurrently running sessions.
+     * @param maxSessionsPerUser
+     *            The maximum number of sessions per user.
+     * @param maxQueuedSessions
+     *            The maximum number of sessions waiting for a free slot.
+     */
+    public SessionAdmissionControl(int maxSessions, int maxSessionsPerUser, int maxQueuedSessions) {
+        this.maxSessions = Math.max(maxSessions, 1);
+        this.maxSessionsPerUser = Math.max(maxSessionsPerUser, 1);
+        this.executor = new ThreadPoolExecutor(this.maxSessions, this.maxSessions,
+                THREAD_KEEP_ALIVE, TimeUnit.SECONDS, new ArrayBlockingQueue<Runnable>(Math.max(
+                        maxQueuedSessions, 1)), new SessionThreadFactory());
+        this.executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Admits a new session and schedules it for execution.
+     *
+     * @param username
+     *            The user that opened the session.
+     * @param session
+     *            The session to run.
+     * @return <b>Admission</b> The result of the admission.
+     */
+    public Admission admit(String username, Runnable session) {
+        /* The user, never null. */
+        String user = (username != null) ? username : "";
+        /* The task that runs the session. */
+        SessionTask task = new SessionTask(user, session);
+
+        if (!this.acquire(user)) {
+            this.rejected.incrementAndGet();
+            LOGGER.info("Rejected CLI session of user {}: too many sessions.", user);
+            return Admission.REJECTED_USER_LIMIT;
+        }
+
+        /* The number of sessions that occupy or wait for a thread before this one. */
+        int ahead = this.pending.getAndIncrement();
+
+        try {
+            this.executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            this.pending.decrementAndGet();
+            this.release(user);
+            this.rejected.incrementAndGet();
+            LOGGER.info("Rejected CLI session of user {}: too many sessions.", user);
+            return Admission.REJECTED_OVERLOAD;
+        }
+
+        this.admitted.incrementAndGet();
+        // The session waits unless it has started or a thread was free when it arrived.
+        if (ahead >= this.maxSessions && !task.started.get()) {
+            this.queued.incrementAndGet();
+            return Admission.QUEUED;
+        }
+        return Admission.ADMITTED;
+    }
+
+    /**
+     * Withdraws a session that is still waiting for a free slot, e.g. because
+     * the client has disconnected, and frees its place in the queue. A session
+     * that already runs is not affected.
+     *
+     * @param session
+     *            The session, as passed to {@link #admit(String, Runnable)}.
+     */
+    public void withdraw(Runnable session) {
+        for (Runnable runnable : this.executor.getQueue()) {
+            /* The queued task. */
+            SessionTask task = (SessionTask) runnable;
+
+            if (task.session == session) {
+                if (this.executor.remove(task)) {
+                    this.pending.decrementAndGet();
+                    this.release(task.user);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Shuts the session thread pool down. Running sessions are interrupted.
+     */
+    public void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    /**
+     * Getter for the number of admitted sessions.
+     *
+     * @return The number of admitted sessions since startup.
+     */
+    public long getAdmitted() {
+        return this.admitted.get();
+    }
+
+    /**
+     * Getter for the number of rejected sessions.
+     *
+     * @return The number of rejected sessions since startup.
+     */
+    public long getRejected() {
+        return this.rejected.get();
+    }
+
+    /**
+     * Getter for the number of sessions that had to wait for a free slot.
+     *
+     * @return The number of queued sessions since startup.
+     */
+    public long getQueued() {
+        return this.queued.get();
+    }
+
+    /**
+     * Getter for the number of currently running sessions.
+     *
+     * @return The number of running sessions.
+     */
+    public int getRunning() {
+        return this.running.get();
+    }
+
+    /**
+     * Getter for the number of sessions currently waiting for a free slot.
+     *
+     * @return The number of waiting sessions.
+     */
+    public int getWaiting() {
+        return this.executor.getQueue().size();
+    }
+
+    /**
+     * Counts a new session of a user, unless the user has too many sessions.
+     *
+     * @param user
+     *            The user that opened the session.
+     * @return True if the session is counted, false if the user has too many
+     *         sessions.
+     */
+    private synchronized boolean acquire(String user) {
+        /* The number of sessions of the user. */
+        Integer sessions = this.userSessions.get(user);
+        /* The new number of sessions. */
+        int count = (sessions != null) ? sessions + 1 : 1;
+
+        if (count > this.maxSessionsPerUser) {
+            return false;
+        }
+        this.userSessions.put(user, count);
+        return true;
+    }
+
+    /**
+     * Releases a session of a user. The user is forgotten once the last
+     * session is released.
+     *
+     * @param user
+     *            The user that opened the session.
+     */
+    private synchronized void release(String user) {
+        /* The number of sessions of the user. */
+        Integer sessions = this.userSessions.get(user);
+
+        if (sessions == null) {
+            return;
+        }
+        if (sessions > 1) {
+            this.userSessions.put(user, sessions - 1);
+        } else {
+            this.userSessions.remove(user);
+        }
+    }
+
+    /**
+     * Runs a session and releases it afterwards.
+     */
+    private class SessionTask implements Runnable {
+        /** The user that opened the session. */
+        private final String user;
+        /** The session to run. */
+        private final Runnable session;
+        /** States whether the session has started. */
+        private final AtomicBoolean started = new AtomicBoolean();
+
+        /**
+         * Constructor.
+         *
+         * @param user
+         *            The user that opened the session.
+         * @param session
+         *            The session to run.
+         */
+        SessionTask(String user, Runnable session) {
+            this.user = user;
+            this.session = session;
+        }
+
+        @Override
+        public void run() {
+            this.started.set(true);
+            running.incrementAndGet();
+            try {
+                this.session.run();
+            } finally {
+                running.decrementAndGet();
+                pending.decrementAndGet();
+                release(this.user);
+            }
+        }
+    }
+
+    /**
+     * The result of a session admission.
+     */
+    public enum Admission {
+        /** The session runs immediately. */
+        ADMITTED(null),
+        /** The session waits for a free slot. */
+        QUEUED("All CLI sessions are busy. Waiting for a free session ..."),
+        /** The session was rejected since the user has too many sessions. */
+        REJECTED_USER_LIMIT("Too many CLI sessions for this user. Please close a session first."),
+        /** The session was rejected since the CLI is overloaded. */
+        REJECTED_OVERLOAD("Too many CLI sessions. Please try again later.");
+
+        /** The message shown to the client. */
+        private final String message;
+
+        /**
+         * Constructor.
+         */
+        private Admission(String message) {
+            this.message = message;
+        }
+
+        /**
+         * Getter for the message shown to the client.
+         *
+         * @return The message. Might be null.
+         */
+        public String getMessage() {
+            return this.message;
+        }
+
+        /**
+         * States whether the session was rejected.
+         *
+         * @return True if the session was rejected.
+         */
+        public boolean isRejected() {
+            return this == REJECTED_USER_LIMIT || this == REJECTED_OVERLOAD;
+        }
+    }
+
+    /**
+     * Creates the session threads. They are daemon threads with a slightly
+     * lower priority than the controller threads.
+     */
+    private static class SessionThreadFactory implements ThreadFactory {
+        /** The number of threads created so far. */
+        private final AtomicInteger threads = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, SESSION_THREAD_NAME + "-"
+                    + this.threads.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setPriority(Thread.NORM_PRIORITY - 1);
+            return thread;
+        }
+    }
+}
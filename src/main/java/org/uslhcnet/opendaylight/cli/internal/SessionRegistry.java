@@ -0,0 +1,269 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.opendaylight.controller.sal.authorization.UserLevel;
+import org.opendaylight.controller.usermanager.IUserManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The registry of the live CLI shell sessions. Sessions that have neither
+ * read input nor run a command for longer than the idle timeout, set by the
+ * system property {@value #IDLE_TIMEOUT_PROPERTY} in seconds, are terminated by
+ * a single reaper thread that checks all sessions periodically.
+ *
+ * Users may only see the commands of, and terminate, their own sessions,
+ * unless they are administrators according to the user manager.
+ */
+public class SessionRegistry {
+    /** The logger. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SessionRegistry.class);
+    /** System property: the idle timeout in seconds. Zero disables the timeout. */
+    public static final String IDLE_TIMEOUT_PROPERTY = "cli.ssh.idleTimeout";
+    /** The default idle timeout in seconds. */
+    public static final long DEFAULT_IDLE_TIMEOUT = 1800;
+    /** The maximum interval in seconds between two checks for idle sessions. */
+    public static final long MAX_REAP_INTERVAL = 60;
+    /** The name of the reaper thread. */
+    public static final String REAPER_THREAD_NAME = "OpenDaylightSessionReaper";
+
+    /** The idle timeout in milliseconds. Zero or less if disabled. */
+    private final long idleTimeout;
+    /** The live sessions, keyed by identifier. */
+    private final ConcurrentMap<Integer, CliSession> sessions =
+            new ConcurrentHashMap<Integer, CliSession>();
+    /** The last session identifier handed out. */
+    private final AtomicInteger lastId = new AtomicInteger();
+    /** The scheduler that reaps idle sessions. Null if there is no idle timeout. */
+    private final ScheduledExecutorService reaper;
+    /** The user manager that knows the administrators. Might be null. */
+    private volatile IUserManager userManager;
+
+    /**
+     * Constructor. Reads the idle timeout from the system properties.
+     */
+    public SessionRegistry() {
+        this(TimeUnit.SECONDS.toMillis(Long.getLong(IDLE_TIMEOUT_PROPERTY, DEFAULT_IDLE_TIMEOUT)));
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param idleTimeout
+     *            The idle timeout in milliseconds. Zero or less disables the
+     *            timeout.
+     */
+    public SessionRegistry(long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+        if (idleTimeout > 0) {
+            /* The interval between two checks in milliseconds. */
+            long interval = Math.max(1000,
+                    Math.min(idleTimeout / 4, TimeUnit.SECONDS.toMillis(MAX_REAP_INTERVAL)));
+            this.reaper = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, REAPER_THREAD_NAME);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            this.reaper.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    reapIdleSessions();
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        } else {
+            this.reaper = null;
+        }
+    }
+
+    /**
+     * Setter for the user manager that knows the administrators.
+     *
+     * @param userManager
+     *            The user manager, or null if there is none. Without a user
+     *            manager, nobody is an administrator.
+     */
+    public void setUserManager(IUserManager userManager) {
+        this.userManager = userManager;
+    }
+
+    /**
+     * States whether a user may see the command of, and terminate, a session.
+     * Users may access their own sessions; network and system administrators
+     * may access all sessions.
+     *
+     * @param user
+     *            The user. Might be null.
+     * @param session
+     *            The session.
+     * @return True if the user may access the session.
+     */
+    public boolean mayAccess(String user, CliSession session) {
+        return user != null && (user.equals(session.getUser()) || this.isAdministrator(user));
+    }
+
+    /**
+     * States whether a user is a network or system administrator.
+     *
+     * @param user
+     *            The user.
+     * @return True if the user is an administrator.
+     */
+    private boolean isAdministrator(String user) {
+        /* The current user manager. */
+        IUserManager manager = this.userManager;
+        /* The level of the user. */
+        UserLevel level = (manager != null) ? manager.getUserLevel(user) : null;
+
+        return level != null && level.toNumber() <= UserLevel.NETWORKADMIN.toNumber();
+    }
+
+    /**
+     * Registers a new session.
+     *
+     * @param user
+     *            The user that opened the session.
+     * @param remoteAddress
+     *            The remote address of the client.
+     * @param terminator
+     *            Terminates the session when run.
+     * @return The registered session.
+     */
+    public CliSession register(String user, String remoteAddress, Runnable terminator) {
+        /* The new session. */
+        CliSession session = new CliSession(this.lastId.incrementAndGet(), user, remoteAddress,
+                terminator);
+
+        this.sessions.put(session.getId(), session);
+        return session;
+    }
+
+    /**
+     * Removes a session that has ended.
+     *
+     * @param session
+     *            The session.
+     */
+    public void unregister(CliSession session) {
+        this.sessions.remove(session.getId(), session);
+    }
+
+    /**
+     * Gets a live session.
+     *
+     * @param id
+     *            The session identifier.
+     * @return The session, or null if there is no such session.
+     */
+    public CliSession getSession(int id) {
+        return this.sessions.get(id);
+    }
+
+    /**
+     * Gets all live sessions.
+     *
+     * @return The sessions, ordered by identifier.
+     */
+    public List<CliSession> getSessions() {
+        /* The sessions. */
+        List<CliSession> all = new ArrayList<CliSession>(this.sessions.values());
+
+        Collections.sort(all, new Comparator<CliSession>() {
+            @Override
+            public int compare(CliSession s1, CliSession s2) {
+                return (s1.getId() < s2.getId()) ? -1 : ((s1.getId() == s2.getId()) ? 0 : 1);
+            }
+        });
+        return all;
+    }
+
+    /**
+     * Terminates a session.
+     *
+     * @param id
+     *            The session identifier.
+     * @return True if the session existed.
+     */
+    public boolean terminate(int id) {
+        /* The session. */
+        CliSession session = this.sessions.remove(id);
+
+        if (session == null) {
+            return false;
+        }
+        LOGGER.info("Terminating CLI session {} of user {}.", id, session.getUser());
+        session.terminate();
+        return true;
+    }
+
+    /**
+     * Stops the reaper. The sessions themselves are closed by the SSH server.
+     */
+    public void shutdown() {
+        if (this.reaper != null) {
+            this.reaper.shutdownNow();
+        }
+        this.sessions.clear();
+    }
+
+    /**
+     * Terminates all sessions that have been idle for longer than the idle
+     * timeout.
+     */
+    private void reapIdleSessions() {
+        for (CliSession session : this.sessions.values()) {
+            if (session.getIdleTime() > this.idleTimeout
+                    && this.sessions.remove(session.getId(), session)) {
+                LOGGER.info("Terminating CLI session {} of user {}: idle for {} s.",
+                        session.getId(), session.getUser(), session.getIdleTime() / 1000);
+                try {
+                    session.terminate();
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Terminating CLI session {} failed.", session.getId(), e);
+                }
+            }
+        }
+    }
+}
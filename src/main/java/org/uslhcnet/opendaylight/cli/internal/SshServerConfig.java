@@ -0,0 +1,372 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.util.Dictionary;
+import java.util.Locale;
+
+import org.apache.sshd.SshServer;
+import org.apache.sshd.common.FactoryManager;
+import org.apache.sshd.common.io.nio2.Nio2ServiceFactoryFactory;
+import org.osgi.service.cm.ConfigurationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The configuration of the SSH server, as set by the configuration admin
+ * under {@link #PID}, e.g.:
+ *
+ * <pre>
+ * port = 55220
+ * bindAddress = 127.0.0.1
+ * io = mina
+ * workers = 4
+ * backlog = 200
+ * profile = lan-fast
+ * </pre>
+ *
+ * Missing keys keep their defaults. A configuration is immutable; the server
+ * is restarted if a new one differs from the current one.
+ */
+public final class SshServerConfig {
+    /** The persistent identity of the configuration. */
+    public static final String PID = "org.uslhcnet.opendaylight.cli.ssh";
+    /** The key of the port to listen on. */
+    public static final String PORT_KEY = "port";
+    /** The key of the address to listen on. All addresses if not set. */
+    public static final String BIND_ADDRESS_KEY = "bindAddress";
+    /** The key of the I/O layer: "nio2" or "mina". */
+    public static final String IO_KEY = "io";
+    /** The key of the number of I/O worker threads. */
+    public static final String WORKERS_KEY = "workers";
+    /** The key of the maximum number of pending connections. */
+    public static final String BACKLOG_KEY = "backlog";
+    /** The key of the transport profile, see {@link SshTransportProfile}. */
+    public static final String PROFILE_KEY = "profile";
+    /** The default port. */
+    public static final int DEFAULT_PORT = 55220;
+    /** The default backlog, as used by the SSH library. */
+    public static final int DEFAULT_BACKLOG = 50;
+    /** The logger. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SshServerConfig.class);
+
+    /**
+     * The I/O layers of the SSH server.
+     */
+    public enum IoBackend {
+        /** The asynchronous channels of the JVM, the default of the SSH library. */
+        NIO2,
+        /** Apache MINA, whose backlog can be configured. */
+        MINA;
+
+        @Override
+        public String toString() {
+            return this.name().toLowerCase(Locale.ROOT);
+        }
+    }
+
+    /** The port to listen on. */
+    private final int port;
+    /** The address to listen on. Null for all addresses. */
+    private final String bindAddress;
+    /** The I/O layer. */
+    private final IoBackend io;
+    /** The number of I/O worker threads. */
+    private final int workers;
+    /** The maximum number of pending connections. */
+    private final int backlog;
+    /** The transport profile. */
+    private final SshTransportProfile profile;
+
+    /**
+     * Constructor.
+     *
+     * @param port
+     *            The port to listen on.
+     * @param bindAddress
+     *            The address to listen on. Null for all addresses.
+     * @param io
+     *            The I/O layer.
+     * @param workers
+     *            The number of I/O worker threads.
+     * @param backlog
+     *            The maximum number of pending connections.
+     * @param profile
+     *            The transport profile.
+     */
+    public SshServerConfig(int port, String bindAddress, IoBackend io, int workers,
+            int backlog, SshTransportProfile profile) {
+        this.port = port;
+        this.bindAddress = bindAddress;
+        this.io = io;
+        this.workers = workers;
+        this.backlog = backlog;
+        this.profile = profile;
+    }
+
+    /**
+     * Gets the default configuration. The transport profile is taken from the
+     * system property {@link SshTransportProfile#PROFILE_PROPERTY}.
+     *
+     * @return The default configuration.
+     */
+    public static SshServerConfig defaults() {
+        return new SshServerConfig(DEFAULT_PORT, null, IoBackend.NIO2,
+                FactoryManager.DEFAULT_NIO_WORKERS, DEFAULT_BACKLOG,
+                SshTransportProfile.fromConfiguration());
+    }
+
+    /**
+     * Parses a configuration as given by the configuration admin.
+     *
+     * @param properties
+     *            The configuration properties. Null for the defaults.
+     * @return The configuration.
+     * @throws ConfigurationException
+     *             If a value is invalid.
+     */
+    public static SshServerConfig fromProperties(Dictionary<String, ?> properties)
+            throws ConfigurationException {
+        /* The default configuration. */
+        SshServerConfig defaults = defaults();
+        /* The configured address. */
+        String bindAddress;
+        /* The configured I/O layer. */
+        String io;
+        /* The configured profile. */
+        String profileName;
+        /* The profile. */
+        SshTransportProfile profile = defaults.profile;
+
+        if (properties == null) {
+            return defaults;
+        }
+
+        bindAddress = getString(properties, BIND_ADDRESS_KEY);
+        if (bindAddress != null && (bindAddress.equals("*") || bindAddress.equals("0.0.0.0"))) {
+            bindAddress = null;
+        }
+        io = getString(properties, IO_KEY);
+        if (io != null && !io.equalsIgnoreCase("nio2") && !io.equalsIgnoreCase("mina")) {
+            throw new ConfigurationException(IO_KEY, "Must be nio2 or mina: " + io);
+        }
+        profileName = getString(properties, PROFILE_KEY);
+        if (profileName != null) {
+            profile = SshTransportProfile.fromString(profileName);
+            if (profile == null) {
+                throw new ConfigurationException(PROFILE_KEY, "Unknown profile: " + profileName);
+            }
+        }
+
+        // Return.
+        return new SshServerConfig(getInt(properties, PORT_KEY, defaults.port, 0, 65535),
+                bindAddress,
+                (io != null) ? IoBackend.valueOf(io.toUpperCase(Locale.ROOT)) : defaults.io,
+                getInt(properties, WORKERS_KEY, defaults.workers, 1, 1024),
+                getInt(properties, BACKLOG_KEY, defaults.backlog, 1, 65535),
+                profile);
+    }
+
+    /**
+     * Gets a trimmed, non-empty string value of a configuration.
+     *
+     * @param properties
+     *            The configuration properties.
+     * @param key
+     *            The key.
+     * @return The value, or null if it is not set or empty.
+     */
+    private static String getString(Dictionary<String, ?> properties, String key) {
+        /* The value. */
+        Object value = properties.get(key);
+
+        if (value == null || value.toString().trim().isEmpty()) {
+            return null;
+        }
+        return value.toString().trim();
+    }
+
+    /**
+     * Gets an integer value of a configuration.
+     *
+     * @param properties
+     *            The configuration properties.
+     * @param key
+     *            The key.
+     * @param defaultValue
+     *            The value if the key is not set.
+     * @param min
+     *            The minimum value.
+     * @param max
+     *            The maximum value.
+     * @return The value.
+     * @throws ConfigurationException
+     *             If the value is not a number or out of range.
+     */
+    private static int getInt(Dictionary<String, ?> properties, String key, int defaultValue,
+            int min, int max) throws ConfigurationException {
+        /* The string value. */
+        String string = getString(properties, key);
+        /* The value. */
+        int value;
+
+        if (string == null) {
+            return defaultValue;
+        }
+        try {
+            value = Integer.parseInt(string);
+        } catch (NumberFormatException e) {
+            throw new ConfigurationException(key, "Not a number: " + string);
+        }
+        if (value < min || value > max) {
+            throw new ConfigurationException(key, "Must be between " + min + " and " + max
+                    + ": " + value);
+        }
+        return value;
+    }
+
+    /**
+     * Applies this configuration to an SSH server. Call it before the server
+     * is started.
+     *
+     * @param sshd
+     *            The SSH server, set up with its defaults.
+     */
+    public void apply(SshServer sshd) {
+        sshd.setPort(this.port);
+        sshd.setHost(this.bindAddress);
+        sshd.getProperties().put(FactoryManager.NIO_WORKERS, Integer.toString(this.workers));
+        if (this.io == IoBackend.MINA) {
+            sshd.setIoServiceFactoryFactory(new MinaIoServiceFactoryFactory(this.backlog));
+        } else {
+            // The NIO2 acceptor of the SSH library has a fixed backlog.
+            if (this.backlog != DEFAULT_BACKLOG) {
+                LOGGER.warn("The {} I/O layer ignores the {} of {}; use {}.", this.io,
+                        BACKLOG_KEY, this.backlog, IoBackend.MINA);
+            }
+            sshd.setIoServiceFactoryFactory(new Nio2ServiceFactoryFactory());
+        }
+        this.profile.apply(sshd);
+    }
+
+    /**
+     * Gets the port to listen on.
+     *
+     * @return The port. 0 for any free port.
+     */
+    public int getPort() {
+        return this.port;
+    }
+
+    /**
+     * Gets the address to listen on.
+     *
+     * @return The address, or null for all addresses.
+     */
+    public String getBindAddress() {
+        return this.bindAddress;
+    }
+
+    /**
+     * Gets the I/O layer.
+     *
+     * @return The I/O layer.
+     */
+    public IoBackend getIo() {
+        return this.io;
+    }
+
+    /**
+     * Gets the number of I/O worker threads.
+     *
+     * @return The number of I/O worker threads.
+     */
+    public int getWorkers() {
+        return this.workers;
+    }
+
+    /**
+     * Gets the maximum number of pending connections.
+     *
+     * @return The backlog.
+     */
+    public int getBacklog() {
+        return this.backlog;
+    }
+
+    /**
+     * Gets the transport profile.
+     *
+     * @return The transport profile.
+     */
+    public SshTransportProfile getProfile() {
+        return this.profile;
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        /* The other configuration. */
+        SshServerConfig other;
+
+        if (this == obj) {
+            return true;
+        }
+        if (!(obj instanceof SshServerConfig)) {
+            return false;
+        }
+        other = (SshServerConfig) obj;
+        return this.port == other.port
+                && ((this.bindAddress == null) ? other.bindAddress == null : this.bindAddress
+                        .equals(other.bindAddress)) && this.io == other.io
+                && this.workers == other.workers && this.backlog == other.backlog
+                && this.profile == other.profile;
+    }
+
+    @Override
+    public int hashCode() {
+        /* The hash code. */
+        int hash = this.port;
+
+        hash = 31 * hash + ((this.bindAddress != null) ? this.bindAddress.hashCode() : 0);
+        hash = 31 * hash + this.io.hashCode();
+        hash = 31 * hash + this.workers;
+        hash = 31 * hash + this.backlog;
+        return 31 * hash + this.profile.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return ((this.bindAddress != null) ? this.bindAddress : "*") + ":" + this.port + " ("
+                + this.io + ", " + this.workers + " workers, backlog " + this.backlog + ", "
+                + this.profile + " profile)";
+    }
+
+}
@@ -0,0 +1,256 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.security.KeyPair;
+import java.util.Dictionary;
+import java.util.Enumeration;
+import java.util.Hashtable;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.felix.dm.Component;
+import org.apache.sshd.SshServer;
+import org.apache.sshd.common.KeyPairProvider;
+import org.apache.sshd.server.keyprovider.SimpleGeneratorHostKeyProvider;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Starts the SSH server off the bundle activation thread: it loads the host
+ * key, or generates and stores it on the first start, binds the server, and
+ * then reports the server as ready through the service properties of the CLI
+ * component, i.e. {@link #READY_PROPERTY} and {@link #PORT_PROPERTY}.
+ *
+ * The host key algorithm and size are configured by system properties. The
+ * default is a 256 bit ECDSA key, which is fast to generate and makes for fast
+ * handshakes. If no algorithm is configured and the DSA key of earlier
+ * versions exists, the DSA key is kept, so clients do not see a changed host
+ * key.
+ */
+public class SshServerStartup implements Runnable {
+    /** The logger. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SshServerStartup.class);
+    /** The property that sets the host key algorithm: EC, RSA, or DSA. */
+    public static final String ALGORITHM_PROPERTY = "cli.ssh.hostKey.algorithm";
+    /** The property that sets the host key size in bits. */
+    public static final String SIZE_PROPERTY = "cli.ssh.hostKey.size";
+    /** The property that sets the host key file. */
+    public static final String PATH_PROPERTY = "cli.ssh.hostKey.path";
+    /** The default host key algorithm. */
+    public static final String DEFAULT_ALGORITHM = "EC";
+    /** The host key algorithm of earlier versions. */
+    public static final String LEGACY_ALGORITHM = "DSA";
+    /** The host key file of earlier versions. */
+    public static final String LEGACY_HOSTKEY = "./configuration/ssh_host_dsa_key.pub";
+    /** The service property that states whether the SSH server is ready. */
+    public static final String READY_PROPERTY = "cli.ssh.ready";
+    /** The service property that holds the port of the SSH server. */
+    public static final String PORT_PROPERTY = "cli.ssh.port";
+    /** The name of the startup thread. */
+    public static final String THREAD_NAME = "OpenDaylightSshStartup";
+
+    /** The SSH server. */
+    private final SshServer sshd;
+    /** The provider of the host key. */
+    private final KeyPairProvider keyPairProvider;
+    /** The CLI component whose service properties report the readiness. */
+    private final Component component;
+    /** The thread that starts the server. */
+    private Thread thread;
+    /** States whether the server is ready. */
+    private volatile boolean ready;
+
+    /**
+     * Constructor.
+     *
+     * @param sshd
+     *            The configured SSH server.
+     * @param keyPairProvider
+     *            The provider of the host key, as set on the server.
+     * @param component
+     *            The CLI component. Might be null.
+     */
+    public SshServerStartup(SshServer sshd, KeyPairProvider keyPairProvider, Component component) {
+        this.sshd = sshd;
+        this.keyPairProvider = keyPairProvider;
+        this.component = component;
+    }
+
+    /**
+     * Creates the provider of the host key as configured by the system
+     * properties. The key is neither loaded nor generated yet.
+     *
+     * @return The key pair provider.
+     */
+    public static KeyPairProvider createKeyPairProvider() {
+        /* The configured algorithm. */
+        String algorithm = System.getProperty(ALGORITHM_PROPERTY);
+        /* The configured key file. */
+        String path = System.getProperty(PATH_PROPERTY);
+
+        if (algorithm == null && path == null && new File(LEGACY_HOSTKEY).isFile()) {
+            LOGGER.info("Using the existing {} host key {}. Set {} to change the algorithm.",
+                    LEGACY_ALGORITHM, LEGACY_HOSTKEY, ALGORITHM_PROPERTY);
+            return new SimpleGeneratorHostKeyProvider(LEGACY_HOSTKEY, LEGACY_ALGORITHM);
+        }
+
+        algorithm = (algorithm != null) ? algorithm.trim().toUpperCase() : DEFAULT_ALGORITHM;
+        if (algorithm.equals("ECDSA")) {
+            algorithm = "EC";
+        }
+        if (path == null) {
+            path = "./configuration/ssh_host_" + algorithm.toLowerCase() + "_key.pub";
+        }
+
+        // Return.
+        return new SimpleGeneratorHostKeyProvider(path, algorithm, Integer.getInteger(
+                SIZE_PROPERTY, getDefaultKeySize(algorithm)));
+    }
+
+    /**
+     * Gets the default key size of an algorithm.
+     *
+     * @param algorithm
+     *            The algorithm.
+     * @return The key size in bits.
+     */
+    private static int getDefaultKeySize(String algorithm) {
+        if (algorithm.equals("EC")) {
+            return 256;
+        }
+        if (algorithm.equals("RSA")) {
+            return 2048;
+        }
+        return 1024;
+    }
+
+    /**
+     * Starts the server on a new thread.
+     */
+    public synchronized void start() {
+        this.thread = new Thread(this, THREAD_NAME);
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Waits for the startup to finish, e.g. before the server is stopped.
+     *
+     * @param timeout
+     *            The maximum time to wait in milliseconds.
+     * @throws InterruptedException
+     */
+    public void await(long timeout) throws InterruptedException {
+        /* The thread that starts the server. */
+        Thread startup;
+
+        synchronized (this) {
+            startup = this.thread;
+        }
+        if (startup != null) {
+            startup.join(timeout);
+        }
+    }
+
+    /**
+     * States whether the server has been started.
+     *
+     * @return True if the server is ready.
+     */
+    public boolean isReady() {
+        return this.ready;
+    }
+
+    @Override
+    public void run() {
+        /* The start time. */
+        long startTime = System.nanoTime();
+        /* The host keys. */
+        Iterator<KeyPair> keys;
+
+        try {
+            // Load or generate the host key now, not on the first login.
+            keys = this.keyPairProvider.loadKeys().iterator();
+            if (!keys.hasNext()) {
+                LOGGER.error("Starting application-internal SSH server failed: no host key.");
+                return;
+            }
+            LOGGER.debug("Loaded {} host key in {} ms.", keys.next().getPublic().getAlgorithm(),
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime));
+
+            this.sshd.start();
+            this.ready = true;
+            this.setServiceProperties(true);
+            LOGGER.info("Started application-internal SSH server on port {} in {} ms.",
+                    this.sshd.getPort(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime()
+                            - startTime));
+        } catch (IOException e) {
+            LOGGER.error("Starting application-internal SSH server on port {} failed",
+                    this.sshd.getPort());
+        } catch (RuntimeException e) {
+            // E.g. an unsupported host key algorithm. The server is not ready.
+            this.ready = false;
+            LOGGER.error("Starting application-internal SSH server on port {} failed",
+                    this.sshd.getPort(), e);
+        }
+    }
+
+    /**
+     * Updates the readiness in the service properties of the CLI component.
+     *
+     * @param ready
+     *            States whether the server is ready.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    public void setServiceProperties(boolean ready) {
+        /* The current service properties. */
+        Dictionary current;
+        /* The new service properties. */
+        Dictionary<Object, Object> properties = new Hashtable<Object, Object>();
+
+        if (this.component == null) {
+            return;
+        }
+        current = this.component.getServiceProperties();
+        if (current != null) {
+            for (Enumeration keys = current.keys(); keys.hasMoreElements();) {
+                Object key = keys.nextElement();
+                properties.put(key, current.get(key));
+            }
+        }
+        properties.put(READY_PROPERTY, ready);
+        properties.put(PORT_PROPERTY, this.sshd.getPort());
+        this.component.setServiceProperties(properties);
+    }
+
+}
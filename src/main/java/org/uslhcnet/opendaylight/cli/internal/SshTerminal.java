@@ -85,4 +85,18 @@ public class SshTerminal extends TerminalSupport {
         return height > 0 ? height : super.getHeight();
     }
 
+    /**
+     * States whether the terminal is interactive, i.e. whether the client has
+     * requested a pseudo terminal and told us its size.
+     *
+     * @return True if the terminal is interactive.
+     */
+    public boolean isInteractive() {
+        try {
+            return Integer.valueOf(this.environment.getEnv().get(Environment.ENV_LINES)) > 0;
+        } catch (Throwable t) {
+            return false;
+        }
+    }
+
 }
@@ -0,0 +1,216 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.sshd.common.AbstractFactoryManager;
+import org.apache.sshd.common.Compression;
+import org.apache.sshd.common.FactoryManager;
+import org.apache.sshd.common.NamedFactory;
+import org.apache.sshd.common.compression.CompressionDelayedZlib;
+import org.apache.sshd.common.compression.CompressionNone;
+import org.apache.sshd.common.compression.CompressionZlib;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The tuning profiles of the SSH transport, chosen by the system property
+ * {@link #PROFILE_PROPERTY}. A profile sets the ciphers, MACs and compression
+ * methods the server offers, and the window size of its channels.
+ *
+ * The client picks the first of its own algorithms that the server offers, so
+ * a profile steers the choice by what it leaves out, not just by its order.
+ * The ciphers and MACs are taken from the defaults of the SSH server, which
+ * only contain the ones the JVM supports.
+ */
+public enum SshTransportProfile {
+    /** The defaults of the SSH server: no compression, all ciphers and MACs. */
+    DEFAULT("default", null, null, null, 0),
+    /**
+     * For local networks, where the output is CPU-bound: only AES, which the
+     * JVM accelerates, fast MACs, no compression, and large windows.
+     */
+    LAN_FAST("lan-fast",
+            new String[] { "aes128-ctr", "aes128-cbc", "aes256-ctr", "aes192-cbc", "aes256-cbc" },
+            new String[] { "hmac-sha1", "hmac-sha2-256", "hmac-sha2-512" },
+            new String[] { "none" }, 4 * 1024 * 1024),
+    /**
+     * For slow out-of-band links, where the output is bandwidth-bound: zlib
+     * compression once the client is authenticated, which large tables
+     * compress very well with, and windows that cover a long round trip.
+     * Clients still have to ask for compression, e.g. "ssh -C".
+     */
+    WAN_COMPRESSED("wan-compressed",
+            new String[] { "aes128-ctr", "aes128-cbc", "aes256-ctr", "aes192-cbc", "aes256-cbc" },
+            new String[] { "hmac-sha1", "hmac-sha2-256", "hmac-sha2-512" },
+            new String[] { "zlib@openssh.com", "zlib", "none" }, 8 * 1024 * 1024);
+
+    /** The system property that names the profile. */
+    public static final String PROFILE_PROPERTY = "cli.ssh.profile";
+    /** The logger. */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SshTransportProfile.class);
+
+    /** The name of the profile. */
+    private final String profileName;
+    /** The ciphers, by preference. Null for the defaults. */
+    private final String[] ciphers;
+    /** The MACs, by preference. Null for the defaults. */
+    private final String[] macs;
+    /** The compression methods, by preference. Null for the defaults. */
+    private final String[] compressions;
+    /** The window size of the channels in bytes. 0 for the default. */
+    private final int windowSize;
+
+    /**
+     * Constructor.
+     *
+     * @param profileName
+     *            The name of the profile.
+     * @param ciphers
+     *            The ciphers, by preference. Null for the defaults.
+     * @param macs
+     *            The MACs, by preference. Null for the defaults.
+     * @param compressions
+     *            The compression methods, by preference. Null for the
+     *            defaults.
+     * @param windowSize
+     *            The window size of the channels in bytes. 0 for the default.
+     */
+    private SshTransportProfile(String profileName, String[] ciphers, String[] macs,
+            String[] compressions, int windowSize) {
+        this.profileName = profileName;
+        this.ciphers = ciphers;
+        this.macs = macs;
+        this.compressions = compressions;
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Gets the profile that is configured by {@link #PROFILE_PROPERTY}.
+     *
+     * @return The configured profile, or {@link #DEFAULT} if none or an
+     *         unknown one is configured.
+     */
+    public static SshTransportProfile fromConfiguration() {
+        /* The name of the configured profile. */
+        String name = System.getProperty(PROFILE_PROPERTY);
+        /* The configured profile. */
+        SshTransportProfile profile = (name != null) ? fromString(name) : DEFAULT;
+
+        if (profile == null) {
+            LOGGER.warn("Unknown SSH transport profile {}, using {}.", name, DEFAULT);
+            return DEFAULT;
+        }
+        return profile;
+    }
+
+    /**
+     * Gets a profile by its name, ignoring the case.
+     *
+     * @param name
+     *            The name of the profile, e.g. "lan-fast".
+     * @return The profile, or null if there is no such profile.
+     */
+    public static SshTransportProfile fromString(String name) {
+        for (SshTransportProfile profile : values()) {
+            if (profile.profileName.equalsIgnoreCase(name.trim())) {
+                return profile;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Applies this profile to an SSH server or client. Call it before the
+     * server or client is started.
+     *
+     * @param manager
+     *            The SSH server or client, set up with its defaults.
+     */
+    public void apply(AbstractFactoryManager manager) {
+        if (this.ciphers != null) {
+            manager.setCipherFactories(select(manager.getCipherFactories(), this.ciphers));
+        }
+        if (this.macs != null) {
+            manager.setMacFactories(select(manager.getMacFactories(), this.macs));
+        }
+        if (this.compressions != null) {
+            /* All compression methods, since the defaults only contain "none". */
+            List<NamedFactory<Compression>> compressionFactories = Arrays
+                    .<NamedFactory<Compression>> asList(new CompressionNone.Factory(),
+                            new CompressionZlib.Factory(), new CompressionDelayedZlib.Factory());
+            manager.setCompressionFactories(select(compressionFactories, this.compressions));
+        }
+        if (this.windowSize > 0) {
+            manager.getProperties().put(FactoryManager.WINDOW_SIZE,
+                    Integer.toString(this.windowSize));
+        }
+    }
+
+    /**
+     * Selects factories by their names.
+     *
+     * @param available
+     *            The available factories.
+     * @param names
+     *            The names of the factories to select, by preference.
+     * @return The available factories with the given names, in the order of
+     *         the names, or all available factories if none has any of the
+     *         names.
+     */
+    private static <T> List<NamedFactory<T>> select(List<NamedFactory<T>> available,
+            String[] names) {
+        /* The selected factories. */
+        List<NamedFactory<T>> selected = new ArrayList<NamedFactory<T>>(names.length);
+
+        for (String name : names) {
+            /* The factory with the name. */
+            NamedFactory<T> factory = NamedFactory.Utils.get(available, name);
+            if (factory != null) {
+                selected.add(factory);
+            }
+        }
+        if (selected.isEmpty()) {
+            LOGGER.warn("None of {} is available, keeping {}.", Arrays.toString(names),
+                    NamedFactory.Utils.getNames(available));
+            return available;
+        }
+        return selected;
+    }
+
+    @Override
+    public String toString() {
+        return this.profileName;
+    }
+
+}
@@ -0,0 +1,117 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+
+import org.uslhcnet.opendaylight.cli.ICliCommand;
+import org.uslhcnet.opendaylight.cli.ICliConsole;
+import org.uslhcnet.opendaylight.cli.ICliOutput;
+import org.uslhcnet.opendaylight.cli.ICliStreamingCommand;
+import org.uslhcnet.opendaylight.cli.internal.CommandMetrics.Phase;
+
+/**
+ * Adapts a command that returns its result as a single string to the
+ * streaming command interface. The result is written to the output after the
+ * command has been executed, followed by a line break. The time this takes is
+ * recorded as the {@link Phase#RENDER} phase of the command.
+ */
+public class StreamingCommandAdapter implements ICliStreamingCommand {
+    /** The adapted command. */
+    private final ICliCommand command;
+    /** The metrics of the command. Might be null. */
+    private final CommandMetrics metrics;
+
+    /**
+     * Constructor.
+     *
+     * @param command
+     *            The command to adapt.
+     * @param metrics
+     *            The metrics of the command. Might be null.
+     */
+    private StreamingCommandAdapter(ICliCommand command, CommandMetrics metrics) {
+        this.command = command;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Gets a streaming version of a command.
+     *
+     * @param command
+     *            The command.
+     * @param metrics
+     *            The metrics of the command. Might be null.
+     * @return <b>ICliStreamingCommand</b> The command itself if it already is
+     *         a streaming command, an adapter otherwise.
+     */
+    public static ICliStreamingCommand adapt(ICliCommand command, CommandMetrics metrics) {
+        if (command instanceof ICliStreamingCommand) {
+            return (ICliStreamingCommand) command;
+        }
+        return new StreamingCommandAdapter(command, metrics);
+    }
+
+    @Override
+    public String getCommandString() {
+        return this.command.getCommandString();
+    }
+
+    @Override
+    public String getArguments() {
+        return this.command.getArguments();
+    }
+
+    @Override
+    public String getHelpText() {
+        return this.command.getHelpText();
+    }
+
+    @Override
+    public String execute(ICliConsole console, String arguments) {
+        return this.command.execute(console, arguments);
+    }
+
+    @Override
+    public void execute(ICliConsole console, String arguments, ICliOutput output)
+            throws IOException {
+        /* The result of the command execution. */
+        String result = this.command.execute(console, arguments);
+        /* The time the rendering started. */
+        long start = System.nanoTime();
+
+        if (result != null && !result.trim().equals("")) {
+            output.append(result).append('\n');
+        }
+        if (this.metrics != null) {
+            this.metrics.record(Phase.RENDER, System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * The input stream of a console that keeps the keys typed while a command is
+ * running. The console polls the underlying stream for Ctrl-C while a command
+ * runs; the keys that no pager or screen command is waiting for are pushed
+ * back and returned first by the next reads, i.e. to the console reader once
+ * the command has returned.
+ *
+ * The underlying stream is never read while the lock is held, since the
+ * console reader might block on it from its own thread.
+ */
+class TypeAheadInputStream extends FilterInputStream {
+    /** The keys pushed back, in the order they were typed. Guarded by this. */
+    private final Deque<Integer> typeAhead = new ArrayDeque<Integer>();
+
+    /**
+     * Constructor.
+     *
+     * @param in
+     *            The underlying input stream.
+     */
+    TypeAheadInputStream(InputStream in) {
+        super(in);
+    }
+
+    /**
+     * Reads a key from the underlying stream if one is available, bypassing
+     * the keys pushed back. Does not block.
+     *
+     * @return The key, or -1 if no key is available.
+     * @throws IOException
+     *             If the underlying stream cannot be read from.
+     */
+    int poll() throws IOException {
+        if (this.in.available() <= 0) {
+            return -1;
+        }
+        return this.in.read();
+    }
+
+    /**
+     * Pushes a key back, so that it is read after the keys pushed back before.
+     *
+     * @param key
+     *            The key.
+     */
+    synchronized void pushBack(int key) {
+        this.typeAhead.addLast(key);
+    }
+
+    /**
+     * Discards the keys pushed back, e.g. when the operator presses Ctrl-C.
+     */
+    synchronized void discard() {
+        this.typeAhead.clear();
+    }
+
+    @Override
+    public int read() throws IOException {
+        synchronized (this) {
+            if (!this.typeAhead.isEmpty()) {
+                return this.typeAhead.removeFirst();
+            }
+        }
+        return this.in.read();
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        synchronized (this) {
+            if (!this.typeAhead.isEmpty() && len > 0) {
+                /* The number of keys read. */
+                int count = 0;
+
+                while (count < len && !this.typeAhead.isEmpty()) {
+                    b[off + count++] = (byte) this.typeAhead.removeFirst().intValue();
+                }
+                return count;
+            }
+        }
+        return this.in.read(b, off, len);
+    }
+
+    @Override
+    public synchronized int available() throws IOException {
+        return this.typeAhead.size() + this.in.available();
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        /* The number of keys skipped. */
+        long skipped = 0;
+
+        synchronized (this) {
+            while (skipped < n && !this.typeAhead.isEmpty()) {
+                this.typeAhead.removeFirst();
+                skipped++;
+            }
+        }
+        return (skipped < n) ? skipped + this.in.skip(n - skipped) : skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
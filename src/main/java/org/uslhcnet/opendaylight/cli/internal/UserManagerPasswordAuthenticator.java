@@ -35,30 +35,59 @@ import org.opendaylight.controller.sal.authorization.AuthResultEnum;
 import org.opendaylight.controller.usermanager.IUserManager;
 
 /**
- * A very simple password authenticator that uses the ODL user manager.
+ * A very simple password authenticator that uses the ODL user manager. Recent
+ * successful logins may be cached, see {@link AuthenticationCache}.
  *
  * @author Michael Bredel <michael.bredel@cern.ch>
  */
 public class UserManagerPasswordAuthenticator implements PasswordAuthenticator {
     /** The ODL user manager. */
     private IUserManager userManager;
+    /** The cache of recent successful logins. Might be null. */
+    private AuthenticationCache cache;
 
     /**
      * Default constructor
      */
     public UserManagerPasswordAuthenticator(IUserManager userManager) {
+        this(userManager, null);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param userManager
+     *            The ODL user manager.
+     * @param cache
+     *            The cache of recent successful logins, or null to ask the
+     *            user manager on every login.
+     */
+    public UserManagerPasswordAuthenticator(IUserManager userManager, AuthenticationCache cache) {
         this.userManager = userManager;
+        this.cache = cache;
     }
 
     @Override
     public boolean authenticate(String username, String password, ServerSession serverSession) {
+        /* The generation of the cache before the user manager is asked. */
+        long generation = 0;
+
+        if (this.cache != null) {
+            if (this.cache.contains(username, password)) {
+                return true;
+            }
+            generation = this.cache.getGeneration();
+        }
+
         // Check for user credentials.
         AuthResultEnum result = this.userManager.authenticate(username, password);
 
         switch (result) {
         case AUTH_ACCEPT:
-            return true;
         case AUTH_ACCEPT_LOC:
+            if (this.cache != null) {
+                this.cache.put(username, password, generation);
+            }
             return true;
         default:
             return false;
@@ -0,0 +1,96 @@
+package org.uslhcnet.opendaylight.cli.utils;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * A pool of equally sized byte buffers. Consoles take a buffer when a session
+ * starts and return it when the session ends, so the output buffers of
+ * short-lived sessions are reused instead of allocated over and over again.
+ *
+ * The pool holds at most {@link #MAX_POOLED_BUFFERS} idle buffers. If the pool
+ * is empty, a new buffer is allocated; if it is full, a returned buffer is
+ * left to the garbage collector.
+ */
+public class BufferPool {
+    /** The size of the pooled buffers in bytes. */
+    public static final int BUFFER_SIZE = 8192;
+    /** The maximum number of idle buffers kept in the pool. */
+    public static final int MAX_POOLED_BUFFERS = 32;
+    /** The unique instance of this class. */
+    private static final BufferPool INSTANCE = new BufferPool();
+
+    /** The idle buffers. */
+    private final BlockingQueue<byte[]> buffers = new ArrayBlockingQueue<byte[]>(MAX_POOLED_BUFFERS);
+
+    /**
+     * Private constructor to avoid external instantiation.
+     */
+    private BufferPool() {
+        // Nothing to do here.
+    }
+
+    /**
+     * Returns the unique instance of the buffer pool.
+     *
+     * @return The buffer pool.
+     */
+    public static BufferPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Takes a buffer of {@link #BUFFER_SIZE} bytes from the pool.
+     *
+     * @return A buffer that is owned by the caller until it is released.
+     */
+    public byte[] acquire() {
+        /* An idle buffer from the pool. */
+        byte[] buffer = this.buffers.poll();
+
+        return (buffer != null) ? buffer : new byte[BUFFER_SIZE];
+    }
+
+    /**
+     * Returns a buffer to the pool. The caller must not use the buffer
+     * afterwards.
+     *
+     * @param buffer
+     *            The buffer to return.
+     */
+    public void release(byte[] buffer) {
+        if (buffer != null && buffer.length == BUFFER_SIZE) {
+            this.buffers.offer(buffer);
+        }
+    }
+
+}
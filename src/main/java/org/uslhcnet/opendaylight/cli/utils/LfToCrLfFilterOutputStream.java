@@ -28,11 +28,20 @@ import java.io.OutputStream;
 /**
  * Filters the SSH console output and performs an lf to crlf conversion.
  *
+ * The converted output is collected in a buffer taken from the
+ * {@link BufferPool} and written to the underlying stream in one piece when the
+ * buffer is full or the stream is flushed. Byte arrays are converted in bulk,
+ * i.e. the bytes between two line feeds are copied at once.
+ *
  * Attention: remove this class when SSHD use lf->crlf conversion by default!
  */
 public class LfToCrLfFilterOutputStream extends FilterOutputStream {
     /** States whether the last character was Cr or not. */
     private boolean lastWasCr;
+    /** The buffer that holds the converted output. Null once the stream is closed. */
+    private byte[] buffer;
+    /** The number of bytes in the buffer. */
+    private int count;
 
     /**
      * Constructor.
@@ -41,17 +50,144 @@ public class LfToCrLfFilterOutputStream extends FilterOutputStream {
      */
     public LfToCrLfFilterOutputStream(OutputStream out) {
         super(out);
+        this.buffer = BufferPool.getInstance().acquire();
     }
 
     @Override
     public void write(int b) throws IOException {
+        this.ensureCapacity(2);
         if (!lastWasCr && b == '\n') {
-            out.write('\r');
-            out.write('\n');
-        } else {
-            out.write(b);
+            this.buffer[this.count++] = '\r';
         }
+        this.buffer[this.count++] = (byte) b;
         lastWasCr = b == '\r';
     }
 
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        /* The end of the bytes to write. */
+        int end = off + len;
+        /* The start of the current run of bytes without line feeds. */
+        int runStart = off;
+
+        if (off < 0 || len < 0 || end > b.length || end < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        if (len == 0) {
+            return;
+        }
+
+        for (int i = off; i < end; i++) {
+            if (b[i] == '\n') {
+                // Copy the run and insert a carriage return before the line feed.
+                this.copy(b, runStart, i - runStart);
+                this.ensureCapacity(2);
+                if (!((i > off) ? b[i - 1] == '\r' : lastWasCr)) {
+                    this.buffer[this.count++] = '\r';
+                }
+                this.buffer[this.count++] = '\n';
+                runStart = i + 1;
+            }
+        }
+        this.copy(b, runStart, end - runStart);
+        lastWasCr = b[end - 1] == '\r';
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.flushBuffer();
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.release();
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Flushes this stream and returns its buffer to the pool, but leaves the
+     * underlying stream open. Any further write throws an exception.
+     *
+     * @throws IOException
+     */
+    public void release() throws IOException {
+        if (this.buffer != null) {
+            try {
+                this.flush();
+            } finally {
+                BufferPool.getInstance().release(this.buffer);
+                this.buffer = null;
+            }
+        }
+    }
+
+    /**
+     * Copies bytes that contain no line feed to the buffer. Writes the buffer
+     * to the underlying stream whenever it is full.
+     *
+     * @param b
+     *            The bytes.
+     * @param off
+     *            The offset of the first byte to copy.
+     * @param len
+     *            The number of bytes to copy.
+     * @throws IOException
+     */
+    private void copy(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            this.ensureCapacity(1);
+            /* The number of bytes that fit into the buffer. */
+            int chunk = Math.min(len, this.buffer.length - this.count);
+            System.arraycopy(b, off, this.buffer, this.count, chunk);
+            this.count += chunk;
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    /**
+     * Makes sure the buffer has room for the given number of bytes. Writes the
+     * buffer to the underlying stream if it has not.
+     *
+     * @param bytes
+     *            The number of bytes needed.
+     * @throws IOException
+     *             If the stream is closed.
+     */
+    private void ensureCapacity(int bytes) throws IOException {
+        if (this.count + bytes > this.buffer().length) {
+            this.flushBuffer();
+        }
+    }
+
+    /**
+     * Writes the buffered bytes to the underlying stream.
+     *
+     * @throws IOException
+     */
+    private void flushBuffer() throws IOException {
+        if (this.count > 0) {
+            out.write(this.buffer(), 0, this.count);
+            this.count = 0;
+        }
+    }
+
+    /**
+     * Returns the buffer of this stream.
+     *
+     * @return The buffer.
+     * @throws IOException
+     *             If the stream is closed.
+     */
+    private byte[] buffer() throws IOException {
+        if (this.buffer == null) {
+            throw new IOException("Stream closed");
+        }
+        return this.buffer;
+    }
+
 }
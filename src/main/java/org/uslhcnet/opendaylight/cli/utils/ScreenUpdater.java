@@ -0,0 +1,161 @@
+package org.uslhcnet.opendaylight.cli.utils;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the lines currently shown on a terminal screen and updates the screen
+ * to show new lines. Only the lines that differ from the shown ones are sent,
+ * each preceded by an ANSI cursor movement, so the amount of data scales with
+ * what has changed, not with the size of the screen.
+ *
+ * Lines are cut to the width of the terminal, and the last line of the
+ * terminal is left free for the cursor, which is parked below the shown lines
+ * after each update.
+ */
+public class ScreenUpdater {
+    /** The ANSI control sequence introducer. */
+    private static final String CSI = "\u001B[";
+
+    /** The number of columns of the terminal. */
+    private int width;
+    /** The number of lines of the terminal. */
+    private int height;
+    /** The lines currently shown. Null if the screen has to be cleared first. */
+    private List<String> shown;
+
+    /**
+     * Constructor.
+     *
+     * @param width
+     *            The number of columns of the terminal.
+     * @param height
+     *            The number of lines of the terminal.
+     */
+    public ScreenUpdater(int width, int height) {
+        this.setSize(width, height);
+    }
+
+    /**
+     * Sets the size of the terminal. If the size has changed, the next update
+     * redraws the whole screen.
+     *
+     * @param width
+     *            The number of columns of the terminal.
+     * @param height
+     *            The number of lines of the terminal.
+     */
+    public void setSize(int width, int height) {
+        if (width != this.width || height != this.height) {
+            this.width = Math.max(width, 2);
+            this.height = Math.max(height, 2);
+            this.shown = null;
+        }
+    }
+
+    /**
+     * Updates the screen to show the given text.
+     *
+     * @param text
+     *            The text, with lines separated by '\n'.
+     * @param out
+     *            The appendable of the terminal.
+     * @return The number of lines sent.
+     * @throws IOException
+     */
+    public int update(CharSequence text, Appendable out) throws IOException {
+        /* The lines to show. */
+        List<String> lines = this.split(text);
+        /* The number of lines sent. */
+        int sent = 0;
+
+        if (this.shown == null) {
+            out.append(CSI).append("H").append(CSI).append("2J");
+            this.shown = new ArrayList<String>();
+        }
+        for (int row = 0; row < lines.size(); row++) {
+            if (row < this.shown.size() && lines.get(row).equals(this.shown.get(row))) {
+                continue;
+            }
+            this.moveTo(row, out).append(lines.get(row)).append(CSI).append("K");
+            sent++;
+        }
+        if (lines.size() < this.shown.size()) {
+            // Clear the lines that are not needed anymore.
+            this.moveTo(lines.size(), out).append(CSI).append("J");
+        }
+        this.moveTo(lines.size(), out);
+        this.shown = lines;
+
+        return sent;
+    }
+
+    /**
+     * Splits a text into the lines that fit on the screen.
+     *
+     * @param text
+     *            The text.
+     * @return The lines, cut to the width of the screen.
+     */
+    private List<String> split(CharSequence text) {
+        /* The lines. */
+        List<String> lines = new ArrayList<String>();
+        /* The start of the current line. */
+        int start = 0;
+
+        for (int i = 0; i <= text.length() && lines.size() < this.height - 1; i++) {
+            if (i == text.length() || text.charAt(i) == '\n') {
+                if (i == text.length() && start == i) {
+                    break;
+                }
+                lines.add(text.subSequence(start, Math.min(i, start + this.width - 1)).toString());
+                start = i + 1;
+            }
+        }
+        return lines;
+    }
+
+    /**
+     * Moves the cursor to the start of a row.
+     *
+     * @param row
+     *            The row, starting at 0.
+     * @param out
+     *            The appendable of the terminal.
+     * @return The appendable.
+     * @throws IOException
+     */
+    private Appendable moveTo(int row, Appendable out) throws IOException {
+        return out.append(CSI).append(Integer.toString(row + 1)).append(";1H");
+    }
+}
@@ -29,7 +29,11 @@ package org.uslhcnet.opendaylight.cli.utils;
  * written permission.
  */
 
-import java.util.LinkedList;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -42,6 +46,10 @@ import java.util.List;
  * [offset] data    data    data    data
  * [offset] data    data    data    data
  *
+ * The table content is stored column by column in arrays. The width of each
+ * column is updated whenever a row is added, so the table can be written
+ * without another pass over its content and without any format strings.
+ *
  * @author Michael Bredel <michael.bredel@cern.ch>
  */
 public class StringTable {
@@ -49,13 +57,23 @@ public class StringTable {
     public static final int MIN_COLUMN_WIDTH = 5;
     /** The default offset of the separator (if set). */
     public static final int DEFAULT_OFFSET = 3;
+    /** The initial number of rows the column arrays can hold. */
+    private static final int INITIAL_CAPACITY = 16;
+    /** Blanks that are used to pad the table cells. */
+    private static final String BLANKS = "                                                                ";
+    /** Dashes that are used to generate the separator. */
+    private static final String DASHES = "----------------------------------------------------------------";
 
     /** List containing all header entries. */
     private List<String> header;
     /** List containing all footer entries. */
     private List<String> footer;
-    /** List containing all rows or the table. */
-    private List<List<String>> table;
+    /** The table content, stored as one array per column. */
+    private String[][] cells;
+    /** The length of the longest string of each column, header and footer excluded. */
+    private int[] widths;
+    /** Number of rows in the table. */
+    private int rows;
     /** Number of columns in the table. */
     private int columns;
     /** Offset to have some free space at the beginning of the table. */
@@ -70,9 +88,11 @@ public class StringTable {
         this.separator = separator;
         this.columns = 0;
         this.offset = 0;
-        this.header = new LinkedList<String>();
-        this.footer = new LinkedList<String>();
-        this.table = new LinkedList<List<String>>();
+        this.rows = 0;
+        this.header = Collections.emptyList();
+        this.footer = Collections.emptyList();
+        this.cells = new String[0][];
+        this.widths = new int[0];
     }
 
     /**
@@ -89,7 +109,7 @@ public class StringTable {
      * @return The number of rows in the table.
      */
     public int getRowLength() {
-        return this.table.size();
+        return this.rows;
     }
 
     /**
@@ -109,7 +129,16 @@ public class StringTable {
      * @return A specific table row.
      */
     public List<String> getRow(int index) {
-        return this.table.get(index);
+        /* A list of entries in a table row. */
+        List<String> row = new ArrayList<String>(this.columns);
+
+        this.checkRowIndex(index);
+        for (int column = 0; column < this.columns; column++) {
+            row.add(this.cells[column][index]);
+        }
+
+        // Return.
+        return row;
     }
 
     /**
@@ -120,16 +149,13 @@ public class StringTable {
      * @return A specific table column.
      */
     public List<String> getColumn(int index) {
-        /* A list of entries in a table column. */
-        List<String> column = new LinkedList<String>();
-
-        // Populate the column list.
-        for (List<String> row : table) {
-            column.add(row.get(index));
+        if (this.rows == 0) {
+            return new ArrayList<String>();
         }
-
-        // Return.
-        return column;
+        if (index < 0 || index >= this.columns) {
+            throw new IndexOutOfBoundsException("Column: " + index + ", Columns: " + this.columns);
+        }
+        return new ArrayList<String>(Arrays.asList(this.cells[index]).subList(0, this.rows));
     }
 
     /**
@@ -140,7 +166,7 @@ public class StringTable {
      */
     public void setHeader(List<String> header) {
         this.header = header;
-        this.columns = Math.max(this.columns, header.size());
+        this.ensureColumns(header.size());
     }
 
     /**
@@ -153,14 +179,33 @@ public class StringTable {
      *             size.
      */
     public void addRow(List<String> row) throws IndexOutOfBoundsException {
-        if (this.header != null && !this.header.isEmpty()) {
-            if (this.header.size() != row.size()) {
-                // Error.
-                throw new IndexOutOfBoundsException();
-            }
+        /* The column index. */
+        int column = 0;
+
+        this.checkRowSize(row.size());
+        this.ensureRowCapacity();
+        for (String entry : row) {
+            this.setCell(column++, entry);
         }
-        this.table.add(row);
-        this.columns = Math.max(this.columns, row.size());
+        this.finishRow(column);
+    }
+
+    /**
+     * Adds a row to the table.
+     *
+     * @param row
+     *            The entries that are added to the table.
+     * @throws IndexOutOfBoundsException
+     *             Throws exception if the row size does not match the header
+     *             size.
+     */
+    public void addRow(String... row) throws IndexOutOfBoundsException {
+        this.checkRowSize(row.length);
+        this.ensureRowCapacity();
+        for (int column = 0; column < row.length; column++) {
+            this.setCell(column, row[column]);
+        }
+        this.finishRow(row.length);
     }
 
     /**
@@ -173,14 +218,9 @@ public class StringTable {
      *             size.
      */
     public void setFooter(List<String> footer) throws IndexOutOfBoundsException {
-        if (this.header != null && !this.header.isEmpty()) {
-            if (this.header.size() != footer.size()) {
-                // Error.
-                throw new IndexOutOfBoundsException();
-            }
-        }
+        this.checkRowSize(footer.size());
         this.footer = footer;
-        this.columns = Math.max(this.columns, footer.size());
+        this.ensureColumns(footer.size());
     }
 
     /**
@@ -207,34 +247,101 @@ public class StringTable {
         return this;
     }
 
-    @Override
-    public String toString() {
-        /* String builder that contains a representation of the table content. */
-        StringBuilder stringBuilder = new StringBuilder();
-        /* Format string to format the table rows. */
-        String formatString = this.generateFormatString();
+    /**
+     * Writes the formated table row by row to an appendable, e.g. the output
+     * of a command.
+     *
+     * @param appendable
+     *            The appendable to write the table to.
+     * @return The appendable.
+     * @throws IOException
+     *             If the appendable cannot be written to.
+     */
+    public <A extends Appendable> A appendTo(A appendable) throws IOException {
+        /* The final width of each column. */
+        int[] columnWidths = this.getColumnWidths();
+        /*
+         * Rows are written to a string builder directly. Otherwise, each row
+         * is composed in a line buffer first and handed over as a whole.
+         */
+        StringBuilder line = (appendable instanceof StringBuilder) ? (StringBuilder) appendable
+                : new StringBuilder(this.getLineLength(columnWidths));
 
         // Add header if available.
-        if (!this.header.isEmpty())
-            stringBuilder.append(String.format(formatString, this.header.toArray()));
+        if (!this.header.isEmpty()) {
+            for (int column = 0; column < this.columns; column++) {
+                this.appendCell(line, this.header.get(column), columnWidths, column);
+            }
+            this.flushLine(line, appendable);
+        }
 
         // Add separator.
-        if (this.separator)
-            stringBuilder.append(this.generateSeparator());
+        if (this.separator) {
+            this.appendSeparator(line, columnWidths);
+            this.flushLine(line, appendable);
+        }
 
         // Add table contend.
-        for (List<String> row : this.table) {
-            stringBuilder.append(String.format(formatString, row.toArray()));
+        for (int row = 0; row < this.rows; row++) {
+            for (int column = 0; column < this.columns; column++) {
+                this.appendCell(line, this.cells[column][row], columnWidths, column);
+            }
+            this.flushLine(line, appendable);
         }
 
         // Add footer if available.
         if (!this.footer.isEmpty()) {
-            stringBuilder.append(this.generateSeparator());
-            stringBuilder.append(String.format(formatString, this.footer.toArray()));
+            this.appendSeparator(line, columnWidths);
+            this.flushLine(line, appendable);
+            for (int column = 0; column < this.columns; column++) {
+                this.appendCell(line, this.footer.get(column), columnWidths, column);
+            }
+            this.flushLine(line, appendable);
         }
 
         // Return.
-        return stringBuilder.toString();
+        return appendable;
+    }
+
+    @Override
+    public String toString() {
+        /* The final width of each column. */
+        int[] columnWidths = this.getColumnWidths();
+        /* The number of lines in the table. */
+        int lines = this.rows + (this.header.isEmpty() ? 0 : 1) + (this.separator ? 1 : 0)
+                + (this.footer.isEmpty() ? 0 : 2);
+
+        try {
+            return this.appendTo(new StringBuilder(lines * this.getLineLength(columnWidths)))
+                    .toString();
+        } catch (IOException e) {
+            // A string builder does not throw I/O exceptions.
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Appends a single cell to a line. The cell is padded with blanks to the
+     * width of the column and followed by a blank, the last cell of a row is
+     * followed by a line break. A line without any cells only contains the
+     * offset, where the last blank is replaced by a line break.
+     *
+     * @param line
+     *            The line to append the cell to.
+     * @param cell
+     *            The cell content.
+     * @param columnWidths
+     *            The width of each column.
+     * @param column
+     *            The index of the column.
+     */
+    private void appendCell(StringBuilder line, String cell, int[] columnWidths, int column) {
+        if (column == 0) {
+            appendRepeated(line, BLANKS, this.offset);
+        }
+        line.append(cell);
+        appendRepeated(line, BLANKS, columnWidths[column] - cell.length());
+        line.append(column == this.columns - 1 ? '\n' : ' ');
     }
 
     /**
@@ -246,101 +353,204 @@ public class StringTable {
      * and is adapted to the column width that equals the length of the longest
      * string the the column.
      *
-     * @return separator string
+     * @param line
+     *            The line to append the separator to.
+     * @param columnWidths
+     *            The width of each column.
      */
-    private String generateSeparator() {
-        /* String builder to generate the separation string. */
-        StringBuilder stringBuilder = new StringBuilder();
-
-        // Add offset blanks.
-        for (int index = 0; index < this.offset; index++) {
-            stringBuilder.append(" ");
+    private void appendSeparator(StringBuilder line, int[] columnWidths) {
+        if (this.columns == 0) {
+            // Handled by flushLine.
+            return;
+        }
+        appendRepeated(line, BLANKS, this.offset);
+        for (int column = 0; column < this.columns; column++) {
+            appendRepeated(line, DASHES, columnWidths[column]);
+            line.append(column == this.columns - 1 ? '\n' : '|');
         }
+    }
 
-        // Generate the separation string.
-        for (int index = 0; index < this.columns; index++) {
-            for (int j = 0; j < this.getMaxStringLength(index); j++) {
-                stringBuilder.append("-");
-            }
-            stringBuilder.append("|");
+    /**
+     * Hands a composed line over to the appendable and clears the line
+     * buffer. If the appendable is the line buffer itself, the line is
+     * already in place.
+     *
+     * @param line
+     *            The line buffer.
+     * @param appendable
+     *            The appendable to write the table to.
+     * @throws IOException
+     */
+    private void flushLine(StringBuilder line, Appendable appendable) throws IOException {
+        if (this.columns == 0 && this.offset > 0) {
+            // Only the offset, whose last blank is replaced by a line break.
+            appendRepeated(line, BLANKS, this.offset - 1);
+            line.append('\n');
         }
+        if (line != appendable) {
+            appendable.append(line);
+            line.setLength(0);
+        }
+    }
 
-        // Replace the last character by CR.
-        int length = stringBuilder.length();
-        if (length > 0)
-            stringBuilder.replace(length - 1, length, "\n");
+    /**
+     * Gets the width of each column, i.e. the length of the longest string in
+     * the column, including header and footer. It is at least
+     * MIN_COLUMN_WIDTH.
+     *
+     * @return The width of each column.
+     */
+    private int[] getColumnWidths() {
+        /* The width of each column. */
+        int[] columnWidths = new int[this.columns];
+
+        for (int column = 0; column < this.columns; column++) {
+            columnWidths[column] = Math.max(MIN_COLUMN_WIDTH, this.widths[column]);
+            if (!this.header.isEmpty())
+                columnWidths[column] = Math.max(columnWidths[column], this.header.get(column)
+                        .length());
+            if (!this.footer.isEmpty())
+                columnWidths[column] = Math.max(columnWidths[column], this.footer.get(column)
+                        .length());
+        }
 
         // Return.
-        return stringBuilder.toString();
+        return columnWidths;
     }
 
     /**
-     * Generates a format string to format the rows of the table. The format
-     * string looks like:
+     * Gets the length of a single line of the table.
      *
-     * %1$-23s|%2$-12s|%3$-6s|%4$-11s|%5$-23s\n";
-     *
-     * and is adapted to the column width that equals the length of the longest
-     * string the the column.
-     *
-     * @return format string.
+     * @param columnWidths
+     *            The width of each column.
+     * @return The number of characters in a line, including the line break.
      */
-    private String generateFormatString() {
-        /* String builder to generate the separation string. */
-        StringBuilder stringBuilder = new StringBuilder();
+    private int getLineLength(int[] columnWidths) {
+        /* The length of a line. */
+        int length = this.offset;
 
-        // Add offset blanks.
-        for (int index = 0; index < this.offset; index++) {
-            stringBuilder.append(" ");
+        for (int width : columnWidths) {
+            length += width + 1;
         }
 
-        // Generate the format string.
-        for (int index = 0; index < this.columns; index++) {
-            stringBuilder.append("%");
-            stringBuilder.append(index + 1);
-            stringBuilder.append("$-");
-            stringBuilder.append(this.getMaxStringLength(index));
-            stringBuilder.append("s ");
-        }
+        // Return.
+        return Math.max(length, 1);
+    }
 
-        // Replace the last character by CR.
-        int length = stringBuilder.length();
-        if (length > 0)
-            stringBuilder.replace(length - 1, length, "\n");
+    /**
+     * Sets a cell of the current row and updates the width of its column.
+     *
+     * @param column
+     *            The index of the column.
+     * @param entry
+     *            The cell content.
+     */
+    private void setCell(int column, String entry) {
+        /* The cell content, as it would be printed by String.format. */
+        String cell = String.valueOf(entry);
 
-        // Return.
-        return stringBuilder.toString();
+        this.ensureColumns(column + 1);
+        this.cells[column][this.rows] = cell;
+        this.widths[column] = Math.max(this.widths[column], cell.length());
     }
 
     /**
-     * Gets the maximum length over all strings stored in a column.
+     * Completes the current row. A row that is shorter than the table gets
+     * empty cells in the remaining columns, like the rows before a column is
+     * added.
+     *
+     * @param size
+     *            The number of cells that have been set.
+     */
+    private void finishRow(int size) {
+        for (int column = size; column < this.columns; column++) {
+            this.cells[column][this.rows] = "";
+        }
+        this.rows++;
+    }
+
+    /**
+     * Checks whether a row size matches the header size (if available).
+     *
+     * @param size
+     *            The size of the row.
+     * @throws IndexOutOfBoundsException
+     *             Throws exception if the row size does not match the header
+     *             size.
+     */
+    private void checkRowSize(int size) throws IndexOutOfBoundsException {
+        if (this.header != null && !this.header.isEmpty()) {
+            if (this.header.size() != size) {
+                // Error.
+                throw new IndexOutOfBoundsException();
+            }
+        }
+    }
+
+    /**
+     * Checks whether a row index is valid.
      *
      * @param index
-     *            The index of the column.
-     * @return the maximum length of all strings stored in the columm.
+     *            The index of the row.
      */
-    private int getMaxStringLength(int index) {
-        /*
-         * The length of the largest string in a column determines its width. It
-         * is at least MIN_COLUMN_WIDTH.
-         */
-        int maxStringLength = MIN_COLUMN_WIDTH;
-        /* A list of all strings in a column. */
-        List<String> column = getColumn(index);
+    private void checkRowIndex(int index) {
+        if (index < 0 || index >= this.rows) {
+            throw new IndexOutOfBoundsException("Row: " + index + ", Rows: " + this.rows);
+        }
+    }
 
-        // Calculate the length of the column by looking at its longest string.
-        for (String string : column) {
-            maxStringLength = Math.max(maxStringLength, string.length());
+    /**
+     * Makes sure the column arrays can hold one more row.
+     */
+    private void ensureRowCapacity() {
+        if (this.columns > 0 && this.rows == this.cells[0].length) {
+            for (int column = 0; column < this.columns; column++) {
+                this.cells[column] = Arrays.copyOf(this.cells[column], this.rows * 2);
+            }
         }
+    }
 
-        // Take header and footer into account.
-        if (!this.header.isEmpty())
-            maxStringLength = Math.max(maxStringLength, this.header.get(index).length());
-        if (!this.footer.isEmpty())
-            maxStringLength = Math.max(maxStringLength, this.footer.get(index).length());
+    /**
+     * Makes sure the table has at least the given number of columns. New
+     * columns are filled with empty strings for all existing rows.
+     *
+     * @param count
+     *            The number of columns.
+     */
+    private void ensureColumns(int count) {
+        if (count <= this.columns) {
+            return;
+        }
+        /* The row capacity of the new columns. */
+        int capacity = (this.columns > 0) ? this.cells[0].length : Math.max(INITIAL_CAPACITY,
+                this.rows + 1);
+
+        this.cells = Arrays.copyOf(this.cells, count);
+        this.widths = Arrays.copyOf(this.widths, count);
+        for (int column = this.columns; column < count; column++) {
+            this.cells[column] = new String[capacity];
+            Arrays.fill(this.cells[column], 0, this.rows, "");
+        }
+        this.columns = count;
+    }
 
-        // Return.
-        return maxStringLength;
+    /**
+     * Appends a character sequence repeatedly, until the given number of
+     * characters has been appended.
+     *
+     * @param line
+     *            The line to append the characters to.
+     * @param chars
+     *            A sequence of identical characters.
+     * @param count
+     *            The number of characters to append.
+     */
+    private static void appendRepeated(StringBuilder line, String chars, int count) {
+        while (count > 0) {
+            int length = Math.min(count, chars.length());
+            line.append(chars, 0, length);
+            count -= length;
+        }
     }
 
 }
@@ -0,0 +1,354 @@
+package org.uslhcnet.opendaylight.cli.utils;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.uslhcnet.opendaylight.cli.OutputFormat;
+
+/**
+ * Writes a table in one of the {@link OutputFormat}s. Commands that produce
+ * tables set the header, add their rows, and finish the table:
+ *
+ * <pre>
+ * TableWriter table = TableWriter.create(console.getOutputFormat(), output, stringTable);
+ * table.setHeader(&quot;SwitchID&quot;, &quot;Type&quot;);
+ * table.addRow(id, type);
+ * table.finish();
+ * </pre>
+ *
+ * The text format needs the widths of all cells before it can write the first
+ * row, so it fills a {@link StringTable} and writes it, framed by empty lines,
+ * when the table is finished. The other formats write each row as soon as it
+ * is added and neither pad nor buffer the cells.
+ *
+ * Hence, a filter that stops early, e.g. <code>show nodes | head 10</code>,
+ * only saves the padding and writing of the remaining rows in the text format,
+ * since the table is written row by row and the write that follows the last
+ * needed row fails. Every row is still added to the string table. The other
+ * formats stop at the first row that is not needed.
+ */
+public abstract class TableWriter {
+    /** The appendable the table is written to. */
+    protected final Appendable out;
+    /** The column headers. */
+    protected String[] header = new String[0];
+
+    /**
+     * Constructor.
+     *
+     * @param out
+     *            The appendable the table is written to.
+     */
+    protected TableWriter(Appendable out) {
+        this.out = out;
+    }
+
+    /**
+     * Creates a table writer.
+     *
+     * @param format
+     *            The output format.
+     * @param out
+     *            The appendable the table is written to.
+     * @param table
+     *            The (configured) string table the text format fills.
+     * @return The table writer.
+     */
+    public static TableWriter create(OutputFormat format, Appendable out, StringTable table) {
+        switch (format) {
+        case JSON:
+            return new JsonTableWriter(out, false);
+        case NDJSON:
+            return new JsonTableWriter(out, true);
+        case CSV:
+            return new CsvTableWriter(out);
+        default:
+            return new TextTableWriter(out, table);
+        }
+    }
+
+    /**
+     * Sets the column headers. Must be called before the first row is added.
+     *
+     * @param header
+     *            The column headers.
+     * @throws IOException
+     */
+    public void setHeader(String... header) throws IOException {
+        this.setColumnNames(header);
+    }
+
+    /**
+     * Sets the column names the machine-readable formats use, e.g. as keys,
+     * without adding a header to the text format. Must be called before the
+     * first row is added.
+     *
+     * @param names
+     *            The column names.
+     * @throws IOException
+     */
+    public void setColumnNames(String... names) throws IOException {
+        this.header = names;
+    }
+
+    /**
+     * Adds a row to the table.
+     *
+     * @param row
+     *            The cells of the row, one per column.
+     * @throws IOException
+     */
+    public abstract void addRow(String... row) throws IOException;
+
+    /**
+     * Finishes the table, i.e. writes whatever is left to write.
+     *
+     * @throws IOException
+     */
+    public abstract void finish() throws IOException;
+
+    /**
+     * The text format that fills a string table.
+     */
+    private static class TextTableWriter extends TableWriter {
+        /** The string table. */
+        private final StringTable table;
+
+        public TextTableWriter(Appendable out, StringTable table) {
+            super(out);
+            this.table = table;
+        }
+
+        @Override
+        public void setHeader(String... header) {
+            this.header = header;
+            this.table.setHeader(Arrays.asList(header));
+        }
+
+        @Override
+        public void setColumnNames(String... names) {
+            this.header = names;
+        }
+
+        @Override
+        public void addRow(String... row) {
+            this.table.addRow(row);
+        }
+
+        @Override
+        public void finish() throws IOException {
+            this.out.append('\n');
+            this.table.appendTo(this.out);
+            this.out.append('\n');
+        }
+    }
+
+    /**
+     * The comma-separated values format. Cells that contain a comma, a quote,
+     * or a line break are quoted.
+     */
+    private static class CsvTableWriter extends TableWriter {
+
+        public CsvTableWriter(Appendable out) {
+            super(out);
+        }
+
+        @Override
+        public void setColumnNames(String... names) throws IOException {
+            this.header = names;
+            this.writeLine(names);
+        }
+
+        @Override
+        public void addRow(String... row) throws IOException {
+            this.writeLine(row);
+        }
+
+        @Override
+        public void finish() {
+            // Every row has been written.
+        }
+
+        /**
+         * Writes a line of cells.
+         *
+         * @param cells
+         *            The cells.
+         * @throws IOException
+         */
+        private void writeLine(String[] cells) throws IOException {
+            for (int i = 0; i < cells.length; i++) {
+                if (i > 0) {
+                    this.out.append(',');
+                }
+                this.writeCell((cells[i] != null) ? cells[i] : "");
+            }
+            this.out.append('\n');
+        }
+
+        /**
+         * Writes a cell, quoted if necessary.
+         *
+         * @param cell
+         *            The cell.
+         * @throws IOException
+         */
+        private void writeCell(String cell) throws IOException {
+            /* The start of the part of the cell that has not been written. */
+            int start = 0;
+
+            if (!needsQuotes(cell)) {
+                this.out.append(cell);
+                return;
+            }
+            this.out.append('"');
+            for (int i = 0; i < cell.length(); i++) {
+                if (cell.charAt(i) == '"') {
+                    this.out.append(cell, start, i + 1).append('"');
+                    start = i + 1;
+                }
+            }
+            this.out.append(cell, start, cell.length()).append('"');
+        }
+
+        /**
+         * States whether a cell needs to be quoted.
+         *
+         * @param cell
+         *            The cell.
+         * @return True if the cell contains a comma, a quote, or a line break.
+         */
+        private static boolean needsQuotes(String cell) {
+            for (int i = 0; i < cell.length(); i++) {
+                char c = cell.charAt(i);
+                if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * The JSON formats: either an array of objects, or one object per line.
+     * The objects are keyed by the column headers.
+     */
+    private static class JsonTableWriter extends TableWriter {
+        /** Hexadecimal digits for unicode escapes. */
+        private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+        /** States whether to write one object per line instead of an array. */
+        private final boolean lines;
+        /** The number of rows written. */
+        private int rows;
+
+        public JsonTableWriter(Appendable out, boolean lines) {
+            super(out);
+            this.lines = lines;
+        }
+
+        @Override
+        public void addRow(String... row) throws IOException {
+            if (!this.lines) {
+                this.out.append((this.rows == 0) ? "[\n" : ",\n");
+            }
+            this.out.append('{');
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    this.out.append(',');
+                }
+                this.writeString((i < this.header.length) ? this.header[i] : "column" + i);
+                this.out.append(':');
+                this.writeString(row[i]);
+            }
+            this.out.append('}');
+            if (this.lines) {
+                this.out.append('\n');
+            }
+            this.rows++;
+        }
+
+        @Override
+        public void finish() throws IOException {
+            if (!this.lines) {
+                this.out.append((this.rows == 0) ? "[]\n" : "\n]\n");
+            }
+        }
+
+        /**
+         * Writes a JSON string.
+         *
+         * @param string
+         *            The string. Null is written as null.
+         * @throws IOException
+         */
+        private void writeString(String string) throws IOException {
+            /* The start of the part of the string that has not been written. */
+            int start = 0;
+
+            if (string == null) {
+                this.out.append("null");
+                return;
+            }
+            this.out.append('"');
+            for (int i = 0; i < string.length(); i++) {
+                char c = string.charAt(i);
+                if (c >= 0x20 && c != '"' && c != '\\') {
+                    continue;
+                }
+                this.out.append(string, start, i);
+                start = i + 1;
+                switch (c) {
+                case '"':
+                    this.out.append("\\\"");
+                    break;
+                case '\\':
+                    this.out.append("\\\\");
+                    break;
+                case '\n':
+                    this.out.append("\\n");
+                    break;
+                case '\r':
+                    this.out.append("\\r");
+                    break;
+                case '\t':
+                    this.out.append("\\t");
+                    break;
+                default:
+                    this.out.append("\\u00").append(HEX[c >> 4]).append(HEX[c & 0xf]);
+                }
+            }
+            this.out.append(string, start, string.length()).append('"');
+        }
+    }
+
+}
@@ -29,14 +29,55 @@ package org.uslhcnet.opendaylight.cli.utils;
  * written permission.
  */
 
+import java.text.DecimalFormatSymbols;
 import java.text.SimpleDateFormat;
+import java.util.Calendar;
 import java.util.Date;
+import java.util.GregorianCalendar;
+import java.util.Locale;
+import java.util.TimeZone;
 
 /**
+ * Formatting helpers for the command output. Each helper comes in two forms:
+ * one that returns a string, and one that appends to a string builder the
+ * caller reuses, e.g. for every row of a large table. All helpers are safe to
+ * use from any session thread.
  *
  * @author Michael Bredel <michael.bredel@cern.ch>
  */
 public class Utils {
+    /** The pattern of the formatted dates. */
+    public static final String DATE_PATTERN = "yyyy-MM-dd HH:mm:ss z";
+    /** The unit of capacities of 1 Gb/s and more. */
+    private static final String GIGABIT_UNIT = " Gb/s";
+    /** The unit of capacities below 1 Gb/s. */
+    private static final String MEGABIT_UNIT = " Mb/s";
+    /** The suffix of half duplex capacities. */
+    private static final String HALF_DUPLEX = " HD";
+    /** The units of the bit rates, by their power of 1000. */
+    private static final String[] BIT_RATE_UNITS = { " b/s", " Kb/s", " Mb/s", " Gb/s" };
+    /** The common capacities in [Mbps], whose strings are precomputed. */
+    private static final int[] COMMON_CAPACITIES = { 10, 100, 1000, 10000, 40000, 100000 };
+    /** The strings of the common full duplex capacities. */
+    private static final String[] FULL_DUPLEX_CAPACITIES = new String[COMMON_CAPACITIES.length];
+    /** The strings of the common half duplex capacities. */
+    private static final String[] HALF_DUPLEX_CAPACITIES = new String[COMMON_CAPACITIES.length];
+    /** The date formatter of each thread that formats dates. */
+    private static final ThreadLocal<DateFormatter> DATE_FORMATTER =
+            new ThreadLocal<DateFormatter>() {
+                @Override
+                protected DateFormatter initialValue() {
+                    return new DateFormatter();
+                }
+            };
+
+    static {
+        for (int i = 0; i < COMMON_CAPACITIES.length; i++) {
+            FULL_DUPLEX_CAPACITIES[i] = appendCapacity(COMMON_CAPACITIES[i], new StringBuilder())
+                    .toString();
+            HALF_DUPLEX_CAPACITIES[i] = FULL_DUPLEX_CAPACITIES[i] + HALF_DUPLEX;
+        }
+    }
 
     /**
      * Parses a date and returns a formated date string in the form:
@@ -48,9 +89,7 @@ public class Utils {
      * @return <b>String</b> A formated date string.
      */
     public static String parseDate(long timestamp) {
-        Date date = new Date();
-        date.setTime(timestamp);
-        return parseDate(date);
+        return DATE_FORMATTER.get().format(timestamp);
     }
 
     /**
@@ -62,8 +101,21 @@ public class Utils {
      * @return <b>String</b> A formated date string.
      */
     public static String parseDate(Date date) {
-        SimpleDateFormat dateformat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss z");
-        return dateformat.format(date);
+        return parseDate(date.getTime());
+    }
+
+    /**
+     * Appends a date in the form "yyyy-MM-dd HH:mm:ss z", where z is the time
+     * zone, to a string builder.
+     *
+     * @param timestamp
+     *            The Unix timestamp to format.
+     * @param out
+     *            The string builder.
+     * @return <b>StringBuilder</b> The string builder.
+     */
+    public static StringBuilder appendDate(long timestamp, StringBuilder out) {
+        return DATE_FORMATTER.get().append(timestamp, out);
     }
 
     /**
@@ -75,47 +127,39 @@ public class Utils {
      *         representation.
      */
     public static String parseCapacity(int capacity) {
-        /* States whether the link is full or half duplex. */
-        boolean fullDuplex = true;
-        /* The resulting string. */
-        String result = "";
-
-        if (capacity < 0) {
-            capacity = capacity * (-1);
-            fullDuplex = false;
-        }
-
-        switch (capacity) {
-        case 10:
-            result += "10 Mb/s";
-            break;
-        case 100:
-            result += "100 Mb/s";
-            break;
-        case 1000:
-            result += "1 Gb/s";
-            break;
-        case 10000:
-            result += "10 Gb/s";
-            break;
-        case 40000:
-            result += "40 Gb/s";
-            break;
-        case 100000:
-            result += "100 Gb/s";
-            break;
-        default:
-            if (capacity >= 1000) {
-                result += String.valueOf(capacity / 1000) + " Gb/s";
-            } else {
-                result += String.valueOf(capacity) + " Mb/s";
+        for (int i = 0; i < COMMON_CAPACITIES.length; i++) {
+            if (capacity == COMMON_CAPACITIES[i]) {
+                return FULL_DUPLEX_CAPACITIES[i];
+            }
+            if (capacity == -COMMON_CAPACITIES[i]) {
+                return HALF_DUPLEX_CAPACITIES[i];
             }
         }
+        return appendCapacity(capacity, new StringBuilder(16)).toString();
+    }
 
-        if (!fullDuplex)
-            result += " HD";
+    /**
+     * Appends the capacity in a human readable form to a string builder.
+     *
+     * @param capacity
+     *            The capacity in [Mbps]. Negative for half duplex links.
+     * @param out
+     *            The string builder.
+     * @return <b>StringBuilder</b> The string builder.
+     */
+    public static StringBuilder appendCapacity(int capacity, StringBuilder out) {
+        /* The capacity without its duplex sign. */
+        int value = (capacity < 0) ? capacity * (-1) : capacity;
 
-        return result;
+        if (value >= 1000) {
+            out.append(value / 1000).append(GIGABIT_UNIT);
+        } else {
+            out.append(value).append(MEGABIT_UNIT);
+        }
+        if (capacity < 0) {
+            out.append(HALF_DUPLEX);
+        }
+        return out;
     }
 
     /**
@@ -128,17 +172,47 @@ public class Utils {
      *         representation.
      */
     public static String parseBitRate(long bitRate) {
-        if (bitRate >= 1000 * 1000 * 1000) {
-            return bitRate / 1000 / 1000 / 1000 + " Gb/s";
-        }
-        if (bitRate >= 1000 * 1000) {
-            return bitRate / 1000 / 1000 + " Mb/s";
+        return appendBitRate(bitRate, new StringBuilder(16)).toString();
+    }
+
+    /**
+     * Appends the bit rate in a human readable form to a string builder.
+     *
+     * @param bitRate
+     *            The bit rate in [bps].
+     * @param out
+     *            The string builder.
+     * @return <b>StringBuilder</b> The string builder.
+     */
+    public static StringBuilder appendBitRate(long bitRate, StringBuilder out) {
+        /* The bit rate in the current unit. */
+        long value = bitRate;
+        /* The power of 1000 of the current unit. */
+        int unit = 0;
+
+        while (value >= 1000 && unit < BIT_RATE_UNITS.length - 1) {
+            value /= 1000;
+            unit++;
         }
-        if (bitRate >= 1000) {
-            return bitRate / 1000 + " Kb/s";
-        } else {
-            return bitRate + " b/s";
+        return out.append(value).append(BIT_RATE_UNITS[unit]);
+    }
+
+    /**
+     * Removes the quotes around a string, e.g. around the pattern of a filter.
+     *
+     * @param string
+     *            The string, possibly within single or double quotes.
+     * @return The trimmed string without its quotes.
+     */
+    public static String unquote(String string) {
+        /* The trimmed string. */
+        String trimmed = string.trim();
+
+        if (trimmed.length() >= 2 && (trimmed.charAt(0) == '"' || trimmed.charAt(0) == '\'')
+                && trimmed.charAt(trimmed.length() - 1) == trimmed.charAt(0)) {
+            return trimmed.substring(1, trimmed.length() - 1);
         }
+        return trimmed;
     }
 
     /**
@@ -147,4 +221,114 @@ public class Utils {
     private Utils() {
         // Do nothing.
     }
+
+    /**
+     * Formats dates for a single thread. It reads the fields from a calendar
+     * of its own, which is what {@link SimpleDateFormat} does too, but
+     * appends them to a string builder without creating a formatter, a date,
+     * or any intermediate strings, and uses the precomputed names of the
+     * time zone. The default time zone and locale are read when the thread
+     * formats its first date. If the locale uses a calendar other than the
+     * Gregorian one, or digits other than the ASCII ones, the formatter falls
+     * back to a simple date format of its own.
+     */
+    private static final class DateFormatter {
+        /** The calendar that computes the fields of the dates. */
+        private final Calendar calendar;
+        /** The short name of the time zone during standard time. */
+        private final String standardName;
+        /** The short name of the time zone during daylight saving time. */
+        private final String daylightName;
+        /** The simple date format used if the fields cannot be appended directly. Might be null. */
+        private final SimpleDateFormat fallback;
+        /** The string builder of the formatted dates. */
+        private final StringBuilder text = new StringBuilder(32);
+        /** The second of the last formatted date. */
+        private long lastSecond = Long.MIN_VALUE;
+        /** The last formatted date. Null if none has been formatted yet. */
+        private String lastText;
+
+        /**
+         * Default constructor.
+         */
+        DateFormatter() {
+            /* The locale, as used by a simple date format. */
+            Locale locale = Locale.getDefault(Locale.Category.FORMAT);
+            /* The time zone. */
+            TimeZone zone = TimeZone.getDefault();
+
+            this.calendar = Calendar.getInstance(zone, locale);
+            this.standardName = zone.getDisplayName(false, TimeZone.SHORT, locale);
+            this.daylightName = zone.getDisplayName(true, TimeZone.SHORT, locale);
+            if (this.calendar.getClass() == GregorianCalendar.class
+                    && DecimalFormatSymbols.getInstance(locale).getZeroDigit() == '0') {
+                this.fallback = null;
+            } else {
+                this.fallback = new SimpleDateFormat(DATE_PATTERN, locale);
+            }
+        }
+
+        /**
+         * Formats a date. Dates within the same second share the string.
+         *
+         * @param timestamp
+         *            The Unix timestamp to format.
+         * @return The formatted date.
+         */
+        String format(long timestamp) {
+            /* The second of the date. */
+            long second = (timestamp >= 0) ? timestamp / 1000 : (timestamp - 999) / 1000;
+
+            if (second != this.lastSecond || this.lastText == null) {
+                this.text.setLength(0);
+                this.lastText = this.append(timestamp, this.text).toString();
+                this.lastSecond = second;
+            }
+            return this.lastText;
+        }
+
+        /**
+         * Appends a formatted date to a string builder.
+         *
+         * @param timestamp
+         *            The Unix timestamp to format.
+         * @param out
+         *            The string builder.
+         * @return The string builder.
+         */
+        StringBuilder append(long timestamp, StringBuilder out) {
+            if (this.fallback != null) {
+                return out.append(this.fallback.format(new Date(timestamp)));
+            }
+            this.calendar.setTimeInMillis(timestamp);
+            this.appendPadded(this.calendar.get(Calendar.YEAR), 4, out).append('-');
+            this.appendPadded(this.calendar.get(Calendar.MONTH) + 1, 2, out).append('-');
+            this.appendPadded(this.calendar.get(Calendar.DAY_OF_MONTH), 2, out).append(' ');
+            this.appendPadded(this.calendar.get(Calendar.HOUR_OF_DAY), 2, out).append(':');
+            this.appendPadded(this.calendar.get(Calendar.MINUTE), 2, out).append(':');
+            this.appendPadded(this.calendar.get(Calendar.SECOND), 2, out).append(' ');
+            return out.append((this.calendar.get(Calendar.DST_OFFSET) != 0) ? this.daylightName
+                    : this.standardName);
+        }
+
+        /**
+         * Appends a non-negative number with leading zeros.
+         *
+         * @param value
+         *            The number.
+         * @param digits
+         *            The minimum number of digits.
+         * @param out
+         *            The string builder.
+         * @return The string builder.
+         */
+        private StringBuilder appendPadded(int value, int digits, StringBuilder out) {
+            for (int limit = 10, i = 1; i < digits; limit *= 10, i++) {
+                if (value < limit) {
+                    out.append('0');
+                }
+            }
+            return out.append(value);
+        }
+    }
 }
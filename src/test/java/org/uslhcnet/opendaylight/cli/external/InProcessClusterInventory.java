@@ -0,0 +1,109 @@
+package org.uslhcnet.opendaylight.cli.external;
+
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cluster whose members live in the same process, each with its own node
+ * inventory. It stands in for the cluster services in the tests of the
+ * cluster-wide commands.
+ */
+public class InProcessClusterInventory implements IClusterInventory {
+    /** The address of the local member. */
+    private final InetAddress localMember;
+    /** The node inventories of the members, by address. */
+    private final Map<InetAddress, NodeInventory> inventories =
+            new ConcurrentHashMap<InetAddress, NodeInventory>();
+
+    /**
+     * Constructor.
+     *
+     * @param localMember
+     *            The address of the local member.
+     * @param localInventory
+     *            The node inventory of the local member.
+     */
+    public InProcessClusterInventory(InetAddress localMember, NodeInventory localInventory) {
+        this.localMember = localMember;
+        this.inventories.put(localMember, localInventory);
+    }
+
+    /**
+     * Adds a member to the cluster or replaces its inventory.
+     *
+     * @param member
+     *            The address of the member.
+     * @param inventory
+     *            The node inventory of the member.
+     */
+    public void addMember(InetAddress member, NodeInventory inventory) {
+        this.inventories.put(member, inventory);
+    }
+
+    /**
+     * Removes a member from the cluster.
+     *
+     * @param member
+     *            The address of the member.
+     */
+    public void removeMember(InetAddress member) {
+        this.inventories.remove(member);
+    }
+
+    @Override
+    public InetAddress getLocalMember() {
+        return this.localMember;
+    }
+
+    @Override
+    public List<InetAddress> getMembers() {
+        return new ArrayList<InetAddress>(this.inventories.keySet());
+    }
+
+    @Override
+    public NodeInventory.Snapshot getNodes(InetAddress member) throws IOException,
+            InterruptedException {
+        /* The inventory of the member. */
+        NodeInventory inventory = this.inventories.get(member);
+
+        if (inventory == null) {
+            throw new IOException("Not a member: " + member.getHostAddress());
+        }
+        return inventory.getSnapshot();
+    }
+
+}
@@ -0,0 +1,105 @@
+package org.uslhcnet.opendaylight.cli.external.commands;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import java.util.Collection;
+import java.util.Collections;
+
+import jline.console.completer.Completer;
+
+import org.uslhcnet.opendaylight.cli.ICancellationToken;
+import org.uslhcnet.opendaylight.cli.ICliConsole;
+import org.uslhcnet.opendaylight.cli.OutputFormat;
+
+/**
+ * A console that writes tables in the CSV format.
+ */
+class CsvConsole implements ICliConsole {
+
+    @Override
+    public void setPrompt(String prompt) {
+        // There is no prompt.
+    }
+
+    @Override
+    public String getPrompt() {
+        return "";
+    }
+
+    @Override
+    public Collection<Completer> getCompleters() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public void write(String string) {
+        // Nothing to do here.
+    }
+
+    @Override
+    public String getUser() {
+        return null;
+    }
+
+    @Override
+    public ICancellationToken getCancellationToken() {
+        return new ICancellationToken() {
+            @Override
+            public boolean isCancelled() {
+                return false;
+            }
+        };
+    }
+
+    @Override
+    public OutputFormat getOutputFormat() {
+        return OutputFormat.CSV;
+    }
+
+    @Override
+    public void setOutputFormat(OutputFormat format) {
+        // The format is always CSV.
+    }
+
+    @Override
+    public int getTerminalWidth() {
+        return 0;
+    }
+
+    @Override
+    public int getTerminalHeight() {
+        return 0;
+    }
+
+    @Override
+    public void stop() {
+        // Nothing to do here.
+    }
+}
@@ -0,0 +1,180 @@
+package org.uslhcnet.opendaylight.cli.external.commands;
+
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.Description;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.Property;
+import org.opendaylight.controller.sal.core.UpdateType;
+import org.uslhcnet.opendaylight.cli.external.InProcessClusterInventory;
+import org.uslhcnet.opendaylight.cli.external.NodeInventory;
+
+/**
+ * Tests the cluster-wide node table: the owner column, and the rows of the
+ * members that do not answer in time or are not available.
+ */
+public class ShowClusterNodesCmdTest {
+    /** The header of the table in the CSV format. */
+    private static final String HEADER = "SwitchID,Description,Type,Connected Since,Owner";
+    /** The time in milliseconds the slow member takes to answer. */
+    private static final long SLOW_ANSWER = 10000;
+
+    /** The local member. */
+    private InetAddress local;
+    /** A member that answers right away. */
+    private InetAddress fast;
+    /** A member that answers only after {@link #SLOW_ANSWER} milliseconds. */
+    private InetAddress slow;
+    /** A member whose inventory is not available. */
+    private InetAddress broken;
+    /** The cluster. */
+    private InProcessClusterInventory cluster;
+    /** The command under test. */
+    private ShowClusterNodesCmd command;
+
+    @Before
+    public void setUp() throws Exception {
+        this.local = InetAddress.getByAddress(new byte[] { 10, 0, 0, 1 });
+        this.fast = InetAddress.getByAddress(new byte[] { 10, 0, 0, 2 });
+        this.slow = InetAddress.getByAddress(new byte[] { 10, 0, 0, 3 });
+        this.broken = InetAddress.getByAddress(new byte[] { 10, 0, 0, 4 });
+        this.cluster = new InProcessClusterInventory(this.local, inventory(1, "switch-1")) {
+            @Override
+            public NodeInventory.Snapshot getNodes(InetAddress member) throws IOException,
+                    InterruptedException {
+                if (member.equals(slow)) {
+                    Thread.sleep(SLOW_ANSWER);
+                } else if (member.equals(broken)) {
+                    throw new IOException("Connection refused");
+                }
+                return super.getNodes(member);
+            }
+        };
+        this.cluster.addMember(this.fast, inventory(2, "switch-2"));
+        this.command = new ShowClusterNodesCmd(this.cluster);
+    }
+
+    @After
+    public void tearDown() {
+        this.command.shutdown();
+    }
+
+    @Test
+    public void testOwnerColumn() {
+        assertEquals(Arrays.asList(HEADER,
+                "1,switch-1,OF,,10.0.0.1",
+                "2,switch-2,OF,,10.0.0.2"), this.execute(""));
+    }
+
+    @Test
+    public void testSlowMemberIsMarkedAtDeadline() {
+        /* The time the command started. */
+        long start = System.currentTimeMillis();
+
+        this.cluster.addMember(this.slow, inventory(3, "switch-3"));
+        assertEquals(Arrays.asList(HEADER,
+                "-,,,,10.0.0.3 (no answer)",
+                "1,switch-1,OF,,10.0.0.1",
+                "2,switch-2,OF,,10.0.0.2"), this.execute("-t 0.2"));
+        assertTrue("The command waited for the slow member.",
+                System.currentTimeMillis() - start < SLOW_ANSWER / 2);
+    }
+
+    @Test
+    public void testUnavailableMember() {
+        this.cluster.addMember(this.broken, inventory(4, "switch-4"));
+        assertEquals(Arrays.asList(HEADER,
+                "-,,,,10.0.0.4 (unavailable)",
+                "1,switch-1,OF,,10.0.0.1",
+                "2,switch-2,OF,,10.0.0.2"), this.execute(""));
+    }
+
+    @Test
+    public void testUsage() {
+        assertEquals(Arrays.asList("Use: show nodes cluster [-t <seconds>]"),
+                this.execute("-t"));
+    }
+
+    /**
+     * Executes the command in the CSV format.
+     *
+     * @param arguments
+     *            The arguments of the command.
+     * @return The lines of the result. The rows that follow the header are
+     *         sorted, since the members are queried in no particular order.
+     */
+    private List<String> execute(String arguments) {
+        /* The lines of the result. */
+        List<String> lines = Arrays.asList(this.command.execute(new CsvConsole(), arguments)
+                .split("\n"));
+
+        Collections.sort(lines.subList(1, lines.size()));
+        return lines;
+    }
+
+    /**
+     * Creates the node inventory of a member with a single node.
+     *
+     * @param id
+     *            The ID of the node.
+     * @param description
+     *            The description of the node.
+     * @return The node inventory.
+     */
+    private static NodeInventory inventory(long id, String description) {
+        /* The node inventory. */
+        NodeInventory inventory = new NodeInventory();
+        /* The properties of the node. */
+        Map<String, Property> props = new HashMap<String, Property>();
+
+        props.put(Description.propertyName, new Description(description));
+        try {
+            inventory.notifyNode(new Node(Node.NodeIDType.OPENFLOW, id), UpdateType.ADDED, props);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return inventory;
+    }
+}
@@ -0,0 +1,144 @@
+package org.uslhcnet.opendaylight.cli.external.commands;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.opendaylight.controller.sal.core.Description;
+import org.opendaylight.controller.sal.core.Node;
+import org.opendaylight.controller.sal.core.Property;
+import org.opendaylight.controller.sal.core.UpdateType;
+import org.uslhcnet.opendaylight.cli.external.NodeInventory;
+
+/**
+ * Tests the sort and limit options of the node table.
+ */
+public class ShowNodesCmdTest {
+    /** The header of the table in the CSV format. */
+    private static final String HEADER = "SwitchID,Description,Type,Connected Since";
+
+    /** The default locale before the test. */
+    private Locale defaultLocale;
+    /** The command under test. */
+    private ShowNodesCmd command;
+
+    @Before
+    public void setUp() throws Exception {
+        /* The node inventory. */
+        NodeInventory inventory = new NodeInventory();
+
+        this.defaultLocale = Locale.getDefault();
+        addNode(inventory, 2, "beta");
+        addNode(inventory, 3, "alpha");
+        addNode(inventory, 1, "gamma");
+        this.command = new ShowNodesCmd(inventory);
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(this.defaultLocale);
+    }
+
+    @Test
+    public void testSort() {
+        assertEquals(Arrays.asList(HEADER,
+                "1,gamma,OF,",
+                "2,beta,OF,",
+                "3,alpha,OF,"), this.execute("--sort id"));
+        assertEquals(Arrays.asList(HEADER,
+                "3,alpha,OF,",
+                "2,beta,OF,",
+                "1,gamma,OF,"), this.execute("--sort description"));
+    }
+
+    @Test
+    public void testSortDescendingWithLimit() {
+        assertEquals(Arrays.asList(HEADER,
+                "3,alpha,OF,",
+                "2,beta,OF,"), this.execute("--sort id --desc --limit 2"));
+    }
+
+    @Test
+    public void testSortTurkishLocale() {
+        Locale.setDefault(new Locale("tr", "TR"));
+        assertEquals(Arrays.asList(HEADER,
+                "1,gamma,OF,",
+                "2,beta,OF,",
+                "3,alpha,OF,"), this.execute("--sort id"));
+    }
+
+    @Test
+    public void testUsage() {
+        assertEquals(Arrays.asList("Use: show nodes [--sort <id|description|type|connected> "
+                + "[--desc]] [--limit <n>]"), this.execute("--sort owner"));
+        assertEquals(Arrays.asList("Use: show nodes [--sort <id|description|type|connected> "
+                + "[--desc]] [--limit <n>]"), this.execute("--desc"));
+    }
+
+    /**
+     * Executes the command in the CSV format.
+     *
+     * @param arguments
+     *            The arguments of the command.
+     * @return The lines of the result.
+     */
+    private List<String> execute(String arguments) {
+        return Arrays.asList(this.command.execute(new CsvConsole(), arguments).split("\n"));
+    }
+
+    /**
+     * Adds a node to a node inventory.
+     *
+     * @param inventory
+     *            The node inventory.
+     * @param id
+     *            The ID of the node.
+     * @param description
+     *            The description of the node.
+     * @throws Exception
+     */
+    private static void addNode(NodeInventory inventory, long id, String description)
+            throws Exception {
+        /* The properties of the node. */
+        Map<String, Property> props = new HashMap<String, Property>();
+
+        props.put(Description.propertyName, new Description(description));
+        inventory.notifyNode(new Node(Node.NodeIDType.OPENFLOW, id), UpdateType.ADDED, props);
+    }
+}
@@ -0,0 +1,237 @@
+package org.uslhcnet.opendaylight.cli.internal;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.uslhcnet.opendaylight.cli.ICliCommand;
+import org.uslhcnet.opendaylight.cli.ICliConsole;
+
+/**
+ * Tests the matching of command lines: unique abbreviations, ambiguous
+ * abbreviations, the longest match, and the offset of the arguments.
+ */
+public class CommandTreeTest {
+    /** The "show nodes" command. */
+    private final ICliCommand showNodes = new TestCommand("show nodes");
+    /** The "show nodes cluster" command, which extends "show nodes". */
+    private final ICliCommand showNodesCluster = new TestCommand("show nodes cluster");
+    /** The "show network" command, which shares a prefix with "show nodes". */
+    private final ICliCommand showNetwork = new TestCommand("show network");
+    /** The "exit" command. */
+    private final ICliCommand exit = new TestCommand("exit");
+
+    /** The default locale before the test. */
+    private Locale defaultLocale;
+    /** The tree under test. */
+    private CommandTree tree;
+
+    @Before
+    public void setUp() {
+        this.defaultLocale = Locale.getDefault();
+        this.tree = build(this.showNodes, this.showNodesCluster, this.showNetwork, this.exit);
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(this.defaultLocale);
+    }
+
+    @Test
+    public void testExactMatch() {
+        /* The match. */
+        CommandMatch match = this.tree.match("show nodes");
+
+        assertSame(this.showNodes, match.getCommand());
+        assertFalse(match.isAbbreviated());
+        assertEquals("", match.getArguments());
+    }
+
+    @Test
+    public void testUniquePrefix() {
+        /* The match. */
+        CommandMatch match = this.tree.match("sh no");
+
+        assertSame(this.showNodes, match.getCommand());
+        assertTrue(match.isAbbreviated());
+        assertSame(this.showNodesCluster, this.tree.match("sh nod cl").getCommand());
+        assertSame(this.exit, this.tree.match("e").getCommand());
+    }
+
+    @Test
+    public void testCaseInsensitive() {
+        assertSame(this.showNodes, this.tree.match("SHOW Nodes").getCommand());
+    }
+
+    @Test
+    public void testAmbiguousPrefix() {
+        /* The match. */
+        CommandMatch match = this.tree.match("show n");
+
+        assertNull(match.getCommand());
+        assertTrue(match.isAmbiguous());
+        assertEquals(Arrays.asList("show network", "show nodes"), match.getCandidates());
+        // One more character makes the prefix unique.
+        assertSame(this.showNetwork, this.tree.match("show ne").getCommand());
+        assertSame(this.showNodes, this.tree.match("show no").getCommand());
+    }
+
+    @Test
+    public void testLongestMatch() {
+        assertSame(this.showNodesCluster, this.tree.match("show nodes cluster").getCommand());
+        assertSame(this.showNodesCluster, this.tree.match("show nodes clu -t 5").getCommand());
+        assertSame(this.showNodes, this.tree.match("show nodes clusters").getCommand());
+        assertEquals("clusters", this.tree.match("show nodes clusters").getArguments());
+    }
+
+    @Test
+    public void testAmbiguousArgument() {
+        /* The "show nodes summary" command. */
+        ICliCommand summary = new TestCommand("show nodes summary");
+        /* The "show nodes stats" command. */
+        ICliCommand stats = new TestCommand("show nodes stats");
+        /* The tree with two sub-commands of "show nodes" starting with "s". */
+        CommandTree tree = build(this.showNodes, summary, stats, this.showNetwork);
+        /* The match. */
+        CommandMatch match = tree.match("show nodes s");
+
+        assertSame(this.showNodes, match.getCommand());
+        assertFalse(match.isAmbiguous());
+        assertEquals("s", match.getArguments());
+        assertSame(summary, tree.match("show nodes su").getCommand());
+        // Without a shorter command, the abbreviation stays ambiguous.
+        assertTrue(tree.match("show n").isAmbiguous());
+    }
+
+    @Test
+    public void testArgumentOffset() {
+        /* The command line. */
+        String line = "  show   nodes   -c  5 ";
+        /* The match. */
+        CommandMatch match = this.tree.match(line);
+
+        assertSame(this.showNodes, match.getCommand());
+        assertEquals(line.indexOf("nodes") + "nodes".length(), match.getArgumentOffset());
+        assertEquals("-c  5", match.getArguments());
+        assertEquals("-t 5", this.tree.match("sh no cl -t 5").getArguments());
+    }
+
+    @Test
+    public void testNotFound() {
+        assertNull(this.tree.match("").getCommand());
+        assertNull(this.tree.match("show").getCommand());
+        assertNull(this.tree.match("show flows").getCommand());
+        assertFalse(this.tree.match("show flows").isAmbiguous());
+        assertEquals("", this.tree.match("show flows").getArguments());
+    }
+
+    @Test
+    public void testTurkishLocale() {
+        /* The command with a capital I. */
+        ICliCommand info = new TestCommand("SHOW INFO");
+
+        Locale.setDefault(new Locale("tr", "TR"));
+        assertSame(info, build(info).match("show info").getCommand());
+
+        CommandHandler.getInstance().addCommand(info);
+        try {
+            assertSame(info, CommandHandler.getInstance().getCommand("show info"));
+        } finally {
+            CommandHandler.getInstance().removeCommand(info);
+        }
+    }
+
+    /**
+     * Builds a command tree.
+     *
+     * @param commands
+     *            The commands.
+     * @return The command tree.
+     */
+    private static CommandTree build(ICliCommand... commands) {
+        /* The commands by command string. */
+        Map<String, ICliCommand> map = new HashMap<String, ICliCommand>();
+
+        for (ICliCommand command : commands) {
+            map.put(command.getCommandString(), command);
+        }
+        return CommandTree.build(map, 1);
+    }
+
+    /**
+     * A command that does nothing.
+     */
+    private static class TestCommand implements ICliCommand {
+        /** The command string. */
+        private final String commandString;
+
+        /**
+         * Constructor.
+         *
+         * @param commandString
+         *            The command string.
+         */
+        TestCommand(String commandString) {
+            this.commandString = commandString;
+        }
+
+        @Override
+        public String getCommandString() {
+            return this.commandString;
+        }
+
+        @Override
+        public String getArguments() {
+            return null;
+        }
+
+        @Override
+        public String getHelpText() {
+            return "";
+        }
+
+        @Override
+        public String execute(ICliConsole console, String arguments) {
+            return "";
+        }
+    }
+}
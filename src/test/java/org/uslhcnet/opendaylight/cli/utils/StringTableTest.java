@@ -0,0 +1,105 @@
+package org.uslhcnet.opendaylight.cli.utils;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * Tests the layout of string tables, in particular rows with fewer cells than
+ * the table has columns.
+ */
+public class StringTableTest {
+
+    @Test
+    public void testHeaderAndSeparator() {
+        /* The table. */
+        StringTable table = new StringTable();
+
+        table.setHeader(Arrays.asList("Name", "Description"));
+        table.addRow("switch-1", "core");
+        table.addRow(Arrays.asList("s2", "edge"));
+        assertEquals(""
+                + "   Name     Description\n"
+                + "   --------|-----------\n"
+                + "   switch-1 core       \n"
+                + "   s2       edge       \n", table.toString());
+    }
+
+    @Test
+    public void testShortRow() {
+        /* The table. */
+        StringTable table = new StringTable(false);
+
+        table.addRow("a", "b", "c");
+        table.addRow("d");
+        table.addRow(Arrays.asList("e", "f"));
+        assertEquals(""
+                + "a     b     c    \n"
+                + "d                \n"
+                + "e     f          \n", table.toString());
+        assertEquals(Arrays.asList("d", "", ""), table.getRow(1));
+        assertEquals(Arrays.asList("c", "", ""), table.getColumn(2));
+    }
+
+    @Test
+    public void testLongerRowAddsColumns() {
+        /* The table. */
+        StringTable table = new StringTable(false);
+
+        table.addRow("a");
+        table.addRow("b", "longer cell");
+        assertEquals(""
+                + "a                \n"
+                + "b     longer cell\n", table.toString());
+        assertEquals(Arrays.asList("a", ""), table.getRow(0));
+    }
+
+    @Test
+    public void testNullCell() {
+        /* The table. */
+        StringTable table = new StringTable(false);
+
+        table.addRow("a", null);
+        assertEquals("a     null \n", table.toString());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testRowDoesNotMatchHeader() {
+        /* The table. */
+        StringTable table = new StringTable();
+
+        table.setHeader(Arrays.asList("Name", "Description"));
+        table.addRow("switch-1");
+    }
+}
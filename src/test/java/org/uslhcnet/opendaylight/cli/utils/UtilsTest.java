@@ -0,0 +1,175 @@
+package org.uslhcnet.opendaylight.cli.utils;
+
+/*
+ * Copyright (c) 2014, California Institute of Technology
+ * ALL RIGHTS RESERVED.
+ * Based on Government Sponsored Research DE-SC0007346
+ * Author Michael Bredel <michael.bredel@cern.ch>
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License v1.0 which accompanies this distribution,
+ * and is available at http://www.eclipse.org/legal/epl-v10.html
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR
+ * A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT
+ * HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT, INDIRECT,
+ * INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES (INCLUDING,
+ * BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR SERVICES; LOSS
+ * OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER CAUSED
+ * AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT
+ * LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY
+ * WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED OF THE
+ * POSSIBILITY OF SUCH DAMAGE.
+ *
+ * Neither the name of the California Institute of Technology
+ * (Caltech) nor the names of its contributors may be used to endorse
+ * or promote products derived from this software without specific prior
+ * written permission.
+ */
+
+import static org.junit.Assert.assertEquals;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests the formatting helpers at their boundaries. The dates are compared
+ * with the simple date format the helpers replaced, the capacities and bit
+ * rates with the strings the former implementation returned.
+ */
+public class UtilsTest {
+    /** Timestamps around the epoch, a second boundary, DST changes, and odd years. */
+    private static final long[] TIMESTAMPS = {
+        0L, -1L, -999L, -1000L, -1001L, 999L, 1000L,
+        // 2014-03-30 00:59:59.999 and 01:00:00 UTC, the start of CEST.
+        1396141199999L, 1396141200000L,
+        // 2014-10-26 00:59:59.999 and 01:00:00 UTC, the end of CEST.
+        1414285199999L, 1414285200000L,
+        // 0999-01-01, 10000-01-01, and 0002-01-03 BC.
+        -30641760000000L, 253402300800000L, -62198755200000L,
+        System.currentTimeMillis() };
+
+    /** The default locale before the test. */
+    private Locale defaultLocale;
+    /** The default time zone before the test. */
+    private TimeZone defaultZone;
+
+    @Before
+    public void setUp() {
+        this.defaultLocale = Locale.getDefault();
+        this.defaultZone = TimeZone.getDefault();
+    }
+
+    @After
+    public void tearDown() {
+        Locale.setDefault(this.defaultLocale);
+        TimeZone.setDefault(this.defaultZone);
+    }
+
+    @Test
+    public void testDate() throws Exception {
+        this.assertDates(Locale.US, "UTC");
+        this.assertDates(Locale.GERMANY, "Europe/Zurich");
+        this.assertDates(Locale.US, "America/Los_Angeles");
+        this.assertDates(Locale.US, "Asia/Kolkata");
+    }
+
+    @Test
+    public void testDateNonGregorianCalendar() throws Exception {
+        // Buddhist and Japanese imperial calendars.
+        this.assertDates(new Locale("th", "TH"), "Asia/Bangkok");
+        this.assertDates(new Locale("ja", "JP", "JP"), "Asia/Tokyo");
+    }
+
+    @Test
+    public void testDateNonAsciiDigits() throws Exception {
+        // Thai digits.
+        this.assertDates(new Locale("th", "TH", "TH"), "Asia/Bangkok");
+    }
+
+    @Test
+    public void testCapacity() {
+        assertEquals("0 Mb/s", Utils.parseCapacity(0));
+        assertEquals("999 Mb/s", Utils.parseCapacity(999));
+        assertEquals("1 Gb/s", Utils.parseCapacity(1000));
+        assertEquals("1 Gb/s", Utils.parseCapacity(1999));
+        assertEquals("10 Mb/s", Utils.parseCapacity(10));
+        assertEquals("100 Gb/s", Utils.parseCapacity(100000));
+        assertEquals("2147483 Gb/s", Utils.parseCapacity(Integer.MAX_VALUE));
+        assertEquals("1 Mb/s HD", Utils.parseCapacity(-1));
+        assertEquals("999 Mb/s HD", Utils.parseCapacity(-999));
+        assertEquals("1 Gb/s HD", Utils.parseCapacity(-1000));
+        assertEquals("40 Gb/s HD", Utils.parseCapacity(-40000));
+        assertEquals("-2147483648 Mb/s HD", Utils.parseCapacity(Integer.MIN_VALUE));
+        assertEquals("x10 Gb/s HD", Utils.appendCapacity(-10000, new StringBuilder("x"))
+                .toString());
+    }
+
+    @Test
+    public void testBitRate() {
+        assertEquals("0 b/s", Utils.parseBitRate(0));
+        assertEquals("999 b/s", Utils.parseBitRate(999));
+        assertEquals("1 Kb/s", Utils.parseBitRate(1000));
+        assertEquals("999 Kb/s", Utils.parseBitRate(999999));
+        assertEquals("1 Mb/s", Utils.parseBitRate(1000000));
+        assertEquals("999 Mb/s", Utils.parseBitRate(999999999));
+        assertEquals("1 Gb/s", Utils.parseBitRate(1000000000));
+        assertEquals("1000 Gb/s", Utils.parseBitRate(1000000000000L));
+        assertEquals("9223372036 Gb/s", Utils.parseBitRate(Long.MAX_VALUE));
+        assertEquals("-1 b/s", Utils.parseBitRate(-1));
+        assertEquals("-1000000 b/s", Utils.parseBitRate(-1000000));
+        assertEquals("x1 Kb/s", Utils.appendBitRate(1500, new StringBuilder("x")).toString());
+    }
+
+    /**
+     * Formats the timestamps with the given defaults and compares the result
+     * with a simple date format. The dates are formatted on a new thread,
+     * since each thread reads the defaults when it formats its first date.
+     *
+     * @param locale
+     *            The default locale.
+     * @param zone
+     *            The ID of the default time zone.
+     * @throws InterruptedException
+     */
+    private void assertDates(Locale locale, String zone) throws InterruptedException {
+        /* The dates formatted by a simple date format. */
+        final List<String> expected = new ArrayList<String>();
+        /* The dates formatted by the helpers. */
+        final List<String> actual = new ArrayList<String>();
+        /* The thread that formats the dates. */
+        Thread thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                /* The string builder the dates are appended to. */
+                StringBuilder out = new StringBuilder();
+
+                for (long timestamp : TIMESTAMPS) {
+                    /* The date as formatted by a simple date format. */
+                    String date = new SimpleDateFormat(Utils.DATE_PATTERN).format(new Date(
+                            timestamp));
+
+                    expected.add(date + "|" + date);
+                    out.setLength(0);
+                    actual.add(Utils.parseDate(timestamp) + "|" + Utils.appendDate(timestamp, out));
+                }
+            }
+        });
+
+        Locale.setDefault(locale);
+        TimeZone.setDefault(TimeZone.getTimeZone(zone));
+        thread.start();
+        thread.join();
+        assertEquals(locale + " " + zone, expected, actual);
+    }
+}